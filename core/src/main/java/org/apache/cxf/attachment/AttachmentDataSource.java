@@ -19,9 +19,14 @@
 
 package org.apache.cxf.attachment;
 
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 
 import jakarta.activation.DataSource;
 import org.apache.cxf.common.util.StringUtils;
@@ -96,6 +101,45 @@ public class AttachmentDataSource implements DataSource {
         }
     }
 
+    /**
+     * Writes the content of the attachment as it was received, without going through the
+     * DataHandler. A content which has been spilled to a temporary file is streamed with
+     * {@link FileChannel#transferTo}, a content held in memory is written with a single write.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        if (cache != null && cache.getTempFile() == null) {
+            cache.writeCacheTo(out);
+            return;
+        }
+        try (InputStream in = getInputStream()) {
+            if (in == null) {
+                throw new IOException("The attachment content is not available");
+            }
+            InputStream source = in;
+            while (source instanceof DelegatingInputStream) {
+                source = ((DelegatingInputStream)source).getInputStream();
+            }
+            if (source instanceof FileInputStream) {
+                transfer(((FileInputStream)source).getChannel(), out);
+            } else {
+                IOUtils.copy(in, out, 16 * 1024);
+            }
+        }
+    }
+
+    private static void transfer(FileChannel channel, OutputStream out) throws IOException {
+        out.flush();
+        final WritableByteChannel target = out instanceof FileOutputStream
+            ? ((FileOutputStream)out).getChannel() : Channels.newChannel(out);
+        final long size = channel.size();
+        long position = channel.position();
+        while (position < size) {
+            position += channel.transferTo(position, size - position, target);
+        }
+        // the stream is consumed
+        channel.position(position);
+    }
+
     public String getName() {
         return name;
     }
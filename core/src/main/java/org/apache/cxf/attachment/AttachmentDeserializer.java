@@ -91,7 +91,8 @@ public class AttachmentDeserializer {
     private static final Pattern INPUT_STREAM_BOUNDARY_PATTERN =
             Pattern.compile("^--(\\S*)$", Pattern.MULTILINE);
 
-    private static final int PUSHBACK_AMOUNT = 2048;
+    // the size of the chunks scanned for the boundary, a boundary is at most 70 characters
+    private static final int PUSHBACK_AMOUNT = 16 * 1024;
 
     private boolean lazyLoading = true;
 
@@ -279,7 +280,7 @@ public class AttachmentDeserializer {
         InputStream origIn = input.getInputStream();
         try (CachedOutputStream out = new CachedOutputStream()) {
             AttachmentUtil.setStreamedAttachmentProperties(message, out);
-            IOUtils.copy(input, out);
+            IOUtils.copy(input, out, PUSHBACK_AMOUNT);
             input.setInputStream(out.getInputStream());
             origIn.close();
         }
@@ -57,7 +57,7 @@ public class AttachmentSerializer {
     private Map<String, List<String>> rootHeaders = Collections.emptyMap();
     private boolean xop = true;
     private boolean writeOptionalTypeParameters = true;
-
+    private boolean passthrough;
 
     public AttachmentSerializer(Message messageParam) {
         message = messageParam;
@@ -339,6 +339,9 @@ public class AttachmentSerializer {
                     try (InputStream inputStream = handler.getInputStream()) {
                         encodeBase64(inputStream, out, IOUtils.DEFAULT_BUFFER_SIZE);
                     }
+                } else if (passthrough && handler.getDataSource() instanceof AttachmentDataSource) {
+                    // a received attachment forwarded as is
+                    ((AttachmentDataSource)handler.getDataSource()).writeTo(out);
                 } else {
                     handler.writeTo(out);
                 }
@@ -400,6 +403,18 @@ public class AttachmentSerializer {
         this.xop = xop;
     }
 
+    public boolean isPassthrough() {
+        return passthrough;
+    }
+
+    /**
+     * Write the binary attachments which have been received by this endpoint straight from
+     * their cached content, bypassing the DataHandler
+     */
+    public void setPassthrough(boolean passthrough) {
+        this.passthrough = passthrough;
+    }
+
     // URL decoder would also decode '+' but according to  RFC-2392 we need to convert
     // only the % encoded character to their equivalent US-ASCII characters. 
     private static String decode(String s, Charset charset) {
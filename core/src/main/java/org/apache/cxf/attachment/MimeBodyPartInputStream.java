@@ -33,6 +33,8 @@ public class MimeBodyPartInputStream extends InputStream {
     byte[] boundaryBuffer;
 
     private boolean closed;
+    private boolean streamEnded;
+    private MimeBoundaryScanner scanner;
 
     public MimeBodyPartInputStream(PushbackInputStream inStreamParam,
                                    byte[] boundaryParam,
@@ -59,12 +61,17 @@ public class MimeBodyPartInputStream extends InputStream {
         if (len == 0) {
             return 0;
         }
+        if (scanner == null) {
+            scanner = new MimeBoundaryScanner(boundary);
+        }
+        // enough to hold CRLF, the boundary, "--" and the line terminator
+        final int minLen = Math.max(2 * boundary.length, boundary.length + 6);
         boolean bufferCreated = false;
-        if (len < Math.addExact(boundary.length, boundary.length)) {
+        if (len < minLen) {
             //buffer is too short to detect boundaries with it.  We'll need to create a larger buffer
             bufferCreated = true;
             if (boundaryBuffer == null) {
-                boundaryBuffer = new byte[Math.addExact(boundary.length, boundary.length)];
+                boundaryBuffer = new byte[minLen];
             }
             b = boundaryBuffer;
             off = 0;
@@ -75,14 +82,15 @@ public class MimeBodyPartInputStream extends InputStream {
         }
         int read = 0;
         int idx = 0;
-        while (read >= 0 && idx < len && idx < Math.addExact(boundary.length, boundary.length)) {
+        while (read >= 0 && idx < len && idx < minLen) {
             //make sure we read enough to detect the boundary
             read = inStream.read(b, off + idx, len - idx);
             if (read != -1) {
                 idx += read;
             }
         }
-        if (read == -1 && idx == 0) {
+        streamEnded = read == -1;
+        if (streamEnded && idx == 0) {
             return -1;
         }
         len = idx;
@@ -104,103 +112,45 @@ public class MimeBodyPartInputStream extends InputStream {
         return i;
     }
 
-    //Has Data after encountering CRLF
-    private boolean hasData(byte[] b, int initialPointer, int pointer, int off, int len)
-        throws IOException {
-        if (pointer < (off + len)) {
-            return true;
-        } else if (pointer >= 1000000000) {
-            inStream.unread(b, initialPointer, (off + len) - initialPointer);
-            return false;
-        } else {
-            int x = inStream.read();
-            if (x != -1) {
-                inStream.unread(x);
-                inStream.unread(b, initialPointer, (off + len) - initialPointer);
-                return false;
-            }
-            return true;
-        }
-    }
-
+    /**
+     * Returns the number of bytes of the buffer which belong to this part. The bytes which
+     * follow the boundary, or which may be the beginning of a boundary, are pushed back.
+     */
     protected int processBuffer(byte[] buffer, int off, int len) throws IOException {
-        for (int i = off; i < (off + len); i++) {
-            boolean needUnread0d0a = false;
-            int value = buffer[i];
-            int initialI = i;
-            if (value == 13) {
-                if (!hasData(buffer, initialI, initialI + 1, off, len)) {
-                    return initialI - off;
-                }
-                value = buffer[initialI + 1];
-                if (value != 10) {
-                    continue;
-                }
-                if (!hasData(buffer, initialI, initialI + 2, off, len)) {
-                    return initialI - off;
-                }
-                value = buffer[initialI + 2];
-                if ((byte) value != boundary[0]) {
-                    i++;
-                    continue;
-                }
-                needUnread0d0a = true;
-                i += 2; //i after this points to boundary[0] element
-            } else if (value != boundary[0]) {
-                continue;
-            }
-
-            int boundaryIndex = 0;
-            while ((boundaryIndex < boundary.length) && (value == boundary[boundaryIndex])) {
-                if (!hasData(buffer, initialI, i + 1, off, len)) {
-                    return initialI - off;
-                }
-                value = buffer[++i];
-                boundaryIndex++;
+        final int end = off + len;
+        final int idx = scanner.indexOf(buffer, off, end);
+        if (idx >= 0) {
+            int dataEnd = idx;
+            if (idx - off >= 2 && buffer[idx - 2] == 13 && buffer[idx - 1] == 10) {
+                // the CRLF preceding the boundary belongs to the boundary
+                dataEnd = idx - 2;
             }
-            if (boundaryIndex == boundary.length) {
-                // read the end of line character
-                if (initialI != off) {
-                    i = 1000000000;
-                }
-                if (initialI - off != 0
-                    && !hasData(buffer, initialI, i + 1, off, len)) {
-                    return initialI - off;
-                }
-                boundaryFound = true;
-                int j = i + 1;
-                if (j < len && buffer[j] == 45 && value == 45) {
-                    // Last mime boundary should have a succeeding "--"
-                    // as we are on it, read the terminating CRLF
-                    i += 2;
-                    //last mime boundary
-                }
-
-                //boundary matched (may or may not be last mime boundary)
-                int processed = initialI - off;
-                if ((len - ((i - off) + 2)) > 0) {
-                    inStream.unread(buffer, i + 2, len - (i + 2) + off);
-                }
-                return processed;
+            if (dataEnd > off) {
+                // return the data, the boundary is consumed by the next read
+                inStream.unread(buffer, dataEnd, end - dataEnd);
+                return dataEnd - off;
             }
-
-            // Boundary not found. Restoring bytes skipped.
-            // write first skipped byte, push back the rest
-            if (value != -1) { //pushing back first byte of boundary
-                // Stream might have ended
-                i--;
+            boundaryFound = true;
+            int next = idx + boundary.length;
+            if (next + 1 < end && buffer[next] == 45 && buffer[next + 1] == 45) {
+                // Last mime boundary should have a succeeding "--"
+                next += 2;
             }
-            if (needUnread0d0a) { //Pushing all,  returning 13
-                i = i - boundaryIndex;
-                i--; //for 10
-//                value = 13;
-            } else {
-                i = i - boundaryIndex;
-                i++;
-//                value = boundary[0];
+            // skip the end of line characters
+            next += 2;
+            if (next < end) {
+                inStream.unread(buffer, next, end - next);
             }
+            return 0;
+        }
+        if (streamEnded) {
+            return len;
+        }
+        final int keep = scanner.partialMatchStart(buffer, off, end);
+        if (keep < end) {
+            inStream.unread(buffer, keep, end - keep);
         }
-        return len;
+        return keep - off;
     }
 
     public int read() throws IOException {
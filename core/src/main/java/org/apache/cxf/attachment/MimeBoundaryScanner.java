@@ -0,0 +1,92 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.attachment;
+
+import java.util.Arrays;
+
+/**
+ * Finds a MIME boundary in a byte buffer with the Boyer-Moore-Horspool algorithm: the skip
+ * table is computed once for the boundary, and most of the bytes of the part content are
+ * skipped instead of being compared one by one.
+ */
+final class MimeBoundaryScanner {
+    private static final byte CR = 13;
+    private static final byte LF = 10;
+
+    private final byte[] boundary;
+    private final int[] skip = new int[256];
+
+    MimeBoundaryScanner(byte[] boundary) {
+        this.boundary = boundary;
+        final int last = boundary.length - 1;
+        Arrays.fill(skip, boundary.length);
+        for (int i = 0; i < last; i++) {
+            skip[boundary[i] & 0xff] = last - i;
+        }
+    }
+
+    int length() {
+        return boundary.length;
+    }
+
+    /**
+     * Returns the index of the first occurrence of the boundary in buf[from, to), or -1
+     */
+    int indexOf(byte[] buf, int from, int to) {
+        final int last = boundary.length - 1;
+        int i = from;
+        while (i + last < to) {
+            int j = last;
+            while (buf[i + j] == boundary[j]) {
+                if (j == 0) {
+                    return i;
+                }
+                j--;
+            }
+            i += skip[buf[i + last] & 0xff];
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the start of the longest tail of buf[from, to) which may be the beginning of the
+     * boundary, optionally preceded by CRLF, and so must be kept until more data is read.
+     * Returns to if there is no such tail.
+     */
+    int partialMatchStart(byte[] buf, int from, int to) {
+        for (int p = Math.max(from, to - boundary.length - 1); p < to; p++) {
+            if (buf[p] == CR && isPrefix(buf, p + 1, to, true)
+                || buf[p] == boundary[0] && isPrefix(buf, p + 1, to, false)) {
+                return p;
+            }
+        }
+        return to;
+    }
+
+    private boolean isPrefix(byte[] buf, int from, int to, boolean afterCR) {
+        int b = afterCR ? -1 : 1;
+        for (int i = from; i < to; i++, b++) {
+            if (b >= boundary.length || buf[i] != (b == -1 ? LF : boundary[b])) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,70 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.common.util;
+
+/**
+ * Maps non negative values to log-linear buckets, as done by HdrHistogram: the values below
+ * 2^subBucketBits have a bucket each, and each higher power of two is split into
+ * 2^subBucketBits buckets, so that the highest value of a bucket is within
+ * 2^-subBucketBits of its lowest one. This allows recording distributions of latencies in
+ * a fixed array of counters, without locking nor allocating.
+ */
+public final class LogLinearBuckets {
+    private final int subBucketBits;
+    private final int subBuckets;
+
+    public LogLinearBuckets(int subBucketBits) {
+        if (subBucketBits < 1 || subBucketBits > 16) {
+            throw new IllegalArgumentException("The sub-bucket bits must be between 1 and 16");
+        }
+        this.subBucketBits = subBucketBits;
+        this.subBuckets = 1 << subBucketBits;
+    }
+
+    /**
+     * Returns the number of buckets needed to record the values up to maxValue
+     */
+    public int getBucketCount(long maxValue) {
+        return indexOf(maxValue) + 1;
+    }
+
+    /**
+     * Returns the index of the bucket of the given value, which must not be negative
+     */
+    public int indexOf(long value) {
+        if (value < subBuckets) {
+            return (int)value;
+        }
+        final int shift = 63 - Long.numberOfLeadingZeros(value) - subBucketBits;
+        return (shift + 1) * subBuckets + (int)(value >>> shift) - subBuckets;
+    }
+
+    /**
+     * Returns the highest value counted in the given bucket
+     */
+    public long highestValue(int index) {
+        if (index < subBuckets) {
+            return index;
+        }
+        final int shift = index / subBuckets - 1;
+        final long subBucket = index % subBuckets + subBuckets;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -42,6 +42,12 @@ public class AttachmentOutInterceptor extends AbstractPhaseInterceptor<Message>
     
     public static final String WRITE_OPTIONAL_TYPE_PARAMETERS = "write.optional.type.parameters";
 
+    /**
+     * Stream the attachments received by a mediation endpoint from their cached content
+     * when they are forwarded unchanged.
+     */
+    public static final String ATTACHMENT_PASSTHROUGH = "attachment.passthrough";
+
     private static final ResourceBundle BUNDLE = BundleUtils.getBundle(AttachmentOutInterceptor.class);
 
     private AttachmentOutEndingInterceptor ending = new AttachmentOutEndingInterceptor();
@@ -81,6 +87,7 @@ public class AttachmentOutInterceptor extends AbstractPhaseInterceptor<Message>
                                      writeOptionalTypeParameters(),
                                      getRootHeaders());
         serializer.setXop(mtomEnabled);
+        serializer.setPassthrough(MessageUtils.getContextualBoolean(message, ATTACHMENT_PASSTHROUGH, false));
         String contentTransferEncoding = (String)message.getContextualProperty(
                                             org.apache.cxf.message.Message.CONTENT_TRANSFER_ENCODING);
         if (contentTransferEncoding != null) {
@@ -0,0 +1,99 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.phase;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The time spent in the handleMessage method of the interceptors with a given id in a phase,
+ * as recorded by {@link InterceptorTimings}.
+ */
+public final class InterceptorTiming {
+    private final String phase;
+    private final String id;
+    private final LongAdder invocations = new LongAdder();
+    private final LongAdder wallTime = new LongAdder();
+    private final LongAdder cpuTime = new LongAdder();
+    private final LongAccumulator maxWallTime = new LongAccumulator(Long::max, 0);
+
+    InterceptorTiming(String phase, String id) {
+        this.phase = phase;
+        this.id = id;
+    }
+
+    void record(long wall, long cpu) {
+        invocations.increment();
+        wallTime.add(wall);
+        maxWallTime.accumulate(wall);
+        if (cpu > 0) {
+            cpuTime.add(cpu);
+        }
+    }
+
+    void reset() {
+        invocations.reset();
+        wallTime.reset();
+        cpuTime.reset();
+        maxWallTime.reset();
+    }
+
+    public String getPhase() {
+        return phase;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Returns the number of timed invocations
+     */
+    public long getInvocations() {
+        return invocations.sum();
+    }
+
+    /**
+     * Returns the wall clock time of the timed invocations in nanoseconds
+     */
+    public long getWallTime() {
+        return wallTime.sum();
+    }
+
+    /**
+     * Returns the CPU time of the timed invocations in nanoseconds, if measured
+     */
+    public long getCpuTime() {
+        return cpuTime.sum();
+    }
+
+    public long getMaxWallTime() {
+        return maxWallTime.get();
+    }
+
+    @Override
+    public String toString() {
+        final long count = getInvocations();
+        return phase + ':' + id + " invocations=" + count
+            + " wallTime=" + getWallTime() + " cpuTime=" + getCpuTime()
+            + " avgWallTime=" + (count == 0 ? 0 : getWallTime() / count)
+            + " maxWallTime=" + getMaxWallTime();
+    }
+}
@@ -0,0 +1,187 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.phase;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.common.logging.LogUtils;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.Message;
+
+/**
+ * Records the time spent by the interceptors of the chains of a bus, per interceptor id and
+ * phase. The timings are enabled by setting an instance as the {@link #PROPERTY} property of
+ * the bus. Only one out of sample rate chain executions is timed, so that the cost of the
+ * timings stays low, and the timed invocations are also emitted as JFR events when the
+ * "org.apache.cxf.Interceptor" event is enabled in a recording.
+ */
+public class InterceptorTimings {
+    public static final String PROPERTY = InterceptorTimings.class.getName();
+    public static final int DEFAULT_SAMPLE_RATE = 16;
+
+
+    private final Map<String, InterceptorTiming> timings = new ConcurrentHashMap<>();
+    private volatile int sampleRate = DEFAULT_SAMPLE_RATE;
+    private volatile boolean cpuTime;
+
+    /**
+     * Returns the timings of the bus of the message if the current chain execution is to be
+     * timed, or null
+     */
+    public static InterceptorTimings getSampled(Message message) {
+        final Exchange exchange = message == null ? null : message.getExchange();
+        final Bus bus = exchange == null ? null : exchange.getBus();
+        if (bus == null) {
+            return null;
+        }
+        final Object timings = bus.getProperty(PROPERTY);
+        if (timings instanceof InterceptorTimings && ((InterceptorTimings)timings).isSampled()) {
+            return (InterceptorTimings)timings;
+        }
+        return null;
+    }
+
+    /**
+     * Sets the timings of the bus, or disables them if null
+     */
+    public static void setTimings(Bus bus, InterceptorTimings timings) {
+        bus.setProperty(PROPERTY, timings);
+    }
+
+    public static InterceptorTimings getTimings(Bus bus) {
+        final Object timings = bus.getProperty(PROPERTY);
+        return timings instanceof InterceptorTimings ? (InterceptorTimings)timings : null;
+    }
+
+    /**
+     * Invokes the interceptor and records the time it took
+     */
+    public void handleMessage(PhaseInterceptor<Message> interceptor, Message message) {
+        InterceptorTimingEvent event = null;
+        if (Jfr.AVAILABLE) {
+            event = new InterceptorTimingEvent();
+            if (event.isEnabled()) {
+                event.begin();
+            } else {
+                event = null;
+            }
+        }
+        final boolean cpu = cpuTime;
+        final long cpuStart = cpu ? Threads.MX_BEAN.getCurrentThreadCpuTime() : 0;
+        final long start = System.nanoTime();
+        try {
+            interceptor.handleMessage(message);
+        } finally {
+            final long wall = System.nanoTime() - start;
+            final long cpuEnd = cpu ? Threads.MX_BEAN.getCurrentThreadCpuTime() : 0;
+            getTiming(interceptor.getPhase(), interceptor.getId()).record(wall, cpuEnd - cpuStart);
+            if (event != null) {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.phase = interceptor.getPhase();
+                    event.interceptor = interceptor.getId();
+                    event.commit();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the timings recorded so far, by decreasing wall clock time
+     */
+    public List<InterceptorTiming> getTimings() {
+        final List<InterceptorTiming> list = new ArrayList<>(timings.values());
+        list.sort((t1, t2) -> Long.compare(t2.getWallTime(), t1.getWallTime()));
+        return Collections.unmodifiableList(list);
+    }
+
+    public InterceptorTiming getTiming(String phase, String id) {
+        return timings.computeIfAbsent(phase + ':' + id, k -> new InterceptorTiming(phase, id));
+    }
+
+    public void reset() {
+        for (InterceptorTiming timing : timings.values()) {
+            timing.reset();
+        }
+    }
+
+    /**
+     * Times one out of sampleRate chain executions, 1 to time all of them
+     */
+    public void setSampleRate(int sampleRate) {
+        if (sampleRate < 1) {
+            throw new IllegalArgumentException("The sample rate must be positive");
+        }
+        this.sampleRate = sampleRate;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * Whether the CPU time of the interceptors is measured as well, if the JVM supports it
+     */
+    public void setCpuTime(boolean cpuTime) {
+        this.cpuTime = cpuTime && Threads.MX_BEAN.isCurrentThreadCpuTimeSupported();
+    }
+
+    public boolean isCpuTime() {
+        return cpuTime;
+    }
+
+    boolean isSampled() {
+        final int rate = sampleRate;
+        return rate == 1 || ThreadLocalRandom.current().nextInt(rate) == 0;
+    }
+
+    /**
+     * Holders initialized on first use, so that the chains of a bus without timings never load
+     * the thread MXBean nor probe for JFR
+     */
+    private static final class Threads {
+        static final ThreadMXBean MX_BEAN = ManagementFactory.getThreadMXBean();
+    }
+
+    private static final class Jfr {
+        static final boolean AVAILABLE = isAvailable();
+
+        private static boolean isAvailable() {
+            try {
+                new InterceptorTimingEvent().isEnabled();
+                return true;
+            } catch (Throwable t) {
+                Logger log = LogUtils.getL7dLogger(InterceptorTimings.class);
+                log.log(Level.FINE, "JFR events are not available", t);
+                return false;
+            }
+        }
+    }
+}
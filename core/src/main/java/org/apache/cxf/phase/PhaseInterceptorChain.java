@@ -297,6 +297,7 @@ public class PhaseInterceptorChain implements InterceptorChain {
                 && message.getExchange() != oldMessage.getExchange()) {
                 message.put(PREVIOUS_MESSAGE, new WeakReference<Message>(oldMessage));
             }
+            final InterceptorTimings timings = InterceptorTimings.getSampled(message);
             while (state == State.EXECUTING && iterator.hasNext()) {
                 try {
                     Interceptor<Message> currentInterceptor = (Interceptor<Message>)iterator.next();
@@ -304,7 +305,11 @@ public class PhaseInterceptorChain implements InterceptorChain {
                         LOG.fine("Invoking handleMessage on interceptor " + currentInterceptor);
                     }
                     //System.out.println("-----------" + currentInterceptor);
-                    currentInterceptor.handleMessage(message);
+                    if (timings == null) {
+                        currentInterceptor.handleMessage(message);
+                    } else {
+                        timings.handleMessage((PhaseInterceptor<Message>)currentInterceptor, message);
+                    }
                     if (state == State.SUSPENDED) {
                          // throw the exception to make sure thread exit without interrupt
                         throw new SuspendedInvocationException();
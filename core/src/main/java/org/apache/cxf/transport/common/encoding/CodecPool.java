@@ -0,0 +1,71 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.common.encoding;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Bounded pool of compression contexts such as {@link java.util.zip.Deflater} and
+ * {@link java.util.zip.Inflater}, which hold native memory and are expensive to create.
+ * Released contexts are reset before being pooled, the ones which do not fit in the
+ * pool are ended.
+ */
+final class CodecPool<T> {
+    private final Queue<T> pool = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final Supplier<T> factory;
+    private final Consumer<T> reset;
+    private final Consumer<T> end;
+    private final int maxSize;
+
+    CodecPool(Supplier<T> factory, Consumer<T> reset, Consumer<T> end, int maxSize) {
+        this.factory = factory;
+        this.reset = reset;
+        this.end = end;
+        this.maxSize = maxSize;
+    }
+
+    T acquire() {
+        final T codec = pool.poll();
+        if (codec == null) {
+            return factory.get();
+        }
+        size.decrementAndGet();
+        return codec;
+    }
+
+    void release(T codec) {
+        reset.accept(codec);
+        if (size.incrementAndGet() <= maxSize) {
+            pool.offer(codec);
+        } else {
+            size.decrementAndGet();
+            end.accept(codec);
+        }
+    }
+
+    int size() {
+        return size.get();
+    }
+}
@@ -0,0 +1,58 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.common.encoding;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * An HTTP content-coding (RFC 7231, 3.1.2.1) such as gzip, deflate, br or zstd.
+ * Implementations are registered with {@link ContentCodings}.
+ */
+public interface ContentCoding {
+
+    /**
+     * The content-coding name as used in the Content-Encoding and Accept-Encoding headers
+     */
+    String getName();
+
+    /**
+     * Returns true if the messages can be compressed with this coding in this runtime,
+     * codings relying on optional libraries may only support decoding or nothing at all
+     */
+    boolean canEncode();
+
+    /**
+     * Returns true if the messages compressed with this coding can be decoded in this runtime
+     */
+    boolean canDecode();
+
+    /**
+     * Wraps the stream so that the data written to it is compressed. Closing the returned
+     * stream must finish the compression and close the wrapped stream.
+     */
+    OutputStream encode(OutputStream os) throws IOException;
+
+    /**
+     * Wraps the stream so that the data read from it is decompressed
+     */
+    InputStream decode(InputStream is) throws IOException;
+}
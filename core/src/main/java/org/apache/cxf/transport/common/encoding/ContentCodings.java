@@ -0,0 +1,90 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.common.encoding;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.Deflater;
+
+import org.apache.cxf.common.util.SystemPropertyAction;
+
+/**
+ * Registry of the content-codings known to {@link ContentEncodingInInterceptor} and
+ * {@link ContentEncodingOutInterceptor}. gzip, x-gzip and deflate are always available,
+ * br and zstd are registered as well but only usable when brotli4j (or org.brotli:dec for
+ * decoding only) and zstd-jni are on the classpath. Additional codings can be registered
+ * by the applications.
+ */
+public final class ContentCodings {
+    public static final String IDENTITY = "identity";
+    public static final String GZIP = "gzip";
+    public static final String X_GZIP = "x-gzip";
+    public static final String DEFLATE = "deflate";
+    public static final String BR = "br";
+    public static final String ZSTD = "zstd";
+
+    /**
+     * The maximum number of idle Deflater/Inflater instances kept per coding
+     */
+    public static final String POOL_SIZE_PROPERTY = "org.apache.cxf.transport.common.encoding.poolSize";
+
+    /**
+     * The compression level used by gzip and deflate, defaults to {@link Deflater#DEFAULT_COMPRESSION}
+     */
+    public static final String LEVEL_PROPERTY = "org.apache.cxf.transport.common.encoding.level";
+
+    private static final Map<String, ContentCoding> CODINGS = new ConcurrentHashMap<>();
+
+    static {
+        final int poolSize = SystemPropertyAction.getInteger(POOL_SIZE_PROPERTY,
+                                                             Runtime.getRuntime().availableProcessors() * 2);
+        final int level = SystemPropertyAction.getInteger(LEVEL_PROPERTY, Deflater.DEFAULT_COMPRESSION);
+        register(DeflateContentCoding.gzip(GZIP, level, poolSize));
+        register(DeflateContentCoding.gzip(X_GZIP, level, poolSize));
+        register(DeflateContentCoding.deflate(level, poolSize));
+        register(ReflectiveContentCoding.brotli());
+        register(ReflectiveContentCoding.zstd());
+    }
+
+    private ContentCodings() {
+    }
+
+    public static void register(ContentCoding coding) {
+        CODINGS.put(coding.getName().toLowerCase(Locale.ENGLISH), coding);
+    }
+
+    public static ContentCoding unregister(String name) {
+        return CODINGS.remove(name.toLowerCase(Locale.ENGLISH));
+    }
+
+    /**
+     * Returns the coding with the given name, or null if it is unknown
+     */
+    public static ContentCoding get(String name) {
+        return CODINGS.get(name.trim().toLowerCase(Locale.ENGLISH));
+    }
+
+    public static Collection<ContentCoding> getAll() {
+        return Collections.unmodifiableCollection(CODINGS.values());
+    }
+}
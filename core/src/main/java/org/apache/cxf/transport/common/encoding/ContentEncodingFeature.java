@@ -0,0 +1,155 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.common.encoding;
+
+import java.util.List;
+import java.util.Set;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.annotations.Provider;
+import org.apache.cxf.common.injection.NoJSR250Annotations;
+import org.apache.cxf.feature.AbstractPortableFeature;
+import org.apache.cxf.feature.DelegatingFeature;
+import org.apache.cxf.interceptor.InterceptorProvider;
+
+/**
+ * This class is used to control the compression of messages with gzip, deflate, br or zstd.
+ * It is the multi-coding counterpart of {@link org.apache.cxf.transport.common.gzip.GZIPFeature}
+ * and must not be combined with it.
+ * <pre>{@code
+ * <jaxws:endpoint ...>
+ *   <jaxws:features>
+ *     <bean class="org.apache.cxf.transport.common.encoding.ContentEncodingFeature">
+ *       <property name="compressibleMediaTypes">
+ *         <set><value>text/*</value><value>application/json</value></set>
+ *       </property>
+ *     </bean>
+ *   </jaxws:features>
+ * </jaxws:endpoint>
+ * }</pre>
+ * Endpoints decode compressed requests and compress the responses with the best coding
+ * accepted by the client. Clients advertise the codings they can decode and compress the
+ * requests once the server has compressed a response, or always if forced.
+ */
+@NoJSR250Annotations
+@Provider(value = Provider.Type.Feature)
+public class ContentEncodingFeature extends DelegatingFeature<ContentEncodingFeature.Portable> {
+
+    public ContentEncodingFeature() {
+        super(new Portable());
+    }
+
+    public void setThreshold(int threshold) {
+        delegate.setThreshold(threshold);
+    }
+
+    public int getThreshold() {
+        return delegate.getThreshold();
+    }
+
+    public void setForce(boolean b) {
+        delegate.setForce(b);
+    }
+
+    public boolean getForce() {
+        return delegate.getForce();
+    }
+
+    public void setRequestCoding(String coding) {
+        delegate.setRequestCoding(coding);
+    }
+
+    public String getRequestCoding() {
+        return delegate.getRequestCoding();
+    }
+
+    public void setPreferredCodings(List<String> codings) {
+        delegate.setPreferredCodings(codings);
+    }
+
+    public List<String> getPreferredCodings() {
+        return delegate.getPreferredCodings();
+    }
+
+    public void setCompressibleMediaTypes(Set<String> mediaTypes) {
+        delegate.setCompressibleMediaTypes(mediaTypes);
+    }
+
+    public Set<String> getCompressibleMediaTypes() {
+        return delegate.getCompressibleMediaTypes();
+    }
+
+    public static class Portable implements AbstractPortableFeature {
+        private static final ContentEncodingInInterceptor IN = new ContentEncodingInInterceptor();
+
+        private final ContentEncodingOutInterceptor out = new ContentEncodingOutInterceptor();
+
+        @Override
+        public void doInitializeProvider(InterceptorProvider provider, Bus bus) {
+            provider.getInInterceptors().add(IN);
+            provider.getInFaultInterceptors().add(IN);
+            provider.getOutInterceptors().add(out);
+            provider.getOutFaultInterceptors().add(out);
+        }
+
+        public void setThreshold(int threshold) {
+            out.setThreshold(threshold);
+        }
+
+        public int getThreshold() {
+            return out.getThreshold();
+        }
+
+        /**
+         * Compress the client requests without negotiation
+         */
+        public void setForce(boolean b) {
+            out.setForce(b);
+        }
+
+        public boolean getForce() {
+            return out.getForce();
+        }
+
+        public void setRequestCoding(String coding) {
+            out.setRequestCoding(coding);
+        }
+
+        public String getRequestCoding() {
+            return out.getRequestCoding();
+        }
+
+        public void setPreferredCodings(List<String> codings) {
+            out.setPreferredCodings(codings);
+        }
+
+        public List<String> getPreferredCodings() {
+            return out.getPreferredCodings();
+        }
+
+        public void setCompressibleMediaTypes(Set<String> mediaTypes) {
+            out.setCompressibleMediaTypes(mediaTypes);
+        }
+
+        public Set<String> getCompressibleMediaTypes() {
+            return out.getCompressibleMediaTypes();
+        }
+    }
+}
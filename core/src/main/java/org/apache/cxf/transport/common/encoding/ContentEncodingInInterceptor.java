@@ -0,0 +1,139 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.common.encoding;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.logging.Logger;
+
+import org.apache.cxf.common.i18n.BundleUtils;
+import org.apache.cxf.common.logging.LogUtils;
+import org.apache.cxf.endpoint.Endpoint;
+import org.apache.cxf.helpers.CastUtils;
+import org.apache.cxf.helpers.HttpHeaderHelper;
+import org.apache.cxf.interceptor.AttachmentInInterceptor;
+import org.apache.cxf.interceptor.Fault;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.phase.AbstractPhaseInterceptor;
+import org.apache.cxf.phase.Phase;
+import org.apache.cxf.transport.common.gzip.GZIPOutInterceptor;
+
+/**
+ * CXF interceptor that decodes the incoming messages compressed with any of the
+ * content-codings registered with {@link ContentCodings}. Stacked codings such as
+ * "deflate, gzip" are decoded in the reverse order of their application, the message is
+ * left untouched if one of the codings is unknown. On clients, the coding of a compressed
+ * response is recorded on the endpoint so that {@link ContentEncodingOutInterceptor}
+ * compresses the following requests with it.
+ */
+public class ContentEncodingInInterceptor extends AbstractPhaseInterceptor<Message> {
+
+    private static final ResourceBundle BUNDLE = BundleUtils.getBundle(ContentEncodingInInterceptor.class);
+    private static final Logger LOG = LogUtils.getL7dLogger(ContentEncodingInInterceptor.class);
+
+    public ContentEncodingInInterceptor() {
+        super(Phase.RECEIVE);
+        addBefore(AttachmentInInterceptor.class.getName());
+    }
+
+    public void handleMessage(Message message) {
+        if (isGET(message)) {
+            return;
+        }
+        final Map<String, List<String>> protocolHeaders = CastUtils.cast((Map<?, ?>)message
+            .get(Message.PROTOCOL_HEADERS));
+        if (protocolHeaders == null) {
+            return;
+        }
+        List<String> contentEncoding = HttpHeaderHelper.getHeader(protocolHeaders,
+                                                                  HttpHeaderHelper.CONTENT_ENCODING);
+        if (contentEncoding == null) {
+            contentEncoding = protocolHeaders.get(GZIPOutInterceptor.SOAP_JMS_CONTENTENCODING);
+        }
+        if (contentEncoding == null || contentEncoding.isEmpty()) {
+            return;
+        }
+        final List<ContentCoding> codings = getCodings(contentEncoding);
+        if (codings == null || codings.isEmpty()) {
+            return;
+        }
+        final Integer responseCode = (Integer)message.get(Message.RESPONSE_CODE);
+        if (responseCode != null && responseCode == 204) {
+            return;
+        }
+        InputStream is = message.getContent(InputStream.class);
+        if (is == null) {
+            return;
+        }
+        try {
+            LOG.fine("Decoding message");
+            for (int i = codings.size() - 1; i >= 0; i--) {
+                is = codings.get(i).decode(is);
+            }
+            message.setContent(InputStream.class, is);
+        } catch (IOException ex) {
+            throw new Fault(new org.apache.cxf.common.i18n.Message("COULD_NOT_DECODE", BUNDLE,
+                                                                   contentEncoding), ex);
+        }
+
+        // remove content encoding header as we've now dealt with it
+        for (Iterator<String> it = protocolHeaders.keySet().iterator(); it.hasNext();) {
+            if (HttpHeaderHelper.CONTENT_ENCODING.equalsIgnoreCase(it.next())) {
+                it.remove();
+                break;
+            }
+        }
+
+        if (isRequestor(message) && codings.size() == 1 && codings.get(0).canEncode()) {
+            // the server understands this coding, the following requests can use it
+            final Endpoint ep = message.getExchange().getEndpoint();
+            if (ep != null) {
+                ep.put(ContentEncodingOutInterceptor.CONTENT_CODING_KEY, codings.get(0).getName());
+            }
+        }
+    }
+
+    /**
+     * Returns the codings in the order they have been applied, or null if one of them
+     * is not known or can not be decoded
+     */
+    private static List<ContentCoding> getCodings(List<String> contentEncoding) {
+        final List<ContentCoding> codings = new ArrayList<>(1);
+        for (String headerLine : contentEncoding) {
+            for (String name : GZIPOutInterceptor.ENCODINGS.split(headerLine.trim())) {
+                if (name.isEmpty() || ContentCodings.IDENTITY.equalsIgnoreCase(name)) {
+                    continue;
+                }
+                final ContentCoding coding = ContentCodings.get(name);
+                if (coding == null || !coding.canDecode()) {
+                    LOG.fine("Unsupported content coding " + name + ", not decoding");
+                    return null;
+                }
+                codings.add(coding);
+            }
+        }
+        return codings;
+    }
+}
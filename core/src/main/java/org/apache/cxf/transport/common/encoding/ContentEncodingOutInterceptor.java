@@ -0,0 +1,365 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.common.encoding;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.cxf.common.i18n.BundleUtils;
+import org.apache.cxf.common.logging.LogUtils;
+import org.apache.cxf.helpers.CastUtils;
+import org.apache.cxf.helpers.HttpHeaderHelper;
+import org.apache.cxf.interceptor.Fault;
+import org.apache.cxf.interceptor.MessageSenderInterceptor;
+import org.apache.cxf.io.AbstractThresholdOutputStream;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageUtils;
+import org.apache.cxf.phase.AbstractPhaseInterceptor;
+import org.apache.cxf.phase.Phase;
+import org.apache.cxf.transport.common.gzip.GZIPOutInterceptor;
+
+/**
+ * CXF interceptor that compresses outgoing messages with any of the content-codings
+ * registered with {@link ContentCodings}. In server mode the coding is negotiated from the
+ * Accept-Encoding header of the request, honouring the q-values and, on ties, the server
+ * preference order given by {@link #setPreferredCodings(List)} (zstd, br, gzip and deflate by
+ * default, skipping the codings which can not be used in this runtime). In client mode the
+ * decodable codings are advertised in Accept-Encoding and the requests are compressed with
+ * the {@link #setRequestCoding(String) request coding} if forced, if the
+ * {@link #CONTENT_CODING_KEY} contextual property is set, or once the server has shown that
+ * it understands it by compressing a response.
+ * <p>
+ * Messages smaller than the {@link #setThreshold(int) threshold} (default 1kB) and, if set,
+ * messages whose media type does not match one of the
+ * {@link #setCompressibleMediaTypes(Set) compressible media types} are not compressed.
+ * Use {@link ContentEncodingInInterceptor} to decode the incoming messages.
+ */
+public class ContentEncodingOutInterceptor extends AbstractPhaseInterceptor<Message> {
+
+    /**
+     * Key under which the name of the coding to use is stored on the message, or on the
+     * client endpoint when the server has compressed a response
+     */
+    public static final String CONTENT_CODING_KEY = ContentEncodingOutInterceptor.class.getName()
+                                                    + ".contentCoding";
+
+    private static final ResourceBundle BUNDLE = BundleUtils.getBundle(ContentEncodingOutInterceptor.class);
+    private static final Logger LOG = LogUtils.getL7dLogger(ContentEncodingOutInterceptor.class);
+
+    private static final List<String> DEFAULT_PREFERRED_CODINGS = Arrays.asList(
+        ContentCodings.ZSTD, ContentCodings.BR, ContentCodings.GZIP, ContentCodings.DEFLATE);
+
+    /**
+     * Compression threshold in bytes - messages smaller than this will not be compressed
+     */
+    private int threshold = 1024;
+    private boolean force;
+    private String requestCoding = ContentCodings.GZIP;
+    private List<String> preferredCodings = DEFAULT_PREFERRED_CODINGS;
+    private Set<String> compressibleMediaTypes;
+
+    public ContentEncodingOutInterceptor() {
+        super(Phase.PREPARE_SEND);
+        addAfter(MessageSenderInterceptor.class.getName());
+    }
+
+    public void handleMessage(Message message) {
+        final boolean requestor = MessageUtils.isRequestor(message);
+        if (requestor) {
+            // the response may be compressible even if the request is not
+            addHeader(message, HttpHeaderHelper.ACCEPT_ENCODING, getAcceptEncoding());
+        }
+        if (!isCompressible(message)) {
+            return;
+        }
+        final Selection selection = requestor ? selectRequestCoding(message) : selectResponseCoding(message);
+        if (selection == null) {
+            return;
+        }
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine("Content coding selected: " + selection.coding.getName() + ", forced: " + selection.force);
+        }
+        final OutputStream os = message.getContent(OutputStream.class);
+        if (os == null) {
+            return;
+        }
+        // an empty message is never compressed, even if forced
+        message.setContent(OutputStream.class,
+            new EncodingThresholdOutputStream(selection.force ? 0 : threshold, os, selection.coding, message));
+    }
+
+    private boolean isCompressible(Message message) {
+        if (compressibleMediaTypes == null) {
+            return true;
+        }
+        final Object contentType = message.get(Message.CONTENT_TYPE);
+        if (!(contentType instanceof String)) {
+            return true;
+        }
+        String mediaType = (String)contentType;
+        final int idx = mediaType.indexOf(';');
+        if (idx >= 0) {
+            mediaType = mediaType.substring(0, idx);
+        }
+        mediaType = mediaType.trim().toLowerCase(Locale.ENGLISH);
+        final int slash = mediaType.indexOf('/');
+        return compressibleMediaTypes.contains(mediaType)
+            || slash > 0 && compressibleMediaTypes.contains(mediaType.substring(0, slash) + "/*")
+            || compressibleMediaTypes.contains("*/*");
+    }
+
+    private Selection selectRequestCoding(Message message) {
+        String name = null;
+        final Object o = message.getContextualProperty(CONTENT_CODING_KEY);
+        if (o instanceof String) {
+            name = (String)o;
+        } else if (force) {
+            name = requestCoding;
+        }
+        if (name == null) {
+            return null;
+        }
+        final ContentCoding coding = ContentCodings.get(name);
+        if (coding == null || !coding.canEncode()) {
+            LOG.fine("Content coding " + name + " is not available, not compressing");
+            return null;
+        }
+        return new Selection(coding, false);
+    }
+
+    /**
+     * Negotiates the coding of the response, see
+     * <a href="https://www.rfc-editor.org/rfc/rfc7231#section-5.3.4">section 5.3.4 of RFC 7231</a>.
+     *
+     * @throws Fault if the Accept-Encoding header does not allow identity nor any coding
+     *               that can be used
+     */
+    private Selection selectResponseCoding(Message message) {
+        final Message request = message.getExchange().getInMessage();
+        if (request == null) {
+            return null;
+        }
+        final Map<String, List<String>> requestHeaders = CastUtils.cast((Map<?, ?>)request
+            .get(Message.PROTOCOL_HEADERS));
+        if (requestHeaders == null) {
+            return null;
+        }
+        final List<String> jmsEncodingHeader = requestHeaders.get(GZIPOutInterceptor.SOAP_JMS_CONTENTENCODING);
+        if (jmsEncodingHeader != null && jmsEncodingHeader.contains(ContentCodings.GZIP)) {
+            return new Selection(ContentCodings.get(ContentCodings.GZIP), false);
+        }
+        final List<String> acceptEncoding = HttpHeaderHelper.getHeader(requestHeaders,
+                                                                       HttpHeaderHelper.ACCEPT_ENCODING);
+        if (acceptEncoding == null) {
+            LOG.fine("No accept-encoding header");
+            return null;
+        }
+        final Map<String, Float> qValues = parseAcceptEncoding(acceptEncoding);
+        final Float any = qValues.get("*");
+
+        ContentCoding selected = null;
+        float selectedQ = 0;
+        for (String name : preferredCodings) {
+            ContentCoding coding = ContentCodings.get(name);
+            if (coding == null || !coding.canEncode()) {
+                continue;
+            }
+            float q = qValue(qValues, coding.getName(), any);
+            if (q <= 0 && ContentCodings.GZIP.equals(coding.getName())) {
+                // x-gzip is equivalent to gzip
+                q = qValue(qValues, ContentCodings.X_GZIP, null);
+                if (q > 0) {
+                    coding = ContentCodings.get(ContentCodings.X_GZIP);
+                }
+            }
+            if (q > selectedQ) {
+                selected = coding;
+                selectedQ = q;
+            }
+        }
+
+        final Float identity = qValues.get(ContentCodings.IDENTITY);
+        final boolean identityEnabled = identity != null ? identity > 0 : any == null || any > 0;
+        if (selected == null) {
+            if (!identityEnabled) {
+                throw new Fault(new org.apache.cxf.common.i18n.Message("NO_SUPPORTED_ENCODING", BUNDLE));
+            }
+            return null;
+        }
+        return new Selection(selected, !identityEnabled);
+    }
+
+    private static float qValue(Map<String, Float> qValues, String name, Float any) {
+        final Float q = qValues.get(name);
+        if (q != null) {
+            return q;
+        }
+        return any != null ? any : 0;
+    }
+
+    static Map<String, Float> parseAcceptEncoding(List<String> headerLines) {
+        final Map<String, Float> qValues = new HashMap<>();
+        for (String headerLine : headerLines) {
+            for (String enc : GZIPOutInterceptor.ENCODINGS.split(headerLine.trim())) {
+                float q = 1;
+                String name = enc;
+                final int idx = enc.indexOf(';');
+                if (idx >= 0) {
+                    name = enc.substring(0, idx);
+                    final String params = enc.substring(idx + 1).trim();
+                    if (params.startsWith("q=")) {
+                        try {
+                            q = Float.parseFloat(params.substring(2).trim());
+                        } catch (NumberFormatException ex) {
+                            LOG.fine("Invalid q-value in Accept-Encoding: " + enc);
+                        }
+                    }
+                }
+                name = name.trim().toLowerCase(Locale.ENGLISH);
+                if (!name.isEmpty()) {
+                    qValues.put(name, q);
+                }
+            }
+        }
+        return qValues;
+    }
+
+    private String getAcceptEncoding() {
+        final StringBuilder sb = new StringBuilder();
+        for (String name : preferredCodings) {
+            final ContentCoding coding = ContentCodings.get(name);
+            if (coding != null && coding.canDecode()) {
+                sb.append(coding.getName()).append(";q=1.0, ");
+            }
+        }
+        return sb.append("identity;q=0.5, *;q=0").toString();
+    }
+
+    private static final class Selection {
+        final ContentCoding coding;
+        final boolean force;
+
+        Selection(ContentCoding coding, boolean force) {
+            this.coding = coding;
+            this.force = force;
+        }
+    }
+
+    static class EncodingThresholdOutputStream extends AbstractThresholdOutputStream {
+        private final ContentCoding coding;
+        private final Message message;
+
+        EncodingThresholdOutputStream(int t, OutputStream orig, ContentCoding coding, Message message) {
+            super(t);
+            super.wrappedStream = orig;
+            this.coding = coding;
+            this.message = message;
+        }
+
+        @Override
+        public void thresholdNotReached() {
+            LOG.fine("Message is smaller than compression threshold, not compressing.");
+        }
+
+        @Override
+        public void thresholdReached() throws IOException {
+            LOG.fine("Compressing message.");
+            addHeader(message, HttpHeaderHelper.CONTENT_ENCODING, coding.getName());
+            // if this is a response message, add the Vary header
+            if (!MessageUtils.isRequestor(message)) {
+                addHeader(message, "Vary", HttpHeaderHelper.ACCEPT_ENCODING);
+            }
+            wrappedStream = coding.encode(wrappedStream);
+        }
+    }
+
+    private static void addHeader(Message message, String name, String value) {
+        Map<String, List<String>> headers = CastUtils.cast((Map<?, ?>)message.get(Message.PROTOCOL_HEADERS));
+        if (headers == null) {
+            headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            message.put(Message.PROTOCOL_HEADERS, headers);
+        }
+        //ensure header List is modifiable
+        final List<String> header = new ArrayList<>(headers.computeIfAbsent(name, k -> new ArrayList<>()));
+        headers.put(name, header);
+        if (!header.contains(value)) {
+            header.add(value);
+        }
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    public void setThreshold(int threshold) {
+        this.threshold = threshold;
+    }
+
+    public boolean getForce() {
+        return force;
+    }
+
+    /**
+     * Compress the client requests with the request coding without waiting for a compressed
+     * response from the server
+     */
+    public void setForce(boolean force) {
+        this.force = force;
+    }
+
+    public String getRequestCoding() {
+        return requestCoding;
+    }
+
+    public void setRequestCoding(String requestCoding) {
+        this.requestCoding = requestCoding;
+    }
+
+    public List<String> getPreferredCodings() {
+        return preferredCodings;
+    }
+
+    public void setPreferredCodings(List<String> preferredCodings) {
+        this.preferredCodings = preferredCodings;
+    }
+
+    public Set<String> getCompressibleMediaTypes() {
+        return compressibleMediaTypes;
+    }
+
+    /**
+     * Restricts the compression to the given media types, "type/*" and "*&#47;*" wildcards
+     * are supported. By default all the media types are compressed.
+     */
+    public void setCompressibleMediaTypes(Set<String> compressibleMediaTypes) {
+        this.compressibleMediaTypes = compressibleMediaTypes;
+    }
+}
@@ -0,0 +1,169 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.common.encoding;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * The gzip and deflate codings, implemented with the JDK {@link Deflater} and {@link Inflater}
+ * taken from bounded pools rather than created, and ended, for every message.
+ */
+final class DeflateContentCoding implements ContentCoding {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final String name;
+    private final boolean gzip;
+    private final CodecPool<Deflater> deflaters;
+    private final CodecPool<Inflater> inflaters;
+
+    private DeflateContentCoding(String name, boolean gzip, int level, int poolSize) {
+        this.name = name;
+        this.gzip = gzip;
+        // gzip writes its own header and trailer around raw deflate data, deflate is zlib
+        this.deflaters = new CodecPool<>(() -> new Deflater(level, gzip), Deflater::reset, Deflater::end, poolSize);
+        this.inflaters = gzip ? null : new CodecPool<>(Inflater::new, Inflater::reset, Inflater::end, poolSize);
+    }
+
+    static DeflateContentCoding gzip(String name, int level, int poolSize) {
+        return new DeflateContentCoding(name, true, level, poolSize);
+    }
+
+    static DeflateContentCoding deflate(int level, int poolSize) {
+        return new DeflateContentCoding(ContentCodings.DEFLATE, false, level, poolSize);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public boolean canEncode() {
+        return true;
+    }
+
+    @Override
+    public boolean canDecode() {
+        return true;
+    }
+
+    @Override
+    public OutputStream encode(OutputStream os) throws IOException {
+        return gzip ? new PooledGZIPOutputStream(os, deflaters) : new PooledDeflaterOutputStream(os, deflaters);
+    }
+
+    @Override
+    public InputStream decode(InputStream is) throws IOException {
+        if (gzip) {
+            return new GZIPInputStream(is, BUFFER_SIZE);
+        }
+        return new PooledInflaterInputStream(is, inflaters);
+    }
+
+    CodecPool<Deflater> getDeflaterPool() {
+        return deflaters;
+    }
+
+    private static class PooledDeflaterOutputStream extends DeflaterOutputStream {
+        private final CodecPool<Deflater> pool;
+        private boolean released;
+
+        PooledDeflaterOutputStream(OutputStream os, CodecPool<Deflater> pool) {
+            super(os, pool.acquire(), BUFFER_SIZE);
+            this.pool = pool;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (!released) {
+                    released = true;
+                    pool.release(def);
+                }
+            }
+        }
+    }
+
+    private static final class PooledGZIPOutputStream extends PooledDeflaterOutputStream {
+        private static final byte[] HEADER = {0x1f, (byte)0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+
+        private final CRC32 crc = new CRC32();
+
+        PooledGZIPOutputStream(OutputStream os, CodecPool<Deflater> pool) throws IOException {
+            super(os, pool);
+            out.write(HEADER);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            super.write(b, off, len);
+            crc.update(b, off, len);
+        }
+
+        @Override
+        public void finish() throws IOException {
+            if (!def.finished()) {
+                super.finish();
+                writeInt((int)crc.getValue());
+                writeInt((int)def.getBytesRead());
+            }
+        }
+
+        private void writeInt(int i) throws IOException {
+            // little endian, RFC 1952
+            out.write(i & 0xff);
+            out.write((i >> 8) & 0xff);
+            out.write((i >> 16) & 0xff);
+            out.write((i >> 24) & 0xff);
+        }
+    }
+
+    private static final class PooledInflaterInputStream extends InflaterInputStream {
+        private final CodecPool<Inflater> pool;
+        private boolean released;
+
+        PooledInflaterInputStream(InputStream is, CodecPool<Inflater> pool) {
+            super(is, pool.acquire(), BUFFER_SIZE);
+            this.pool = pool;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (!released) {
+                    released = true;
+                    pool.release(inf);
+                }
+            }
+        }
+    }
+}
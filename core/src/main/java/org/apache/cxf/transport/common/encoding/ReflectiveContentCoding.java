@@ -0,0 +1,139 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.common.encoding;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.cxf.common.classloader.ClassLoaderUtils;
+import org.apache.cxf.common.logging.LogUtils;
+
+/**
+ * A content-coding backed by a compression library which is optional at runtime, such as
+ * brotli4j for br or zstd-jni for zstd. The stream classes are looked up once, a coding
+ * whose library is not on the classpath reports that it can neither encode nor decode.
+ */
+final class ReflectiveContentCoding implements ContentCoding {
+    private static final Logger LOG = LogUtils.getL7dLogger(ReflectiveContentCoding.class);
+
+    private final String name;
+    private final Constructor<? extends OutputStream> encoder;
+    private final Constructor<? extends InputStream> decoder;
+
+    private ReflectiveContentCoding(String name, Constructor<? extends OutputStream> encoder,
+                                    Constructor<? extends InputStream> decoder) {
+        this.name = name;
+        this.encoder = encoder;
+        this.decoder = decoder;
+    }
+
+    static ReflectiveContentCoding brotli() {
+        // brotli4j needs its native library loaded before any stream is created
+        final boolean nativeAvailable = invokeStatic("com.aayushatharva.brotli4j.Brotli4jLoader",
+                                                     "ensureAvailability");
+        Constructor<? extends InputStream> decoder = nativeAvailable
+            ? findConstructor("com.aayushatharva.brotli4j.decoder.BrotliInputStream", InputStream.class)
+            : null;
+        if (decoder == null) {
+            // the pure Java decoder from org.brotli:dec
+            decoder = findConstructor("org.brotli.dec.BrotliInputStream", InputStream.class);
+        }
+        return new ReflectiveContentCoding(ContentCodings.BR, nativeAvailable
+            ? findConstructor("com.aayushatharva.brotli4j.encoder.BrotliOutputStream", OutputStream.class)
+            : null, decoder);
+    }
+
+    static ReflectiveContentCoding zstd() {
+        return new ReflectiveContentCoding(ContentCodings.ZSTD,
+            findConstructor("com.github.luben.zstd.ZstdOutputStream", OutputStream.class),
+            findConstructor("com.github.luben.zstd.ZstdInputStream", InputStream.class));
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public boolean canEncode() {
+        return encoder != null;
+    }
+
+    @Override
+    public boolean canDecode() {
+        return decoder != null;
+    }
+
+    @Override
+    public OutputStream encode(OutputStream os) throws IOException {
+        if (encoder == null) {
+            throw new IOException(name + " encoding is not available");
+        }
+        return newInstance(encoder, os);
+    }
+
+    @Override
+    public InputStream decode(InputStream is) throws IOException {
+        if (decoder == null) {
+            throw new IOException(name + " decoding is not available");
+        }
+        return newInstance(decoder, is);
+    }
+
+    private static <T> T newInstance(Constructor<T> constructor, Object stream) throws IOException {
+        try {
+            return constructor.newInstance(stream);
+        } catch (InvocationTargetException ex) {
+            final Throwable cause = ex.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException)cause;
+            }
+            throw new IOException(cause);
+        } catch (ReflectiveOperationException ex) {
+            throw new IOException(ex);
+        }
+    }
+
+    private static <T> Constructor<? extends T> findConstructor(String className, Class<T> streamType) {
+        try {
+            final Class<? extends T> cls = ClassLoaderUtils.loadClass(className, ReflectiveContentCoding.class)
+                .asSubclass(streamType);
+            return cls.getConstructor(streamType);
+        } catch (ReflectiveOperationException | LinkageError | ClassCastException ex) {
+            LOG.log(Level.FINE, "Compression stream " + className + " is not available", ex);
+            return null;
+        }
+    }
+
+    private static boolean invokeStatic(String className, String method) {
+        try {
+            ClassLoaderUtils.loadClass(className, ReflectiveContentCoding.class).getMethod(method).invoke(null);
+            return true;
+        } catch (ReflectiveOperationException | LinkageError ex) {
+            LOG.log(Level.FINE, "Compression library " + className + " is not available", ex);
+            return false;
+        }
+    }
+}
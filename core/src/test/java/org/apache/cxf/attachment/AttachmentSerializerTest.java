@@ -22,9 +22,12 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.Properties;
+import java.util.Random;
 
 import jakarta.activation.DataHandler;
 import jakarta.activation.DataSource;
@@ -40,6 +43,7 @@ import org.apache.cxf.message.MessageImpl;
 
 import org.junit.Test;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
@@ -263,6 +267,60 @@ public class AttachmentSerializerTest {
 
     }
 
+    @Test
+    public void testPassthroughAttachments() throws Exception {
+        final byte[] large = new byte[200 * 1024];
+        new Random(1).nextBytes(large);
+        final byte[] small = "small attachment".getBytes(StandardCharsets.UTF_8);
+
+        final ByteArrayOutputStream received = new ByteArrayOutputStream();
+        received.write(("--boundary\r\nContent-Type: text/xml\r\n\r\n<soap:Body/>"
+            + "\r\n--boundary\r\nContent-Type: application/octet-stream\r\n"
+            + "Content-Transfer-Encoding: binary\r\nContent-ID: <large>\r\n\r\n")
+            .getBytes(StandardCharsets.US_ASCII));
+        received.write(large);
+        received.write(("\r\n--boundary\r\nContent-Type: text/plain\r\n"
+            + "Content-Transfer-Encoding: binary\r\nContent-ID: <small>\r\n\r\n")
+            .getBytes(StandardCharsets.US_ASCII));
+        received.write(small);
+        received.write("\r\n--boundary--".getBytes(StandardCharsets.US_ASCII));
+
+        MessageImpl inMsg = new MessageImpl();
+        inMsg.put(Message.CONTENT_TYPE, "multipart/related; type=\"text/xml\"; boundary=\"boundary\"");
+        inMsg.put(AttachmentDeserializer.ATTACHMENT_MEMORY_THRESHOLD, "1024");
+        inMsg.setContent(InputStream.class, new ByteArrayInputStream(received.toByteArray()));
+        new AttachmentDeserializer(inMsg).initializeAttachments();
+        IOUtils.consume(inMsg.getContent(InputStream.class));
+        // reading the second attachment caches the first one into a temporary file
+        assertEquals(2, inMsg.getAttachments().size());
+
+        MessageImpl outMsg = new MessageImpl();
+        outMsg.setAttachments(inMsg.getAttachments());
+        outMsg.put(Message.CONTENT_TYPE, "text/xml");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        outMsg.setContent(OutputStream.class, out);
+        AttachmentSerializer serializer = new AttachmentSerializer(outMsg);
+        serializer.setXop(false);
+        serializer.setPassthrough(true);
+        serializer.writeProlog();
+        out.write("<soap:Body/>".getBytes());
+        serializer.writeAttachments();
+
+        MessageImpl forwarded = new MessageImpl();
+        forwarded.put(Message.CONTENT_TYPE, outMsg.get(Message.CONTENT_TYPE));
+        forwarded.setContent(InputStream.class, new ByteArrayInputStream(out.toByteArray()));
+        new AttachmentDeserializer(forwarded).initializeAttachments();
+        IOUtils.consume(forwarded.getContent(InputStream.class));
+        assertEquals(2, forwarded.getAttachments().size());
+        Iterator<Attachment> it = forwarded.getAttachments().iterator();
+        Attachment att = it.next();
+        assertEquals("large", att.getId());
+        assertArrayEquals(large, IOUtils.readBytesFromStream(att.getDataHandler().getInputStream()));
+        att = it.next();
+        assertEquals("small", att.getId());
+        assertArrayEquals(small, IOUtils.readBytesFromStream(att.getDataHandler().getInputStream()));
+    }
+
     @Test
     public void testHeaderValueLineBreaksAreStripped() throws Exception {
         MessageImpl msg = new MessageImpl();
@@ -0,0 +1,119 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.attachment;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PushbackInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.apache.cxf.helpers.IOUtils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class MimeBodyPartInputStreamTest {
+    private static final String SHORT_BOUNDARY = "--b";
+    private static final String LONG_BOUNDARY =
+        "--" + "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ01234567";
+    private static final int PUSHBACK = 16 * 1024;
+
+    @Test
+    public void testPartSizesAndReadSizes() throws Exception {
+        for (String boundary : new String[] {SHORT_BOUNDARY, "--uuid:9f1b7c9e-4d1a", LONG_BOUNDARY}) {
+            for (int size : new int[] {0, 1, 2, 71, 140, 2047, 2048, 2049, PUSHBACK - 1, PUSHBACK + 1, 100_000}) {
+                final byte[] part = createPart(size, boundary);
+                for (int readSize : new int[] {1, 7, 4096, 65536}) {
+                    assertPart(boundary, part, readSize, false);
+                    assertPart(boundary, part, readSize, true);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testBoundaryPrefixInContent() throws Exception {
+        final String boundary = "--uuid:9f1b7c9e-4d1a";
+        final String content = "a\r\n--uuid:9f1b\r\n--uuid:9f1b7c9e-4d1\r\r\n\n--uuid:9f1b7c9e-4d1b\r\n-";
+        for (int readSize : new int[] {1, 7, 4096}) {
+            assertPart(boundary, content.getBytes(StandardCharsets.US_ASCII), readSize, false);
+        }
+    }
+
+    @Test
+    public void testBareLineFeedBeforeBoundaryIsContent() throws Exception {
+        final byte[] data = "data\n--b\r\nnext".getBytes(StandardCharsets.US_ASCII);
+        final PushbackInputStream stream = new PushbackInputStream(new ByteArrayInputStream(data), PUSHBACK);
+        final MimeBodyPartInputStream in = new MimeBodyPartInputStream(stream,
+            SHORT_BOUNDARY.getBytes(StandardCharsets.US_ASCII), PUSHBACK);
+        assertEquals("data\n", new String(IOUtils.readBytesFromStream(in), StandardCharsets.US_ASCII));
+        assertEquals("next", IOUtils.toString(stream));
+    }
+
+    private static void assertPart(String boundary, byte[] part, int readSize, boolean last) throws IOException {
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        bos.write(part);
+        bos.write(("\r\n" + boundary + (last ? "--" : "") + "\r\nnext part").getBytes(StandardCharsets.US_ASCII));
+        final PushbackInputStream stream = new PushbackInputStream(
+            new ByteArrayInputStream(bos.toByteArray()), PUSHBACK);
+        final MimeBodyPartInputStream in = new MimeBodyPartInputStream(stream,
+            boundary.getBytes(StandardCharsets.US_ASCII), PUSHBACK);
+
+        final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        final byte[] buf = new byte[readSize];
+        int n;
+        if (readSize == 1) {
+            while ((n = in.read()) != -1) {
+                content.write(n);
+            }
+        } else {
+            while ((n = in.read(buf, 0, buf.length)) != -1) {
+                content.write(buf, 0, n);
+            }
+        }
+        final String message = boundary + " " + part.length + " " + readSize;
+        assertArrayEquals(message, part, content.toByteArray());
+        assertEquals(message, -1, in.read(buf, 0, buf.length));
+        assertEquals(message, "next part", IOUtils.toString(stream));
+    }
+
+    private static byte[] createPart(int size, String boundary) {
+        final Random random = new Random(size);
+        final byte[] prefix = ("\r\n" + boundary).getBytes(StandardCharsets.US_ASCII);
+        final byte[] part = new byte[size];
+        random.nextBytes(part);
+        // the content never contains the last byte of the boundary, so never the boundary
+        final byte last = prefix[prefix.length - 1];
+        for (int i = 0; i < size; i++) {
+            if (part[i] == last) {
+                part[i] = (byte)(last + 1);
+            }
+        }
+        // scatter partial boundaries over the content
+        for (int i = 0; i + prefix.length < size; i += 1 + random.nextInt(500)) {
+            final int len = random.nextInt(prefix.length - 1);
+            System.arraycopy(prefix, 0, part, i, len);
+        }
+        return part;
+    }
+}
@@ -0,0 +1,58 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.common.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LogLinearBucketsTest {
+
+    @Test
+    public void testBucketBounds() {
+        for (int bits = 1; bits <= 5; bits++) {
+            final LogLinearBuckets buckets = new LogLinearBuckets(bits);
+            for (long value = 0; value < 100_000; value++) {
+                int index = buckets.indexOf(value);
+                assertTrue(value <= buckets.highestValue(index));
+                assertTrue(index == 0 || value > buckets.highestValue(index - 1));
+            }
+        }
+    }
+
+    @Test
+    public void testPrecision() {
+        final LogLinearBuckets buckets = new LogLinearBuckets(3);
+        for (long value = 8; value < 1_000_000; value += 13) {
+            long highest = buckets.highestValue(buckets.indexOf(value));
+            assertTrue(highest - value <= value / 8);
+        }
+    }
+
+    @Test
+    public void testLongRange() {
+        final LogLinearBuckets buckets = new LogLinearBuckets(2);
+        final int last = buckets.indexOf(Long.MAX_VALUE);
+        assertEquals((64 - 2) * 4, buckets.getBucketCount(Long.MAX_VALUE));
+        assertEquals(Long.MAX_VALUE, buckets.highestValue(last));
+        assertTrue(buckets.highestValue(last - 1) < Long.MAX_VALUE);
+    }
+}
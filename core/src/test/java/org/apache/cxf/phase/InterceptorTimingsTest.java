@@ -0,0 +1,134 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.phase;
+
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.bus.extension.ExtensionManagerBus;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class InterceptorTimingsTest {
+
+    private Bus bus;
+    private PhaseInterceptorChain chain;
+
+    @Before
+    public void setUp() {
+        bus = new ExtensionManagerBus();
+        SortedSet<Phase> phases = new TreeSet<>();
+        phases.add(new Phase(Phase.RECEIVE, 1));
+        phases.add(new Phase(Phase.INVOKE, 2));
+        chain = new PhaseInterceptorChain(phases);
+        chain.add(new SleepingInterceptor(Phase.RECEIVE, 0));
+        chain.add(new SleepingInterceptor(Phase.INVOKE, 5));
+    }
+
+    @After
+    public void tearDown() {
+        bus.shutdown(true);
+    }
+
+    @Test
+    public void testDisabled() {
+        assertTrue(chain.doIntercept(createMessage()));
+        assertEquals(null, InterceptorTimings.getTimings(bus));
+    }
+
+    @Test
+    public void testTimings() {
+        InterceptorTimings timings = new InterceptorTimings();
+        timings.setSampleRate(1);
+        timings.setCpuTime(true);
+        InterceptorTimings.setTimings(bus, timings);
+        for (int i = 0; i < 3; i++) {
+            chain.reset();
+            assertTrue(chain.doIntercept(createMessage()));
+        }
+
+        List<InterceptorTiming> list = timings.getTimings();
+        assertEquals(2, list.size());
+        InterceptorTiming invoke = list.get(0);
+        assertEquals(Phase.INVOKE, invoke.getPhase());
+        assertEquals(SleepingInterceptor.class.getName(), invoke.getId());
+        assertEquals(3, invoke.getInvocations());
+        assertTrue(invoke.getWallTime() >= 15_000_000L);
+        assertTrue(invoke.getMaxWallTime() >= 5_000_000L);
+        assertEquals(Phase.RECEIVE, list.get(1).getPhase());
+        assertEquals(3, list.get(1).getInvocations());
+
+        timings.reset();
+        assertEquals(0, timings.getTiming(Phase.INVOKE, SleepingInterceptor.class.getName()).getInvocations());
+    }
+
+    @Test
+    public void testSampling() {
+        InterceptorTimings timings = new InterceptorTimings();
+        timings.setSampleRate(1000);
+        InterceptorTimings.setTimings(bus, timings);
+        int sampled = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (InterceptorTimings.getSampled(createMessage()) != null) {
+                sampled++;
+            }
+        }
+        assertTrue(sampled < 100);
+    }
+
+    private Message createMessage() {
+        Message message = new MessageImpl();
+        Exchange exchange = new ExchangeImpl();
+        exchange.put(Bus.class, bus);
+        message.setExchange(exchange);
+        return message;
+    }
+
+    private static final class SleepingInterceptor extends AbstractPhaseInterceptor<Message> {
+        private final long sleep;
+
+        SleepingInterceptor(String phase, long sleep) {
+            super(phase);
+            this.sleep = sleep;
+        }
+
+        @Override
+        public void handleMessage(Message message) {
+            if (sleep > 0) {
+                try {
+                    Thread.sleep(sleep);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+}
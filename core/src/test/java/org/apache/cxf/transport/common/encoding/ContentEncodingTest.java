@@ -0,0 +1,247 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.common.encoding;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.cxf.helpers.CastUtils;
+import org.apache.cxf.helpers.HttpHeaderHelper;
+import org.apache.cxf.helpers.IOUtils;
+import org.apache.cxf.interceptor.Fault;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ContentEncodingTest {
+    private static final byte[] PAYLOAD = createPayload();
+
+    private ContentEncodingOutInterceptor interceptor;
+    private Message inMessage;
+    private Message outMessage;
+    private ByteArrayOutputStream wire;
+
+    @Before
+    public void setUp() throws Exception {
+        interceptor = new ContentEncodingOutInterceptor();
+        // br and zstd depend on the optional libraries
+        interceptor.setPreferredCodings(Arrays.asList(ContentCodings.GZIP, ContentCodings.DEFLATE));
+        inMessage = new MessageImpl();
+        outMessage = new MessageImpl();
+        Exchange exchange = new ExchangeImpl();
+        exchange.setInMessage(inMessage);
+        inMessage.setExchange(exchange);
+        exchange.setOutMessage(outMessage);
+        outMessage.setExchange(exchange);
+        wire = new ByteArrayOutputStream();
+        outMessage.setContent(OutputStream.class, wire);
+    }
+
+    @Test
+    public void testNegotiation() throws Exception {
+        assertEquals(ContentCodings.GZIP, negotiate("gzip, deflate"));
+        assertEquals(ContentCodings.DEFLATE, negotiate("gzip;q=0.5, deflate"));
+        assertEquals(ContentCodings.X_GZIP, negotiate("x-gzip, compress"));
+        assertEquals(ContentCodings.GZIP, negotiate("*"));
+        assertEquals(ContentCodings.DEFLATE, negotiate("*, gzip;q=0"));
+        assertNull(negotiate("br"));
+        assertNull(negotiate("gzip;q=0.0, deflate;q=0"));
+    }
+
+    @Test(expected = Fault.class)
+    public void testNoAcceptableEncoding() throws Exception {
+        negotiate("*;q=0, br;q=0.5");
+    }
+
+    @Test
+    public void testSmallMessageIsNotCompressed() throws Exception {
+        setAcceptEncoding("gzip");
+        interceptor.handleMessage(outMessage);
+        writeAndClose("small".getBytes(StandardCharsets.UTF_8));
+        assertNull(getHeader(outMessage, HttpHeaderHelper.CONTENT_ENCODING));
+        assertEquals("small", wire.toString(StandardCharsets.UTF_8.name()));
+    }
+
+    @Test
+    public void testIdentityDisabledForcesCompression() throws Exception {
+        setAcceptEncoding("gzip, identity;q=0");
+        interceptor.handleMessage(outMessage);
+        writeAndClose("small".getBytes(StandardCharsets.UTF_8));
+        assertEquals(ContentCodings.GZIP, getHeader(outMessage, HttpHeaderHelper.CONTENT_ENCODING));
+        assertEquals("small", IOUtils.toString(new GZIPInputStream(new ByteArrayInputStream(wire.toByteArray()))));
+    }
+
+    @Test
+    public void testMediaTypeIsNotCompressed() throws Exception {
+        interceptor.setCompressibleMediaTypes(Collections.singleton("text/*"));
+        setAcceptEncoding("gzip");
+        outMessage.put(Message.CONTENT_TYPE, "image/png");
+        interceptor.handleMessage(outMessage);
+        writeAndClose(PAYLOAD);
+        assertArrayEquals(PAYLOAD, wire.toByteArray());
+
+        outMessage.put(Message.CONTENT_TYPE, "text/xml; charset=UTF-8");
+        wire.reset();
+        outMessage.setContent(OutputStream.class, wire);
+        interceptor.handleMessage(outMessage);
+        writeAndClose(PAYLOAD);
+        assertEquals(ContentCodings.GZIP, getHeader(outMessage, HttpHeaderHelper.CONTENT_ENCODING));
+    }
+
+    @Test
+    public void testAcceptEncodingSentWithRequestNotCompressed() throws Exception {
+        interceptor.setCompressibleMediaTypes(Collections.singleton("text/*"));
+        interceptor.setForce(true);
+        outMessage.put(Message.REQUESTOR_ROLE, Boolean.TRUE);
+        outMessage.put(Message.CONTENT_TYPE, "image/png");
+        interceptor.handleMessage(outMessage);
+        writeAndClose(PAYLOAD);
+        assertArrayEquals(PAYLOAD, wire.toByteArray());
+        assertNull(getHeader(outMessage, HttpHeaderHelper.CONTENT_ENCODING));
+        assertEquals("gzip;q=1.0, deflate;q=1.0, identity;q=0.5, *;q=0",
+                     getHeader(outMessage, HttpHeaderHelper.ACCEPT_ENCODING));
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        for (String coding : Arrays.asList(ContentCodings.GZIP, ContentCodings.DEFLATE)) {
+            setUp();
+            setAcceptEncoding(coding);
+            interceptor.handleMessage(outMessage);
+            writeAndClose(PAYLOAD);
+            assertEquals(coding, getHeader(outMessage, HttpHeaderHelper.CONTENT_ENCODING));
+            assertTrue(wire.size() < PAYLOAD.length);
+            assertArrayEquals(PAYLOAD, decode(coding, wire.toByteArray()));
+        }
+    }
+
+    @Test
+    public void testStackedCodings() throws Exception {
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (OutputStream os = ContentCodings.get(ContentCodings.DEFLATE)
+                .encode(ContentCodings.get(ContentCodings.GZIP).encode(bos))) {
+            os.write(PAYLOAD);
+        }
+        // deflate applied first
+        assertArrayEquals(PAYLOAD, decode("deflate, gzip", bos.toByteArray()));
+    }
+
+    @Test
+    public void testUnknownCodingIsNotDecoded() throws Exception {
+        final byte[] data = "compressed".getBytes(StandardCharsets.UTF_8);
+        final Message message = createInMessage("compress", data);
+        new ContentEncodingInInterceptor().handleMessage(message);
+        assertArrayEquals(data, IOUtils.readBytesFromStream(message.getContent(InputStream.class)));
+        assertEquals("compress", getHeader(message, HttpHeaderHelper.CONTENT_ENCODING));
+    }
+
+    @Test
+    public void testDeflatersArePooled() throws Exception {
+        final DeflateContentCoding coding = DeflateContentCoding.gzip(ContentCodings.GZIP, -1, 1);
+        for (int i = 0; i < 3; i++) {
+            final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            try (OutputStream os = coding.encode(bos)) {
+                os.write(PAYLOAD);
+            }
+            assertArrayEquals(PAYLOAD, IOUtils.readBytesFromStream(
+                new GZIPInputStream(new ByteArrayInputStream(bos.toByteArray()))));
+            assertEquals(1, coding.getDeflaterPool().size());
+        }
+        final OutputStream first = coding.encode(new ByteArrayOutputStream());
+        final OutputStream second = coding.encode(new ByteArrayOutputStream());
+        first.close();
+        second.close();
+        // the pool is bounded
+        assertEquals(1, coding.getDeflaterPool().size());
+    }
+
+    private String negotiate(String acceptEncoding) throws Exception {
+        setUp();
+        setAcceptEncoding(acceptEncoding);
+        interceptor.handleMessage(outMessage);
+        writeAndClose(PAYLOAD);
+        return getHeader(outMessage, HttpHeaderHelper.CONTENT_ENCODING);
+    }
+
+    private void writeAndClose(byte[] data) throws Exception {
+        try (OutputStream os = outMessage.getContent(OutputStream.class)) {
+            os.write(data);
+        }
+    }
+
+    private byte[] decode(String contentEncoding, byte[] data) throws Exception {
+        final Message message = createInMessage(contentEncoding, data);
+        new ContentEncodingInInterceptor().handleMessage(message);
+        assertNull(getHeader(message, HttpHeaderHelper.CONTENT_ENCODING));
+        return IOUtils.readBytesFromStream(message.getContent(InputStream.class));
+    }
+
+    private static Message createInMessage(String contentEncoding, byte[] data) {
+        final Message message = new MessageImpl();
+        message.setExchange(new ExchangeImpl());
+        message.put(Message.HTTP_REQUEST_METHOD, "POST");
+        final Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        headers.put(HttpHeaderHelper.CONTENT_ENCODING, Collections.singletonList(contentEncoding));
+        message.put(Message.PROTOCOL_HEADERS, headers);
+        message.setContent(InputStream.class, new ByteArrayInputStream(data));
+        return message;
+    }
+
+    private void setAcceptEncoding(String enc) {
+        final Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        headers.put(HttpHeaderHelper.ACCEPT_ENCODING, Collections.singletonList(enc));
+        inMessage.put(Message.PROTOCOL_HEADERS, headers);
+    }
+
+    private static String getHeader(Message message, String name) {
+        final Map<String, List<String>> headers = CastUtils.cast((Map<?, ?>)message.get(Message.PROTOCOL_HEADERS));
+        if (headers == null) {
+            return null;
+        }
+        final List<String> values = headers.get(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    private static byte[] createPayload() {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            sb.append("<item id=\"").append(i).append("\">compressible content</item>");
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,280 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.binding.soap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import org.apache.cxf.common.util.StringUtils;
+import org.apache.cxf.helpers.DOMUtils;
+
+/**
+ * A SOAP header read straight from the XMLStreamReader into a {@link StreamedElement}, a
+ * lightweight tree of names, attributes and text. The DOM {@link Element} is only built
+ * when {@link #getObject()} is called, the interceptors which know the header can use
+ * {@link #getElement()} instead and skip the DOM altogether.
+ */
+public class StreamedSoapHeader extends SoapHeader {
+    private final StreamedElement element;
+
+    public StreamedSoapHeader(StreamedElement element) {
+        super(element.getName(), null);
+        this.element = element;
+    }
+
+    public StreamedElement getElement() {
+        return element;
+    }
+
+    /**
+     * Returns true if the DOM element has not been built yet
+     */
+    public boolean isStreamed() {
+        return super.getObject() == null;
+    }
+
+    @Override
+    public Object getObject() {
+        Object o = super.getObject();
+        if (o == null) {
+            o = element.toDOM();
+            setObject(o);
+        }
+        return o;
+    }
+
+    /**
+     * An element read from the stream, with the namespaces declared by its ancestors so that
+     * it can be turned into a standalone DOM element.
+     */
+    public static final class StreamedElement {
+        private final QName name;
+        private final List<String> namespaces = new ArrayList<>(2);
+        private final List<QName> attributeNames = new ArrayList<>(2);
+        private final List<String> attributeValues = new ArrayList<>(2);
+        private final List<Object> children = new ArrayList<>(1);
+        private Map<String, String> inheritedNamespaces = Collections.emptyMap();
+
+        private StreamedElement(QName name) {
+            this.name = name;
+        }
+
+        /**
+         * Reads the element the reader is positioned on, leaving the reader on its END_ELEMENT
+         *
+         * @param reader the reader positioned on a START_ELEMENT
+         * @param inheritedNamespaces the prefix to namespace mappings declared by the ancestors
+         */
+        public static StreamedElement read(XMLStreamReader reader, Map<String, String> inheritedNamespaces)
+            throws XMLStreamException {
+            final List<StreamedElement> stack = new ArrayList<>(4);
+            StreamedElement root = null;
+            int event = reader.getEventType();
+            while (true) {
+                switch (event) {
+                case XMLStreamConstants.START_ELEMENT:
+                    final StreamedElement el = startElement(reader);
+                    if (root == null) {
+                        root = el;
+                        root.inheritedNamespaces = inheritedNamespaces;
+                    } else {
+                        stack.get(stack.size() - 1).children.add(el);
+                    }
+                    stack.add(el);
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    stack.remove(stack.size() - 1);
+                    if (stack.isEmpty()) {
+                        return root;
+                    }
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                case XMLStreamConstants.ENTITY_REFERENCE:
+                    stack.get(stack.size() - 1).addText(reader.getText());
+                    break;
+                default:
+                    // comments and processing instructions are dropped
+                    break;
+                }
+                event = reader.next();
+            }
+        }
+
+        private static StreamedElement startElement(XMLStreamReader reader) {
+            final StreamedElement el = new StreamedElement(new QName(reader.getNamespaceURI() == null
+                ? XMLConstants.NULL_NS_URI : reader.getNamespaceURI(), reader.getLocalName(),
+                reader.getPrefix() == null ? XMLConstants.DEFAULT_NS_PREFIX : reader.getPrefix()));
+            for (int i = 0; i < reader.getNamespaceCount(); i++) {
+                el.namespaces.add(reader.getNamespacePrefix(i) == null
+                    ? XMLConstants.DEFAULT_NS_PREFIX : reader.getNamespacePrefix(i));
+                el.namespaces.add(reader.getNamespaceURI(i) == null
+                    ? XMLConstants.NULL_NS_URI : reader.getNamespaceURI(i));
+            }
+            for (int i = 0; i < reader.getAttributeCount(); i++) {
+                final QName attr = reader.getAttributeName(i);
+                el.attributeNames.add(attr);
+                el.attributeValues.add(reader.getAttributeValue(i));
+            }
+            return el;
+        }
+
+        private void addText(String text) {
+            final int last = children.size() - 1;
+            if (last >= 0 && children.get(last) instanceof String) {
+                children.set(last, (String)children.get(last) + text);
+            } else {
+                children.add(text);
+            }
+        }
+
+        public QName getName() {
+            return name;
+        }
+
+        /**
+         * Returns the value of the attribute or null if it is not present
+         */
+        public String getAttribute(String namespaceURI, String localName) {
+            for (int i = 0; i < attributeNames.size(); i++) {
+                final QName attr = attributeNames.get(i);
+                if (attr.getLocalPart().equals(localName)
+                    && StringUtils.isEmpty(namespaceURI) == StringUtils.isEmpty(attr.getNamespaceURI())
+                    && (StringUtils.isEmpty(namespaceURI) || namespaceURI.equals(attr.getNamespaceURI()))) {
+                    return attributeValues.get(i);
+                }
+            }
+            return null;
+        }
+
+        public int getAttributeCount() {
+            return attributeNames.size();
+        }
+
+        public QName getAttributeName(int i) {
+            return attributeNames.get(i);
+        }
+
+        public String getAttributeValue(int i) {
+            return attributeValues.get(i);
+        }
+
+        /**
+         * Returns true if the element has child elements, not just text
+         */
+        public boolean hasChildElements() {
+            for (Object child : children) {
+                if (child instanceof StreamedElement) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Returns the child elements
+         */
+        public List<StreamedElement> getChildElements() {
+            final List<StreamedElement> elements = new ArrayList<>(children.size());
+            for (Object child : children) {
+                if (child instanceof StreamedElement) {
+                    elements.add((StreamedElement)child);
+                }
+            }
+            return elements;
+        }
+
+        /**
+         * Returns the concatenation of the text children, ignoring the child elements
+         */
+        public String getText() {
+            if (children.size() == 1 && children.get(0) instanceof String) {
+                return (String)children.get(0);
+            }
+            final StringBuilder sb = new StringBuilder();
+            for (Object child : children) {
+                if (child instanceof String) {
+                    sb.append((String)child);
+                }
+            }
+            return sb.toString();
+        }
+
+        /**
+         * Builds the DOM element, the namespaces declared by the ancestors are declared on it
+         * unless the element redeclares them.
+         */
+        public Element toDOM() {
+            final Document doc = DOMUtils.createDocument();
+            final Element el = createElement(doc);
+            for (Map.Entry<String, String> ns : inheritedNamespaces.entrySet()) {
+                final String attr = ns.getKey().isEmpty() ? XMLConstants.XMLNS_ATTRIBUTE
+                    : XMLConstants.XMLNS_ATTRIBUTE + ':' + ns.getKey();
+                if (!el.hasAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI,
+                                       ns.getKey().isEmpty() ? XMLConstants.XMLNS_ATTRIBUTE : ns.getKey())) {
+                    el.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI, attr, ns.getValue());
+                }
+            }
+            doc.appendChild(el);
+            return el;
+        }
+
+        private Element createElement(Document doc) {
+            final Element el = doc.createElementNS(StringUtils.isEmpty(name.getNamespaceURI())
+                ? null : name.getNamespaceURI(), qualifiedName(name));
+            for (int i = 0; i < namespaces.size(); i += 2) {
+                final String prefix = namespaces.get(i);
+                el.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI, prefix.isEmpty()
+                    ? XMLConstants.XMLNS_ATTRIBUTE : XMLConstants.XMLNS_ATTRIBUTE + ':' + prefix,
+                    namespaces.get(i + 1));
+            }
+            for (int i = 0; i < attributeNames.size(); i++) {
+                final QName attr = attributeNames.get(i);
+                el.setAttributeNS(StringUtils.isEmpty(attr.getNamespaceURI()) ? null : attr.getNamespaceURI(),
+                                  qualifiedName(attr), attributeValues.get(i));
+            }
+            for (Object child : children) {
+                if (child instanceof StreamedElement) {
+                    el.appendChild(((StreamedElement)child).createElement(doc));
+                } else {
+                    el.appendChild(doc.createTextNode((String)child));
+                }
+            }
+            return el;
+        }
+
+        private static String qualifiedName(QName qname) {
+            return StringUtils.isEmpty(qname.getPrefix()) ? qname.getLocalPart()
+                : qname.getPrefix() + ':' + qname.getLocalPart();
+        }
+    }
+}
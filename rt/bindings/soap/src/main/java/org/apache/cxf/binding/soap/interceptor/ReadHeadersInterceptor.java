@@ -23,6 +23,7 @@ import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.logging.Logger;
@@ -49,6 +50,8 @@ import org.apache.cxf.binding.soap.SoapHeader;
 import org.apache.cxf.binding.soap.SoapMessage;
 import org.apache.cxf.binding.soap.SoapVersion;
 import org.apache.cxf.binding.soap.SoapVersionFactory;
+import org.apache.cxf.binding.soap.StreamedSoapHeader;
+import org.apache.cxf.binding.soap.StreamedSoapHeader.StreamedElement;
 import org.apache.cxf.common.i18n.Message;
 import org.apache.cxf.common.logging.LogUtils;
 import org.apache.cxf.common.util.StringUtils;
@@ -73,6 +76,13 @@ public class ReadHeadersInterceptor extends AbstractSoapInterceptor {
     public static final String BODY_EVENTS = "body.events";
     public static final String ENVELOPE_PREFIX = "envelope.prefix";
     public static final String BODY_PREFIX = "body.prefix";
+    /**
+     * Contextual property enabling the streaming of the SOAP headers: the headers are read into
+     * {@link StreamedSoapHeader}s, whose DOM element is only built when requested, and no DOM
+     * document of the envelope is set on the message. It must not be used with SAAJ or with the
+     * DOM based WS-Security interceptors, which need the envelope document.
+     */
+    public static final String SOAP_STREAM_HEADERS = "org.apache.cxf.binding.soap.streamHeaders";
     private static final String SOAP_ADD_NAMESPACE_CONTEXT = "org.apache.cxf.binding.soap.addNamespaceContext";
     private static final String SOAP_PROPAGATE_ATTRIBUTES = "org.apache.cxf.binding.soap.propagateHeaderAttributes";
 
@@ -204,8 +214,25 @@ public class ReadHeadersInterceptor extends AbstractSoapInterceptor {
                         // add the Envelope-Level declarations
                         addCurrentNamespaceDecls(xmlReader, bodyNC);
                     }
-                    HeadersProcessor processor = new HeadersProcessor(soapVersion);
+                    final boolean streamHeaders =
+                        MessageUtils.getContextualBoolean(message, SOAP_STREAM_HEADERS, false)
+                        && !MessageUtils.getContextualBoolean(message, SOAP_PROPAGATE_ATTRIBUTES, false);
+                    HeadersProcessor processor = new HeadersProcessor(soapVersion, streamHeaders);
                     doc = processor.process(filteredReader);
+                    for (StreamedElement hel : processor.getHeaderElements()) {
+                        HeaderProcessor p = getHeaderProcessor(hel.getName().getNamespaceURI());
+                        final SoapHeader shead;
+                        if (p == null || p.getDataBinding() == null) {
+                            shead = new StreamedSoapHeader(hel);
+                        } else {
+                            shead = new SoapHeader(hel.getName(), readHeader(message, p.getDataBinding(),
+                                                                             hel.toDOM()), p.getDataBinding());
+                        }
+                        addHeader(message, shead,
+                                  hel.getAttribute(soapVersion.getNamespace(),
+                                                   soapVersion.getAttrNameMustUnderstand()),
+                                  hel.getAttribute(soapVersion.getNamespace(), soapVersion.getAttrNameRole()));
+                    }
                     if (doc != null) {
                         message.setContent(Node.class, doc);
                     } else {
@@ -244,8 +271,7 @@ public class ReadHeadersInterceptor extends AbstractSoapInterceptor {
                                 propagateHeaderAttributes(elem, hel);
                             }
 
-                            HeaderProcessor p = bus == null ? null : bus.getExtension(HeaderManager.class)
-                                .getHeaderProcessor(hel.getNamespaceURI());
+                            HeaderProcessor p = getHeaderProcessor(hel.getNamespaceURI());
 
                             Object obj;
                             DataBinding dataBinding = null;
@@ -253,28 +279,16 @@ public class ReadHeadersInterceptor extends AbstractSoapInterceptor {
                                 obj = hel;
                             } else {
                                 dataBinding = p.getDataBinding();
-                                DataReader<Node> dataReader = dataBinding.createReader(Node.class);
-                                dataReader.setAttachments(message.getAttachments());
-                                dataReader.setProperty(DataReader.ENDPOINT, message.getExchange().getEndpoint());
-                                dataReader.setProperty(Message.class.getName(), message);
-                                obj = dataReader.read(hel);
+                                obj = readHeader(message, dataBinding, hel);
                             }
 
                             SoapHeader shead = new SoapHeader(new QName(hel.getNamespaceURI(),
                                                                         hel.getLocalName()), obj, dataBinding);
-                            String mu = hel.getAttributeNS(soapVersion.getNamespace(),
-                                                           soapVersion.getAttrNameMustUnderstand());
-                            String act = hel.getAttributeNS(soapVersion.getNamespace(),
-                                                            soapVersion.getAttrNameRole());
-
-                            if (!StringUtils.isEmpty(act)) {
-                                shead.setActor(act);
-                            }
-                            shead.setMustUnderstand(Boolean.valueOf(mu) || "1".equals(mu));
-                            // mark header as inbound header.(for distinguishing between the direction to
-                            // avoid piggybacking of headers from request->server->response.
-                            shead.setDirection(SoapHeader.Direction.DIRECTION_IN);
-                            message.getHeaders().add(shead);
+                            addHeader(message, shead,
+                                      hel.getAttributeNS(soapVersion.getNamespace(),
+                                                         soapVersion.getAttrNameMustUnderstand()),
+                                      hel.getAttributeNS(soapVersion.getNamespace(),
+                                                         soapVersion.getAttrNameRole()));
 
                             hel = DOMUtils.getNextElement(hel);
                         }
@@ -305,6 +319,29 @@ public class ReadHeadersInterceptor extends AbstractSoapInterceptor {
         }
     }
 
+    private HeaderProcessor getHeaderProcessor(String namespaceURI) {
+        return bus == null ? null : bus.getExtension(HeaderManager.class).getHeaderProcessor(namespaceURI);
+    }
+
+    private static Object readHeader(SoapMessage message, DataBinding dataBinding, Element hel) {
+        DataReader<Node> dataReader = dataBinding.createReader(Node.class);
+        dataReader.setAttachments(message.getAttachments());
+        dataReader.setProperty(DataReader.ENDPOINT, message.getExchange().getEndpoint());
+        dataReader.setProperty(Message.class.getName(), message);
+        return dataReader.read(hel);
+    }
+
+    private static void addHeader(SoapMessage message, SoapHeader shead, String mu, String act) {
+        if (!StringUtils.isEmpty(act)) {
+            shead.setActor(act);
+        }
+        shead.setMustUnderstand(Boolean.valueOf(mu) || "1".equals(mu));
+        // mark header as inbound header.(for distinguishing between the direction to
+        // avoid piggybacking of headers from request->server->response.
+        shead.setDirection(SoapHeader.Direction.DIRECTION_IN);
+        message.getHeaders().add(shead);
+    }
+
     /**
      * Copies the attributes of the SOAP header element to its child elements, if
      * those attributes are not already present on the child.
@@ -350,7 +387,8 @@ public class ReadHeadersInterceptor extends AbstractSoapInterceptor {
      * the document is created only if a SOAP Header is actually found, keeping the
      * memory usage as low as possible (there's no reason for building the DOM doc
      * here if there's actually no header in the message, but we need to figure that
-     * out while parsing the stream).
+     * out while parsing the stream). When streaming the headers, the children of the
+     * SOAP Header are read into {@link StreamedElement}s and no document is created.
      */
     private static class HeadersProcessor {
         private static XMLEventFactory eventFactory;
@@ -367,6 +405,10 @@ public class ReadHeadersInterceptor extends AbstractSoapInterceptor {
         private QName lastStartElementQName;
         private String envelopePrefix;
         private String bodyPrefix;
+        private final boolean streamHeaders;
+        private boolean inHeader;
+        private List<StreamedElement> headerElements = Collections.emptyList();
+        private final Map<String, String> inScopeNamespaces;
 
         static {
             try {
@@ -377,7 +419,9 @@ public class ReadHeadersInterceptor extends AbstractSoapInterceptor {
             }
         }
 
-        HeadersProcessor(SoapVersion version) {
+        HeadersProcessor(SoapVersion version, boolean streamHeaders) {
+            this.streamHeaders = streamHeaders;
+            this.inScopeNamespaces = streamHeaders ? new LinkedHashMap<>() : null;
             this.header = version.getHeader().getLocalPart();
             this.ns = version.getEnvelope().getNamespaceURI();
             this.envelope = version.getEnvelope().getLocalPart();
@@ -391,7 +435,19 @@ public class ReadHeadersInterceptor extends AbstractSoapInterceptor {
             while (reader.hasNext()) {
                 switch (event) {
                 case XMLStreamConstants.START_ELEMENT:
+                    if (inHeader && read == 2) {
+                        headerElements.add(StreamedElement.read(reader, inScopeNamespaces));
+                        break;
+                    }
                     read++;
+                    if (streamHeaders && (read == 1 || read == 2 && header.equals(reader.getLocalName())
+                        && ns.equals(reader.getNamespaceURI()))) {
+                        // the namespaces declared by the Envelope and the Header are in scope for the headers
+                        for (int i = 0; i < reader.getNamespaceCount(); i++) {
+                            inScopeNamespaces.put(StringUtils.isEmpty(reader.getNamespacePrefix(i))
+                                ? "" : reader.getNamespacePrefix(i), reader.getNamespaceURI(i));
+                        }
+                    }
                     addEvent(eventFactory.createStartElement(new QName(reader.getNamespaceURI(), reader
                                                             .getLocalName(), reader.getPrefix()), null, null));
                     for (int i = 0; i < reader.getNamespaceCount(); i++) {
@@ -414,6 +470,9 @@ public class ReadHeadersInterceptor extends AbstractSoapInterceptor {
                         addEvent(eventFactory.createEndElement(new QName(reader.getNamespaceURI(), reader
                                                               .getLocalName(), reader.getPrefix()), null));
                     }
+                    if (inHeader && read == 2) {
+                        inHeader = false;
+                    }
                     read--;
                     break;
                 case XMLStreamConstants.CHARACTERS:
@@ -447,6 +506,11 @@ public class ReadHeadersInterceptor extends AbstractSoapInterceptor {
                 lastStartElementQName = event.asStartElement().getName();
                 if (header.equals(lastStartElementQName.getLocalPart())
                     && ns.equals(lastStartElementQName.getNamespaceURI())) {
+                    if (streamHeaders) {
+                        inHeader = true;
+                        headerElements = new ArrayList<>();
+                        return;
+                    }
                     // process all events recorded so far
                     context = new StreamToDOMContext(true, false, false);
                     doc = DOMUtils.createDocument();
@@ -501,6 +565,10 @@ public class ReadHeadersInterceptor extends AbstractSoapInterceptor {
             return Collections.unmodifiableList(envEvents);
         }
 
+        List<StreamedElement> getHeaderElements() {
+            return headerElements;
+        }
+
         public String getEnvelopePrefix() {
             return envelopePrefix;
         }
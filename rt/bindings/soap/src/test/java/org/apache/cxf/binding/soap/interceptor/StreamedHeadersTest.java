@@ -0,0 +1,122 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.binding.soap.interceptor;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import javax.xml.stream.XMLStreamReader;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import org.apache.cxf.binding.soap.Soap11;
+import org.apache.cxf.binding.soap.SoapMessage;
+import org.apache.cxf.binding.soap.StreamedSoapHeader;
+import org.apache.cxf.binding.soap.StreamedSoapHeader.StreamedElement;
+import org.apache.cxf.headers.Header;
+import org.apache.cxf.helpers.DOMUtils;
+import org.apache.cxf.staxutils.StaxUtils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class StreamedHeadersTest {
+    private static final String TEST_SOAP =
+        "<soap:Envelope xmlns:soap='http://schemas.xmlsoap.org/soap/envelope/' xmlns:bar='tmp:bar'>"
+        + "<soap:Header xmlns:x='http://example.com/schema'>"
+        + "<x:MessageID soap:mustUnderstand='1'>urn:uuid:1234</x:MessageID>\n"
+        + "<x:ReplyTo soap:actor='urn:next'><x:Address>bar:anonymous</x:Address></x:ReplyTo>"
+        + "</soap:Header>"
+        + "<soap:Body>"
+        + "<ns2:payload xmlns:ns2='urn:tmp:foo'/>"
+        + "</soap:Body>"
+        + "</soap:Envelope>";
+
+    @Test
+    public void testHeadersAreStreamed() throws Exception {
+        SoapMessage message = setUpMessage();
+        message.put(ReadHeadersInterceptor.SOAP_STREAM_HEADERS, Boolean.TRUE);
+        new ReadHeadersInterceptor(null).handleMessage(message);
+
+        assertNull(message.getContent(Node.class));
+        assertNotNull(message.get(ReadHeadersInterceptor.ENVELOPE_EVENTS));
+        assertEquals("soap", message.get(ReadHeadersInterceptor.BODY_PREFIX));
+        assertEquals("Body", message.getContent(XMLStreamReader.class).getLocalName());
+
+        List<Header> headers = message.getHeaders();
+        assertEquals(2, headers.size());
+        StreamedSoapHeader messageId = (StreamedSoapHeader)headers.get(0);
+        assertEquals("MessageID", messageId.getName().getLocalPart());
+        assertEquals("urn:uuid:1234", messageId.getElement().getText());
+        assertTrue(messageId.isMustUnderstand());
+        assertEquals(Header.Direction.DIRECTION_IN, messageId.getDirection());
+
+        StreamedSoapHeader replyTo = (StreamedSoapHeader)headers.get(1);
+        assertFalse(replyTo.isMustUnderstand());
+        assertEquals("urn:next", replyTo.getActor());
+        StreamedElement address = replyTo.getElement().getChildElements().get(0);
+        assertEquals("bar:anonymous", address.getText());
+        assertTrue(replyTo.isStreamed());
+    }
+
+    @Test
+    public void testElementIsBuiltLazily() throws Exception {
+        SoapMessage message = setUpMessage();
+        message.put(ReadHeadersInterceptor.SOAP_STREAM_HEADERS, "true");
+        new ReadHeadersInterceptor(null).handleMessage(message);
+
+        StreamedSoapHeader replyTo = (StreamedSoapHeader)message.getHeaders().get(1);
+        Element element = (Element)replyTo.getObject();
+        assertFalse(replyTo.isStreamed());
+        assertEquals("http://example.com/schema", element.getNamespaceURI());
+        assertEquals("urn:next", element.getAttributeNS("http://schemas.xmlsoap.org/soap/envelope/", "actor"));
+        Element address = DOMUtils.getFirstElement(element);
+        assertEquals("Address", address.getLocalName());
+        assertEquals("bar:anonymous", DOMUtils.getContent(address));
+        // the namespaces declared on the Envelope are still in scope
+        assertEquals("tmp:bar", address.lookupNamespaceURI("bar"));
+        assertTrue(element == replyTo.getObject());
+    }
+
+    @Test
+    public void testDocumentIsBuiltByDefault() throws Exception {
+        SoapMessage message = setUpMessage();
+        new ReadHeadersInterceptor(null).handleMessage(message);
+
+        assertNotNull(message.getContent(Node.class));
+        assertEquals(2, message.getHeaders().size());
+        assertFalse(message.getHeaders().get(0) instanceof StreamedSoapHeader);
+        assertTrue(message.getHeaders().get(0).getObject() instanceof Element);
+    }
+
+    private static SoapMessage setUpMessage() throws Exception {
+        SoapMessage message = new SoapMessage(Soap11.getInstance());
+        message.setContent(XMLStreamReader.class, StaxUtils.createXMLStreamReader(
+            new ByteArrayInputStream(TEST_SOAP.getBytes(StandardCharsets.UTF_8))));
+        return message;
+    }
+}
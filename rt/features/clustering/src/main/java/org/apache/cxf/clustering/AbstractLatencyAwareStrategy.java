@@ -0,0 +1,81 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.clustering;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.apache.cxf.endpoint.Endpoint;
+
+/**
+ * Base class of the strategies which select the target with the "power of two choices": two
+ * alternates are picked at random and the one with the lowest cost, as computed from the
+ * statistics of its address, is selected. Compared with always selecting the lowest cost, it
+ * avoids sending all of the requests to the same target between two updates of the statistics.
+ * The statistics are recorded by the FailoverTargetSelector and its subclasses when a strategy
+ * of this type is used, typically with the LoadDistributorTargetSelector.
+ */
+public abstract class AbstractLatencyAwareStrategy extends AbstractStaticFailoverStrategy {
+    private LatencyTracker latencyTracker = new LatencyTracker();
+
+    public LatencyTracker getLatencyTracker() {
+        return latencyTracker;
+    }
+
+    /**
+     * Sets the tracker of the statistics, which may be shared between clients of the same targets
+     */
+    public void setLatencyTracker(LatencyTracker tracker) {
+        this.latencyTracker = tracker;
+    }
+
+    /**
+     * Get next alternate endpoint.
+     *
+     * @param alternates non-empty List of alternate endpoints
+     * @return the alternate with the lowest cost of two random alternates
+     */
+    protected <T> T getNextAlternate(List<T> alternates) {
+        final int size = alternates.size();
+        if (size == 1) {
+            return alternates.remove(0);
+        }
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        final double firstCost = getCost(latencyTracker.getStats(getAddress(alternates.get(first))));
+        final double secondCost = getCost(latencyTracker.getStats(getAddress(alternates.get(second))));
+        return alternates.remove(secondCost < firstCost ? second : first);
+    }
+
+    /**
+     * Returns the cost of sending a request to an address, the lower the better
+     */
+    protected abstract double getCost(LatencyTracker.Stats stats);
+
+    private static String getAddress(Object alternate) {
+        return alternate instanceof Endpoint
+            ? ((Endpoint)alternate).getEndpointInfo().getAddress()
+            : String.valueOf(alternate);
+    }
+}
@@ -23,6 +23,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -44,6 +45,8 @@ public abstract class AbstractStaticFailoverStrategy implements FailoverStrategy
 
     private List<String> alternateAddresses;
     private long delayBetweenRetries;
+    private long maxDelayBetweenRetries;
+    private RetryBudget retryBudget;
 
     public void setDelayBetweenRetries(long delay) {
         this.delayBetweenRetries = delay;
@@ -53,6 +56,45 @@ public abstract class AbstractStaticFailoverStrategy implements FailoverStrategy
         return this.delayBetweenRetries;
     }
 
+    /**
+     * Sets the maximum delay in milliseconds between retries. If greater than the delay between
+     * retries, the delays grow exponentially with decorrelated jitter: each delay is a random
+     * value between the delay between retries and three times the previous delay, capped by
+     * this maximum, so that the retries of the clients of a failing target are spread over time.
+     */
+    public void setMaxDelayBetweenRetries(long maxDelay) {
+        this.maxDelayBetweenRetries = maxDelay;
+    }
+
+    public long getMaxDelayBetweenRetries() {
+        return maxDelayBetweenRetries;
+    }
+
+    /**
+     * Returns the delay in milliseconds before the next retry
+     *
+     * @param previousDelay the delay before the previous retry of the invocation, 0 if none
+     * @return the delay, 0 means no delay
+     */
+    public long getDelayBetweenRetries(long previousDelay) {
+        if (delayBetweenRetries <= 0 || maxDelayBetweenRetries <= delayBetweenRetries) {
+            return delayBetweenRetries;
+        }
+        final long upper = Math.min(maxDelayBetweenRetries, Math.max(delayBetweenRetries, previousDelay) * 3);
+        return ThreadLocalRandom.current().nextLong(delayBetweenRetries, upper + 1);
+    }
+
+    public RetryBudget getRetryBudget() {
+        return retryBudget;
+    }
+
+    /**
+     * Sets the budget which caps the retries to each target address
+     */
+    public void setRetryBudget(RetryBudget budget) {
+        this.retryBudget = budget;
+    }
+
     public void setAlternateAddresses(List<String> alternateAddresses) {
         this.alternateAddresses = alternateAddresses;
     }
@@ -23,6 +23,7 @@ import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -68,6 +69,7 @@ public class CircuitBreakerTargetSelector extends FailoverTargetSelector {
     private final int threshold;
     private final long timeout;
     private final Map<String, CircuitBreaker> circuits = new LinkedHashMap<>();
+    private long slowCallThreshold;
 
     public CircuitBreakerTargetSelector(final int threshold, final long timeout) {
         super();
@@ -214,8 +216,38 @@ public class CircuitBreakerTargetSelector extends FailoverTargetSelector {
 
         if (requestContext != null) {
             final String address = (String)requestContext.get(Message.ENDPOINT_ADDRESS);
-            getCircuitBreaker(address).markSuccess();
+            if (isSlow()) {
+                getCircuitBreaker(address).markFailure(null);
+            } else {
+                getCircuitBreaker(address).markSuccess();
+            }
+        }
+    }
+
+    public long getSlowCallThreshold() {
+        return slowCallThreshold;
+    }
+
+    /**
+     * Sets the average latency in milliseconds above which the successful calls to an address
+     * are reported as failures to its circuit breaker, so that a slow address is opened before
+     * its calls time out. The latency is the one of the LatencyTracker of this selector, which
+     * must be set or provided by the strategy. 0, the default, disables the check.
+     */
+    public void setSlowCallThreshold(long slowThreshold) {
+        this.slowCallThreshold = slowThreshold;
+    }
+
+    private boolean isSlow() {
+        final LatencyTracker tracker = getLatencyTracker();
+        if (slowCallThreshold <= 0 || tracker == null || getEndpoint() == null) {
+            return false;
         }
+        // the endpoint address the latency is tracked under, not the request one which includes
+        // the resource path for JAX-RS, so that the stats are found without a prefix search
+        final String address = getEndpoint().getEndpointInfo().getAddress();
+        final LatencyTracker.Stats stats = StringUtils.isEmpty(address) ? null : tracker.findStats(address);
+        return stats != null && stats.getLatency() > TimeUnit.MILLISECONDS.toNanos(slowCallThreshold);
     }
 
     private CircuitBreaker getCircuitBreaker(final Endpoint endpoint) {
@@ -0,0 +1,37 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.clustering;
+
+/**
+ * Selects, out of two random alternates, the one with the lowest expected latency, which is the
+ * average latency of its address multiplied by the number of requests in flight plus one, so that
+ * a slow target gets less traffic before it fails. A target without any response yet is sent one
+ * request at a time until its latency is known.
+ */
+public class EwmaLatencyStrategy extends AbstractLatencyAwareStrategy {
+
+    @Override
+    protected double getCost(LatencyTracker.Stats stats) {
+        if (stats.getCount() == 0) {
+            return stats.getInFlight() == 0 ? 0 : Double.MAX_VALUE;
+        }
+        return stats.getLatency() * (stats.getInFlight() + 1);
+    }
+}
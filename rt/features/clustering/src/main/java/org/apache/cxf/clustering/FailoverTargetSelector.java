@@ -25,17 +25,22 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import org.apache.cxf.Bus;
 import org.apache.cxf.common.logging.LogUtils;
 import org.apache.cxf.common.util.PropertyUtils;
 import org.apache.cxf.endpoint.AbstractConduitSelector;
 import org.apache.cxf.endpoint.Client;
+import org.apache.cxf.endpoint.ClientCallback;
 import org.apache.cxf.endpoint.Endpoint;
 import org.apache.cxf.endpoint.Retryable;
 import org.apache.cxf.helpers.CastUtils;
 import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
 import org.apache.cxf.message.Message;
 import org.apache.cxf.service.model.BindingOperationInfo;
 import org.apache.cxf.transport.Conduit;
+import org.apache.cxf.workqueue.AutomaticWorkQueue;
+import org.apache.cxf.workqueue.WorkQueueManager;
 
 
 /**
@@ -50,6 +55,11 @@ public class FailoverTargetSelector extends AbstractConduitSelector {
     private static final Logger LOG = LogUtils.getL7dLogger(FailoverTargetSelector.class);
     private static final String COMPLETE_IF_SERVICE_NOT_AVAIL_PROPERTY =
         "org.apache.cxf.transport.complete_if_service_not_available";
+    private static final String RETRY_SCHEDULED_PROPERTY =
+        "org.apache.cxf.transport.retry_scheduled";
+    private static final String RETRY_WORK_QUEUE_NAME = "clustering-retry";
+    private static final String LATENCY_REQUEST =
+        "org.apache.cxf.clustering.FailoverTargetSelector.LATENCY_REQUEST";
 
     protected FailoverStrategy failoverStrategy;
     private ConcurrentHashMap<String, InvocationContext> inProgress = new ConcurrentHashMap<>();
@@ -57,6 +67,7 @@ public class FailoverTargetSelector extends AbstractConduitSelector {
     private ConcurrentHashMap<String, FailoverStrategy> inProgressStrategies = new ConcurrentHashMap<>();
     private boolean supportNotAvailableErrorsOnly = true;
     private String clientBootstrapAddress;
+    private LatencyTracker latencyTracker;
 
     /**
      * Normal constructor.
@@ -115,6 +126,10 @@ public class FailoverTargetSelector extends AbstractConduitSelector {
                                       params,
                                       context);
             inProgress.putIfAbsent(key, invocation);
+            RetryBudget budget = getRetryBudget();
+            if (budget != null) {
+                budget.onRequest(getEndpoint().getEndpointInfo().getAddress());
+            }
             // CXF-9213: create a fresh per-invocation instance for strategies that carry state.
             if (getStrategy() instanceof PerInvocationFailoverStrategy) {
                 inProgressStrategies.putIfAbsent(key,
@@ -157,6 +172,7 @@ public class FailoverTargetSelector extends AbstractConduitSelector {
      * @param exchange represents the completed MEP
      */
     public void complete(Exchange exchange) {
+        endRequest(exchange);
         String key = String.valueOf(System.identityHashCode(exchange));
         InvocationContext invocation = getInvocationContext(key);
         if (invocation == null) {
@@ -170,7 +186,12 @@ public class FailoverTargetSelector extends AbstractConduitSelector {
             onFailure(invocation, ex);
             Conduit old = (Conduit)exchange.getOutMessage().remove(Conduit.class.getName());
 
+            // the budget of the failed address is charged only once a target has been selected
+            String failedAddress = getEndpoint().getEndpointInfo().getAddress();
             Endpoint failoverTarget = getFailoverTarget(exchange, invocation);
+            if (failoverTarget != null && !isRetryAllowed(failedAddress)) {
+                failoverTarget = null;
+            }
             if (failoverTarget != null) {
                 setEndpoint(failoverTarget);
                 removeConduit(old);
@@ -191,6 +212,13 @@ public class FailoverTargetSelector extends AbstractConduitSelector {
         }
     }
 
+    @Override
+    protected Conduit getSelectedConduit(Message message) {
+        Conduit c = super.getSelectedConduit(message);
+        startRequest(message);
+        return c;
+    }
+
     protected void doComplete(Exchange exchange) {
         super.complete(exchange);
     }
@@ -207,12 +235,30 @@ public class FailoverTargetSelector extends AbstractConduitSelector {
         overrideAddressProperty(invocation.getContext());
 
         Retryable retry = exchange.get(Retryable.class);
+        long delay = getDelayBetweenRetries(exchange, invocation);
+        ClientCallback callback = exchange.get(ClientCallback.class);
+        Client client = exchange.get(Client.class);
+        boolean clientCallback = callback != null && client != null;
+        if (retry != null && !exchange.isSynchronous() && (delay > 0 || !clientCallback)) {
+            // an asynchronous invocation is retried without blocking the current thread
+            if (clientCallback) {
+                // the fault is left to the fault observer of the client, which has no callback to notify
+                exchange.remove(ClientCallback.class);
+            } else {
+                // the JAX-RS clients ignore the response of this exchange once the retry is scheduled
+                exchange.put(RETRY_SCHEDULED_PROPERTY, Boolean.TRUE);
+            }
+            exchange.put(Exception.class, prevExchangeFault);
+            outMessage.setContent(Exception.class, prevMessageFault);
+            getWorkQueue(exchange.getBus(), RETRY_WORK_QUEUE_NAME).schedule(
+                () -> retryAsync(retry, clientCallback ? client : null, callback, exchange, invocation), delay);
+            return true;
+        }
         exchange.clear();
         boolean failover = false;
         if (retry != null) {
             try {
                 failover = true;
-                long delay = getDelayBetweenRetries();
                 if (delay > 0) {
                     Thread.sleep(delay);
                 }
@@ -228,6 +274,46 @@ public class FailoverTargetSelector extends AbstractConduitSelector {
         return failover;
     }
 
+    private void retryAsync(Retryable retry, Client client, ClientCallback callback, Exchange exchange,
+                            InvocationContext invocation) {
+        // the retry has an exchange of its own as the fault observer may still use the one which failed,
+        // the invocation is moved to the new exchange so that the next failures carry on with it
+        Exchange retryExchange = new ExchangeImpl();
+        retryExchange.setSynchronous(false);
+        String key = getInvocationKey(exchange);
+        String retryKey = getInvocationKey(retryExchange);
+        inProgress.put(retryKey, invocation);
+        inProgress.remove(key, invocation);
+        FailoverStrategy strategy = inProgressStrategies.remove(key);
+        if (strategy != null) {
+            inProgressStrategies.put(retryKey, strategy);
+        }
+        try {
+            if (client != null) {
+                client.invoke(callback,
+                              invocation.getBindingOperationInfo(),
+                              invocation.getParams(),
+                              invocation.getContext(),
+                              retryExchange);
+            } else {
+                retry.invoke(invocation.getBindingOperationInfo(),
+                             invocation.getParams(),
+                             invocation.getContext(),
+                             retryExchange);
+            }
+        } catch (Exception ex) {
+            inProgress.remove(retryKey);
+            inProgressStrategies.remove(retryKey);
+            if (client != null) {
+                Map<String, Object> responseContext =
+                    CastUtils.cast((Map<?, ?>)invocation.getContext().get(Client.RESPONSE_CONTEXT));
+                callback.handleException(responseContext, ex);
+            } else {
+                getLogger().log(Level.WARNING, "ASYNC_RETRY_FAILED", ex);
+            }
+        }
+    }
+
     protected void onSuccess(InvocationContext context) {
     }
 
@@ -257,6 +343,27 @@ public class FailoverTargetSelector extends AbstractConduitSelector {
         return failoverStrategy;
     }
 
+    /**
+     * Sets the tracker of the requests in flight and of the latency of the target addresses.
+     * If not set, the tracker of the strategy is used when it is an AbstractLatencyAwareStrategy.
+     */
+    public void setLatencyTracker(LatencyTracker tracker) {
+        this.latencyTracker = tracker;
+    }
+
+    /**
+     * @return the tracker of the target addresses, or null if the requests are not tracked
+     */
+    public LatencyTracker getLatencyTracker() {
+        if (latencyTracker == null) {
+            FailoverStrategy strategy = getStrategy();
+            if (strategy instanceof AbstractLatencyAwareStrategy) {
+                return ((AbstractLatencyAwareStrategy)strategy).getLatencyTracker();
+            }
+        }
+        return latencyTracker;
+    }
+
     /**
      * @return the logger to use
      */
@@ -264,6 +371,51 @@ public class FailoverTargetSelector extends AbstractConduitSelector {
         return LOG;
     }
 
+    /**
+     * Returns delay (in milliseconds) before the next retry of the invocation
+     * @return delay, 0 means no delay
+     */
+    protected long getDelayBetweenRetries(Exchange exchange, InvocationContext invocation) {
+        FailoverStrategy strategy = getStrategy(getInvocationKey(exchange));
+        long delay;
+        if (strategy instanceof AbstractStaticFailoverStrategy) {
+            delay = ((AbstractStaticFailoverStrategy)strategy).getDelayBetweenRetries(invocation.retryDelay);
+        } else {
+            delay = getDelayBetweenRetries();
+        }
+        invocation.retryDelay = delay;
+        return delay;
+    }
+
+    /**
+     * @return the budget of the retries, or null if the retries are not capped
+     */
+    protected RetryBudget getRetryBudget() {
+        FailoverStrategy strategy = getStrategy();
+        if (strategy instanceof AbstractStaticFailoverStrategy) {
+            return ((AbstractStaticFailoverStrategy)strategy).getRetryBudget();
+        }
+        return null;
+    }
+
+    /**
+     * Returns the work queue of the given name, or the default work queue of the bus
+     */
+    protected static AutomaticWorkQueue getWorkQueue(Bus bus, String name) {
+        WorkQueueManager manager = bus.getExtension(WorkQueueManager.class);
+        AutomaticWorkQueue queue = manager.getNamedWorkQueue(name);
+        return queue != null ? queue : manager.getAutomaticWorkQueue();
+    }
+
+    private boolean isRetryAllowed(String address) {
+        RetryBudget budget = getRetryBudget();
+        if (budget == null || budget.tryRetry(address)) {
+            return true;
+        }
+        getLogger().log(Level.FINE, "RETRY_SUPPRESSED", address);
+        return false;
+    }
+
     /**
      * Returns delay (in milliseconds) between retries
      * @return delay, 0 means no delay
@@ -306,6 +458,33 @@ public class FailoverTargetSelector extends AbstractConduitSelector {
         return failover;
     }
 
+    private void startRequest(Message message) {
+        Exchange exchange = message.getExchange();
+        if (exchange == null || message != exchange.getOutMessage() || exchange.containsKey(LATENCY_REQUEST)) {
+            return;
+        }
+        LatencyTracker tracker = getLatencyTracker();
+        if (tracker != null && getEndpoint() != null) {
+            // the endpoint address, not the request one which includes the resource path for JAX-RS,
+            // so that the addresses tracked are the ones the strategies select
+            String address = getEndpoint().getEndpointInfo().getAddress();
+            if (address != null) {
+                LatencyTracker.Stats stats = tracker.getStats(address);
+                exchange.put(LATENCY_REQUEST, new LatencyRequest(stats, stats.start()));
+            }
+        }
+    }
+
+    private void endRequest(Exchange exchange) {
+        LatencyRequest request = (LatencyRequest)exchange.remove(LATENCY_REQUEST);
+        if (request != null) {
+            Integer responseCode = (Integer)exchange.get(Message.RESPONSE_CODE);
+            boolean failed = exchange.getOutMessage() != null && getExceptionIfPresent(exchange) != null
+                || responseCode != null && responseCode >= 500;
+            request.stats.end(request.startTime, failed);
+        }
+    }
+
     private Exception getExceptionIfPresent(Exchange exchange) {
         Message outMessage = exchange.getOutMessage();
         Exception ex = outMessage.get(Exception.class);
@@ -466,6 +645,7 @@ public class FailoverTargetSelector extends AbstractConduitSelector {
         private Map<String, Object> context;
         private List<Endpoint> alternateEndpoints;
         private List<String> alternateAddresses;
+        private long retryDelay;
         protected InvocationContext(Endpoint endpoint,
                           BindingOperationInfo boi,
                           Object[] prms,
@@ -526,4 +706,14 @@ public class FailoverTargetSelector extends AbstractConduitSelector {
             return !(alternateEndpoints == null && alternateAddresses == null);
         }
     }
+
+    private static final class LatencyRequest {
+        private final LatencyTracker.Stats stats;
+        private final long startTime;
+
+        LatencyRequest(LatencyTracker.Stats stats, long startTime) {
+            this.stats = stats;
+            this.startTime = startTime;
+        }
+    }
 }
@@ -0,0 +1,216 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.clustering;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.cxf.common.util.LogLinearBuckets;
+
+/**
+ * The settings and the state of the hedging of the HedgingTargetSelector. A hedge is sent once a
+ * request has been outstanding for longer than a percentile (the 95th by default) of the recent
+ * latencies, bounded by a minimum and a maximum delay. The extra load is capped by a RetryBudget:
+ * each request earns a fraction of a hedge (10% by default) and each hedge spends one, up to a
+ * maximum balance of hedges which can be sent in a burst. Setting the ratio or the maximum balance
+ * resets the budget.
+ * The latencies are kept in a histogram of buckets growing by a quarter of a power of two, which
+ * is halved every 1024 samples so that the percentile follows the recent latencies.
+ */
+public class HedgingPolicy {
+    public static final double DEFAULT_PERCENTILE = 95.0;
+    public static final double DEFAULT_BUDGET_RATIO = 0.1;
+    public static final int DEFAULT_MAX_BUDGET = 10;
+    public static final long DEFAULT_MIN_DELAY = 10L;
+    public static final long DEFAULT_MAX_DELAY = 10000L;
+    public static final int DEFAULT_MIN_SAMPLES = 20;
+
+    private static final LogLinearBuckets SCALE = new LogLinearBuckets(2);
+    private static final int BUCKETS = SCALE.getBucketCount(Long.MAX_VALUE);
+    private static final int DECAY_INTERVAL = 1024;
+    // the hedges are not sent to a given target, they share a single budget
+    private static final String BUDGET_KEY = "";
+
+    private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+    private final AtomicLong samples = new AtomicLong();
+    private final LongAdder hedgeWins = new LongAdder();
+    private double percentile = DEFAULT_PERCENTILE;
+    private double budgetRatio = DEFAULT_BUDGET_RATIO;
+    private int maxBudget = DEFAULT_MAX_BUDGET;
+    private volatile RetryBudget budget = newBudget();
+    private long minDelay = DEFAULT_MIN_DELAY;
+    private long maxDelay = DEFAULT_MAX_DELAY;
+    private int minSamples = DEFAULT_MIN_SAMPLES;
+
+    public double getPercentile() {
+        return percentile;
+    }
+
+    /**
+     * Sets the percentile of the latencies after which a hedge is sent, between 0 and 100
+     */
+    public void setPercentile(double p) {
+        if (p <= 0 || p > 100) {
+            throw new IllegalArgumentException("The percentile must be between 0 and 100");
+        }
+        this.percentile = p;
+    }
+
+    public double getBudgetRatio() {
+        return budgetRatio;
+    }
+
+    /**
+     * Sets the maximum number of hedges per request, 0.1 meaning at most 10% extra requests
+     */
+    public void setBudgetRatio(double ratio) {
+        this.budgetRatio = ratio;
+        this.budget = newBudget();
+    }
+
+    public int getMaxBudget() {
+        return maxBudget;
+    }
+
+    /**
+     * Sets the maximum number of hedges which can be sent in a burst
+     */
+    public void setMaxBudget(int max) {
+        this.maxBudget = max;
+        this.budget = newBudget();
+    }
+
+    public long getMinDelay() {
+        return minDelay;
+    }
+
+    /**
+     * Sets the minimum delay in milliseconds before a hedge is sent
+     */
+    public void setMinDelay(long delay) {
+        this.minDelay = delay;
+    }
+
+    public long getMaxDelay() {
+        return maxDelay;
+    }
+
+    /**
+     * Sets the maximum delay in milliseconds before a hedge is sent, which is also the delay
+     * until enough latencies are known
+     */
+    public void setMaxDelay(long delay) {
+        this.maxDelay = delay;
+    }
+
+    public int getMinSamples() {
+        return minSamples;
+    }
+
+    /**
+     * Sets the number of latencies needed to compute the percentile
+     */
+    public void setMinSamples(int min) {
+        this.minSamples = min;
+    }
+
+    /**
+     * Records the latency of a request which was not hedged or whose response arrived first
+     * @param latency the latency in nanoseconds
+     */
+    public void recordLatency(long latency) {
+        histogram.incrementAndGet(SCALE.indexOf(Math.max(1L, latency)));
+        if (samples.incrementAndGet() % DECAY_INTERVAL == 0) {
+            for (int i = 0; i < BUCKETS; i++) {
+                histogram.getAndUpdate(i, v -> v >> 1);
+            }
+        }
+    }
+
+    /**
+     * Returns the delay in milliseconds after which an outstanding request is hedged
+     */
+    public long getHedgeDelay() {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += histogram.get(i);
+        }
+        if (total < minSamples || total == 0) {
+            return maxDelay;
+        }
+        final long rank = (long)Math.ceil(total * percentile / 100.0);
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += histogram.get(i);
+            if (count >= rank) {
+                long delay = TimeUnit.NANOSECONDS.toMillis(SCALE.highestValue(i));
+                return Math.min(maxDelay, Math.max(minDelay, delay));
+            }
+        }
+        return maxDelay;
+    }
+
+    /**
+     * Adds the share of a hedge earned by a request to the budget
+     */
+    public void onRequest() {
+        budget.onRequest(BUDGET_KEY);
+    }
+
+    /**
+     * Takes a hedge from the budget
+     * @return false if the budget is exhausted, in which case the hedge is suppressed
+     */
+    public boolean tryAcquireHedge() {
+        return budget.tryRetry(BUDGET_KEY);
+    }
+
+    void onHedgeWin() {
+        hedgeWins.increment();
+    }
+
+    /**
+     * Returns the number of hedges sent
+     */
+    public long getHedgeCount() {
+        return budget.getRetryCount();
+    }
+
+    /**
+     * Returns the number of hedges whose response arrived before the one of the original request
+     */
+    public long getHedgeWinCount() {
+        return hedgeWins.sum();
+    }
+
+    /**
+     * Returns the number of hedges which were not sent because the budget was exhausted
+     */
+    public long getSuppressedCount() {
+        return budget.getSuppressedCount();
+    }
+
+    private RetryBudget newBudget() {
+        // no hedge can be sent before some requests have been made
+        return new RetryBudget(budgetRatio, maxBudget, 0);
+    }
+}
@@ -0,0 +1,441 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.clustering;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.common.logging.LogUtils;
+import org.apache.cxf.common.util.PropertyUtils;
+import org.apache.cxf.endpoint.Client;
+import org.apache.cxf.endpoint.ClientCallback;
+import org.apache.cxf.helpers.CastUtils;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.service.model.BindingOperationInfo;
+import org.apache.cxf.transport.Conduit;
+
+/**
+ * A FailoverTargetSelector which hedges the asynchronous invocations of idempotent operations:
+ * when the response of such an invocation takes longer than the delay computed by the
+ * HedgingPolicy, the same invocation is sent to another address selected by the FailoverStrategy,
+ * and the first response is passed to the callback of the invocation while the response of the
+ * other request, if any, is discarded and its exchange completed: the other request itself is not
+ * aborted. The hedge is sent asynchronously through the Client of the invocation, so no thread
+ * waits for its response, and its timer is cancelled as soon as the original request completes.
+ * An operation is idempotent if its name was given to {@link #setIdempotentOperations(Collection)},
+ * or if the {@link #IDEMPOTENT} property is set in the request context.
+ * Synchronous invocations are not hedged, since the calling thread is blocked on the response
+ * of the original request, but their latency is used to compute the hedge delay. Neither are the
+ * JAX-RS invocations, which are not sent through a Client.
+ */
+public class HedgingTargetSelector extends FailoverTargetSelector {
+    public static final String IDEMPOTENT = "org.apache.cxf.clustering.idempotent";
+    public static final String WORK_QUEUE_NAME = "clustering-hedging";
+
+    private static final Logger LOG = LogUtils.getL7dLogger(HedgingTargetSelector.class);
+    private static final String HEDGED_REQUEST =
+        "org.apache.cxf.clustering.HedgingTargetSelector.HEDGED_REQUEST";
+    private static final String START_TIME =
+        "org.apache.cxf.clustering.HedgingTargetSelector.START_TIME";
+
+    private HedgingPolicy policy = new HedgingPolicy();
+    private Set<String> idempotentOperations = Collections.emptySet();
+
+    public HedgingTargetSelector() {
+        super();
+    }
+
+    public HedgingTargetSelector(String clientBootstrapAddress) {
+        super(clientBootstrapAddress);
+    }
+
+    public HedgingTargetSelector(Conduit c) {
+        super(c);
+    }
+
+    public HedgingPolicy getPolicy() {
+        return policy;
+    }
+
+    public void setPolicy(HedgingPolicy hedgingPolicy) {
+        this.policy = hedgingPolicy;
+    }
+
+    public Collection<String> getIdempotentOperations() {
+        return idempotentOperations;
+    }
+
+    /**
+     * Sets the local names of the operations which are safe to invoke more than once
+     */
+    public void setIdempotentOperations(Collection<String> operations) {
+        this.idempotentOperations = new HashSet<>(operations);
+    }
+
+    @Override
+    public void prepare(Message message) {
+        super.prepare(message);
+        Exchange exchange = message.getExchange();
+        if (exchange == null || exchange.containsKey(HEDGED_REQUEST) || exchange.containsKey(START_TIME)) {
+            return;
+        }
+        exchange.put(START_TIME, System.nanoTime());
+        policy.onRequest();
+
+        ClientCallback callback = exchange.get(ClientCallback.class);
+        Client client = exchange.get(Client.class);
+        InvocationContext invocation = getInvocationContext(getInvocationKey(exchange));
+        if (callback == null || callback instanceof HedgedCallback || client == null || invocation == null
+            || exchange.isSynchronous() || !isIdempotent(message)) {
+            return;
+        }
+        HedgedCallback hedged = new HedgedCallback(callback);
+        exchange.put(ClientCallback.class, hedged);
+        final String address = (String)message.get(Message.ENDPOINT_ADDRESS);
+        final Bus bus = exchange.getBus();
+        final Runnable task = () -> hedge(exchange, invocation, hedged, client, address);
+        // the timer only hands the hedge over to the work queue, it is cancelled and removed
+        // from the timer queue once the original request completes
+        hedged.setTimer(Timer.SCHEDULER.schedule(() -> getWorkQueue(bus, WORK_QUEUE_NAME).execute(task),
+                                                 policy.getHedgeDelay(), TimeUnit.MILLISECONDS));
+    }
+
+    @Override
+    public void complete(Exchange exchange) {
+        Long start = (Long)exchange.remove(START_TIME);
+        if (start != null) {
+            policy.recordLatency(System.nanoTime() - start);
+        }
+        super.complete(exchange);
+    }
+
+    @Override
+    protected boolean performFailover(Exchange exchange, InvocationContext invocation) {
+        ClientCallback callback = exchange.get(ClientCallback.class);
+        if (!(callback instanceof HedgedCallback)) {
+            return super.performFailover(exchange, invocation);
+        }
+        HedgedCallback hedged = (HedgedCallback)callback;
+        if (!hedged.startFailover()) {
+            // the outcome of the hedge is passed to the callback instead
+            return false;
+        }
+        boolean failover = super.performFailover(exchange, invocation);
+        hedged.endFailover(failover);
+        return failover;
+    }
+
+    @Override
+    protected Logger getLogger() {
+        return LOG;
+    }
+
+    protected boolean isIdempotent(Message message) {
+        if (PropertyUtils.isTrue(message.getContextualProperty(IDEMPOTENT))) {
+            return true;
+        }
+        BindingOperationInfo boi = message.getExchange().getBindingOperationInfo();
+        return boi != null && idempotentOperations.contains(boi.getName().getLocalPart());
+    }
+
+    /**
+     * Returns the address of the hedge, other than the address of the original request
+     */
+    protected String selectHedgeAddress(Exchange exchange, String address) {
+        FailoverStrategy strategy = getStrategy();
+        List<String> alternates = strategy.getAlternateAddresses(exchange);
+        if (alternates == null) {
+            return null;
+        }
+        alternates = new ArrayList<>(alternates);
+        if (address != null) {
+            alternates.removeIf(address::startsWith);
+        }
+        return alternates.isEmpty() ? null : strategy.selectAlternateAddress(alternates);
+    }
+
+    private void hedge(Exchange exchange, InvocationContext invocation, HedgedCallback callback,
+                       Client client, String address) {
+        if (callback.isDone()) {
+            return;
+        }
+        String alternate = selectHedgeAddress(exchange, address);
+        if (alternate == null || !policy.tryAcquireHedge()) {
+            return;
+        }
+        HedgeCallback hedge = new HedgeCallback(callback, alternate);
+        if (!callback.startHedge(hedge)) {
+            return;
+        }
+        Map<String, Object> requestContext = new HashMap<>();
+        Map<String, Object> original =
+            CastUtils.cast((Map<?, ?>)invocation.getContext().get(Client.REQUEST_CONTEXT));
+        if (original != null) {
+            requestContext.putAll(original);
+        }
+        requestContext.put(HEDGED_REQUEST, Boolean.TRUE);
+        Map<String, Object> responseContext = new HashMap<>();
+        Map<String, Object> context = new HashMap<>();
+        context.put(Client.REQUEST_CONTEXT, requestContext);
+        context.put(Client.RESPONSE_CONTEXT, responseContext);
+        overrideAddressProperty(context, alternate);
+
+        getLogger().log(Level.FINE, "HEDGING_TO_ADDRESS", alternate);
+        try {
+            client.invoke(hedge, invocation.getBindingOperationInfo(), invocation.getParams(),
+                          context, new ExchangeImpl());
+        } catch (Exception ex) {
+            hedge.handleException(responseContext, ex);
+        }
+    }
+
+    /**
+     * The timer of the hedges, shared by the selectors and started on first use
+     */
+    private static final class Timer {
+        static final ScheduledThreadPoolExecutor SCHEDULER = createScheduler();
+
+        private static ScheduledThreadPoolExecutor createScheduler() {
+            final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+                Thread t = new Thread(r, "cxf-clustering-hedging-timer");
+                t.setDaemon(true);
+                return t;
+            });
+            scheduler.setRemoveOnCancelPolicy(true);
+            return scheduler;
+        }
+    }
+
+    /**
+     * Passes the outcome of a hedge to the callback of the hedged invocation
+     */
+    final class HedgeCallback extends ClientCallback {
+        private final HedgedCallback hedged;
+        private final String address;
+
+        HedgeCallback(HedgedCallback hedged, String address) {
+            this.hedged = hedged;
+            this.address = address;
+        }
+
+        @Override
+        public void handleResponse(Map<String, Object> ctx, Object[] res) {
+            super.handleResponse(ctx, res);
+            if (hedged.hedgeResponse(ctx, res)) {
+                policy.onHedgeWin();
+            }
+        }
+
+        @Override
+        public void handleException(Map<String, Object> ctx, Throwable ex) {
+            super.handleException(ctx, ex);
+            getLogger().log(Level.FINE, "HEDGE_FAILED", new Object[] {address, ex});
+            hedged.hedgeFailed();
+        }
+    }
+
+    /**
+     * Passes the first outcome of the original request, of its failover or of its hedge to the
+     * callback of the invocation. A failure of the original request is held back while the hedge
+     * is outstanding.
+     */
+    static final class HedgedCallback extends ClientCallback {
+        private final ClientCallback callback;
+        private boolean hedging;
+        private boolean failingOver;
+        private boolean done;
+        private boolean hedgeWon;
+        private ClientCallback hedge;
+        private Future<?> timer;
+        private Map<String, Object> failureContext;
+        private Throwable failure;
+
+        HedgedCallback(ClientCallback callback) {
+            this.callback = callback;
+        }
+
+        @Override
+        public void start(Message msg) {
+            callback.start(msg);
+        }
+
+        @Override
+        public void handleResponse(Map<String, Object> ctx, Object[] res) {
+            cancelTimer();
+            if (claim()) {
+                cancelHedge();
+                callback.handleResponse(ctx, res);
+            }
+        }
+
+        @Override
+        public void handleException(Map<String, Object> ctx, Throwable ex) {
+            cancelTimer();
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                if (hedging) {
+                    failureContext = ctx;
+                    failure = ex;
+                    return;
+                }
+                done = true;
+            }
+            callback.handleException(ctx, ex);
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return callback.cancel(mayInterruptIfRunning);
+        }
+
+        /**
+         * Returns true once the hedge won, so that the response of the original request is
+         * discarded by the Client without being processed
+         */
+        @Override
+        public boolean isCancelled() {
+            synchronized (this) {
+                if (hedgeWon) {
+                    return true;
+                }
+            }
+            return callback.isCancelled();
+        }
+
+        @Override
+        public synchronized boolean isDone() {
+            return done || callback.isDone();
+        }
+
+        void setTimer(Future<?> hedgeTimer) {
+            synchronized (this) {
+                if (!done) {
+                    timer = hedgeTimer;
+                    return;
+                }
+            }
+            // the original request completed before the hedge was scheduled
+            hedgeTimer.cancel(false);
+        }
+
+        synchronized boolean isHedgeScheduled() {
+            return timer != null && !timer.isDone();
+        }
+
+        synchronized boolean startHedge(ClientCallback hedgeCallback) {
+            if (done || failingOver || callback.isDone()) {
+                return false;
+            }
+            hedging = true;
+            hedge = hedgeCallback;
+            return true;
+        }
+
+        boolean hedgeResponse(Map<String, Object> ctx, Object[] res) {
+            synchronized (this) {
+                hedging = false;
+                if (done) {
+                    return false;
+                }
+                done = true;
+                hedgeWon = true;
+            }
+            callback.handleResponse(ctx, res);
+            return true;
+        }
+
+        void hedgeFailed() {
+            final Map<String, Object> ctx;
+            final Throwable ex;
+            synchronized (this) {
+                hedging = false;
+                if (done || failure == null) {
+                    return;
+                }
+                done = true;
+                ctx = failureContext;
+                ex = failure;
+            }
+            callback.handleException(ctx, ex);
+        }
+
+        synchronized boolean startFailover() {
+            if (done || hedging) {
+                return false;
+            }
+            failingOver = true;
+            return true;
+        }
+
+        synchronized void endFailover(boolean failover) {
+            // no hedge once failing over, the outcome of the failover is passed to the callback
+            failingOver = failover;
+        }
+
+        private synchronized boolean claim() {
+            if (done) {
+                return false;
+            }
+            done = true;
+            return true;
+        }
+
+        private void cancelTimer() {
+            final Future<?> scheduled;
+            synchronized (this) {
+                scheduled = timer;
+                timer = null;
+            }
+            if (scheduled != null) {
+                scheduled.cancel(false);
+            }
+        }
+
+        /**
+         * Marks the hedge in flight, if any, as cancelled, so that its response is discarded by
+         * the Client and its exchange completed. The request of the hedge is not aborted.
+         */
+        private void cancelHedge() {
+            final ClientCallback outstanding;
+            synchronized (this) {
+                outstanding = hedging ? hedge : null;
+            }
+            if (outstanding != null) {
+                outstanding.cancel(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.clustering;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks the number of requests in flight and the latency of the target addresses, without
+ * locking, for the latency aware strategies and the CircuitBreakerTargetSelector.
+ * The latency of an address is a peak EWMA: a latency above the average is taken at once,
+ * while a lower latency only moves the average according to the time since the last response,
+ * and the average decays towards zero while no response is received, so that an address which
+ * was slow is eventually tried again. A failure counts as twice the current average.
+ */
+public class LatencyTracker {
+    public static final long DEFAULT_DECAY_TIME = 10000L;
+
+    private final Map<String, Stats> addresses = new ConcurrentHashMap<>();
+    private final double decayNanos;
+
+    public LatencyTracker() {
+        this(DEFAULT_DECAY_TIME);
+    }
+
+    /**
+     * @param decayTime the time in milliseconds over which a latency sample loses about two thirds
+     *                  of its weight
+     */
+    public LatencyTracker(long decayTime) {
+        if (decayTime <= 0) {
+            throw new IllegalArgumentException("The decay time must be positive");
+        }
+        this.decayNanos = TimeUnit.MILLISECONDS.toNanos(decayTime);
+    }
+
+    /**
+     * Returns the statistics of the given address, which are created if needed
+     */
+    public Stats getStats(String address) {
+        return addresses.computeIfAbsent(address, a -> new Stats());
+    }
+
+    /**
+     * Returns the statistics of the given address, or of the tracked address it starts with, such
+     * as the base address of a JAX-RS client whose request address includes the resource path,
+     * or null if the address is not tracked. No statistics are created. Unlike the exact lookup,
+     * the search of a prefix goes through all the tracked addresses.
+     */
+    public Stats findStats(String address) {
+        Stats stats = addresses.get(address);
+        if (stats == null) {
+            String prefix = null;
+            for (Map.Entry<String, Stats> entry : addresses.entrySet()) {
+                if (address.startsWith(entry.getKey())
+                    && (prefix == null || entry.getKey().length() > prefix.length())) {
+                    prefix = entry.getKey();
+                    stats = entry.getValue();
+                }
+            }
+        }
+        return stats;
+    }
+
+    public void clear() {
+        addresses.clear();
+    }
+
+    protected long nanoTime() {
+        return System.nanoTime();
+    }
+
+    /**
+     * The statistics of a target address
+     */
+    public final class Stats {
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicLong latency = new AtomicLong(Double.doubleToRawLongBits(0.0));
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private volatile long lastUpdate = nanoTime();
+
+        Stats() {
+        }
+
+        /**
+         * Records the start of a request to the address
+         * @return the start time of the request, to pass to {@link #end(long, boolean)}
+         */
+        public long start() {
+            inFlight.incrementAndGet();
+            return nanoTime();
+        }
+
+        /**
+         * Records the end of a request to the address
+         * @param startTime the time returned by {@link #start()}
+         * @param failed whether the request failed
+         * @return the latency of the request in nanoseconds
+         */
+        public long end(long startTime, boolean failed) {
+            inFlight.decrementAndGet();
+            final long now = nanoTime();
+            final long elapsed = Math.max(0L, now - startTime);
+            count.incrementAndGet();
+            if (failed) {
+                failures.incrementAndGet();
+            }
+            double weight = Math.exp(-Math.max(0L, now - lastUpdate) / decayNanos);
+            lastUpdate = now;
+            long prev;
+            long next;
+            do {
+                prev = latency.get();
+                double average = Double.longBitsToDouble(prev);
+                double sample = failed ? Math.max(elapsed, 2 * average) : elapsed;
+                double updated = sample > average ? sample : average * weight + sample * (1 - weight);
+                next = Double.doubleToRawLongBits(updated);
+            } while (!latency.compareAndSet(prev, next));
+            return elapsed;
+        }
+
+        public int getInFlight() {
+            return inFlight.get();
+        }
+
+        /**
+         * Returns the average latency in nanoseconds, decayed by the time since the last response
+         */
+        public double getLatency() {
+            final double average = Double.longBitsToDouble(latency.get());
+            final long idle = Math.max(0L, nanoTime() - lastUpdate);
+            return average * Math.exp(-idle / decayNanos);
+        }
+
+        public long getCount() {
+            return count.get();
+        }
+
+        public long getFailureCount() {
+            return failures.get();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.clustering;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caps the retries of the failover to a target address, so that the retries do not amplify the
+ * load of a target which is already struggling. Each target has a token bucket: every request
+ * to the target earns a fraction of a retry (20% by default) and every retry after a failure of
+ * the target spends one, up to a maximum balance of retries (10 by default), which is also the
+ * initial balance unless another one is given. A retry budget may be shared by the strategies of
+ * several clients of the same targets.
+ */
+public class RetryBudget {
+    public static final double DEFAULT_RATIO = 0.2;
+    public static final int DEFAULT_MAX_BALANCE = 10;
+
+    // the balances are kept in thousandths of a retry
+    private static final long RETRY_COST = 1000L;
+
+    private final Map<String, AtomicLong> balances = new ConcurrentHashMap<>();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder suppressed = new LongAdder();
+    private final double ratio;
+    private final long maxBalance;
+    private final long initialBalance;
+
+    public RetryBudget() {
+        this(DEFAULT_RATIO, DEFAULT_MAX_BALANCE);
+    }
+
+    /**
+     * @param ratio the number of retries earned by a request, 0.2 meaning at most 20% extra requests
+     * @param maxBalance the maximum number of retries which can be made in a burst
+     */
+    public RetryBudget(double ratio, int maxBalance) {
+        this(ratio, maxBalance, maxBalance);
+    }
+
+    /**
+     * @param ratio the number of retries earned by a request, 0.2 meaning at most 20% extra requests
+     * @param maxBalance the maximum number of retries which can be made in a burst
+     * @param initialBalance the number of retries which can be made to a target before any request
+     */
+    public RetryBudget(double ratio, int maxBalance, int initialBalance) {
+        if (ratio < 0 || maxBalance < 0 || initialBalance < 0) {
+            throw new IllegalArgumentException("The ratio and the balances must not be negative");
+        }
+        this.ratio = ratio;
+        this.maxBalance = maxBalance * RETRY_COST;
+        this.initialBalance = Math.min(maxBalance, initialBalance) * RETRY_COST;
+    }
+
+    /**
+     * Records a request to the given target
+     */
+    public void onRequest(String target) {
+        final long earned = (long)(ratio * RETRY_COST);
+        balanceOf(target).getAndUpdate(b -> Math.min(maxBalance, b + earned));
+    }
+
+    /**
+     * Takes a retry from the budget of the given target
+     * @return false if the budget is exhausted, in which case the retry is suppressed
+     */
+    public boolean tryRetry(String target) {
+        final AtomicLong balance = balanceOf(target);
+        long b = balance.get();
+        while (b >= RETRY_COST) {
+            if (balance.compareAndSet(b, b - RETRY_COST)) {
+                retries.increment();
+                return true;
+            }
+            b = balance.get();
+        }
+        suppressed.increment();
+        return false;
+    }
+
+    /**
+     * Returns the number of retries which can be made to the given target
+     */
+    public double getBalance(String target) {
+        return (double)balanceOf(target).get() / RETRY_COST;
+    }
+
+    /**
+     * Returns the number of retries allowed by the budget
+     */
+    public long getRetryCount() {
+        return retries.sum();
+    }
+
+    /**
+     * Returns the number of retries suppressed because the budget was exhausted
+     */
+    public long getSuppressedCount() {
+        return suppressed.sum();
+    }
+
+    private AtomicLong balanceOf(String target) {
+        return balances.computeIfAbsent(target, t -> new AtomicLong(initialBalance));
+    }
+}
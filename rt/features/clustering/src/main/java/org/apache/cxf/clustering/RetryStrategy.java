@@ -89,6 +89,8 @@ public class RetryStrategy extends SequentialStrategy implements PerInvocationFa
             copy.setAlternateAddresses(addresses);
         }
         copy.setDelayBetweenRetries(getDelayBetweenRetries());
+        copy.setMaxDelayBetweenRetries(getMaxDelayBetweenRetries());
+        copy.setRetryBudget(getRetryBudget());
         return copy;
     }
 
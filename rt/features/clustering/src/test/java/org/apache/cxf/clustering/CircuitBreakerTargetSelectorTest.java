@@ -0,0 +1,118 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.clustering;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cxf.endpoint.Client;
+import org.apache.cxf.endpoint.Endpoint;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.service.model.EndpointInfo;
+import org.apache.cxf.service.model.ServiceInfo;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class CircuitBreakerTargetSelectorTest {
+    private static final String SLOW = "http://localhost:9001/slow";
+    private static final String FAST = "http://localhost:9002/fast";
+
+    @Test
+    public void testSlowCallsOpenTheCircuit() {
+        LatencyAwareStrategyTest.TestTracker tracker = new LatencyAwareStrategyTest.TestTracker();
+        CircuitBreakerTargetSelector selector = createSelector(tracker);
+        selector.setSlowCallThreshold(100);
+
+        record(tracker, SLOW, 50);
+        selector.onSuccess(createInvocation(selector, SLOW));
+        assertEquals(SLOW, getFailoverAddress(selector));
+
+        record(tracker, SLOW, 500);
+        selector.onSuccess(createInvocation(selector, SLOW));
+        // the slow address is skipped although its calls succeed
+        assertEquals(FAST, getFailoverAddress(selector));
+    }
+
+    @Test
+    public void testSlowCallsOfResourceAddress() {
+        LatencyAwareStrategyTest.TestTracker tracker = new LatencyAwareStrategyTest.TestTracker();
+        CircuitBreakerTargetSelector selector = createSelector(tracker);
+        selector.setSlowCallThreshold(100);
+
+        // the latency is the one of the endpoint address, not of the resource the request was sent to
+        record(tracker, SLOW, 500);
+        record(tracker, SLOW + "/customers", 10);
+        selector.onSuccess(createInvocation(selector, SLOW + "/customers/1"));
+        assertEquals(FAST, getFailoverAddress(selector));
+    }
+
+    @Test
+    public void testSlowCallsIgnoredWithoutThreshold() {
+        LatencyAwareStrategyTest.TestTracker tracker = new LatencyAwareStrategyTest.TestTracker();
+        CircuitBreakerTargetSelector selector = createSelector(tracker);
+
+        record(tracker, SLOW, 500);
+        selector.onSuccess(createInvocation(selector, SLOW));
+        assertEquals(SLOW, getFailoverAddress(selector));
+    }
+
+    private static CircuitBreakerTargetSelector createSelector(LatencyTracker tracker) {
+        EndpointInfo ei = new EndpointInfo(new ServiceInfo(), "http://test");
+        ei.setAddress(SLOW);
+        CircuitBreakerTargetSelector selector = new CircuitBreakerTargetSelector(1, 60000);
+        selector.setEndpoint(new FailoverTargetSelectorTest.StubEndpoint(ei));
+        selector.setStrategy(new SequentialStrategy() {
+            @Override
+            public List<String> getAlternateAddresses(Exchange exchange) {
+                return new ArrayList<>(Arrays.asList(SLOW, FAST));
+            }
+        });
+        selector.setLatencyTracker(tracker);
+        return selector;
+    }
+
+    private static FailoverTargetSelector.InvocationContext createInvocation(FailoverTargetSelector selector,
+                                                                            String address) {
+        Map<String, Object> requestContext = new HashMap<>();
+        requestContext.put(Message.ENDPOINT_ADDRESS, address);
+        Map<String, Object> context = new HashMap<>();
+        context.put(Client.REQUEST_CONTEXT, requestContext);
+        return selector.new InvocationContext(selector.getEndpoint(), null, new Object[0], context);
+    }
+
+    private static String getFailoverAddress(FailoverTargetSelector selector) {
+        Endpoint target = selector.getFailoverTarget(new ExchangeImpl(), createInvocation(selector, SLOW));
+        return target.getEndpointInfo().getAddress();
+    }
+
+    private static void record(LatencyAwareStrategyTest.TestTracker tracker, String address, long millis) {
+        LatencyTracker.Stats stats = tracker.getStats(address);
+        long start = stats.start();
+        tracker.time += TimeUnit.MILLISECONDS.toNanos(millis);
+        stats.end(start, false);
+    }
+}
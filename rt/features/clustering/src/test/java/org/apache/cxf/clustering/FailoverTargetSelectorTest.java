@@ -26,9 +26,18 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
 
+import org.apache.cxf.Bus;
+import org.apache.cxf.BusFactory;
 import org.apache.cxf.binding.Binding;
+import org.apache.cxf.clustering.FailoverTargetSelector.InvocationContext;
+import org.apache.cxf.endpoint.Client;
+import org.apache.cxf.endpoint.ClientCallback;
 import org.apache.cxf.endpoint.Endpoint;
 import org.apache.cxf.endpoint.Retryable;
 import org.apache.cxf.feature.Feature;
@@ -41,18 +50,28 @@ import org.apache.cxf.service.Service;
 import org.apache.cxf.service.model.BindingOperationInfo;
 import org.apache.cxf.service.model.EndpointInfo;
 import org.apache.cxf.service.model.ServiceInfo;
+import org.apache.cxf.transport.AbstractObservable;
+import org.apache.cxf.transport.Conduit;
 import org.apache.cxf.transport.MessageObserver;
+import org.apache.cxf.ws.addressing.EndpointReferenceType;
 
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Tests for {@link FailoverTargetSelector}.
  * See CXF-9204.
  */
 public class FailoverTargetSelectorTest {
+    private static final String ADDRESS = "http://localhost:9999/test";
+    private static final String ALTERNATE = "http://localhost:9998/alternate";
 
     /**
      * Verifies that when a failover retry throws an exception, the original
@@ -122,10 +141,192 @@ public class FailoverTargetSelectorTest {
         assertSame("Original exception should be restored", originalException, restoredEx);
     }
 
+    /**
+     * Verifies that the requests are tracked against the endpoint address, and not against the
+     * request address which includes the resource path for JAX-RS clients.
+     */
+    @Test
+    public void testLatencyTrackedPerEndpointAddress() {
+        EndpointInfo ei = new EndpointInfo(new ServiceInfo(), "http://test");
+        ei.setAddress("http://localhost:9999/services");
+        Endpoint endpoint = new StubEndpoint(ei);
+        LatencyTracker tracker = new LatencyTracker();
+        FailoverTargetSelector selector = new FailoverTargetSelector(new StubConduit());
+        selector.setEndpoint(endpoint);
+        selector.setLatencyTracker(tracker);
+
+        for (int i = 0; i < 2; i++) {
+            Exchange exchange = new ExchangeImpl();
+            Message outMessage = new MessageImpl();
+            outMessage.put(Message.ENDPOINT_ADDRESS, "http://localhost:9999/services/customers/" + i);
+            exchange.setOutMessage(outMessage);
+
+            assertNotNull(selector.selectConduit(outMessage));
+            LatencyTracker.Stats stats = tracker.findStats("http://localhost:9999/services");
+            assertNotNull(stats);
+            assertEquals(1, stats.getInFlight());
+            assertSame(stats, tracker.findStats("http://localhost:9999/services/customers/" + i));
+
+            // a server error is a failure
+            exchange.put(Message.RESPONSE_CODE, i == 0 ? 200 : 503);
+            selector.complete(exchange);
+            assertEquals(0, stats.getInFlight());
+            assertEquals(i + 1, stats.getCount());
+            assertEquals(i, stats.getFailureCount());
+        }
+    }
+
+    /**
+     * Verifies that the retry budget is charged only when a failover target is selected.
+     */
+    @Test
+    public void testBudgetNotChargedWithoutTarget() {
+        RetryBudget budget = new RetryBudget(0, 1);
+        List<String> alternates = new ArrayList<>();
+        SequentialStrategy strategy = new SequentialStrategy() {
+            @Override
+            public List<String> getAlternateAddresses(Exchange exch) {
+                return alternates;
+            }
+        };
+        strategy.setRetryBudget(budget);
+        FailoverTargetSelector selector = createSelector(strategy);
+
+        Exchange exchange = createExchange(selector, new IOException("Connection refused"));
+        exchange.put(Retryable.class, (opInfo, prms, ctx, ex) -> null);
+        selector.prepare(exchange.getOutMessage());
+        selector.complete(exchange);
+        assertEquals(1.0, budget.getBalance(ADDRESS), 0.0);
+        assertEquals(0, budget.getSuppressedCount());
+        assertEquals(ADDRESS, selector.getEndpoint().getEndpointInfo().getAddress());
+
+        alternates.add(ALTERNATE);
+        exchange = createExchange(selector, new IOException("Connection refused"));
+        exchange.put(Retryable.class, (opInfo, prms, ctx, ex) -> null);
+        selector.prepare(exchange.getOutMessage());
+        selector.complete(exchange);
+        assertEquals(0.0, budget.getBalance(ADDRESS), 0.0);
+        assertEquals(1, budget.getRetryCount());
+    }
+
+    /**
+     * Verifies that an asynchronous invocation is retried by the client on a new exchange once the
+     * delay has elapsed, the invocation being carried on with the new exchange.
+     */
+    @Test
+    public void testAsyncRetryScheduled() throws Exception {
+        SequentialStrategy strategy = new SequentialStrategy();
+        strategy.setAlternateAddresses(Collections.singletonList(ALTERNATE));
+        strategy.setDelayBetweenRetries(10);
+        FailoverTargetSelector selector = createSelector(strategy);
+
+        IOException fault = new IOException("Connection refused");
+        Exchange exchange = createExchange(selector, fault);
+        HedgingTargetSelectorTest.StubClient client = new HedgingTargetSelectorTest.StubClient();
+        ClientCallback callback = new ClientCallback();
+        exchange.put(Client.class, client.proxy);
+        exchange.put(ClientCallback.class, callback);
+        exchange.put(Retryable.class, (opInfo, prms, ctx, ex) -> {
+            throw new IllegalStateException("The retry must not block the current thread");
+        });
+        selector.prepare(exchange.getOutMessage());
+        InvocationContext invocation = selector.getInvocationContext(selector.getInvocationKey(exchange));
+        selector.complete(exchange);
+
+        // the fault is left to the fault observer, which has no callback to notify
+        assertNull(exchange.get(ClientCallback.class));
+        assertSame(fault, exchange.getOutMessage().getContent(Exception.class));
+
+        assertTrue(client.invoked.await(10, TimeUnit.SECONDS));
+        assertSame(callback, client.callback);
+        assertNotSame(exchange, client.exchange);
+        assertEquals(ALTERNATE, client.address);
+        assertSame(invocation, selector.getInvocationContext(selector.getInvocationKey(client.exchange)));
+        assertNull(selector.getInvocationContext(selector.getInvocationKey(exchange)));
+    }
+
+    /**
+     * Verifies that an asynchronous invocation without Client, such as the JAX-RS ones, is retried
+     * on a new exchange without blocking the current thread either.
+     */
+    @Test
+    public void testAsyncRetryScheduledWithoutClient() throws Exception {
+        SequentialStrategy strategy = new SequentialStrategy();
+        strategy.setAlternateAddresses(Collections.singletonList(ALTERNATE));
+        strategy.setDelayBetweenRetries(10);
+        FailoverTargetSelector selector = createSelector(strategy);
+
+        Exchange exchange = createExchange(selector, new IOException("Connection refused"));
+        CountDownLatch retried = new CountDownLatch(1);
+        List<Exchange> retryExchanges = new CopyOnWriteArrayList<>();
+        exchange.put(Retryable.class, (opInfo, prms, ctx, ex) -> {
+            retryExchanges.add(ex);
+            retried.countDown();
+            return null;
+        });
+        selector.prepare(exchange.getOutMessage());
+        selector.complete(exchange);
+        assertEquals(Boolean.TRUE, exchange.get("org.apache.cxf.transport.retry_scheduled"));
+
+        assertTrue(retried.await(10, TimeUnit.SECONDS));
+        Exchange retryExchange = retryExchanges.get(0);
+        assertNotSame(exchange, retryExchange);
+        assertFalse(retryExchange.isSynchronous());
+        assertNotNull(selector.getInvocationContext(selector.getInvocationKey(retryExchange)));
+    }
+
+    private static FailoverTargetSelector createSelector(FailoverStrategy strategy) {
+        EndpointInfo ei = new EndpointInfo(new ServiceInfo(), "http://test");
+        ei.setAddress(ADDRESS);
+        FailoverTargetSelector selector = new FailoverTargetSelector();
+        selector.setEndpoint(new StubEndpoint(ei));
+        selector.setStrategy(strategy);
+        return selector;
+    }
+
+    private static Exchange createExchange(FailoverTargetSelector selector, Exception fault) {
+        Exchange exchange = new ExchangeImpl();
+        exchange.put(Bus.class, BusFactory.getDefaultBus());
+        exchange.put(Endpoint.class, selector.getEndpoint());
+        exchange.put(BindingOperationInfo.class, new BindingOperationInfo());
+        exchange.setSynchronous(false);
+
+        Message outMessage = new MessageImpl();
+        outMessage.setContent(Exception.class, fault);
+        outMessage.setContent(List.class, new ArrayList<>(Collections.singletonList("param")));
+        Map<String, Object> context = new HashMap<>();
+        context.put(Client.REQUEST_CONTEXT, new HashMap<>());
+        outMessage.put(Message.INVOCATION_CONTEXT, context);
+        exchange.setOutMessage(outMessage);
+        return exchange;
+    }
+
+    /**
+     * Minimal Conduit stub without target, so that it is selected for any address.
+     */
+    static class StubConduit extends AbstractObservable implements Conduit {
+        public void prepare(Message message) {
+        }
+
+        public void close(Message message) {
+        }
+
+        public EndpointReferenceType getTarget() {
+            return null;
+        }
+
+        public void close() {
+        }
+
+        protected Logger getLogger() {
+            return null;
+        }
+    }
+
     /**
      * Minimal Endpoint stub for testing purposes.
      */
-    private static class StubEndpoint extends HashMap<String, Object> implements Endpoint {
+    static class StubEndpoint extends HashMap<String, Object> implements Endpoint {
         private static final long serialVersionUID = 1L;
         private final EndpointInfo endpointInfo;
 
@@ -0,0 +1,340 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.clustering;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.namespace.QName;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.BusFactory;
+import org.apache.cxf.clustering.HedgingTargetSelector.HedgedCallback;
+import org.apache.cxf.endpoint.Client;
+import org.apache.cxf.endpoint.ClientCallback;
+import org.apache.cxf.endpoint.Endpoint;
+import org.apache.cxf.helpers.CastUtils;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.service.model.BindingInfo;
+import org.apache.cxf.service.model.BindingOperationInfo;
+import org.apache.cxf.service.model.EndpointInfo;
+import org.apache.cxf.service.model.OperationInfo;
+import org.apache.cxf.service.model.ServiceInfo;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class HedgingTargetSelectorTest {
+    private static final String ORIGINAL = "http://localhost:9001/ws";
+    private static final String ALTERNATE = "http://localhost:9002/ws";
+
+    @Test
+    public void testHedgeDelay() {
+        HedgingPolicy policy = new HedgingPolicy();
+        assertEquals(HedgingPolicy.DEFAULT_MAX_DELAY, policy.getHedgeDelay());
+        for (int i = 0; i < 95; i++) {
+            policy.recordLatency(TimeUnit.MILLISECONDS.toNanos(20));
+        }
+        for (int i = 0; i < 5; i++) {
+            policy.recordLatency(TimeUnit.MILLISECONDS.toNanos(2000));
+        }
+        long delay = policy.getHedgeDelay();
+        assertTrue("Delay " + delay, delay >= 20 && delay <= 25);
+        policy.setPercentile(99);
+        delay = policy.getHedgeDelay();
+        assertTrue("Delay " + delay, delay >= 2000 && delay <= 2500);
+
+        policy.setMaxDelay(1000);
+        assertEquals(1000, policy.getHedgeDelay());
+        policy.setPercentile(50);
+        policy.setMinDelay(100);
+        assertEquals(100, policy.getHedgeDelay());
+    }
+
+    @Test
+    public void testBudget() {
+        HedgingPolicy policy = new HedgingPolicy();
+        policy.setBudgetRatio(1);
+        policy.setMaxBudget(1);
+        // no hedge before a request
+        assertFalse(policy.tryAcquireHedge());
+        policy.onRequest();
+        policy.onRequest();
+        assertTrue(policy.tryAcquireHedge());
+        assertFalse(policy.tryAcquireHedge());
+        assertEquals(1, policy.getHedgeCount());
+        assertEquals(2, policy.getSuppressedCount());
+    }
+
+    @Test
+    public void testFirstResponseWins() throws Exception {
+        ClientCallback callback = new ClientCallback();
+        HedgedCallback hedged = new HedgedCallback(callback);
+        assertTrue(hedged.startHedge(null));
+        assertTrue(hedged.hedgeResponse(Collections.emptyMap(), new Object[] {"hedge"}));
+        hedged.handleResponse(Collections.emptyMap(), new Object[] {"original"});
+        assertArrayEquals(new Object[] {"hedge"}, callback.get());
+
+        callback = new ClientCallback();
+        hedged = new HedgedCallback(callback);
+        assertTrue(hedged.startHedge(null));
+        hedged.handleResponse(Collections.emptyMap(), new Object[] {"original"});
+        assertFalse(hedged.hedgeResponse(Collections.emptyMap(), new Object[] {"hedge"}));
+        assertArrayEquals(new Object[] {"original"}, callback.get());
+    }
+
+    @Test
+    public void testHedgeNotSentOnceDone() {
+        HedgedCallback hedged = new HedgedCallback(new ClientCallback());
+        hedged.handleResponse(Collections.emptyMap(), new Object[] {"original"});
+        assertTrue(hedged.isDone());
+        assertFalse(hedged.startHedge(null));
+    }
+
+    @Test
+    public void testFailureHeldWhileHedging() throws Exception {
+        ClientCallback callback = new ClientCallback();
+        HedgedCallback hedged = new HedgedCallback(callback);
+        assertTrue(hedged.startHedge(null));
+        hedged.handleException(Collections.emptyMap(), new IOException("original"));
+        assertFalse(callback.isDone());
+        assertFalse(hedged.startFailover());
+        assertTrue(hedged.hedgeResponse(Collections.emptyMap(), new Object[] {"hedge"}));
+        assertArrayEquals(new Object[] {"hedge"}, callback.get());
+
+        callback = new ClientCallback();
+        hedged = new HedgedCallback(callback);
+        assertTrue(hedged.startHedge(null));
+        hedged.handleException(Collections.emptyMap(), new IOException("original"));
+        hedged.hedgeFailed();
+        try {
+            callback.get();
+            fail("The failure of the original request is expected");
+        } catch (ExecutionException ex) {
+            assertEquals("original", ex.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void testFailoverBlocksHedge() {
+        ClientCallback callback = new ClientCallback();
+        HedgedCallback hedged = new HedgedCallback(callback);
+        assertTrue(hedged.startFailover());
+        assertFalse(hedged.startHedge(null));
+        hedged.endFailover(true);
+        assertFalse(hedged.startHedge(null));
+        // the outcome of the failover is passed through
+        hedged.handleResponse(Collections.emptyMap(), new Object[] {"failover"});
+        assertTrue(callback.isDone());
+
+        callback = new ClientCallback();
+        hedged = new HedgedCallback(callback);
+        assertTrue(hedged.startFailover());
+        hedged.endFailover(false);
+        assertTrue(hedged.startHedge(null));
+    }
+
+    @Test
+    public void testHedgeSentAsynchronouslyAndOriginalDiscarded() throws Exception {
+        StubClient client = new StubClient();
+        HedgingTargetSelector selector = createSelector();
+        ClientCallback callback = new ClientCallback();
+        Exchange exchange = prepare(selector, client, callback);
+        HedgedCallback hedged = (HedgedCallback)exchange.get(ClientCallback.class);
+
+        assertTrue(client.invoked.await(10, TimeUnit.SECONDS));
+        assertEquals(ALTERNATE, client.address);
+        assertNotSame(exchange, client.exchange);
+
+        // the hedge wins, the response of the original request is then discarded
+        client.callback.handleResponse(Collections.emptyMap(), new Object[] {"hedge"});
+        assertArrayEquals(new Object[] {"hedge"}, callback.get());
+        assertTrue(hedged.isCancelled());
+        hedged.handleResponse(Collections.emptyMap(), new Object[] {"original"});
+        assertArrayEquals(new Object[] {"hedge"}, callback.get());
+        assertEquals(1, selector.getPolicy().getHedgeWinCount());
+    }
+
+    @Test
+    public void testHedgeCancelledWhenOriginalWins() throws Exception {
+        StubClient client = new StubClient();
+        HedgingTargetSelector selector = createSelector();
+        ClientCallback callback = new ClientCallback();
+        Exchange exchange = prepare(selector, client, callback);
+        HedgedCallback hedged = (HedgedCallback)exchange.get(ClientCallback.class);
+
+        assertTrue(client.invoked.await(10, TimeUnit.SECONDS));
+        hedged.handleResponse(Collections.emptyMap(), new Object[] {"original"});
+        assertArrayEquals(new Object[] {"original"}, callback.get());
+        assertFalse(hedged.isCancelled());
+        // the Client discards the response of a cancelled callback
+        assertTrue(client.callback.isCancelled());
+        assertEquals(0, selector.getPolicy().getHedgeWinCount());
+    }
+
+    @Test
+    public void testHedgeTimerCancelledByResponse() throws Exception {
+        StubClient client = new StubClient();
+        HedgingTargetSelector selector = createSelector();
+        selector.getPolicy().setMaxDelay(60000);
+        selector.getPolicy().setMinDelay(60000);
+        ClientCallback callback = new ClientCallback();
+        Exchange exchange = prepare(selector, client, callback);
+        HedgedCallback hedged = (HedgedCallback)exchange.get(ClientCallback.class);
+
+        assertTrue(hedged.isHedgeScheduled());
+        hedged.handleResponse(Collections.emptyMap(), new Object[] {"original"});
+        assertArrayEquals(new Object[] {"original"}, callback.get());
+        assertFalse(hedged.isHedgeScheduled());
+        assertEquals(1, client.invoked.getCount());
+    }
+
+    @Test
+    public void testNotIdempotentNotHedged() {
+        HedgingTargetSelector selector = createSelector();
+        selector.setIdempotentOperations(Collections.singleton("other"));
+        ClientCallback callback = new ClientCallback();
+        Exchange exchange = new ExchangeImpl();
+        Message message = createMessage(selector, exchange, new StubClient(), callback);
+        message.remove(HedgingTargetSelector.IDEMPOTENT);
+        // a GET request is not enough, only the Client invocations are hedged
+        message.put(Message.HTTP_REQUEST_METHOD, "GET");
+        selector.prepare(message);
+        assertSame(callback, exchange.get(ClientCallback.class));
+
+        selector.setIdempotentOperations(Collections.singleton("op"));
+        exchange = new ExchangeImpl();
+        message = createMessage(selector, exchange, new StubClient(), callback);
+        message.remove(HedgingTargetSelector.IDEMPOTENT);
+        selector.prepare(message);
+        assertTrue(exchange.get(ClientCallback.class) instanceof HedgedCallback);
+    }
+
+    @Test
+    public void testSelectHedgeAddress() {
+        SequentialStrategy strategy = new SequentialStrategy();
+        strategy.setAlternateAddresses(Arrays.asList("http://a:80/ws", "http://b:80/ws"));
+        HedgingTargetSelector selector = new HedgingTargetSelector();
+        selector.setStrategy(strategy);
+        assertEquals("http://b:80/ws", selector.selectHedgeAddress(null, "http://a:80/ws/customers"));
+        assertEquals("http://a:80/ws", selector.selectHedgeAddress(null, "http://c:80/ws"));
+        strategy.setAlternateAddresses(Collections.singletonList("http://a:80/ws"));
+        assertNull(selector.selectHedgeAddress(null, "http://a:80/ws"));
+    }
+
+    private static HedgingTargetSelector createSelector() {
+        ServiceInfo si = new ServiceInfo();
+        EndpointInfo ei = new EndpointInfo(si, "http://test");
+        ei.setBinding(new BindingInfo(si, "http://test"));
+        ei.setAddress(ORIGINAL);
+        SequentialStrategy strategy = new SequentialStrategy();
+        strategy.setAlternateAddresses(Arrays.asList(ORIGINAL, ALTERNATE));
+        HedgingTargetSelector selector = new HedgingTargetSelector();
+        selector.setEndpoint(new FailoverTargetSelectorTest.StubEndpoint(ei));
+        selector.setStrategy(strategy);
+        selector.getPolicy().setMaxDelay(10);
+        for (int i = 0; i < 100; i++) {
+            selector.getPolicy().onRequest();
+        }
+        return selector;
+    }
+
+    private static Exchange prepare(HedgingTargetSelector selector, StubClient client, ClientCallback callback) {
+        Exchange exchange = new ExchangeImpl();
+        selector.prepare(createMessage(selector, exchange, client, callback));
+        assertTrue(exchange.get(ClientCallback.class) instanceof HedgedCallback);
+        return exchange;
+    }
+
+    private static Message createMessage(HedgingTargetSelector selector, Exchange exchange, StubClient client,
+                                         ClientCallback callback) {
+        OperationInfo operation = new OperationInfo();
+        operation.setName(new QName("urn:test", "op"));
+        BindingOperationInfo boi = new BindingOperationInfo(null, operation);
+        exchange.put(Bus.class, BusFactory.getDefaultBus());
+        exchange.put(Endpoint.class, selector.getEndpoint());
+        exchange.put(BindingOperationInfo.class, boi);
+        exchange.put(ClientCallback.class, callback);
+        exchange.put(Client.class, client.proxy);
+        exchange.setSynchronous(false);
+
+        Message message = new MessageImpl();
+        message.setContent(List.class, new ArrayList<>(Collections.singletonList("param")));
+        message.put(Message.ENDPOINT_ADDRESS, ORIGINAL);
+        message.put(HedgingTargetSelector.IDEMPOTENT, Boolean.TRUE);
+        Map<String, Object> context = new HashMap<>();
+        context.put(Client.REQUEST_CONTEXT, new HashMap<>());
+        message.put(Message.INVOCATION_CONTEXT, context);
+        exchange.setOutMessage(message);
+        return message;
+    }
+
+    /**
+     * A Client recording its asynchronous invocation
+     */
+    static final class StubClient implements InvocationHandler {
+        final Client proxy = (Client)Proxy.newProxyInstance(getClass().getClassLoader(),
+                                                             new Class<?>[] {Client.class}, this);
+        final CountDownLatch invoked = new CountDownLatch(1);
+        volatile ClientCallback callback;
+        volatile String address;
+        volatile Exchange exchange;
+
+        @Override
+        public Object invoke(Object p, Method method, Object[] args) {
+            if ("hashCode".equals(method.getName())) {
+                return System.identityHashCode(p);
+            } else if ("equals".equals(method.getName())) {
+                return p == args[0];
+            }
+            if ("invoke".equals(method.getName()) && args.length == 5 && args[0] instanceof ClientCallback) {
+                Map<String, Object> requestContext =
+                    CastUtils.cast((Map<?, ?>)((Map<?, ?>)args[3]).get(Client.REQUEST_CONTEXT));
+                address = (String)requestContext.get(Message.ENDPOINT_ADDRESS);
+                exchange = (Exchange)args[4];
+                callback = (ClientCallback)args[0];
+                invoked.countDown();
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.clustering;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyAwareStrategyTest {
+    private static final String FAST = "http://localhost:9001/fast";
+    private static final String SLOW = "http://localhost:9002/slow";
+
+    @Test
+    public void testLeastOutstandingRequests() {
+        LeastOutstandingRequestsStrategy strategy = new LeastOutstandingRequestsStrategy();
+        LatencyTracker tracker = strategy.getLatencyTracker();
+        tracker.getStats(SLOW).start();
+        tracker.getStats(SLOW).start();
+        long start = tracker.getStats(FAST).start();
+        for (int i = 0; i < 100; i++) {
+            assertEquals(FAST, strategy.selectAlternateAddress(addresses()));
+        }
+        tracker.getStats(FAST).end(start, false);
+        tracker.getStats(FAST).start();
+        tracker.getStats(FAST).start();
+        tracker.getStats(FAST).start();
+        assertEquals(SLOW, strategy.selectAlternateAddress(addresses()));
+        assertEquals(3, tracker.getStats(FAST).getInFlight());
+        assertEquals(1, tracker.getStats(FAST).getCount());
+    }
+
+    @Test
+    public void testEwmaLatency() {
+        TestTracker tracker = new TestTracker();
+        EwmaLatencyStrategy strategy = new EwmaLatencyStrategy();
+        strategy.setLatencyTracker(tracker);
+        record(tracker, FAST, 10, false);
+        record(tracker, SLOW, 200, false);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(FAST, strategy.selectAlternateAddress(addresses()));
+        }
+
+        // the cost grows with the requests in flight
+        for (int i = 0; i < 25; i++) {
+            tracker.getStats(FAST).start();
+        }
+        assertEquals(SLOW, strategy.selectAlternateAddress(addresses()));
+    }
+
+    @Test
+    public void testColdAddressProbedOneRequestAtATime() {
+        TestTracker tracker = new TestTracker();
+        EwmaLatencyStrategy strategy = new EwmaLatencyStrategy();
+        strategy.setLatencyTracker(tracker);
+        record(tracker, FAST, 1, false);
+        assertEquals(SLOW, strategy.selectAlternateAddress(addresses()));
+        tracker.getStats(SLOW).start();
+        assertEquals(FAST, strategy.selectAlternateAddress(addresses()));
+    }
+
+    @Test
+    public void testPeakLatencyDecays() {
+        TestTracker tracker = new TestTracker();
+        LatencyTracker.Stats stats = tracker.getStats(SLOW);
+        record(tracker, SLOW, 100, false);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), stats.getLatency(), 1.0);
+        // a lower latency only moves the average
+        record(tracker, SLOW, 10, false);
+        assertTrue(stats.getLatency() > TimeUnit.MILLISECONDS.toNanos(90));
+        // while a higher latency is taken at once
+        record(tracker, SLOW, 500, false);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(500), stats.getLatency(), 1.0);
+
+        tracker.time += TimeUnit.MILLISECONDS.toNanos(LatencyTracker.DEFAULT_DECAY_TIME * 5);
+        assertTrue(stats.getLatency() < TimeUnit.MILLISECONDS.toNanos(5));
+    }
+
+    @Test
+    public void testFailureDoublesLatency() {
+        TestTracker tracker = new TestTracker();
+        LatencyTracker.Stats stats = tracker.getStats(SLOW);
+        record(tracker, SLOW, 100, false);
+        record(tracker, SLOW, 1, true);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(200), stats.getLatency(), 1.0);
+        assertEquals(2, stats.getCount());
+        assertEquals(1, stats.getFailureCount());
+    }
+
+    @Test
+    public void testFindStatsByPrefix() {
+        LatencyTracker tracker = new LatencyTracker();
+        LatencyTracker.Stats stats = tracker.getStats("http://localhost:9001/");
+        tracker.getStats("http://localhost:9001/services/");
+        assertEquals(stats, tracker.findStats("http://localhost:9001/other/1"));
+        assertEquals(tracker.getStats("http://localhost:9001/services/"),
+                     tracker.findStats("http://localhost:9001/services/customers/1"));
+        // the addresses which are not tracked are not added
+        assertNull(tracker.findStats("http://localhost:9002/services/customers/1"));
+        assertNull(tracker.findStats("http://localhost:9002/services/customers/1"));
+    }
+
+    private static List<String> addresses() {
+        return new ArrayList<>(Arrays.asList(FAST, SLOW));
+    }
+
+    private static void record(LatencyTracker tracker, String address, long millis, boolean failed) {
+        LatencyTracker.Stats stats = tracker.getStats(address);
+        long start = stats.start();
+        if (tracker instanceof TestTracker) {
+            ((TestTracker)tracker).time += TimeUnit.MILLISECONDS.toNanos(millis);
+        }
+        stats.end(start, failed);
+    }
+
+    static final class TestTracker extends LatencyTracker {
+        long time;
+
+        @Override
+        protected long nanoTime() {
+            return time;
+        }
+    }
+}
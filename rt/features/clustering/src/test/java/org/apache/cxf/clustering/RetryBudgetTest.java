@@ -0,0 +1,91 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.clustering;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RetryBudgetTest {
+    private static final String TARGET = "http://localhost:9001/ws";
+
+    @Test
+    public void testBudgetPerTarget() {
+        RetryBudget budget = new RetryBudget(0.5, 2);
+        assertTrue(budget.tryRetry(TARGET));
+        assertTrue(budget.tryRetry(TARGET));
+        assertFalse(budget.tryRetry(TARGET));
+        // another target has its own budget
+        assertTrue(budget.tryRetry("http://localhost:9002/ws"));
+
+        budget.onRequest(TARGET);
+        assertFalse(budget.tryRetry(TARGET));
+        budget.onRequest(TARGET);
+        assertEquals(1.0, budget.getBalance(TARGET), 0.0);
+        assertTrue(budget.tryRetry(TARGET));
+
+        for (int i = 0; i < 100; i++) {
+            budget.onRequest(TARGET);
+        }
+        assertEquals(2.0, budget.getBalance(TARGET), 0.0);
+        assertEquals(4, budget.getRetryCount());
+        assertEquals(2, budget.getSuppressedCount());
+    }
+
+    @Test
+    public void testInitialBalance() {
+        RetryBudget budget = new RetryBudget(0.5, 2, 0);
+        assertEquals(0.0, budget.getBalance(TARGET), 0.0);
+        assertFalse(budget.tryRetry(TARGET));
+        budget.onRequest(TARGET);
+        budget.onRequest(TARGET);
+        assertTrue(budget.tryRetry(TARGET));
+        // the initial balance is capped by the max balance
+        assertEquals(2.0, new RetryBudget(0.5, 2, 5).getBalance(TARGET), 0.0);
+    }
+
+    @Test
+    public void testFixedDelay() {
+        SequentialStrategy strategy = new SequentialStrategy();
+        assertEquals(0, strategy.getDelayBetweenRetries(0));
+        strategy.setDelayBetweenRetries(100);
+        assertEquals(100, strategy.getDelayBetweenRetries(0));
+        assertEquals(100, strategy.getDelayBetweenRetries(100));
+    }
+
+    @Test
+    public void testDecorrelatedJitter() {
+        SequentialStrategy strategy = new SequentialStrategy();
+        strategy.setDelayBetweenRetries(100);
+        strategy.setMaxDelayBetweenRetries(1000);
+        long delay = 0;
+        boolean capped = false;
+        for (int i = 0; i < 1000; i++) {
+            long previous = delay;
+            delay = strategy.getDelayBetweenRetries(previous);
+            assertTrue("Delay " + delay, delay >= 100 && delay <= 1000);
+            assertTrue("Delay " + delay, delay <= Math.max(100, previous) * 3);
+            capped |= delay > 900;
+        }
+        assertTrue(capped);
+    }
+}
@@ -29,6 +29,7 @@ import org.junit.Test;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -106,6 +107,19 @@ public class RetryStrategyTest {
         assertEquals(Arrays.asList("http://a", "http://b"), copy.getAlternateAddresses(null));
     }
 
+    @Test
+    public void testNewStrategyCopiesBackoffAndBudget() {
+        RetryStrategy template = strategyWith(2);
+        RetryBudget budget = new RetryBudget();
+        template.setDelayBetweenRetries(100);
+        template.setMaxDelayBetweenRetries(5000);
+        template.setRetryBudget(budget);
+        RetryStrategy copy = (RetryStrategy) template.newStrategy();
+        assertEquals(100, copy.getDelayBetweenRetries());
+        assertEquals(5000, copy.getMaxDelayBetweenRetries());
+        assertSame(budget, copy.getRetryBudget());
+    }
+
     @Test
     public void testNewStrategyHasFreshCounter() {
         RetryStrategy template = strategyWith(3);
@@ -19,6 +19,7 @@
 package org.apache.cxf.ext.logging;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 import java.util.regex.Matcher;
@@ -29,6 +30,8 @@ import org.apache.cxf.ext.logging.event.DefaultLogEventMapper;
 import org.apache.cxf.ext.logging.event.LogEvent;
 import org.apache.cxf.ext.logging.event.LogEventSender;
 import org.apache.cxf.ext.logging.event.PrettyLoggingFilter;
+import org.apache.cxf.ext.logging.sampling.Sampler;
+import org.apache.cxf.ext.logging.sampling.SamplingPolicy;
 import org.apache.cxf.interceptor.Fault;
 import org.apache.cxf.message.Exchange;
 import org.apache.cxf.message.Message;
@@ -56,6 +59,8 @@ public abstract class AbstractLoggingInterceptor extends AbstractPhaseIntercepto
 
     protected Set<String> sensitiveProtocolHeaderNames = new HashSet<>();
 
+    protected final Sampler sampler = new Sampler();
+
     public AbstractLoggingInterceptor(String phase, LogEventSender sender) {
         super(phase);
         this.sender = sender;
@@ -117,6 +122,14 @@ public abstract class AbstractLoggingInterceptor extends AbstractPhaseIntercepto
         this.eventMapper.setSensitiveDataHelper(helper);
     }
 
+    /**
+     * Log only the exchanges sampled by one of the given policies, and the faults
+     * @param samplingPolicies the policies, all of the exchanges are logged if empty
+     */
+    public void setSamplingPolicies(List<SamplingPolicy> samplingPolicies) {
+        sampler.setPolicies(samplingPolicies);
+    }
+
     public void setPrettyLogging(boolean prettyLogging) {
         if (sender instanceof PrettyLoggingFilter) {
             ((PrettyLoggingFilter)this.sender).setPrettyLogging(prettyLogging);
@@ -153,6 +166,10 @@ public abstract class AbstractLoggingInterceptor extends AbstractPhaseIntercepto
     protected String maskSensitiveElements(final Message message, String originalLogString) {
         return maskSensitiveHelper.maskSensitiveElements(message, originalLogString);
     }
+
+    protected String maskSensitiveElements(final Message message, String originalLogString, boolean truncated) {
+        return maskSensitiveHelper.maskSensitiveElements(message, originalLogString, truncated);
+    }
     
     protected String stripBinaryParts(LogEvent event, String originalLogString) {
         try {
@@ -18,14 +18,19 @@
  */
 package org.apache.cxf.ext.logging;
 
+import java.util.List;
 import java.util.Set;
 
 import org.apache.cxf.Bus;
 import org.apache.cxf.annotations.Provider;
 import org.apache.cxf.annotations.Provider.Type;
+import org.apache.cxf.buslifecycle.BusLifeCycleListener;
+import org.apache.cxf.buslifecycle.BusLifeCycleManager;
 import org.apache.cxf.common.injection.NoJSR250Annotations;
+import org.apache.cxf.ext.logging.event.AsyncLogEventSender;
 import org.apache.cxf.ext.logging.event.LogEventSender;
 import org.apache.cxf.ext.logging.event.PrettyLoggingFilter;
+import org.apache.cxf.ext.logging.sampling.SamplingPolicy;
 import org.apache.cxf.ext.logging.slf4j.Slf4jEventSender;
 import org.apache.cxf.ext.logging.slf4j.Slf4jVerboseEventSender;
 import org.apache.cxf.feature.AbstractPortableFeature;
@@ -88,6 +93,47 @@ public class LoggingFeature extends DelegatingFeature<LoggingFeature.Portable> {
         delegate.setVerbose(verbose);
     }
 
+    /**
+     * Log only the exchanges sampled by one of the given policies, such as a
+     * RateSamplingPolicy, a TokenBucketSamplingPolicy or a LatencySamplingPolicy. The faults
+     * are always logged. The payload of the messages which are not logged is not buffered.
+     * For example:
+     * <pre>
+     * &lt;bean id="loggingFeature" class="org.apache.cxf.ext.logging.LoggingFeature"&gt;
+     *   &lt;property name="samplingPolicies"&gt;
+     *     &lt;list&gt;
+     *       &lt;bean class="org.apache.cxf.ext.logging.sampling.RateSamplingPolicy"&gt;
+     *         &lt;property name="rate" value="0.01"/&gt;
+     *       &lt;/bean&gt;
+     *     &lt;/list&gt;
+     *   &lt;/property&gt;
+     * &lt;/bean&gt;
+     * </pre>
+     * @param samplingPolicies the policies, all of the exchanges are logged if empty
+     */
+    public void setSamplingPolicies(List<SamplingPolicy> samplingPolicies) {
+        delegate.setSamplingPolicies(samplingPolicies);
+    }
+
+    /**
+     * Send the log events, including their pretty printing, on a background thread instead
+     * of the thread processing the message. The events are queued in a bounded buffer which
+     * is flushed when the bus is shut down.
+     * @param async defaults to false
+     */
+    public void setAsync(boolean async) {
+        delegate.setAsync(async);
+    }
+
+    /**
+     * What to do with the log events when the buffer of the asynchronous sending is full:
+     * DROP the event (the default), BLOCK until there is room, or SAMPLE the events, which
+     * keeps one out of ten events.
+     */
+    public void setAsyncOverflowPolicy(String overflowPolicy) {
+        delegate.setAsyncOverflowPolicy(overflowPolicy);
+    }
+
     /**
      * Add additional binary media types to the default values in the LoggingInInterceptor.
      * Content for these types will not be logged.
@@ -211,6 +257,9 @@ public class LoggingFeature extends DelegatingFeature<LoggingFeature.Portable> {
         private LoggingOutInterceptor out;
         private PrettyLoggingFilter inPrettyFilter;
         private PrettyLoggingFilter outPrettyFilter;
+        private AsyncLogEventSender inAsyncSender;
+        private AsyncLogEventSender outAsyncSender;
+        private AsyncLogEventSender.OverflowPolicy asyncOverflowPolicy = AsyncLogEventSender.OverflowPolicy.DROP;
 
         public Portable() {
             LogEventSender sender = new Slf4jVerboseEventSender();
@@ -228,6 +277,24 @@ public class LoggingFeature extends DelegatingFeature<LoggingFeature.Portable> {
 
             provider.getOutInterceptors().add(out);
             provider.getOutFaultInterceptors().add(out);
+
+            if (inAsyncSender != null && bus != null) {
+                final AsyncLogEventSender inAsync = inAsyncSender;
+                final AsyncLogEventSender outAsync = outAsyncSender;
+                BusLifeCycleManager manager = bus.getExtension(BusLifeCycleManager.class);
+                if (manager != null) {
+                    manager.registerLifeCycleListener(new BusLifeCycleListener() {
+                        public void initComplete() {
+                        }
+                        public void preShutdown() {
+                        }
+                        public void postShutdown() {
+                            inAsync.close();
+                            outAsync.close();
+                        }
+                    });
+                }
+            }
         }
 
         public void setLimit(int limit) {
@@ -278,6 +345,37 @@ public class LoggingFeature extends DelegatingFeature<LoggingFeature.Portable> {
             setSender(verbose ? new Slf4jVerboseEventSender() : new Slf4jEventSender());
         }
 
+        public void setSamplingPolicies(List<SamplingPolicy> samplingPolicies) {
+            in.setSamplingPolicies(samplingPolicies);
+            out.setSamplingPolicies(samplingPolicies);
+        }
+
+        public void setAsync(boolean async) {
+            if (async && inAsyncSender == null) {
+                inAsyncSender = new AsyncLogEventSender(inPrettyFilter);
+                outAsyncSender = new AsyncLogEventSender(outPrettyFilter);
+                inAsyncSender.setOverflowPolicy(asyncOverflowPolicy);
+                outAsyncSender.setOverflowPolicy(asyncOverflowPolicy);
+                in.sender = inAsyncSender;
+                out.sender = outAsyncSender;
+            } else if (!async && inAsyncSender != null) {
+                in.sender = inPrettyFilter;
+                out.sender = outPrettyFilter;
+                inAsyncSender.close();
+                outAsyncSender.close();
+                inAsyncSender = null;
+                outAsyncSender = null;
+            }
+        }
+
+        public void setAsyncOverflowPolicy(String overflowPolicy) {
+            asyncOverflowPolicy = AsyncLogEventSender.OverflowPolicy.valueOf(overflowPolicy.toUpperCase());
+            if (inAsyncSender != null) {
+                inAsyncSender.setOverflowPolicy(asyncOverflowPolicy);
+                outAsyncSender.setOverflowPolicy(asyncOverflowPolicy);
+            }
+        }
+
         public void addInBinaryContentMediaTypes(String mediaTypes) {
             in.addBinaryContentMediaTypes(mediaTypes);
         }
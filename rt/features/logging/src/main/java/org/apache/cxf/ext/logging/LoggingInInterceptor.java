@@ -75,13 +75,13 @@ public class LoggingInInterceptor extends AbstractLoggingInterceptor {
 
     public Collection<PhaseInterceptor<? extends Message>> getAdditionalInterceptors() {
         Collection<PhaseInterceptor<? extends Message>> ret = new ArrayList<>();
-        ret.add(new WireTapIn(getWireTapLimit(), threshold));
+        ret.add(new WireTapIn(getWireTapLimit(), threshold, sampler));
         ret.add(new LoggingInFaultInterceptor());
         return ret;
     }
 
     public void handleMessage(Message message) throws Fault {
-        if (isLoggingDisabledNow(message)) {
+        if (isLoggingDisabledNow(message) || !sampler.isSampled(message)) {
             return;
         } else {
             //ensure only logging once for a certain message
@@ -96,7 +96,7 @@ public class LoggingInInterceptor extends AbstractLoggingInterceptor {
         } else {
             event.setPayload(AbstractLoggingInterceptor.CONTENT_SUPPRESSED);
         }
-        String maskedContent = maskSensitiveElements(message, event.getPayload());
+        String maskedContent = maskSensitiveElements(message, event.getPayload(), event.isTruncated());
         if (!logBinary) {
             maskedContent = stripBinaryParts(event, maskedContent);
         }
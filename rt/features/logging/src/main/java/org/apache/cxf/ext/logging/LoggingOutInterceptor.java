@@ -59,7 +59,7 @@ public class LoggingOutInterceptor extends AbstractLoggingInterceptor {
     }
 
     public void handleMessage(Message message) throws Fault {
-        if (isLoggingDisabledNow(message)) {
+        if (isLoggingDisabledNow(message) || !sampler.isSampled(message)) {
             return;
         } else {
             //ensure only logging once for a certain message
@@ -151,7 +151,7 @@ public class LoggingOutInterceptor extends AbstractLoggingInterceptor {
             }
 
             String payload = shouldLogContent(event) ? getPayload(event, w2) : CONTENT_SUPPRESSED;
-            String maskedContent = maskSensitiveElements(message, payload);
+            String maskedContent = maskSensitiveElements(message, payload, event.isTruncated());
             if (!logBinary) {
                 maskedContent = stripBinaryParts(event, maskedContent);
             }
@@ -221,13 +221,13 @@ public class LoggingOutInterceptor extends AbstractLoggingInterceptor {
                 String encoding = (String) message.get(Message.ENCODING);
                 StringBuilder payload = new StringBuilder();
                 writePayload(payload, cos, encoding, event.getContentType());
-                String maskedContent = maskSensitiveElements(message, payload.toString());
+                boolean isTruncated = cos.size() > limit && limit != -1;
+                event.setTruncated(isTruncated);
+                String maskedContent = maskSensitiveElements(message, payload.toString(), isTruncated);
                 if (!logBinary) {
                     maskedContent = stripBinaryParts(event, maskedContent);
                 }
                 event.setPayload(transform(message, maskedContent));
-                boolean isTruncated = cos.size() > limit && limit != -1;
-                event.setTruncated(isTruncated);
             } catch (Exception ex) {
                 // ignore
             }
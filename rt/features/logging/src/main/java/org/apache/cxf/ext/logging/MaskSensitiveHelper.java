@@ -42,7 +42,6 @@ public class MaskSensitiveHelper {
         = "\"-ELEMENT_NAME-\": [\"X\",\"X\",\"X\"]";
     private static final String MATCH_PATTERN_JSON_TEMPLATE = "\"-ELEMENT_NAME-\"[ \\t]*:[ \\t]*\"(.*?)\"";
     private static final String REPLACEMENT_JSON_TEMPLATE = "\"-ELEMENT_NAME-\": \"XXX\"";
-    private static final String MASKED_HEADER_VALUE = "XXX";
     
     // Case-sensitive attribute pattern; supports optional namespace prefix; preserves original quotes
     // Groups: 1=full attr name (w/ optional prefix), 2=open quote, 3=value, 4=close quote (backref to 2)
@@ -53,6 +52,16 @@ public class MaskSensitiveHelper {
     private static final String XML_CONTENT = "xml";
     private static final String HTML_CONTENT = "html";
     private static final String JSON_CONTENT = "json";
+    private static final String MASKED_VALUE = "XXX";
+    private static final String MASKED_JSON_ARRAY = ": [\"X\",\"X\",\"X\"]";
+    // the names which are plain words are masked in a single scan of the log string
+    private static final Pattern WORD_NAME = Pattern.compile("\\w+");
+    // the ranges of the non-ASCII characters of PATTERN_XML_NAMESPACE_PREFIX
+    private static final char[] PREFIX_CHAR_RANGES = {
+        '\u00B7', '\u00B7', '\u00C0', '\u00D6', '\u00D8', '\u00F6', '\u00F8', '\u037D', '\u037F', '\u1FFF',
+        '\u200C', '\u200D', '\u203F', '\u2040', '\u2070', '\u218F', '\u2C00', '\u2FEF', '\u3001', '\uD7FF',
+        '\uF900', '\uFDCF', '\uFDF0', '\uFFFD'
+    };
 
     private static class ReplacementPair {
         private final Pattern matchPattern;
@@ -64,11 +73,15 @@ public class MaskSensitiveHelper {
         }
     }
 
+    private final Set<String> sensitiveWordNames = new HashSet<>();
+    private int maxWordNameLength;
     private final Set<ReplacementPair> replacementsXMLElements = new HashSet<>();
     private final Set<ReplacementPair> replacementsJSON = new HashSet<>();
     private final Set<ReplacementPair> replacementsXMLAttributes = new HashSet<>();
 
     public void setSensitiveElementNames(final Set<String> sensitiveElementNames) {
+        sensitiveWordNames.clear();
+        maxWordNameLength = 0;
         replacementsXMLElements.clear();
         replacementsJSON.clear();
         addSensitiveElementNames(sensitiveElementNames);
@@ -76,6 +89,12 @@ public class MaskSensitiveHelper {
 
     public void addSensitiveElementNames(final Set<String> sensitiveElementNames) {
         for (final String sensitiveName : sensitiveElementNames) {
+            if (WORD_NAME.matcher(sensitiveName).matches()) {
+                sensitiveWordNames.add(sensitiveName);
+                maxWordNameLength = Math.max(maxWordNameLength, sensitiveName.length());
+                continue;
+            }
+            // the other names are patterns
             addReplacementPair(MATCH_PATTERN_XML_TEMPLATE, REPLACEMENT_XML_TEMPLATE,
                 sensitiveName, replacementsXMLElements);
             addReplacementPair(MATCH_PATTERN_JSON_TEMPLATE_ARRAY, REPLACEMENT_JSON_TEMPLATE_ARRAY,
@@ -115,7 +134,19 @@ public class MaskSensitiveHelper {
     public String maskSensitiveElements(
             final Message message,
             final String originalLogString) {
-        if (replacementsXMLElements.isEmpty() && replacementsJSON.isEmpty()
+        return maskSensitiveElements(message, originalLogString, false);
+    }
+
+    /**
+     * @param truncated whether the log string was truncated by the logging limit, in which case
+     *                  the content of a sensitive element or value cut off by the truncation is
+     *                  masked up to the end of the string
+     */
+    public String maskSensitiveElements(
+            final Message message,
+            final String originalLogString,
+            final boolean truncated) {
+        if (sensitiveWordNames.isEmpty() && replacementsXMLElements.isEmpty() && replacementsJSON.isEmpty()
             && replacementsXMLAttributes.isEmpty()
                 || originalLogString == null || message == null) {
             return originalLogString;
@@ -127,11 +158,11 @@ public class MaskSensitiveHelper {
         final String lowerCaseContentType = contentType.toLowerCase();
         if (lowerCaseContentType.contains(XML_CONTENT)
                 || lowerCaseContentType.contains(HTML_CONTENT)) {
-            String replacedElement = applyMasks(originalLogString, replacementsXMLElements);
+            String replacedElement = applyMasks(maskXMLElements(originalLogString, truncated), replacementsXMLElements);
             return replacedElement == null ? replacedElement 
                 : applyMasks(replacedElement, replacementsXMLAttributes);
         } else if (lowerCaseContentType.contains(JSON_CONTENT)) {
-            return applyMasks(originalLogString, replacementsJSON);
+            return applyMasks(maskJSONElements(originalLogString, truncated), replacementsJSON);
         }
         return originalLogString;
     }
@@ -141,10 +172,231 @@ public class MaskSensitiveHelper {
             final Set<String> sensitiveHeaderNames) {
         sensitiveHeaderNames.stream()
                 .forEach(h -> {
-                    headerMap.computeIfPresent(h, (key, value) -> MASKED_HEADER_VALUE);
+                    headerMap.computeIfPresent(h, (key, value) -> MASKED_VALUE);
                 });
     }
 
+    /**
+     * Replaces the content of the sensitive XML elements in a single scan, like the
+     * MATCH_PATTERN_XML_TEMPLATE pattern of each name would. The content of an element whose
+     * end tag is missing is masked up to the end of the string if the log string was truncated,
+     * and left unchanged otherwise.
+     */
+    private String maskXMLElements(String log, boolean truncated) {
+        if (sensitiveWordNames.isEmpty()) {
+            return log;
+        }
+        StringBuilder masked = null;
+        int copied = 0;
+        int i = log.indexOf('<');
+        while (i >= 0) {
+            int nameStart = i + 1;
+            int contentStart = -1;
+            final int prefixEnd = skipPrefix(log, nameStart);
+            if (prefixEnd > nameStart && prefixEnd < log.length() && log.charAt(prefixEnd) == ':') {
+                contentStart = findXMLContent(log, prefixEnd + 1);
+                if (contentStart >= 0) {
+                    nameStart = prefixEnd + 1;
+                }
+            }
+            if (contentStart < 0) {
+                contentStart = findXMLContent(log, nameStart);
+            }
+            if (contentStart < 0) {
+                i = log.indexOf('<', i + 1);
+                continue;
+            }
+            final int endTag = findXMLEndTag(log, contentStart, log.substring(nameStart, skipWord(log, nameStart)));
+            if (endTag < 0 && !truncated) {
+                i = log.indexOf('<', i + 1);
+                continue;
+            }
+            if (masked == null) {
+                masked = new StringBuilder(log.length());
+            }
+            masked.append(log, copied, contentStart).append(MASKED_VALUE);
+            if (endTag < 0) {
+                copied = log.length();
+                break;
+            }
+            copied = endTag;
+            i = log.indexOf('<', endTag + 1);
+        }
+        return masked == null ? log : masked.append(log, copied, log.length()).toString();
+    }
+
+    /**
+     * Returns the start of the content of the element if the name starting at the given index
+     * is sensitive and its start tag is complete, or -1
+     */
+    private int findXMLContent(String log, int nameStart) {
+        final int nameEnd = skipWord(log, nameStart);
+        if (!isSensitiveWordName(log, nameStart, nameEnd) || !isTagNameEnd(log, nameEnd)) {
+            return -1;
+        }
+        final int tagEnd = log.indexOf('>', nameEnd);
+        if (tagEnd < 0 || tagEnd > nameEnd && log.charAt(tagEnd - 1) == '/') {
+            // incomplete or empty element
+            return -1;
+        }
+        return tagEnd + 1;
+    }
+
+    /**
+     * Returns the index of the first end tag of the given name, with any prefix, or -1
+     */
+    private static int findXMLEndTag(String log, int from, String name) {
+        int i = log.indexOf("</", from);
+        while (i >= 0) {
+            final int nameStart = i + 2;
+            final int prefixEnd = skipPrefix(log, nameStart);
+            if (prefixEnd > nameStart && prefixEnd < log.length() && log.charAt(prefixEnd) == ':'
+                && isEndTagName(log, prefixEnd + 1, name) || isEndTagName(log, nameStart, name)) {
+                return i;
+            }
+            i = log.indexOf("</", i + 1);
+        }
+        return -1;
+    }
+
+    /**
+     * Returns true if the name of a start tag ends at the given index, so that a tag such as
+     * password-policy or password.old is not taken for password
+     */
+    private static boolean isTagNameEnd(String log, int index) {
+        if (index >= log.length()) {
+            return false;
+        }
+        final char c = log.charAt(index);
+        return c == '>' || c == '/' || Character.isWhitespace(c);
+    }
+
+    private static boolean isEndTagName(String log, int start, String name) {
+        final int end = start + name.length();
+        return end < log.length() && log.charAt(end) == '>' && log.startsWith(name, start);
+    }
+
+    /**
+     * Replaces the values of the sensitive JSON keys in a single scan, like the
+     * MATCH_PATTERN_JSON_TEMPLATE and MATCH_PATTERN_JSON_TEMPLATE_ARRAY patterns of each name
+     * would. A string value whose closing quote is missing is masked up to the end of the string
+     * if the log string was truncated, and left unchanged otherwise.
+     */
+    private String maskJSONElements(String log, boolean truncated) {
+        if (sensitiveWordNames.isEmpty()) {
+            return log;
+        }
+        StringBuilder masked = null;
+        int copied = 0;
+        int i = log.indexOf('"');
+        while (i >= 0) {
+            final int keyEnd = log.indexOf('"', i + 1);
+            if (keyEnd < 0) {
+                break;
+            }
+            int valueStart = skipBlanks(log, keyEnd + 1);
+            int valueEnd = -1;
+            String value = null;
+            if (isSensitiveWordName(log, i + 1, keyEnd)
+                && valueStart < log.length() && log.charAt(valueStart) == ':') {
+                valueStart = skipBlanks(log, valueStart + 1);
+                final boolean quoted = valueStart < log.length() && log.charAt(valueStart) == '"';
+                final int quote = quoted ? log.indexOf('"', valueStart + 1) : -1;
+                if (quoted && (quote >= 0 || truncated)) {
+                    valueEnd = quote < 0 ? log.length() : quote + 1;
+                    value = quote < 0 ? ": \"" + MASKED_VALUE : ": \"" + MASKED_VALUE + '"';
+                } else if (valueStart < log.length() && log.charAt(valueStart) == '[') {
+                    valueEnd = skipJSONCharArray(log, valueStart + 1);
+                    value = MASKED_JSON_ARRAY;
+                }
+            }
+            if (valueEnd < 0) {
+                // the closing quote may open a key
+                i = keyEnd;
+                continue;
+            }
+            if (masked == null) {
+                masked = new StringBuilder(log.length());
+            }
+            masked.append(log, copied, keyEnd + 1).append(value);
+            copied = valueEnd;
+            i = log.indexOf('"', valueEnd);
+        }
+        return masked == null ? log : masked.append(log, copied, log.length()).toString();
+    }
+
+    /**
+     * Returns the end of the array of single character strings starting at the given index,
+     * or -1
+     */
+    private static int skipJSONCharArray(String log, int from) {
+        int i = from;
+        boolean empty = true;
+        while (true) {
+            int j = i;
+            while (j < log.length() && Character.isWhitespace(log.charAt(j))) {
+                j++;
+            }
+            if (j + 2 >= log.length() || log.charAt(j) != '"' || log.charAt(j + 2) != '"') {
+                break;
+            }
+            i = j + 3;
+            empty = false;
+            if (i < log.length() && log.charAt(i) == ',') {
+                i++;
+            }
+        }
+        return !empty && i < log.length() && log.charAt(i) == ']' ? i + 1 : -1;
+    }
+
+    private boolean isSensitiveWordName(String log, int start, int end) {
+        return end > start && end - start <= maxWordNameLength
+            && sensitiveWordNames.contains(log.substring(start, end));
+    }
+
+    private static int skipWord(String log, int from) {
+        int i = from;
+        while (i < log.length() && isWordChar(log.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipBlanks(String log, int from) {
+        int i = from;
+        while (i < log.length() && (log.charAt(i) == ' ' || log.charAt(i) == '\t')) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipPrefix(String log, int from) {
+        int i = from;
+        while (i < log.length() && isPrefixChar(log.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isWordChar(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '_';
+    }
+
+    /**
+     * Returns true for the characters of PATTERN_XML_NAMESPACE_PREFIX
+     */
+    private static boolean isPrefixChar(char c) {
+        if (isWordChar(c) || c == '.' || c == '-') {
+            return true;
+        }
+        for (int i = 0; i < PREFIX_CHAR_RANGES.length; i += 2) {
+            if (c >= PREFIX_CHAR_RANGES[i] && c <= PREFIX_CHAR_RANGES[i + 1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private String applyMasks(String originalLogString, Set<ReplacementPair> replacementPairs) {
         String resultString = originalLogString;
         for (final ReplacementPair replacementPair : replacementPairs) {
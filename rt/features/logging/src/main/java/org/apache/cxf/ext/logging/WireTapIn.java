@@ -23,6 +23,7 @@ import java.io.InputStream;
 import java.io.Reader;
 import java.io.SequenceInputStream;
 
+import org.apache.cxf.ext.logging.sampling.Sampler;
 import org.apache.cxf.helpers.IOUtils;
 import org.apache.cxf.interceptor.Fault;
 import org.apache.cxf.io.CachedOutputStream;
@@ -37,6 +38,7 @@ public class WireTapIn extends AbstractPhaseInterceptor<Message> {
 
     private long threshold;
     private int limit;
+    private final Sampler sampler;
 
     /**
      * Instantiates a new WireTapIn
@@ -44,14 +46,25 @@ public class WireTapIn extends AbstractPhaseInterceptor<Message> {
      * @param threshold the log threshold
      */
     public WireTapIn(int limit, long threshold) {
+        this(limit, threshold, null);
+    }
+
+    /**
+     * Instantiates a new WireTapIn which only buffers the sampled messages
+     * @param limit
+     * @param threshold the log threshold
+     * @param sampler the sampler of the logging interceptor
+     */
+    public WireTapIn(int limit, long threshold, Sampler sampler) {
         super(Phase.RECEIVE);
         this.limit = limit;
         this.threshold = threshold;
+        this.sampler = sampler;
     }
 
     @Override
     public void handleMessage(final Message message) throws Fault {
-        if (message.containsKey(WIRE_TAP_STARTED)) {
+        if (message.containsKey(WIRE_TAP_STARTED) || sampler != null && !sampler.isSampled(message)) {
             return;
         }
         message.put(WIRE_TAP_STARTED, Boolean.TRUE);
@@ -0,0 +1,255 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.ext.logging.event;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sends the log events to the next sender on a background thread, so that the formatting and
+ * the writing of the events, for example by the {@link PrettyLoggingFilter} and the Slf4j senders,
+ * do not add to the latency of the messages. The events are queued in a bounded buffer and sent
+ * in batches. When the buffer is full, the events are dropped, the sending thread blocks until
+ * there is room, or a sample of the events is kept, depending on the {@link OverflowPolicy}.
+ * Once closed, the queued events are flushed and the events are sent on the calling thread.
+ */
+public class AsyncLogEventSender implements LogEventSender, Closeable {
+    public static final int DEFAULT_CAPACITY = 8192;
+    public static final int DEFAULT_BATCH_SIZE = 256;
+    public static final int DEFAULT_SAMPLE_RATE = 10;
+
+    public enum OverflowPolicy {
+        /** Drop the event */
+        DROP,
+        /** Wait until the event can be queued */
+        BLOCK,
+        /** Wait for one out of the sample rate events, drop the others */
+        SAMPLE
+    }
+
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncLogEventSender.class);
+    private static final long CLOSE_TIMEOUT = 30000L;
+    private static final long POLL_TIMEOUT = 100L;
+
+    private final LogEventSender next;
+    private final BlockingQueue<LogEvent> queue;
+    private final int batchSize;
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder overflows = new LongAdder();
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+    private int sampleRate = DEFAULT_SAMPLE_RATE;
+    private volatile Thread worker;
+    private volatile boolean closed;
+
+    public AsyncLogEventSender(LogEventSender next) {
+        this(next, DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param next the sender of the events
+     * @param capacity the maximum number of queued events
+     * @param batchSize the maximum number of events taken off the queue at once
+     */
+    public AsyncLogEventSender(LogEventSender next, int capacity, int batchSize) {
+        if (capacity < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("The capacity and batch size must be positive");
+        }
+        this.next = next;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void send(LogEvent event) {
+        if (closed) {
+            sendNow(event);
+            return;
+        }
+        startWorker();
+        if (queue.offer(event)) {
+            if (closed) {
+                // queued after close drained the queue
+                drain(new ArrayList<>(batchSize));
+            }
+            return;
+        }
+        overflows.increment();
+        if (overflowPolicy == OverflowPolicy.BLOCK
+            || overflowPolicy == OverflowPolicy.SAMPLE && overflows.sum() % sampleRate == 0) {
+            try {
+                while (!queue.offer(event, POLL_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                    if (closed) {
+                        sendNow(event);
+                        return;
+                    }
+                }
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        dropped.increment();
+    }
+
+    /**
+     * Sends the queued events and stops the background thread. The events sent from now on
+     * are sent on the calling thread.
+     */
+    @Override
+    public void close() {
+        final Thread t;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            t = worker;
+        }
+        if (t != null) {
+            try {
+                t.join(CLOSE_TIMEOUT);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // the events queued while the worker was stopping
+        drain(new ArrayList<>(batchSize));
+    }
+
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    public void setOverflowPolicy(String overflowPolicy) {
+        this.overflowPolicy = OverflowPolicy.valueOf(overflowPolicy.toUpperCase());
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * With the SAMPLE overflow policy, keep one out of sampleRate events when the queue is full
+     */
+    public void setSampleRate(int sampleRate) {
+        if (sampleRate < 1) {
+            throw new IllegalArgumentException("The sample rate must be positive");
+        }
+        this.sampleRate = sampleRate;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public LogEventSender getNext() {
+        return next;
+    }
+
+    /**
+     * Returns the number of events waiting to be sent
+     */
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    public long getSentCount() {
+        return sent.sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    /**
+     * Returns the number of events which found the queue full
+     */
+    public long getOverflowCount() {
+        return overflows.sum();
+    }
+
+    private void startWorker() {
+        if (worker == null) {
+            synchronized (this) {
+                if (worker == null && !closed) {
+                    Thread t = new Thread(this::run, "cxf-async-logging-" + Integer.toHexString(hashCode()));
+                    t.setDaemon(true);
+                    t.start();
+                    worker = t;
+                }
+            }
+        }
+    }
+
+    private void run() {
+        final List<LogEvent> batch = new ArrayList<>(batchSize);
+        while (!closed) {
+            try {
+                LogEvent event = queue.poll(POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+                if (event == null) {
+                    continue;
+                }
+                batch.add(event);
+            } catch (InterruptedException e) {
+                break;
+            }
+            queue.drainTo(batch, batchSize - 1);
+            sendBatch(batch);
+        }
+        drain(batch);
+    }
+
+    private void drain(List<LogEvent> batch) {
+        while (queue.drainTo(batch, batchSize) > 0) {
+            sendBatch(batch);
+        }
+    }
+
+    private void sendBatch(List<LogEvent> batch) {
+        batches.increment();
+        for (LogEvent event : batch) {
+            sendNow(event);
+        }
+        batch.clear();
+    }
+
+    private void sendNow(LogEvent event) {
+        try {
+            next.send(event);
+            sent.increment();
+        } catch (RuntimeException ex) {
+            dropped.increment();
+            LOG.warn("Error while sending the log event", ex);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.ext.logging.sampling;
+
+import org.apache.cxf.message.Message;
+
+/**
+ * Samples the responses which took longer than a threshold since their request. Their
+ * requests were not sampled, so only the responses of these exchanges are logged.
+ */
+public class LatencySamplingPolicy implements SamplingPolicy {
+    private long threshold;
+
+    public LatencySamplingPolicy() {
+    }
+
+    /**
+     * @param threshold the latency in milliseconds above which a response is logged
+     */
+    public LatencySamplingPolicy(long threshold) {
+        this.threshold = threshold;
+    }
+
+    @Override
+    public boolean sampleRequest(Message request) {
+        return false;
+    }
+
+    @Override
+    public boolean sampleResponse(Message response) {
+        return Sampler.getElapsedTime(response) > threshold;
+    }
+
+    public void setThreshold(long threshold) {
+        this.threshold = threshold;
+    }
+
+    public long getThreshold() {
+        return threshold;
+    }
+}
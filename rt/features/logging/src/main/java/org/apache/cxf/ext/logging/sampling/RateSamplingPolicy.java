@@ -0,0 +1,57 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.ext.logging.sampling;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.apache.cxf.message.Message;
+
+/**
+ * Samples a fixed fraction of the exchanges
+ */
+public class RateSamplingPolicy implements SamplingPolicy {
+    private double rate;
+
+    public RateSamplingPolicy() {
+        this(1.0);
+    }
+
+    /**
+     * @param rate the fraction of the exchanges to log, between 0 and 1
+     */
+    public RateSamplingPolicy(double rate) {
+        setRate(rate);
+    }
+
+    @Override
+    public boolean sampleRequest(Message request) {
+        return rate >= 1.0 || rate > 0 && ThreadLocalRandom.current().nextDouble() < rate;
+    }
+
+    public void setRate(double rate) {
+        if (rate < 0 || rate > 1) {
+            throw new IllegalArgumentException("The sampling rate must be between 0 and 1");
+        }
+        this.rate = rate;
+    }
+
+    public double getRate() {
+        return rate;
+    }
+}
@@ -0,0 +1,113 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.ext.logging.sampling;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageUtils;
+
+/**
+ * Decides whether a message is logged according to the sampling policies. All of the messages
+ * are logged if there is no policy. Otherwise an exchange is sampled if one of the policies
+ * samples its request, and faults, including the messages of a failed exchange and the HTTP
+ * responses with a 5xx status, are always logged. The decision is taken once for each message,
+ * by the first of the wire tap and logging interceptors to see it, so that the messages which
+ * are not logged are not buffered either.
+ */
+public class Sampler {
+    private static final String SAMPLED = Sampler.class.getName() + ".Sampled";
+    private static final String START_TIME = Sampler.class.getName() + ".StartTime";
+
+    private final List<SamplingPolicy> policies = new CopyOnWriteArrayList<>();
+
+    public void setPolicies(List<SamplingPolicy> samplingPolicies) {
+        policies.clear();
+        if (samplingPolicies != null) {
+            policies.addAll(samplingPolicies);
+        }
+    }
+
+    public List<SamplingPolicy> getPolicies() {
+        return Collections.unmodifiableList(policies);
+    }
+
+    public boolean isSampled(Message message) {
+        if (policies.isEmpty() || isFault(message)) {
+            return true;
+        }
+        Boolean sampled = (Boolean)message.get(SAMPLED);
+        if (sampled == null) {
+            sampled = sample(message);
+            message.put(SAMPLED, sampled);
+        }
+        return sampled;
+    }
+
+    /**
+     * Returns the time in milliseconds since the request of the exchange of the given message
+     * was sampled, or -1 if it is unknown
+     */
+    public static long getElapsedTime(Message message) {
+        final Exchange exchange = message.getExchange();
+        final Long start = exchange == null ? null : (Long)exchange.get(START_TIME);
+        return start == null ? -1L : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    private boolean sample(Message message) {
+        final Exchange exchange = message.getExchange();
+        final Boolean exchangeSampled = exchange == null ? null : (Boolean)exchange.get(SAMPLED);
+        if (exchangeSampled == null) {
+            // the request
+            boolean sampled = false;
+            for (SamplingPolicy policy : policies) {
+                if (policy.sampleRequest(message)) {
+                    sampled = true;
+                    break;
+                }
+            }
+            if (exchange != null) {
+                exchange.put(SAMPLED, sampled);
+                exchange.put(START_TIME, System.nanoTime());
+            }
+            return sampled;
+        }
+        if (exchangeSampled) {
+            return true;
+        }
+        for (SamplingPolicy policy : policies) {
+            if (policy.sampleResponse(message)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isFault(Message message) {
+        if (MessageUtils.isFault(message) || message.getContent(Exception.class) != null) {
+            return true;
+        }
+        final Object responseCode = message.get(Message.RESPONSE_CODE);
+        return responseCode instanceof Integer && (Integer)responseCode >= 500;
+    }
+}
@@ -0,0 +1,42 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.ext.logging.sampling;
+
+import org.apache.cxf.message.Message;
+
+/**
+ * Decides whether the messages of an exchange are logged. The request is logged with its
+ * payload only if it is sampled, since the payload is not buffered otherwise. The response
+ * is logged if the request was, or if it is sampled itself. Faults are always logged.
+ */
+public interface SamplingPolicy {
+
+    /**
+     * Returns true if the exchange of the given request, the first message of an exchange,
+     * is to be logged
+     */
+    boolean sampleRequest(Message request);
+
+    /**
+     * Returns true if the given response, whose request was not sampled, is to be logged
+     */
+    default boolean sampleResponse(Message response) {
+        return false;
+    }
+}
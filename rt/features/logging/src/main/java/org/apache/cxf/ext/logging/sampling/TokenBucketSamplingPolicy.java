@@ -0,0 +1,152 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.ext.logging.sampling;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.cxf.helpers.CastUtils;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.service.model.BindingOperationInfo;
+
+/**
+ * Samples up to a number of exchanges per second for each operation, with bursts of up to a
+ * number of exchanges, so that the rarely called operations are logged as well as the busy
+ * ones. The operation is the binding operation if it is known when the request is sampled,
+ * which is the case for the requests sent by the clients. Otherwise, as for the requests
+ * received by a server, which are sampled before the operation is selected, it is the HTTP
+ * method and path, followed by the SOAP action if there is one. Beyond the maximum number
+ * of operations, the other operations share a bucket.
+ */
+public class TokenBucketSamplingPolicy implements SamplingPolicy {
+    public static final int DEFAULT_MAX_OPERATIONS = 1000;
+
+    private static final String SOAP_ACTION = "SOAPAction";
+    private static final Pattern CONTENT_TYPE_ACTION =
+        Pattern.compile(";\\s*action\\s*=\\s*\"?([^\";]*)", Pattern.CASE_INSENSITIVE);
+
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final Bucket sharedBucket = new Bucket();
+    private double permitsPerSecond;
+    private int burst;
+    private int maxOperations = DEFAULT_MAX_OPERATIONS;
+
+    public TokenBucketSamplingPolicy() {
+        this(1.0, 1);
+    }
+
+    /**
+     * @param permitsPerSecond the number of exchanges per second logged for an operation
+     * @param burst the maximum number of exchanges logged at once for an operation
+     */
+    public TokenBucketSamplingPolicy(double permitsPerSecond, int burst) {
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+    }
+
+    @Override
+    public boolean sampleRequest(Message request) {
+        final String operation = getOperation(request);
+        Bucket bucket = buckets.get(operation);
+        if (bucket == null) {
+            bucket = buckets.size() < maxOperations
+                ? buckets.computeIfAbsent(operation, o -> new Bucket()) : sharedBucket;
+        }
+        return bucket.tryAcquire(System.nanoTime());
+    }
+
+    protected String getOperation(Message message) {
+        final Exchange exchange = message.getExchange();
+        final BindingOperationInfo bop = exchange == null ? null : exchange.getBindingOperationInfo();
+        if (bop != null) {
+            return bop.getName().toString();
+        }
+        Object path = message.get(Message.PATH_INFO);
+        if (path == null) {
+            path = message.get(Message.REQUEST_URI);
+        }
+        if (path == null) {
+            path = message.get(Message.ENDPOINT_ADDRESS);
+        }
+        final String operation = message.get(Message.HTTP_REQUEST_METHOD) + " " + path;
+        final String action = getSoapAction(message);
+        return action == null ? operation : operation + " " + action;
+    }
+
+    private static String getSoapAction(Message message) {
+        final Map<String, List<Object>> headers =
+            CastUtils.cast((Map<?, ?>)message.get(Message.PROTOCOL_HEADERS));
+        if (headers != null) {
+            for (Map.Entry<String, List<Object>> header : headers.entrySet()) {
+                if (SOAP_ACTION.equalsIgnoreCase(header.getKey())
+                    && header.getValue() != null && !header.getValue().isEmpty()) {
+                    String action = String.valueOf(header.getValue().get(0)).replace("\"", "").trim();
+                    if (!action.isEmpty()) {
+                        return action;
+                    }
+                }
+            }
+        }
+        // SOAP 1.2 sends the action as a parameter of the content type
+        final Object contentType = message.get(Message.CONTENT_TYPE);
+        if (contentType != null) {
+            Matcher m = CONTENT_TYPE_ACTION.matcher(contentType.toString());
+            if (m.find() && !m.group(1).trim().isEmpty()) {
+                return m.group(1).trim();
+            }
+        }
+        return null;
+    }
+
+    public void setPermitsPerSecond(double permitsPerSecond) {
+        this.permitsPerSecond = permitsPerSecond;
+    }
+
+    public void setBurst(int burst) {
+        this.burst = burst;
+    }
+
+    public void setMaxOperations(int maxOperations) {
+        this.maxOperations = maxOperations;
+    }
+
+    private final class Bucket {
+        private double tokens = -1;
+        private long last;
+
+        synchronized boolean tryAcquire(long now) {
+            if (tokens < 0) {
+                tokens = burst;
+            } else {
+                tokens = Math.min(burst, tokens + (now - last) * permitsPerSecond / TimeUnit.SECONDS.toNanos(1));
+            }
+            last = now;
+            if (tokens >= 1) {
+                tokens--;
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.ext.logging;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cxf.ext.logging.event.AsyncLogEventSender;
+import org.apache.cxf.ext.logging.event.AsyncLogEventSender.OverflowPolicy;
+import org.apache.cxf.ext.logging.event.LogEvent;
+import org.apache.cxf.ext.logging.event.LogEventSender;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+public class AsyncLogEventSenderTest {
+
+    @Test
+    public void testEventsSentInOrder() throws Exception {
+        TestEventSender next = new TestEventSender();
+        AsyncLogEventSender sender = new AsyncLogEventSender(next, 16, 4);
+        sender.setOverflowPolicy(OverflowPolicy.BLOCK);
+        for (int i = 0; i < 1000; i++) {
+            sender.send(createEvent(i));
+        }
+        sender.close();
+        assertEquals(1000, next.getEvents().size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(String.valueOf(i), next.getEvents().get(i).getMessageId());
+        }
+        assertEquals(1000, sender.getSentCount());
+        assertEquals(0, sender.getDroppedCount());
+        assertTrue(sender.getBatchCount() > 0);
+    }
+
+    @Test
+    public void testSentOnBackgroundThread() throws Exception {
+        final Thread caller = Thread.currentThread();
+        final CountDownLatch latch = new CountDownLatch(1);
+        AsyncLogEventSender sender = new AsyncLogEventSender(event -> {
+            assertNotSame(caller, Thread.currentThread());
+            latch.countDown();
+        });
+        sender.send(createEvent(0));
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        sender.close();
+    }
+
+    @Test
+    public void testDropWhenFull() throws Exception {
+        BlockingSender next = new BlockingSender();
+        AsyncLogEventSender sender = new AsyncLogEventSender(next, 4, 4);
+        sender.send(createEvent(0));
+        // the worker holds the first event
+        assertTrue(next.started.await(10, TimeUnit.SECONDS));
+        for (int i = 1; i <= 10; i++) {
+            sender.send(createEvent(i));
+        }
+        assertEquals(4, sender.getQueueSize());
+        assertEquals(6, sender.getDroppedCount());
+        assertEquals(6, sender.getOverflowCount());
+        next.release.countDown();
+        sender.close();
+        assertEquals(5, next.sender.getEvents().size());
+    }
+
+    @Test
+    public void testSampleWhenFull() throws Exception {
+        BlockingSender next = new BlockingSender();
+        AsyncLogEventSender sender = new AsyncLogEventSender(next, 4, 4);
+        sender.setOverflowPolicy(OverflowPolicy.SAMPLE);
+        sender.setSampleRate(1000);
+        sender.send(createEvent(0));
+        assertTrue(next.started.await(10, TimeUnit.SECONDS));
+        for (int i = 1; i <= 10; i++) {
+            sender.send(createEvent(i));
+        }
+        assertEquals(6, sender.getDroppedCount());
+        next.release.countDown();
+        sender.close();
+        assertEquals(5, next.sender.getEvents().size());
+    }
+
+    @Test
+    public void testSendAfterClose() {
+        TestEventSender next = new TestEventSender();
+        AsyncLogEventSender sender = new AsyncLogEventSender(next);
+        sender.close();
+        sender.send(createEvent(0));
+        assertEquals(1, next.getEvents().size());
+    }
+
+    private static LogEvent createEvent(int i) {
+        LogEvent event = new LogEvent();
+        event.setMessageId(String.valueOf(i));
+        return event;
+    }
+
+    private static final class BlockingSender implements LogEventSender {
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final TestEventSender sender = new TestEventSender();
+
+        @Override
+        public void send(LogEvent event) {
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            sender.send(event);
+        }
+    }
+}
@@ -110,6 +110,29 @@ public class MaskSensitiveHelperTest {
     // Self-closing element
     private static final String SELF_CLOSING_UNCHANGED = "<root><password/></root>";
 
+    // the end tag is missing although the content is not truncated
+    private static final String XML_MISSING_END_TAG_UNCHANGED = "<root><user>testUser</user><ns:password>my sec";
+
+    // names only starting with a sensitive name
+    private static final String XML_NAME_PREFIX_UNCHANGED =
+        "<user><password-policy>strict</password-policy><name>bob</name></user>";
+    private static final String XML_NAME_WITH_DOT_UNCHANGED =
+        "<user><password.old>secret</password.old><name>bob</name></user>";
+
+    private static final String SENSITIVE_XML_DIFFERENT_END_PREFIX =
+        "<a:password>secret</b:password><password-hint>hint</password><passwordHint>hint</passwordHint>";
+    private static final String MASKED_XML_DIFFERENT_END_PREFIX =
+        "<a:password>XXX</b:password><password-hint>hint</password><passwordHint>hint</passwordHint>";
+
+    private static final String JSON_MISSING_CLOSING_QUOTE_UNCHANGED =
+        "{\"user\":\"testUser\",\"password\"\t:  \"my sec";
+
+    private static final String SENSITIVE_LOGGING_CONTENT_JSON_REPEATED =
+        "[{\"password\":\"a\"},{\"password\":[\"a\", \"b\",]},{\"password\":[\"ab\"]},{\"passwords\":\"c\"}]";
+    private static final String MASKED_LOGGING_CONTENT_JSON_REPEATED =
+        "[{\"password\": \"XXX\"},{\"password\": [\"X\",\"X\",\"X\"]},{\"password\":[\"ab\"]},"
+            + "{\"passwords\":\"c\"}]";
+
     private static final Set<String> SENSITIVE_ELEMENTS = new HashSet<>(Arrays.asList("password"));
     private static final String APPLICATION_XML = "application/xml";
     private static final String APPLICATION_JSON = "application/json";
@@ -139,6 +162,12 @@ public class MaskSensitiveHelperTest {
             {SENSITIVE_XML_WITH_NS_URI, MASKED_XML_WITH_NS_URI, APPLICATION_XML },
             {SENSITIVE_XML_WITH_ATTR_URL, MASKED_XML_WITH_ATTR_URL, APPLICATION_XML },
             {SELF_CLOSING_UNCHANGED, SELF_CLOSING_UNCHANGED, APPLICATION_XML },
+            {XML_MISSING_END_TAG_UNCHANGED, XML_MISSING_END_TAG_UNCHANGED, APPLICATION_XML },
+            {XML_NAME_PREFIX_UNCHANGED, XML_NAME_PREFIX_UNCHANGED, APPLICATION_XML },
+            {XML_NAME_WITH_DOT_UNCHANGED, XML_NAME_WITH_DOT_UNCHANGED, APPLICATION_XML },
+            {SENSITIVE_XML_DIFFERENT_END_PREFIX, MASKED_XML_DIFFERENT_END_PREFIX, APPLICATION_XML },
+            {JSON_MISSING_CLOSING_QUOTE_UNCHANGED, JSON_MISSING_CLOSING_QUOTE_UNCHANGED, APPLICATION_JSON},
+            {SENSITIVE_LOGGING_CONTENT_JSON_REPEATED, MASKED_LOGGING_CONTENT_JSON_REPEATED, APPLICATION_JSON},
         });
     }
 
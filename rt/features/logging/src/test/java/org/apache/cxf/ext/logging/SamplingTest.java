@@ -0,0 +1,202 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.ext.logging;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.cxf.ext.logging.sampling.LatencySamplingPolicy;
+import org.apache.cxf.ext.logging.sampling.RateSamplingPolicy;
+import org.apache.cxf.ext.logging.sampling.TokenBucketSamplingPolicy;
+import org.apache.cxf.interceptor.Fault;
+import org.apache.cxf.io.CachedOutputStream;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.phase.PhaseInterceptor;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class SamplingTest {
+
+    @Test
+    public void testNotSampledExchangeIsNotBuffered() throws IOException {
+        LogEventSenderMock sender = new LogEventSenderMock();
+        LoggingInInterceptor in = new LoggingInInterceptor(sender);
+        LoggingOutInterceptor out = new LoggingOutInterceptor(sender);
+        in.setSamplingPolicies(Collections.singletonList(new RateSamplingPolicy(0)));
+        out.setSamplingPolicies(Collections.singletonList(new RateSamplingPolicy(0)));
+
+        Exchange exchange = new ExchangeImpl();
+        Message request = createInMessage(exchange);
+        InputStream is = request.getContent(InputStream.class);
+        handleIn(in, request);
+        assertSame(is, request.getContent(InputStream.class));
+        assertNull(request.getContent(CachedOutputStream.class));
+
+        Message response = createOutMessage(exchange);
+        OutputStream os = response.getContent(OutputStream.class);
+        out.handleMessage(response);
+        assertSame(os, response.getContent(OutputStream.class));
+        assertEquals(0, sender.getLogEvents().size());
+    }
+
+    @Test
+    public void testSampledExchange() throws IOException {
+        LogEventSenderMock sender = new LogEventSenderMock();
+        LoggingInInterceptor in = new LoggingInInterceptor(sender);
+        LoggingOutInterceptor out = new LoggingOutInterceptor(sender);
+        in.setSamplingPolicies(Arrays.asList(new RateSamplingPolicy(0), new RateSamplingPolicy(1)));
+        out.setSamplingPolicies(Collections.singletonList(new RateSamplingPolicy(0)));
+
+        Exchange exchange = new ExchangeImpl();
+        handleIn(in, createInMessage(exchange));
+        // the response of a sampled request is logged
+        writeOut(out, createOutMessage(exchange));
+        assertEquals(2, sender.getLogEvents().size());
+        assertEquals("request", sender.getLogEvents().get(0).getPayload());
+        assertEquals("response", sender.getLogEvents().get(1).getPayload());
+    }
+
+    @Test
+    public void testFaultIsAlwaysLogged() throws IOException {
+        LogEventSenderMock sender = new LogEventSenderMock();
+        LoggingOutInterceptor out = new LoggingOutInterceptor(sender);
+        out.setSamplingPolicies(Collections.singletonList(new RateSamplingPolicy(0)));
+
+        Exchange exchange = new ExchangeImpl();
+        Message fault = createOutMessage(exchange);
+        exchange.setOutFaultMessage(fault);
+        fault.setContent(Exception.class, new Fault(new IllegalStateException()));
+        writeOut(out, fault);
+        assertEquals(1, sender.getLogEvents().size());
+        assertEquals("response", sender.getLogEvents().get(0).getPayload());
+    }
+
+    @Test
+    public void testSlowResponseIsLogged() throws Exception {
+        LogEventSenderMock sender = new LogEventSenderMock();
+        LoggingInInterceptor in = new LoggingInInterceptor(sender);
+        LoggingOutInterceptor out = new LoggingOutInterceptor(sender);
+        in.setSamplingPolicies(Collections.singletonList(new LatencySamplingPolicy(10)));
+        out.setSamplingPolicies(Collections.singletonList(new LatencySamplingPolicy(10)));
+
+        Exchange exchange = new ExchangeImpl();
+        handleIn(in, createInMessage(exchange));
+        writeOut(out, createOutMessage(exchange));
+        assertEquals(0, sender.getLogEvents().size());
+
+        exchange = new ExchangeImpl();
+        handleIn(in, createInMessage(exchange));
+        Thread.sleep(50);
+        writeOut(out, createOutMessage(exchange));
+        assertEquals(1, sender.getLogEvents().size());
+        assertEquals("response", sender.getLogEvents().get(0).getPayload());
+    }
+
+    @Test
+    public void testTokenBucketPerOperation() {
+        TokenBucketSamplingPolicy policy = new TokenBucketSamplingPolicy(0.001, 2);
+        int sampledA = 0;
+        int sampledB = 0;
+        for (int i = 0; i < 10; i++) {
+            if (policy.sampleRequest(createOperationMessage("/a"))) {
+                sampledA++;
+            }
+            if (policy.sampleRequest(createOperationMessage("/b"))) {
+                sampledB++;
+            }
+        }
+        assertEquals(2, sampledA);
+        assertEquals(2, sampledB);
+    }
+
+    @Test
+    public void testTokenBucketPerSoapAction() {
+        TokenBucketSamplingPolicy policy = new TokenBucketSamplingPolicy(0.001, 2);
+        int sampledA = 0;
+        int sampledB = 0;
+        for (int i = 0; i < 10; i++) {
+            Message a = createOperationMessage("/soap");
+            a.put(Message.PROTOCOL_HEADERS,
+                  Collections.singletonMap("SOAPAction", Collections.singletonList("\"urn:a\"")));
+            if (policy.sampleRequest(a)) {
+                sampledA++;
+            }
+            Message b = createOperationMessage("/soap");
+            b.put(Message.CONTENT_TYPE, "application/soap+xml; charset=UTF-8; action=\"urn:b\"");
+            if (policy.sampleRequest(b)) {
+                sampledB++;
+            }
+        }
+        assertEquals(2, sampledA);
+        assertEquals(2, sampledB);
+    }
+
+    private static void handleIn(LoggingInInterceptor in, Message message) {
+        for (PhaseInterceptor<? extends Message> interceptor : in.getAdditionalInterceptors()) {
+            if (interceptor instanceof WireTapIn) {
+                ((WireTapIn)interceptor).handleMessage(message);
+            }
+        }
+        in.handleMessage(message);
+    }
+
+    private static void writeOut(LoggingOutInterceptor out, Message message) throws IOException {
+        out.handleMessage(message);
+        OutputStream os = message.getContent(OutputStream.class);
+        os.write("response".getBytes(StandardCharsets.UTF_8));
+        os.close();
+    }
+
+    private static Message createInMessage(Exchange exchange) {
+        Message message = new MessageImpl();
+        message.setContent(InputStream.class,
+            new ByteArrayInputStream("request".getBytes(StandardCharsets.UTF_8)));
+        message.setExchange(exchange);
+        exchange.setInMessage(message);
+        return message;
+    }
+
+    private static Message createOutMessage(Exchange exchange) {
+        Message message = new MessageImpl();
+        message.setContent(OutputStream.class, new ByteArrayOutputStream());
+        message.setExchange(exchange);
+        exchange.setOutMessage(message);
+        return message;
+    }
+
+    private static Message createOperationMessage(String path) {
+        Message message = new MessageImpl();
+        message.put(Message.HTTP_REQUEST_METHOD, "GET");
+        message.put(Message.PATH_INFO, path);
+        return message;
+    }
+}
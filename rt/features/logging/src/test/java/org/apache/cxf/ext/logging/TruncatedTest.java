@@ -29,6 +29,7 @@ import java.io.StringWriter;
 import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.util.Collection;
+import java.util.Collections;
 
 import org.apache.cxf.ext.logging.event.LogEvent;
 import org.apache.cxf.message.Exchange;
@@ -143,7 +144,78 @@ public class TruncatedTest {
         assertEquals("T", event.getPayload()); // only the first byte is read!
         assertTrue(event.isTruncated());
     }
-    
 
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    @Test
+    public void truncatedSensitiveElementIsMasked() throws IOException {
+        String content = "<root><user>testUser</user><ns:password>my secret password</ns:password></root>";
+        Message message = new MessageImpl();
+        message.put(Message.CONTENT_TYPE, "application/xml");
+        message.setContent(InputStream.class, new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+        Exchange exchange = new ExchangeImpl();
+        message.setExchange(exchange);
+        LogEventSenderMock logEventSender = new LogEventSenderMock();
+        LoggingInInterceptor interceptor = new LoggingInInterceptor(logEventSender);
+        interceptor.addSensitiveElementNames(Collections.singleton("password"));
+        interceptor.setLimit(content.indexOf("my secret") + 6); // truncate inside the password
+
+        Collection<PhaseInterceptor<? extends Message>> interceptors = interceptor.getAdditionalInterceptors();
+        for (PhaseInterceptor intercept : interceptors) {
+            intercept.handleMessage(message);
+        }
+
+        interceptor.handleMessage(message);
+
+        LogEvent event = logEventSender.getLogEvent();
+        assertNotNull(event);
+        assertEquals("<root><user>testUser</user><ns:password>XXX", event.getPayload());
+        assertTrue(event.isTruncated());
+    }
+
+    @Test
+    public void truncatedSensitiveJsonValueIsMasked() throws IOException {
+        String content = "{\"user\":\"testUser\",\"password\"\t:  \"my secret password\"}";
+        Message message = new MessageImpl();
+        message.put(Message.CONTENT_TYPE, "application/json");
+        message.setContent(OutputStream.class, new ByteArrayOutputStream());
+        Exchange exchange = new ExchangeImpl();
+        message.setExchange(exchange);
+        LogEventSenderMock logEventSender = new LogEventSenderMock();
+        LoggingOutInterceptor interceptor = new LoggingOutInterceptor(logEventSender);
+        interceptor.addSensitiveElementNames(Collections.singleton("password"));
+        interceptor.setLimit(content.indexOf("my secret") + 6); // truncate inside the password
+        interceptor.handleMessage(message);
+
+        OutputStream out = message.getContent(OutputStream.class);
+        out.write(content.getBytes(StandardCharsets.UTF_8));
+        out.close();
+        LogEvent event = logEventSender.getLogEvent();
+        assertNotNull(event);
+        assertEquals("{\"user\":\"testUser\",\"password\": \"XXX", event.getPayload());
+        assertTrue(event.isTruncated());
+    }
+
+    @Test
+    public void truncatedSensitiveElementIsMaskedWriter() throws IOException {
+        String content = "<root><password>my secret password</password></root>";
+        Message message = new MessageImpl();
+        message.put(Message.CONTENT_TYPE, "application/xml");
+        message.setContent(Writer.class, new StringWriter());
+        Exchange exchange = new ExchangeImpl();
+        message.setExchange(exchange);
+        LogEventSenderMock logEventSender = new LogEventSenderMock();
+        LoggingOutInterceptor interceptor = new LoggingOutInterceptor(logEventSender);
+        interceptor.addSensitiveElementNames(Collections.singleton("password"));
+        interceptor.setLimit(content.indexOf("my secret") + 6); // truncate inside the password
+        interceptor.handleMessage(message);
+
+        Writer out = message.getContent(Writer.class);
+        out.write(content);
+        out.close();
+        LogEvent event = logEventSender.getLogEvent();
+        assertNotNull(event);
+        assertEquals("<root><password>XXX", event.getPayload());
+        assertTrue(event.isTruncated());
+    }
 
 }
@@ -30,10 +30,15 @@ import org.apache.cxf.metrics.interceptors.CountingOutputStream;
  *
  */
 public class ExchangeMetrics {
+    private static final MetricsPhase[] PHASES = MetricsPhase.values();
+
     Deque<MetricsContext> contexts = new LinkedList<>();
     Exchange exchange;
     boolean started;
     long startTime = -1;
+    long stopTime;
+    final long[] phaseStarts = new long[PHASES.length];
+    int markedPhases;
 
     public ExchangeMetrics(Exchange e) {
         exchange = e;
@@ -72,10 +77,43 @@ public class ExchangeMetrics {
         if (out != null) {
             outSize = out.getCount();
         }
-        long l = System.nanoTime() - startTime;
+        stopTime = System.nanoTime();
+        long l = stopTime - startTime;
         for (MetricsContext ctx : contexts) {
             ctx.stop(l, inSize, outSize, exchange);
         }
     }
 
+    /**
+     * Records the start of the given phase, unless it was already recorded
+     */
+    public void markPhase(MetricsPhase phase) {
+        final int bit = 1 << phase.ordinal();
+        if ((markedPhases & bit) == 0) {
+            phaseStarts[phase.ordinal()] = System.nanoTime();
+            markedPhases |= bit;
+        }
+    }
+
+    /**
+     * Returns the time in nanoseconds spent in the given phase by the stopped exchange,
+     * or -1 if the phase was not marked
+     */
+    public long getPhaseTime(MetricsPhase phase) {
+        if ((markedPhases & (1 << phase.ordinal())) == 0 || startTime == -1) {
+            return -1;
+        }
+        final long start = phaseStarts[phase.ordinal()];
+        if (start - stopTime > 0) {
+            return -1;
+        }
+        long end = stopTime;
+        for (int i = 0; i < PHASES.length; i++) {
+            if ((markedPhases & (1 << i)) != 0 && phaseStarts[i] - start > 0 && phaseStarts[i] - end < 0) {
+                end = phaseStarts[i];
+            }
+        }
+        return end - start;
+    }
+
 }
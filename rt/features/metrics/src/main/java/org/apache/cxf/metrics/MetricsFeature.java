@@ -34,6 +34,8 @@ import org.apache.cxf.endpoint.Server;
 import org.apache.cxf.feature.AbstractPortableFeature;
 import org.apache.cxf.feature.DelegatingFeature;
 import org.apache.cxf.interceptor.InterceptorProvider;
+import org.apache.cxf.interceptor.MessageSenderInterceptor.MessageSenderEndingInterceptor;
+import org.apache.cxf.metrics.hdr.HdrMetricsProvider;
 import org.apache.cxf.metrics.interceptors.CountingOutInterceptor;
 import org.apache.cxf.metrics.interceptors.MetricsMessageClientOutInterceptor;
 import org.apache.cxf.metrics.interceptors.MetricsMessageInInterceptor;
@@ -41,6 +43,8 @@ import org.apache.cxf.metrics.interceptors.MetricsMessageInOneWayInterceptor;
 import org.apache.cxf.metrics.interceptors.MetricsMessageInPostInvokeInterceptor;
 import org.apache.cxf.metrics.interceptors.MetricsMessageInPreInvokeInterceptor;
 import org.apache.cxf.metrics.interceptors.MetricsMessageOutInterceptor;
+import org.apache.cxf.metrics.interceptors.MetricsPhaseInterceptor;
+import org.apache.cxf.phase.Phase;
 
 /**
  *
@@ -87,6 +91,7 @@ public class MetricsFeature extends DelegatingFeature<MetricsFeature.Portable> {
             provider.getOutInterceptors().add(out);
             provider.getOutFaultInterceptors().add(countingOut);
             provider.getOutFaultInterceptors().add(out);
+            addPhaseInterceptors(provider);
         }
 
         @Override
@@ -102,6 +107,7 @@ public class MetricsFeature extends DelegatingFeature<MetricsFeature.Portable> {
             client.getOutInterceptors().add(countingOut);
             client.getOutInterceptors().add(out);
             client.getOutInterceptors().add(new MetricsMessageClientOutInterceptor(providers));
+            addPhaseInterceptors(client);
         }
 
 
@@ -124,7 +130,41 @@ public class MetricsFeature extends DelegatingFeature<MetricsFeature.Portable> {
             provider.getOutInterceptors().add(new MetricsMessageClientOutInterceptor(providers));
             provider.getOutFaultInterceptors().add(countingOut);
             provider.getOutFaultInterceptors().add(out);
+            addPhaseInterceptors(provider);
         }
+
+        /**
+         * Adds the interceptors timing the phases of the exchanges if a provider records them
+         */
+        private void addPhaseInterceptors(InterceptorProvider provider) {
+            boolean phases = false;
+            if (providers != null) {
+                for (MetricsProvider p : providers) {
+                    phases |= p instanceof HdrMetricsProvider;
+                }
+            }
+            if (!phases) {
+                return;
+            }
+            MetricsPhaseInterceptor stream =
+                new MetricsPhaseInterceptor(Phase.RECEIVE, MetricsPhase.STREAM, MetricsPhase.STREAM);
+            stream.addAfter(MetricsMessageInInterceptor.class.getName());
+            provider.getInInterceptors().add(stream);
+            provider.getInInterceptors().add(
+                new MetricsPhaseInterceptor(Phase.UNMARSHAL, MetricsPhase.UNMARSHAL, MetricsPhase.UNMARSHAL));
+            provider.getInInterceptors().add(new MetricsPhaseInterceptor(Phase.PRE_INVOKE, MetricsPhase.INVOKE, null));
+
+            MetricsPhaseInterceptor marshal =
+                new MetricsPhaseInterceptor(Phase.SETUP, MetricsPhase.MARSHAL, MetricsPhase.MARSHAL);
+            marshal.addAfter(MetricsMessageClientOutInterceptor.class.getName());
+            provider.getOutInterceptors().add(marshal);
+            provider.getOutFaultInterceptors().add(marshal);
+            MetricsPhaseInterceptor send =
+                new MetricsPhaseInterceptor(Phase.PREPARE_SEND_ENDING, null, MetricsPhase.SEND);
+            send.addBefore(MessageSenderEndingInterceptor.class.getName());
+            provider.getOutInterceptors().add(send);
+        }
+
         private void createDefaultProvidersIfNeeded(Bus bus) {
             if (providers == null) {
                 ConfiguredBeanLocator b = bus.getExtension(ConfiguredBeanLocator.class);
@@ -0,0 +1,37 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.metrics;
+
+/**
+ * The phases of the processing of an exchange which can be timed separately. A phase lasts
+ * until the start of the next phase marked for the exchange, or the end of the exchange.
+ */
+public enum MetricsPhase {
+    /** Reading the message up to its unmarshalling, including the protocol headers and security */
+    STREAM,
+    /** Unmarshalling the message */
+    UNMARSHAL,
+    /** Invoking the service, on the server side */
+    INVOKE,
+    /** Processing and writing the outgoing message */
+    MARSHAL,
+    /** Waiting for the response once the request was written, on the client side */
+    SEND
+}
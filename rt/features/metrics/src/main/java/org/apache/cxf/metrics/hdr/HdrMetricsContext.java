@@ -0,0 +1,109 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.metrics.hdr;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.FaultMode;
+import org.apache.cxf.metrics.ExchangeMetrics;
+import org.apache.cxf.metrics.MetricsContext;
+import org.apache.cxf.metrics.MetricsPhase;
+
+/**
+ * Records the latency of the exchanges of an endpoint, operation or resource, and of their
+ * phases, in histograms. The context is shared by all of the exchanges and does not allocate
+ * when recording.
+ */
+public class HdrMetricsContext implements MetricsContext {
+    private static final MetricsPhase[] PHASES = MetricsPhase.values();
+
+    private final String name;
+    private final LatencyHistogram totals = new LatencyHistogram();
+    private final LatencyHistogram[] phases = new LatencyHistogram[PHASES.length];
+    private final LongAdder inFlight = new LongAdder();
+    private final LongAdder faults = new LongAdder();
+    private final LongAdder incomingData = new LongAdder();
+    private final LongAdder outgoingData = new LongAdder();
+
+    public HdrMetricsContext(String name) {
+        this.name = name;
+        for (int i = 0; i < phases.length; i++) {
+            phases[i] = new LatencyHistogram();
+        }
+    }
+
+    @Override
+    public void start(Exchange ex) {
+        inFlight.increment();
+    }
+
+    @Override
+    public void stop(long timeInNS, long inSize, long outSize, Exchange ex) {
+        inFlight.decrement();
+        totals.record(timeInNS);
+        if (ex.get(FaultMode.class) != null) {
+            faults.increment();
+        }
+        if (inSize > 0) {
+            incomingData.add(inSize);
+        }
+        if (outSize > 0) {
+            outgoingData.add(outSize);
+        }
+        final ExchangeMetrics metrics = ex.get(ExchangeMetrics.class);
+        if (metrics != null) {
+            for (int i = 0; i < PHASES.length; i++) {
+                long time = metrics.getPhaseTime(PHASES[i]);
+                if (time >= 0) {
+                    phases[i].record(time);
+                }
+            }
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public LatencyHistogram getTotals() {
+        return totals;
+    }
+
+    public LatencyHistogram getPhase(MetricsPhase phase) {
+        return phases[phase.ordinal()];
+    }
+
+    public long getInFlight() {
+        return inFlight.sum();
+    }
+
+    public long getFaults() {
+        return faults.sum();
+    }
+
+    public long getDataRead() {
+        return incomingData.sum();
+    }
+
+    public long getDataWritten() {
+        return outgoingData.sum();
+    }
+}
@@ -0,0 +1,184 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.metrics.hdr;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.cxf.common.injection.NoJSR250Annotations;
+import org.apache.cxf.common.logging.LogUtils;
+import org.apache.cxf.endpoint.Endpoint;
+import org.apache.cxf.metrics.MetricsContext;
+import org.apache.cxf.metrics.MetricsPhase;
+import org.apache.cxf.metrics.MetricsProvider;
+import org.apache.cxf.service.model.BindingOperationInfo;
+
+/**
+ * A MetricsProvider recording the latency distributions of the endpoints, operations and
+ * resources in log-linear histograms, from which the percentiles can be read without keeping
+ * the samples. When used with the MetricsFeature, the time spent reading, unmarshalling,
+ * invoking, marshalling and sending is recorded as well. The latencies recorded during each
+ * export interval can be published to {@link LatencySnapshotListener}s, in which case the
+ * histograms are reset at each export.
+ */
+@NoJSR250Annotations
+public class HdrMetricsProvider implements MetricsProvider, Closeable {
+    private static final Logger LOG = LogUtils.getL7dLogger(HdrMetricsProvider.class);
+
+    private final Map<String, HdrMetricsContext> contexts = new ConcurrentHashMap<>();
+    private final List<LatencySnapshotListener> listeners = new ArrayList<>();
+    private long exportInterval;
+    private ScheduledExecutorService executor;
+
+    public HdrMetricsProvider() {
+    }
+
+    /**
+     * @param listeners the listeners of the latencies recorded during each interval
+     * @param exportInterval the export interval in seconds
+     */
+    public HdrMetricsProvider(List<LatencySnapshotListener> listeners, long exportInterval) {
+        setListeners(listeners);
+        setExportInterval(exportInterval);
+    }
+
+    public void setListeners(List<LatencySnapshotListener> listeners) {
+        this.listeners.clear();
+        this.listeners.addAll(listeners);
+        startExport();
+    }
+
+    public List<LatencySnapshotListener> getListeners() {
+        return Collections.unmodifiableList(listeners);
+    }
+
+    /**
+     * Sets the interval in seconds at which the latencies are published to the listeners
+     */
+    public void setExportInterval(long exportInterval) {
+        this.exportInterval = exportInterval;
+        startExport();
+    }
+
+    public long getExportInterval() {
+        return exportInterval;
+    }
+
+    /** {@inheritDoc}*/
+    @Override
+    public MetricsContext createEndpointContext(Endpoint endpoint, boolean asClient, String clientId) {
+        return getContext(getBaseName(endpoint, asClient, clientId).toString());
+    }
+
+    /** {@inheritDoc}*/
+    @Override
+    public MetricsContext createOperationContext(Endpoint endpoint, BindingOperationInfo boi,
+                                                 boolean asClient, String clientId) {
+        StringBuilder buffer = getBaseName(endpoint, asClient, clientId);
+        buffer.append('#').append(boi.getName().getLocalPart());
+        return getContext(buffer.toString());
+    }
+
+    /** {@inheritDoc}*/
+    @Override
+    public MetricsContext createResourceContext(Endpoint endpoint, String resourceName,
+                                                boolean asClient, String clientId) {
+        StringBuilder buffer = getBaseName(endpoint, asClient, clientId);
+        buffer.append('#').append(resourceName);
+        return getContext(buffer.toString());
+    }
+
+    /**
+     * Returns the context of the given name, created if needed
+     */
+    public HdrMetricsContext getContext(String name) {
+        return contexts.computeIfAbsent(name, HdrMetricsContext::new);
+    }
+
+    public Collection<HdrMetricsContext> getContexts() {
+        return Collections.unmodifiableCollection(contexts.values());
+    }
+
+    /**
+     * Publishes the latencies recorded since the previous export to the listeners and resets
+     * the interval histograms
+     */
+    public void export() {
+        for (HdrMetricsContext context : contexts.values()) {
+            final LatencySnapshot totals = context.getTotals().getIntervalSnapshot();
+            final Map<MetricsPhase, LatencySnapshot> phases = new EnumMap<>(MetricsPhase.class);
+            for (MetricsPhase phase : MetricsPhase.values()) {
+                LatencySnapshot snapshot = context.getPhase(phase).getIntervalSnapshot();
+                if (snapshot.getCount() > 0) {
+                    phases.put(phase, snapshot);
+                }
+            }
+            for (LatencySnapshotListener listener : listeners) {
+                try {
+                    listener.onSnapshot(context.getName(), totals, phases);
+                } catch (RuntimeException ex) {
+                    LOG.log(Level.WARNING, "Error while exporting the latencies of " + context.getName(), ex);
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    StringBuilder getBaseName(Endpoint endpoint, boolean isClient, String clientId) {
+        StringBuilder buffer = new StringBuilder();
+        buffer.append(isClient ? "client:" : "server:");
+        buffer.append(endpoint.getService().getName()).append(':');
+        buffer.append(endpoint.getEndpointInfo().getName().getLocalPart());
+        if (clientId != null) {
+            buffer.append(':').append(clientId);
+        }
+        return buffer;
+    }
+
+    private synchronized void startExport() {
+        close();
+        if (exportInterval > 0 && !listeners.isEmpty()) {
+            executor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "cxf-hdr-metrics-export");
+                t.setDaemon(true);
+                return t;
+            });
+            executor.scheduleAtFixedRate(this::export, exportInterval, exportInterval, TimeUnit.SECONDS);
+        }
+    }
+}
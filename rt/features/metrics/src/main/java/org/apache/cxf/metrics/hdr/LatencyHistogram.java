@@ -0,0 +1,75 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.metrics.hdr;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.cxf.common.util.LogLinearBuckets;
+
+/**
+ * A histogram of latencies in nanoseconds with log-linear buckets, like HdrHistogram: each
+ * power of two is split into 32 buckets, so that a recorded value is known to about 3%.
+ * Values are recorded without locking or allocating, and up to about 36 minutes.
+ */
+public class LatencyHistogram {
+    static final LogLinearBuckets SCALE = new LogLinearBuckets(5);
+    static final long MAX_VALUE = (1L << 41) - 1;
+    static final int BUCKETS = SCALE.getBucketCount(MAX_VALUE);
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Long::max, 0);
+
+    /**
+     * Records a latency in nanoseconds
+     */
+    public void record(long value) {
+        final long v = Math.min(Math.max(value, 0), MAX_VALUE);
+        counts.incrementAndGet(SCALE.indexOf(v));
+        sum.add(v);
+        max.accumulate(v);
+    }
+
+    /**
+     * Returns the latencies recorded so far
+     */
+    public LatencySnapshot getSnapshot() {
+        final long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+        }
+        return new LatencySnapshot(snapshot, sum.sum(), max.get());
+    }
+
+    /**
+     * Returns the latencies recorded since the previous interval snapshot and resets the histogram.
+     * A latency recorded concurrently is counted in either snapshot, but the sum and max
+     * of the snapshots may be off by such latencies.
+     */
+    public LatencySnapshot getIntervalSnapshot() {
+        final long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.getAndSet(i, 0);
+        }
+        return new LatencySnapshot(snapshot, sum.sumThenReset(), max.getThenReset());
+    }
+}
@@ -0,0 +1,38 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.metrics.hdr;
+
+import java.util.Map;
+
+import org.apache.cxf.metrics.MetricsPhase;
+
+/**
+ * Receives the latencies recorded by an {@link HdrMetricsProvider} during an export interval,
+ * for example to publish them to a metrics registry.
+ */
+public interface LatencySnapshotListener {
+
+    /**
+     * @param name the name of the endpoint, operation or resource
+     * @param totals the latencies of the exchanges
+     * @param phases the latencies of the phases of the exchanges which were timed
+     */
+    void onSnapshot(String name, LatencySnapshot totals, Map<MetricsPhase, LatencySnapshot> phases);
+}
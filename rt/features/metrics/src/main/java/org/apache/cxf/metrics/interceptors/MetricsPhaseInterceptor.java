@@ -0,0 +1,54 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.metrics.interceptors;
+
+import org.apache.cxf.interceptor.Fault;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.metrics.ExchangeMetrics;
+import org.apache.cxf.metrics.MetricsPhase;
+import org.apache.cxf.phase.AbstractPhaseInterceptor;
+
+/**
+ * Marks the start of a {@link MetricsPhase} of the exchanges whose metrics are started
+ */
+public class MetricsPhaseInterceptor extends AbstractPhaseInterceptor<Message> {
+    private final MetricsPhase serverPhase;
+    private final MetricsPhase clientPhase;
+
+    /**
+     * @param phase the interceptor phase
+     * @param serverPhase the phase marked on the server side, or null
+     * @param clientPhase the phase marked on the client side, or null
+     */
+    public MetricsPhaseInterceptor(String phase, MetricsPhase serverPhase, MetricsPhase clientPhase) {
+        super(MetricsPhaseInterceptor.class.getName() + "." + phase, phase);
+        this.serverPhase = serverPhase;
+        this.clientPhase = clientPhase;
+    }
+
+    public void handleMessage(Message message) throws Fault {
+        final MetricsPhase metricsPhase = isRequestor(message) ? clientPhase : serverPhase;
+        if (metricsPhase != null) {
+            ExchangeMetrics ctx = message.getExchange().get(ExchangeMetrics.class);
+            if (ctx != null) {
+                ctx.markPhase(metricsPhase);
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.metrics.hdr;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.metrics.ExchangeMetrics;
+import org.apache.cxf.metrics.MetricsPhase;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HdrMetricsProviderTest {
+
+    @Test
+    public void testBuckets() {
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.SCALE.indexOf(LatencyHistogram.MAX_VALUE));
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 10_000; i++) {
+            histogram.record(i * 1000);
+        }
+        LatencySnapshot snapshot = histogram.getSnapshot();
+        assertEquals(10_000, snapshot.getCount());
+        assertEquals(10_000_000, snapshot.getMax());
+        assertEquals(5_000_500, snapshot.getMean(), 1);
+        assertWithin(5_000_000, snapshot.getValueAtPercentile(50));
+        assertWithin(9_900_000, snapshot.getValueAtPercentile(99));
+        assertWithin(9_990_000, snapshot.getValueAtPercentile(99.9));
+        assertEquals(10_000_000, snapshot.getValueAtPercentile(100));
+
+        assertEquals(10_000, histogram.getIntervalSnapshot().getCount());
+        assertEquals(0, histogram.getSnapshot().getCount());
+    }
+
+    @Test
+    public void testPhases() throws Exception {
+        HdrMetricsContext context = new HdrMetricsContext("test");
+        Exchange ex = new ExchangeImpl();
+        ExchangeMetrics metrics = new ExchangeMetrics(ex);
+        ex.put(ExchangeMetrics.class, metrics);
+        metrics.addContext(context);
+        metrics.start();
+        metrics.markPhase(MetricsPhase.STREAM);
+        metrics.markPhase(MetricsPhase.INVOKE);
+        Thread.sleep(5);
+        metrics.markPhase(MetricsPhase.MARSHAL);
+        // only the first mark counts
+        metrics.markPhase(MetricsPhase.INVOKE);
+        metrics.stop();
+
+        assertEquals(0, context.getInFlight());
+        assertEquals(1, context.getTotals().getSnapshot().getCount());
+        assertEquals(1, context.getPhase(MetricsPhase.STREAM).getSnapshot().getCount());
+        assertEquals(0, context.getPhase(MetricsPhase.UNMARSHAL).getSnapshot().getCount());
+        assertEquals(0, context.getPhase(MetricsPhase.SEND).getSnapshot().getCount());
+        LatencySnapshot invoke = context.getPhase(MetricsPhase.INVOKE).getSnapshot();
+        assertEquals(1, invoke.getCount());
+        assertTrue(invoke.getMax() >= 5_000_000);
+        assertTrue(invoke.getMax() <= context.getTotals().getSnapshot().getMax());
+    }
+
+    @Test
+    public void testExport() {
+        final List<String> names = new ArrayList<>();
+        HdrMetricsProvider provider = new HdrMetricsProvider();
+        provider.setListeners(Collections.singletonList(
+            (String name, LatencySnapshot totals, Map<MetricsPhase, LatencySnapshot> phases) -> {
+                names.add(name + '=' + totals.getCount());
+            }));
+        provider.getContext("a").getTotals().record(1000);
+        provider.getContext("a").getTotals().record(2000);
+        provider.export();
+        assertEquals(Collections.singletonList("a=2"), names);
+        provider.export();
+        assertEquals("a=0", names.get(1));
+        provider.close();
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(actual + " is not within 4% of " + expected, Math.abs(actual - expected) <= expected / 25);
+    }
+}
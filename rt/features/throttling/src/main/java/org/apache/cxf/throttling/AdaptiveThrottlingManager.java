@@ -0,0 +1,253 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.throttling;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.phase.Phase;
+import org.apache.cxf.service.model.BindingOperationInfo;
+
+/**
+ * Limits the number of concurrent requests to a limit adapted to the observed latency, with a
+ * gradient algorithm: while the recent latency stays close to the latency without load the limit
+ * grows, and it shrinks as the recent latency rises, that is as the requests start queueing.
+ * The requests over the limit are rejected with a 503 response carrying a Retry-After header.
+ * <p>
+ * The operations may be given priorities, 0 being the highest. The requests of lower priority
+ * operations are admitted while the number of concurrent requests is below a smaller share of
+ * the limit, so that they are shed first as the load rises.
+ */
+public class AdaptiveThrottlingManager implements ThrottlingManager {
+    private static final String START_TIME = AdaptiveThrottlingManager.class.getName() + ".START_TIME";
+    private static final String RESOURCE_OPERATION_NAME = "org.apache.cxf.resource.operation.name";
+
+    private final List<String> phases;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder sampleTime = new LongAdder();
+    private final LongAdder sampleCount = new LongAdder();
+    private final AtomicLong windowEnd = new AtomicLong(System.nanoTime());
+    private Map<String, Integer> priorities = Collections.emptyMap();
+    private volatile double limit;
+    private volatile double noLoadLatency;
+    private int minLimit = 5;
+    private int maxLimit = 1000;
+    private double tolerance = 2;
+    private double smoothing = 0.2;
+    private double priorityShare = 0.1;
+    private long window = TimeUnit.SECONDS.toNanos(1);
+    private int minSamples = 10;
+
+    public AdaptiveThrottlingManager() {
+        this(Phase.PRE_LOGICAL);
+    }
+
+    /**
+     * @param phase the phase where the requests are admitted, which must be after the selection
+     *              of the operation if the operations have priorities
+     */
+    public AdaptiveThrottlingManager(String phase) {
+        phases = Collections.singletonList(phase);
+        limit = 20;
+    }
+
+    @Override
+    public List<String> getDecisionPhases() {
+        return phases;
+    }
+
+    @Override
+    public ThrottleResponse getThrottleResponse(String phase, Message m) {
+        final Exchange ex = m.getExchange();
+        if (ex.containsKey(START_TIME)) {
+            return null;
+        }
+        final double admitted = Math.max(1, limit * (1 - priorityShare * getPriority(ex)));
+        if (ex.isOneWay()) {
+            // no response will release the request, so it is only checked against the limit
+            return inFlight.get() >= admitted ? reject() : null;
+        }
+        if (inFlight.incrementAndGet() > admitted) {
+            inFlight.decrementAndGet();
+            return reject();
+        }
+        ex.put(START_TIME, System.nanoTime());
+        return null;
+    }
+
+    @Override
+    public void onResponse(Message m) {
+        final Object start = m.getExchange().remove(START_TIME);
+        if (start != null) {
+            final long now = System.nanoTime();
+            final int current = inFlight.getAndDecrement();
+            sampleTime.add(now - (Long)start);
+            sampleCount.increment();
+            final long end = windowEnd.get();
+            if (now - end >= 0 && windowEnd.compareAndSet(end, now + window)) {
+                updateLimit(current);
+            }
+        }
+    }
+
+    private ThrottleResponse reject() {
+        rejected.increment();
+        final long retryAfter = TimeUnit.NANOSECONDS.toMillis((long)(noLoadLatency * tolerance));
+        return new ThrottleResponse(503).setRetryAfter(Math.max(1, retryAfter));
+    }
+
+    /**
+     * Adapts the limit to the latency of the requests completed during the last window
+     * @param current the number of requests in flight
+     */
+    void updateLimit(int current) {
+        final long count = sampleCount.sumThenReset();
+        final long time = sampleTime.sumThenReset();
+        if (count < minSamples) {
+            return;
+        }
+        final double latency = (double)time / count;
+        double noLoad = noLoadLatency;
+        if (noLoad == 0 || latency < noLoad) {
+            noLoad = latency;
+        } else {
+            // let the latency without load drift up, so that a lasting change is taken into account
+            noLoad = noLoad * 0.99 + latency * 0.01;
+        }
+        noLoadLatency = noLoad;
+
+        final double l = limit;
+        if (current < l / 2 && latency <= noLoad * tolerance) {
+            // not limited by the limit, whose growth would not be backed by any latency
+            return;
+        }
+        final double gradient = Math.max(0.5, Math.min(1, tolerance * noLoad / latency));
+        final double newLimit = l * gradient + Math.sqrt(l);
+        limit = Math.max(minLimit, Math.min(maxLimit, l * (1 - smoothing) + newLimit * smoothing));
+    }
+
+    /**
+     * Returns the priority of the operation of the exchange, 0 if the operation has none
+     */
+    protected int getPriority(Exchange ex) {
+        if (priorities.isEmpty()) {
+            return 0;
+        }
+        String operation = null;
+        BindingOperationInfo boi = ex.getBindingOperationInfo();
+        if (boi != null) {
+            operation = boi.getName().getLocalPart();
+        } else if (ex.get(RESOURCE_OPERATION_NAME) != null) {
+            operation = ex.get(RESOURCE_OPERATION_NAME).toString();
+        }
+        Integer priority = operation == null ? null : priorities.get(operation);
+        return priority == null ? 0 : priority;
+    }
+
+    /**
+     * Sets the priorities of the operations, by operation or resource method name. A request of
+     * priority p is admitted while the number of concurrent requests is below
+     * (1 - p * priorityShare) times the limit.
+     */
+    public void setPriorities(Map<String, Integer> priorities) {
+        this.priorities = new HashMap<>(priorities);
+    }
+
+    public Map<String, Integer> getPriorities() {
+        return Collections.unmodifiableMap(priorities);
+    }
+
+    /**
+     * Sets the share of the limit which is withheld from the requests for each level of priority,
+     * 0.1 by default
+     */
+    public void setPriorityShare(double priorityShare) {
+        this.priorityShare = priorityShare;
+    }
+
+    public void setInitialLimit(int initialLimit) {
+        this.limit = initialLimit;
+    }
+
+    public void setMinLimit(int minLimit) {
+        this.minLimit = minLimit;
+    }
+
+    public void setMaxLimit(int maxLimit) {
+        this.maxLimit = maxLimit;
+    }
+
+    /**
+     * Sets the ratio of the recent latency to the latency without load from which the limit
+     * shrinks, 2 by default
+     */
+    public void setTolerance(double tolerance) {
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * Sets the share of the new limit in the limit after each window, 0.2 by default
+     */
+    public void setSmoothing(double smoothing) {
+        this.smoothing = smoothing;
+    }
+
+    /**
+     * Sets the time in milliseconds over which the latency is sampled, 1 second by default
+     */
+    public void setWindow(long window) {
+        this.window = TimeUnit.MILLISECONDS.toNanos(window);
+    }
+
+    /**
+     * Sets the minimum number of requests completed during a window to adapt the limit
+     */
+    public void setMinSamples(int minSamples) {
+        this.minSamples = minSamples;
+    }
+
+    public int getLimit() {
+        return (int)limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * Returns the estimated latency without load in nanoseconds
+     */
+    public long getNoLoadLatency() {
+        return (long)noLoadLatency;
+    }
+}
@@ -30,6 +30,7 @@ public class ThrottleResponse {
     protected Map<String, String> responseHeaders = new HashMap<>();
     protected int responseCode = -1;
     protected String errorMessage;
+    protected long retryAfter;
 
     public ThrottleResponse() {
 
@@ -86,4 +87,17 @@ public class ThrottleResponse {
         this.delay = d;
         return this;
     }
+
+    /**
+     * The time in milliseconds after which the client may retry a rejected request,
+     * sent as the Retry-After header
+     */
+    public long getRetryAfter() {
+        return retryAfter;
+    }
+
+    public ThrottleResponse setRetryAfter(long ms) {
+        this.retryAfter = ms;
+        return this;
+    }
 }
@@ -59,8 +59,8 @@ public class ThrottlingFeature extends DelegatingFeature<ThrottlingFeature.Porta
             for (String p : m.getDecisionPhases()) {
                 provider.getInInterceptors().add(new ThrottlingInterceptor(p, m));
             }
-            provider.getOutInterceptors().add(new ThrottlingResponseInterceptor());
-            provider.getOutFaultInterceptors().add(new ThrottlingResponseInterceptor());
+            provider.getOutInterceptors().add(new ThrottlingResponseInterceptor(m));
+            provider.getOutFaultInterceptors().add(new ThrottlingResponseInterceptor(m));
         }
     }
 }
@@ -43,4 +43,13 @@ public interface ThrottlingManager {
      * @return
      */
     ThrottleResponse getThrottleResponse(String phase, Message m);
+
+    /**
+     * Called when the response to a message is about to be sent, for example to release the
+     * resources acquired for the message or to measure its latency. It may be called more than
+     * once for a message, such as when writing the response fails.
+     * @param m the outgoing message
+     */
+    default void onResponse(Message m) {
+    }
 }
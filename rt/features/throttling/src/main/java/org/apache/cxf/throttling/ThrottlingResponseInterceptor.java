@@ -35,8 +35,15 @@ import org.apache.cxf.phase.Phase;
  *
  */
 public class ThrottlingResponseInterceptor extends AbstractPhaseInterceptor<Message> {
+    final ThrottlingManager manager;
+
     public ThrottlingResponseInterceptor() {
+        this(null);
+    }
+
+    public ThrottlingResponseInterceptor(ThrottlingManager manager) {
         super(Phase.SETUP);
+        this.manager = manager;
     }
 
     @Override
@@ -63,15 +70,25 @@ public class ThrottlingResponseInterceptor extends AbstractPhaseInterceptor<Mess
                 }
                 r.add(e.getValue());
             }
-            if (rsp.getResponseCode() == 503 && rsp.getDelay() > 0
-                && !rsp.getResponseHeaders().containsKey("Retry-After")) {
-                String retryAfter = Long.toString(rsp.getDelay() / 1000);
-                headers.put("Retry-After", Collections.singletonList(retryAfter));
+            if (!rsp.getResponseHeaders().containsKey("Retry-After")) {
+                String retryAfter = null;
+                if (rsp.getRetryAfter() > 0) {
+                    // in seconds, rounded up so that the client does not retry too early
+                    retryAfter = Long.toString((rsp.getRetryAfter() + 999) / 1000);
+                } else if (rsp.getResponseCode() == 503 && rsp.getDelay() > 0) {
+                    retryAfter = Long.toString(rsp.getDelay() / 1000);
+                }
+                if (retryAfter != null) {
+                    headers.put("Retry-After", Collections.singletonList(retryAfter));
+                }
             }
         }
         ThrottlingCounter tCounter = message.getExchange().get(ThrottlingCounter.class);
         if (tCounter != null) {
             tCounter.decrementAndGet();
         }
+        if (manager != null) {
+            manager.onResponse(message);
+        }
     }
 }
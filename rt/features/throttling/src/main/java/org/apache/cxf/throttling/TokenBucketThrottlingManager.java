@@ -0,0 +1,215 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.throttling;
+
+import java.security.Principal;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.servlet.ServletRequest;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.phase.Phase;
+import org.apache.cxf.security.SecurityContext;
+
+/**
+ * Limits the rate of the requests of each client with a token bucket: a client may send up to
+ * capacity requests at once, and then rate requests per second. The clients are identified by
+ * their principal, or by their remote address if they are not authenticated in the decision
+ * phase. The requests over the limit are rejected with a 429 response carrying a Retry-After
+ * header. A bucket is a single atomic timestamp, the time at which it will be full again, so
+ * taking a token does not lock.
+ */
+public class TokenBucketThrottlingManager implements ThrottlingManager {
+    public static final int DEFAULT_MAX_CLIENTS = 10000;
+
+    private static final String ANONYMOUS = "";
+    private static final boolean SERVLET_AVAILABLE = isServletAvailable();
+
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong overflowBucket = new AtomicLong(Long.MIN_VALUE);
+    // the earliest time of the next sweep of the idle buckets
+    private final AtomicLong nextSweep = new AtomicLong(Long.MIN_VALUE);
+    private final List<String> phases;
+    private long interval;
+    private long burst;
+    private int capacity;
+    private double rate;
+    private int maxClients = DEFAULT_MAX_CLIENTS;
+    private int responseCode = 429;
+
+    public TokenBucketThrottlingManager() {
+        this(Phase.PRE_STREAM);
+    }
+
+    /**
+     * @param phase the phase where the requests are counted, which must be after the
+     *              authentication of the clients if they should be identified by their principal
+     */
+    public TokenBucketThrottlingManager(String phase) {
+        phases = Collections.singletonList(phase);
+        setLimit(10, 10);
+    }
+
+    @Override
+    public List<String> getDecisionPhases() {
+        return phases;
+    }
+
+    @Override
+    public ThrottleResponse getThrottleResponse(String phase, Message m) {
+        final long wait = acquire(getBucket(getClientKey(m)), System.nanoTime());
+        if (wait <= 0) {
+            return null;
+        }
+        return new ThrottleResponse(responseCode)
+            .setRetryAfter(TimeUnit.NANOSECONDS.toMillis(wait))
+            .addResponseHeader("X-RateLimit-Limit", Integer.toString(capacity));
+    }
+
+    /**
+     * Sets the number of requests a client may send at once and the number of requests
+     * per second once it has
+     */
+    public final void setLimit(int maxBurst, double perSecond) {
+        if (maxBurst < 1 || perSecond <= 0) {
+            throw new IllegalArgumentException("The capacity and rate must be positive");
+        }
+        capacity = maxBurst;
+        rate = perSecond;
+        interval = (long)(TimeUnit.SECONDS.toNanos(1) / perSecond);
+        burst = interval * maxBurst;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    /**
+     * Sets the maximum number of clients with a bucket. Once reached, the clients without a
+     * bucket share one until the idle buckets are dropped.
+     */
+    public void setMaxClients(int maxClients) {
+        this.maxClients = maxClients;
+    }
+
+    public int getMaxClients() {
+        return maxClients;
+    }
+
+    /**
+     * Sets the status code of the rejected requests, 429 by default
+     */
+    public void setResponseCode(int responseCode) {
+        this.responseCode = responseCode;
+    }
+
+    public int getResponseCode() {
+        return responseCode;
+    }
+
+    /**
+     * Returns the key of the client of the message: the name of its principal, its remote
+     * address, or an empty string if neither is known
+     */
+    protected String getClientKey(Message m) {
+        SecurityContext sc = m.get(SecurityContext.class);
+        Principal principal = sc == null ? null : sc.getUserPrincipal();
+        if (principal != null) {
+            return principal.getName();
+        }
+        if (SERVLET_AVAILABLE) {
+            Object request = m.get("HTTP.REQUEST");
+            if (request instanceof ServletRequest) {
+                return ((ServletRequest)request).getRemoteAddr();
+            }
+        }
+        return ANONYMOUS;
+    }
+
+    /**
+     * Takes a token, or returns the time in nanoseconds until one is available
+     */
+    long acquire(AtomicLong bucket, long now) {
+        while (true) {
+            final long full = bucket.get();
+            // the time the bucket is full again, if it is not full yet
+            final long start = full == Long.MIN_VALUE || full - now < 0 ? now : full;
+            final long next = start + interval;
+            final long wait = next - now - burst;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(full, next)) {
+                return 0;
+            }
+        }
+    }
+
+    private AtomicLong getBucket(String key) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxClients && !removeIdleBuckets(System.nanoTime())) {
+                return overflowBucket;
+            }
+            bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(Long.MIN_VALUE));
+        }
+        return bucket;
+    }
+
+    /**
+     * Removes the full buckets, which are the same as new ones. The buckets are swept at most
+     * once per refill interval, so that the clients without a bucket do not all scan them while
+     * the maximum number of clients is reached; they share the overflow bucket in between.
+     */
+    boolean removeIdleBuckets(long now) {
+        final long sweep = nextSweep.get();
+        if ((sweep != Long.MIN_VALUE && now - sweep < 0) || !nextSweep.compareAndSet(sweep, now + interval)) {
+            return false;
+        }
+        boolean removed = false;
+        for (Iterator<AtomicLong> it = buckets.values().iterator(); it.hasNext();) {
+            final long full = it.next().get();
+            if (full == Long.MIN_VALUE || full - now < 0) {
+                it.remove();
+                removed = true;
+            }
+        }
+        return removed;
+    }
+
+    private static boolean isServletAvailable() {
+        try {
+            Class.forName("jakarta.servlet.ServletRequest", false,
+                          TokenBucketThrottlingManager.class.getClassLoader());
+            return true;
+        } catch (Throwable t) {
+            return false;
+        }
+    }
+}
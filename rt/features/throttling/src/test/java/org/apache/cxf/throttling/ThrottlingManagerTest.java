@@ -0,0 +1,178 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.throttling;
+
+import java.security.Principal;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.xml.namespace.QName;
+
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.security.SecurityContext;
+import org.apache.cxf.service.model.BindingInfo;
+import org.apache.cxf.service.model.BindingOperationInfo;
+import org.apache.cxf.service.model.InterfaceInfo;
+import org.apache.cxf.service.model.OperationInfo;
+import org.apache.cxf.service.model.ServiceInfo;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ThrottlingManagerTest {
+
+    @Test
+    public void testTokenBucket() {
+        TokenBucketThrottlingManager manager = new TokenBucketThrottlingManager();
+        manager.setLimit(3, 10);
+        AtomicLong bucket = new AtomicLong(Long.MIN_VALUE);
+        long now = 0;
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, manager.acquire(bucket, now));
+        }
+        long wait = manager.acquire(bucket, now);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), wait);
+        now += wait;
+        assertEquals(0, manager.acquire(bucket, now));
+        assertTrue(manager.acquire(bucket, now) > 0);
+        // refilled
+        now += TimeUnit.SECONDS.toNanos(1);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, manager.acquire(bucket, now));
+        }
+        assertTrue(manager.acquire(bucket, now) > 0);
+    }
+
+    @Test
+    public void testTokenBucketPerClient() {
+        TokenBucketThrottlingManager manager = new TokenBucketThrottlingManager();
+        manager.setLimit(2, 0.001);
+        assertNull(manager.getThrottleResponse(null, createMessage("alice", null)));
+        assertNull(manager.getThrottleResponse(null, createMessage("alice", null)));
+        ThrottleResponse rsp = manager.getThrottleResponse(null, createMessage("alice", null));
+        assertNotNull(rsp);
+        assertEquals(429, rsp.getResponseCode());
+        assertTrue(rsp.getRetryAfter() > 0);
+        assertEquals("2", rsp.getResponseHeaders().get("X-RateLimit-Limit"));
+        assertNull(manager.getThrottleResponse(null, createMessage("bob", null)));
+    }
+
+    @Test
+    public void testIdleBucketsSweptOncePerInterval() {
+        TokenBucketThrottlingManager manager = new TokenBucketThrottlingManager();
+        manager.setLimit(1, 1000);
+        manager.setMaxClients(1);
+        assertNull(manager.getThrottleResponse(null, createMessage("alice", null)));
+        long now = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        assertTrue(manager.removeIdleBuckets(now));
+
+        assertNull(manager.getThrottleResponse(null, createMessage("alice", null)));
+        // the bucket of alice is idle again, but the last sweep is too recent
+        assertFalse(manager.removeIdleBuckets(now));
+        assertTrue(manager.removeIdleBuckets(now + TimeUnit.MILLISECONDS.toNanos(1)));
+    }
+
+    @Test
+    public void testAdaptiveLimit() {
+        AdaptiveThrottlingManager manager = new AdaptiveThrottlingManager();
+        manager.setInitialLimit(10);
+        manager.setMinLimit(1);
+        manager.setMinSamples(1);
+        manager.setWindow(0);
+        for (int i = 0; i < 10; i++) {
+            assertNull(manager.getThrottleResponse(null, createMessage(null, null)));
+        }
+        ThrottleResponse rsp = manager.getThrottleResponse(null, createMessage(null, null));
+        assertEquals(503, rsp.getResponseCode());
+        assertEquals(1, manager.getRejectedCount());
+        assertEquals(10, manager.getInFlight());
+
+        manager = new AdaptiveThrottlingManager();
+        manager.setInitialLimit(10);
+        manager.setMinLimit(1);
+        manager.setMinSamples(1);
+        manager.setWindow(0);
+        // the latency without load, at the limit
+        for (int i = 0; i < 10; i++) {
+            complete(manager, 1);
+        }
+        int limit = manager.getLimit();
+        assertTrue(limit >= 10);
+        // the latency rises
+        for (int i = 0; i < 10; i++) {
+            complete(manager, 20);
+        }
+        assertTrue(manager.getLimit() < limit);
+    }
+
+    @Test
+    public void testPriorities() {
+        AdaptiveThrottlingManager manager = new AdaptiveThrottlingManager();
+        manager.setInitialLimit(10);
+        manager.setPriorities(Collections.singletonMap("report", 5));
+        for (int i = 0; i < 5; i++) {
+            assertNull(manager.getThrottleResponse(null, createMessage(null, "order")));
+        }
+        // half of the limit is withheld from the priority 5 requests
+        assertNotNull(manager.getThrottleResponse(null, createMessage(null, "report")));
+        assertNull(manager.getThrottleResponse(null, createMessage(null, "order")));
+    }
+
+    private static void complete(AdaptiveThrottlingManager manager, long latency) {
+        Message m = createMessage(null, null);
+        assertNull(manager.getThrottleResponse(null, m));
+        m.getExchange().put(AdaptiveThrottlingManager.class.getName() + ".START_TIME",
+                            System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(latency));
+        manager.onResponse(m);
+        manager.onResponse(m);
+    }
+
+    private static Message createMessage(String user, String operation) {
+        Message m = new MessageImpl();
+        Exchange ex = new ExchangeImpl();
+        m.setExchange(ex);
+        if (user != null) {
+            m.put(SecurityContext.class, new SecurityContext() {
+                public Principal getUserPrincipal() {
+                    return () -> user;
+                }
+
+                public boolean isUserInRole(String role) {
+                    return false;
+                }
+            });
+        }
+        if (operation != null) {
+            ServiceInfo si = new ServiceInfo();
+            InterfaceInfo ii = new InterfaceInfo(si, new QName("urn:test", "Test"));
+            OperationInfo oi = ii.addOperation(new QName("urn:test", operation));
+            ex.put(BindingOperationInfo.class, new BindingOperationInfo(new BindingInfo(si, "test"), oi));
+        }
+        return m;
+    }
+}
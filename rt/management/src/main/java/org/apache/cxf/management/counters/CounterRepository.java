@@ -21,8 +21,6 @@ package org.apache.cxf.management.counters;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -47,7 +45,6 @@ public class CounterRepository {
 
     private Map<ObjectName, Counter> counters;
     private Bus bus;
-    private Lock counterCreationLock = new ReentrantLock();
 
     public CounterRepository() {
         counters = new ConcurrentHashMap<>();
@@ -85,18 +82,15 @@ public class CounterRepository {
     }
 
     public void increaseCounter(ObjectName on, MessageHandlingTimeRecorder mhtr) {
-        Counter counter = getCounter(on);
+        Counter counter = counters.get(on);
         if (null == counter) {
-            counterCreationLock.lock();
-            try {
-                // check if the counter has been created during the locked time
-                counter = getCounter(on);
-                if (counter == null) {
-                    counter = createCounter(on);
-                    counters.put(on, counter);
-                }
-            } finally {
-                counterCreationLock.unlock();
+            // the counter is registered once, by the thread which added it, but outside of
+            // the map so that JMX is not called while holding the lock of its bin
+            final Counter created = new ResponseTimeCounter(on);
+            counter = counters.putIfAbsent(on, created);
+            if (counter == null) {
+                counter = created;
+                register(on, counter);
             }
         }
         counter.increase(mhtr);
@@ -112,6 +106,11 @@ public class CounterRepository {
 
     public Counter createCounter(ObjectName on) {
         Counter counter = new ResponseTimeCounter(on);
+        register(on, counter);
+        return counter;
+    }
+
+    private void register(ObjectName on, Counter counter) {
         InstrumentationManager im = bus.getExtension(InstrumentationManager.class);
         if (null != im) {
             try {
@@ -121,7 +120,6 @@ public class CounterRepository {
                         new Object[]{on, e});
             }
         }
-        return counter;
     }
 
 }
@@ -0,0 +1,95 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.management.counters;
+
+import java.util.List;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.management.ManagedComponent;
+import org.apache.cxf.management.ManagementConstants;
+import org.apache.cxf.phase.InterceptorTiming;
+import org.apache.cxf.phase.InterceptorTimings;
+
+/**
+ * Exposes the {@link InterceptorTimings} of a bus, which can be enabled and disabled at runtime.
+ * The timings are disabled by default, unless the bus already has some.
+ */
+public class InterceptorTimingsCounter implements InterceptorTimingsCounterMBean, ManagedComponent {
+    public static final String PERFORMANCE_INTERCEPTORS = "Performance.Interceptors";
+
+    private final Bus bus;
+    private final InterceptorTimings timings;
+
+    public InterceptorTimingsCounter(Bus b) {
+        bus = b;
+        InterceptorTimings t = InterceptorTimings.getTimings(b);
+        timings = t == null ? new InterceptorTimings() : t;
+    }
+
+    public ObjectName getObjectName() throws JMException {
+        return new ObjectName(ManagementConstants.DEFAULT_DOMAIN_NAME + ':'
+            + ManagementConstants.BUS_ID_PROP + '=' + bus.getId() + ','
+            + ManagementConstants.TYPE_PROP + '=' + PERFORMANCE_INTERCEPTORS);
+    }
+
+    public boolean isEnabled() {
+        return InterceptorTimings.getTimings(bus) == timings;
+    }
+
+    public void enable(boolean value) {
+        InterceptorTimings.setTimings(bus, value ? timings : null);
+    }
+
+    public int getSampleRate() {
+        return timings.getSampleRate();
+    }
+
+    public void setSampleRate(int sampleRate) {
+        timings.setSampleRate(sampleRate);
+    }
+
+    public boolean isCpuTime() {
+        return timings.isCpuTime();
+    }
+
+    public void setCpuTime(boolean cpuTime) {
+        timings.setCpuTime(cpuTime);
+    }
+
+    public String[] getTimings() {
+        List<InterceptorTiming> list = timings.getTimings();
+        String[] result = new String[list.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = list.get(i).toString();
+        }
+        return result;
+    }
+
+    public void reset() {
+        timings.reset();
+    }
+
+    public InterceptorTimings getInterceptorTimings() {
+        return timings;
+    }
+}
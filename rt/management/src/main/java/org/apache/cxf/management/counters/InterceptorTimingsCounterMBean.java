@@ -0,0 +1,43 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.management.counters;
+
+public interface InterceptorTimingsCounterMBean {
+    /**
+     * Whether the time spent by the interceptors of the bus is recorded
+     */
+    boolean isEnabled();
+    void enable(boolean value);
+
+    /**
+     * One out of sample rate chain executions is timed
+     */
+    int getSampleRate();
+    void setSampleRate(int sampleRate);
+
+    boolean isCpuTime();
+    void setCpuTime(boolean cpuTime);
+
+    /**
+     * Returns the timings of the interceptors, by decreasing wall clock time
+     */
+    String[] getTimings();
+    void reset();
+}
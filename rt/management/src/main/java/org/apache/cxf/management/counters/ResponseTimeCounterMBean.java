@@ -33,6 +33,14 @@ public interface ResponseTimeCounterMBean {
     Number getAvgResponseTime();
     Number getMaxResponseTime();
     Number getMinResponseTime();
+
+    /**
+     * Get the percentiles of the response times of the last one to two minutes,
+     * estimated to about 12%
+     */
+    Number getResponseTime50thPercentile();
+    Number getResponseTime95thPercentile();
+    Number getResponseTime99thPercentile();
     Number getTotalHandlingTime();
     void reset();
     void enable(boolean value);
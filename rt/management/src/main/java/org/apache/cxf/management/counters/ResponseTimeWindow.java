@@ -0,0 +1,102 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.management.counters;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.cxf.common.util.LogLinearBuckets;
+
+/**
+ * The distribution of the response times of the current and of the previous time windows, in
+ * log-linear buckets of about 12% of their value, from which the percentiles of the recent
+ * response times are estimated.
+ */
+class ResponseTimeWindow {
+    static final long DEFAULT_WINDOW = TimeUnit.MINUTES.toNanos(1);
+
+    private static final LogLinearBuckets SCALE = new LogLinearBuckets(3);
+
+    private static final long MAX_VALUE = (1L << 40) - 1;
+    private static final int BUCKETS = SCALE.getBucketCount(MAX_VALUE);
+
+    private final long window;
+    private final AtomicLong windowStart;
+    private volatile AtomicLongArray current = new AtomicLongArray(BUCKETS);
+    private volatile AtomicLongArray previous = new AtomicLongArray(BUCKETS);
+
+    ResponseTimeWindow(long window) {
+        this.window = window;
+        this.windowStart = new AtomicLong(System.nanoTime());
+    }
+
+    void record(long value) {
+        rotate();
+        current.incrementAndGet(SCALE.indexOf(Math.min(Math.max(value, 0), MAX_VALUE)));
+    }
+
+    /**
+     * Returns an estimate of the given percentile of the response times of the current and
+     * previous windows, or 0 if none was recorded
+     */
+    long getPercentile(double percentile) {
+        rotate();
+        final AtomicLongArray cur = current;
+        final AtomicLongArray prev = previous;
+        final long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = cur.get(i) + prev.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long)Math.ceil(percentile / 100 * total));
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += counts[i];
+            if (count >= rank) {
+                return SCALE.highestValue(i);
+            }
+        }
+        return MAX_VALUE;
+    }
+
+    void reset() {
+        windowStart.set(System.nanoTime());
+        current = new AtomicLongArray(BUCKETS);
+        previous = new AtomicLongArray(BUCKETS);
+    }
+
+    /**
+     * Starts a new window if the current one is over. The previous window is dropped when the
+     * current one is more than a window old.
+     */
+    private void rotate() {
+        final long now = System.nanoTime();
+        final long start = windowStart.get();
+        if (now - start >= window && windowStart.compareAndSet(start, now)) {
+            previous = now - start >= 2 * window ? new AtomicLongArray(BUCKETS) : current;
+            current = new AtomicLongArray(BUCKETS);
+        }
+    }
+}
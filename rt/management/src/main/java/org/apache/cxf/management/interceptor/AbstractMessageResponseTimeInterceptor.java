@@ -18,6 +18,8 @@
  */
 package org.apache.cxf.management.interceptor;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -44,6 +46,8 @@ public abstract class AbstractMessageResponseTimeInterceptor extends AbstractPha
     private static final Logger LOG = LogUtils.getL7dLogger(AbstractMessageResponseTimeInterceptor.class);
     private static final String QUESTION_MARK = "?";
     private static final String ESCAPED_QUESTION_MARK = "\\?";
+    private static final String RESOURCE_COUNTER_NAMES =
+        AbstractMessageResponseTimeInterceptor.class.getName() + ".RESOURCE_COUNTER_NAMES";
 
     AbstractMessageResponseTimeInterceptor(String phase) {
         super(phase);
@@ -177,10 +181,19 @@ public abstract class AbstractMessageResponseTimeInterceptor extends AbstractPha
         }
         String operationName = opInfo == null ? null : "\"" + opInfo.getName().getLocalPart() + "\"";
 
+        Map<String, ObjectName> resourceCounterNames = null;
+        String resourceName = null;
         if (operationName == null) {
             Object nameProperty = ex.get("org.apache.cxf.resource.operation.name");
             if (nameProperty != null) {
-                operationName = "\"" + escapePatternChars(nameProperty.toString()) + "\"";
+                // the resources have no OperationInfo to keep their counter name on
+                resourceCounterNames = getResourceCounterNames(ex);
+                resourceName = nameProperty.toString();
+                ObjectName o = resourceCounterNames == null ? null : resourceCounterNames.get(resourceName);
+                if (o != null) {
+                    return o;
+                }
+                operationName = "\"" + escapePatternChars(resourceName) + "\"";
             }
         }
         StringBuilder buffer = new StringBuilder(sericeCounterName.toString());
@@ -193,6 +206,8 @@ public abstract class AbstractMessageResponseTimeInterceptor extends AbstractPha
             operationCounter = new ObjectName(operationCounterName);
             if (opInfo != null) {
                 opInfo.setProperty("javax.management.ObjectName", operationCounter);
+            } else if (resourceCounterNames != null) {
+                resourceCounterNames.put(resourceName, operationCounter);
             }
         } catch (MalformedObjectNameException e) {
             LOG.log(Level.WARNING, "CREATE_COUNTER_OBJECTNAME_FAILED", e);
@@ -200,6 +215,23 @@ public abstract class AbstractMessageResponseTimeInterceptor extends AbstractPha
         return operationCounter;
 
     }
+    @SuppressWarnings("unchecked")
+    private static Map<String, ObjectName> getResourceCounterNames(Exchange ex) {
+        Endpoint endpoint = ex.getEndpoint();
+        if (endpoint == null || ex.get("org.apache.cxf.management.service.counter.name") != null) {
+            return null;
+        }
+        Object names = endpoint.get(RESOURCE_COUNTER_NAMES);
+        if (names == null) {
+            names = new ConcurrentHashMap<String, ObjectName>();
+            Object existing = endpoint.putIfAbsent(RESOURCE_COUNTER_NAMES, names);
+            if (existing != null) {
+                names = existing;
+            }
+        }
+        return (Map<String, ObjectName>)names;
+    }
+
     protected String escapePatternChars(String value) {
         // This can be replaced if really needed with pattern-based matching
         if (value.lastIndexOf(QUESTION_MARK) != -1) {
@@ -51,6 +51,7 @@ import org.apache.cxf.helpers.CastUtils;
 import org.apache.cxf.management.InstrumentationManager;
 import org.apache.cxf.management.ManagedComponent;
 import org.apache.cxf.management.ManagementConstants;
+import org.apache.cxf.management.counters.InterceptorTimingsCounter;
 import org.apache.cxf.management.jmx.export.runtime.ModelMBeanAssembler;
 
 /**
@@ -169,6 +170,7 @@ public class InstrumentationManagerImpl
                     if (LOG.isLoggable(Level.INFO)) {
                         LOG.info("registered " + mbus.getObjectName());
                     }
+                    register(new InterceptorTimingsCounter(bus));
                 } catch (JMException jmex) {
                     LOG.log(Level.SEVERE, "REGISTER_FAILURE_MSG", new Object[]{bus, jmex});
                 }
@@ -29,6 +29,7 @@ import org.apache.cxf.bus.managers.WorkQueueManagerImpl;
 import org.apache.cxf.bus.spring.SpringBusFactory;
 import org.apache.cxf.management.counters.CounterRepository;
 import org.apache.cxf.management.jmx.InstrumentationManagerImpl;
+import org.apache.cxf.phase.InterceptorTimings;
 import org.springframework.context.support.ClassPathXmlApplicationContext;
 
 import org.junit.After;
@@ -115,6 +116,29 @@ public class InstrumentationManagerTest {
         }
     }
 
+    @Test
+    public void testInterceptorTimingsInstrumentation() throws Exception {
+        SpringBusFactory factory = new SpringBusFactory();
+        bus = factory.createBus("managed-spring2.xml", true);
+        InstrumentationManager im = bus.getExtension(InstrumentationManager.class);
+        MBeanServer mbs = im.getMBeanServer();
+        ObjectName name = new ObjectName(ManagementConstants.DEFAULT_DOMAIN_NAME
+                                         + ":type=Performance.Interceptors,*");
+        Set<ObjectName> s = mbs.queryNames(name, null);
+        assertEquals(1, s.size());
+        ObjectName n = s.iterator().next();
+        assertEquals(Boolean.FALSE, mbs.getAttribute(n, "Enabled"));
+        assertNull(InterceptorTimings.getTimings(bus));
+
+        mbs.invoke(n, "enable", new Object[] {true}, new String[] {"boolean"});
+        assertEquals(Boolean.TRUE, mbs.getAttribute(n, "Enabled"));
+        assertNotNull(InterceptorTimings.getTimings(bus));
+        assertEquals(0, ((String[])mbs.getAttribute(n, "Timings")).length);
+
+        mbs.invoke(n, "enable", new Object[] {false}, new String[] {"boolean"});
+        assertNull(InterceptorTimings.getTimings(bus));
+    }
+
     @Test
     public void testInstrumentTwoBuses() {
         Bus cxf1 = null;
@@ -0,0 +1,100 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.management.counters;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.ObjectName;
+
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.FaultMode;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ResponseTimeCounterTest {
+
+    @Test
+    public void testConcurrentIncrease() throws Exception {
+        final ResponseTimeCounter counter = new ResponseTimeCounter(new ObjectName("org.apache.cxf:type=test"));
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 1; i <= 1000; i++) {
+                    counter.increase(new TestRecorder(i, i % 10 == 0 ? FaultMode.RUNTIME_FAULT : null));
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(4000, counter.getNumInvocations());
+        assertEquals(400, counter.getNumRuntimeFaults());
+        assertEquals(4L * 500500, counter.getTotalHandlingTime());
+        assertEquals(500L, counter.getAvgResponseTime());
+        assertEquals(1000L, counter.getMaxResponseTime());
+        assertEquals(1L, counter.getMinResponseTime());
+        assertWithin(500, counter.getResponseTime50thPercentile().longValue());
+        assertWithin(990, counter.getResponseTime99thPercentile().longValue());
+
+        counter.reset();
+        assertEquals(0, counter.getNumInvocations());
+        assertEquals(0L, counter.getMinResponseTime());
+        assertEquals(0L, counter.getResponseTime99thPercentile());
+    }
+
+    @Test
+    public void testWindow() throws Exception {
+        ResponseTimeWindow window = new ResponseTimeWindow(TimeUnit.MILLISECONDS.toNanos(50));
+        window.record(100);
+        assertWithin(100, window.getPercentile(50));
+        Thread.sleep(60);
+        // still counted in the previous window
+        window.record(1000);
+        assertWithin(100, window.getPercentile(50));
+        assertWithin(1000, window.getPercentile(100));
+        Thread.sleep(120);
+        assertEquals(0, window.getPercentile(50));
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(actual + " is not within 13% of " + expected, Math.abs(actual - expected) <= expected * 13 / 100);
+    }
+
+    private static final class TestRecorder extends MessageHandlingTimeRecorder {
+        private final long time;
+
+        TestRecorder(long time, FaultMode faultMode) {
+            super(new ExchangeImpl());
+            this.time = time;
+            setFaultMode(faultMode);
+        }
+
+        @Override
+        public long getHandlingTime() {
+            return time;
+        }
+    }
+}
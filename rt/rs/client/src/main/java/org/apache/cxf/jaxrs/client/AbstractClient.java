@@ -122,6 +122,7 @@ public abstract class AbstractClient implements Client {
     private static final String PROXY_PROPERTY = "jaxrs.proxy";
     private static final String HEADER_SPLIT_PROPERTY = "org.apache.cxf.http.header.split";
     private static final String SERVICE_NOT_AVAIL_PROPERTY = "org.apache.cxf.transport.service_not_available";
+    private static final String RETRY_SCHEDULED_PROPERTY = "org.apache.cxf.transport.retry_scheduled";
     private static final String COMPLETE_IF_SERVICE_NOT_AVAIL_PROPERTY =
         "org.apache.cxf.transport.complete_if_service_not_available";
 
@@ -657,6 +658,10 @@ public abstract class AbstractClient implements Client {
             || PropertyUtils.isTrue(exchange.get(SERVICE_NOT_AVAIL_PROPERTY))
                 && PropertyUtils.isTrue(exchange.get(COMPLETE_IF_SERVICE_NOT_AVAIL_PROPERTY))) {
             getConfiguration().getConduitSelector().complete(exchange);
+            if (isRetryScheduled(exchange)) {
+                // the response of the retry is delivered to the callback of the asynchronous invocation
+                return null;
+            }
         }
         if (ex != null) {
             checkClientException(message, ex);
@@ -1069,7 +1074,7 @@ public abstract class AbstractClient implements Client {
         exchange = createExchange(m, exchange);
         exchange.put(Message.REST_MESSAGE, Boolean.TRUE);
         exchange.setOneWay("true".equals(headers.getFirst(Message.ONE_WAY_REQUEST)));
-        exchange.put(Retryable.class, new RetryableImpl());
+        exchange.put(Retryable.class, new RetryableImpl(exchange));
 
         // context
         setContexts(m, exchange, invocationContext, proxy);
@@ -1281,12 +1286,32 @@ public abstract class AbstractClient implements Client {
                                             OutputStream os) throws Fault;
     }
 
+    private static boolean isRetryScheduled(Exchange exchange) {
+        return !exchange.isSynchronous() && PropertyUtils.isTrue(exchange.get(RETRY_SCHEDULED_PROPERTY));
+    }
+
     private final class RetryableImpl implements Retryable {
+        private final Exchange invocationExchange;
+
+        RetryableImpl(Exchange invocationExchange) {
+            this.invocationExchange = invocationExchange;
+        }
 
         @Override
         public Object[] invoke(BindingOperationInfo oi, Object[] params, Map<String, Object> context,
                                Exchange exchange) throws Exception {
-            return AbstractClient.this.retryInvoke(oi, params, context, exchange);
+            JaxrsClientCallback<?> cb = invocationExchange.get(JaxrsClientCallback.class);
+            if (exchange == invocationExchange || exchange.isSynchronous() || cb == null) {
+                return AbstractClient.this.retryInvoke(oi, params, context, exchange);
+            }
+            // an asynchronous retry scheduled by the conduit selector on an exchange of its own
+            exchange.put(JaxrsClientCallback.class, cb);
+            Object[] result = AbstractClient.this.retryInvoke(oi, params, context, exchange);
+            Exception ex = exchange.get(Exception.class);
+            if (ex != null && !cb.isDone()) {
+                cb.handleException(null, ex instanceof ProcessingException ? ex : new ProcessingException(ex));
+            }
+            return result;
         }
 
     }
@@ -1348,6 +1373,9 @@ public abstract class AbstractClient implements Client {
             Response r = null;
             try {
                 Object[] results = preProcessResult(message);
+                if (isRetryScheduled(message.getExchange())) {
+                    return;
+                }
                 if (results != null && results.length == 1) {
                     r = (Response)results[0];
                 }
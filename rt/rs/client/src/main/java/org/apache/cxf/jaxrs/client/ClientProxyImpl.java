@@ -998,9 +998,13 @@ public class ClientProxyImpl extends AbstractClient implements
                                    InvocationCallback<Object> asyncCallback) {
         outMessage.getExchange().setSynchronous(false);
         setAsyncMessageObserverIfNeeded(outMessage.getExchange());
-        JaxrsClientCallback<?> cb = newJaxrsClientCallback(asyncCallback, outMessage,
-            ori.getMethodToInvoke().getReturnType(), ori.getMethodToInvoke().getGenericReturnType());
-        outMessage.getExchange().put(JaxrsClientCallback.class, cb);
+        // the callback is already set when an asynchronous invocation is retried
+        JaxrsClientCallback<?> cb = outMessage.getExchange().get(JaxrsClientCallback.class);
+        if (cb == null) {
+            cb = newJaxrsClientCallback(asyncCallback, outMessage,
+                ori.getMethodToInvoke().getReturnType(), ori.getMethodToInvoke().getGenericReturnType());
+            outMessage.getExchange().put(JaxrsClientCallback.class, cb);
+        }
         doRunInterceptorChain(outMessage);
 
         return null;
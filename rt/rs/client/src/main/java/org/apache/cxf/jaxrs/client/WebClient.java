@@ -1060,6 +1060,15 @@ public class WebClient extends AbstractClient {
         Annotation[] inAnns = (Annotation[])reqContext.get(REQUEST_ANNS);
         Class<?> respClass = (Class<?>)reqContext.get(RESPONSE_CLASS);
         Type outType = (Type)reqContext.get(RESPONSE_TYPE);
+        if (!exchange.isSynchronous()) {
+            // an asynchronous retry, the response is delivered to the callback set on the exchange
+            Message m = finalizeMessage(httpMethod, headers, body, requestClass, inType,
+                                        inAnns, respClass, outType, exchange, invContext);
+            m.getExchange().setSynchronous(false);
+            setAsyncMessageObserverIfNeeded(m.getExchange());
+            doRunInterceptorChain(m);
+            return null;
+        }
         return doChainedInvocation(httpMethod, headers, body, requestClass, inType,
                                    inAnns, respClass, outType, exchange, invContext);
     }
@@ -0,0 +1,368 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.jaxrs.client.cache;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.ws.rs.core.CacheControl;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.ext.RuntimeDelegate;
+import org.apache.cxf.transport.http.Headers;
+
+/**
+ * A response stored by the {@link HttpResponseCacheFilter}: the status, the headers and the raw
+ * entity bytes as they were received, together with the request/response times needed to
+ * compute its age and freshness as defined by RFC 7234. The values of the request headers
+ * nominated by the Vary response header are kept with the response so that the variant
+ * matching a given request can be selected.
+ *
+ * Instances are immutable, a successful revalidation produces a new instance.
+ */
+public final class CachedResponse {
+    static final String AGE = "Age";
+    static final String STALE_WHILE_REVALIDATE = "stale-while-revalidate";
+    static final String STALE_IF_ERROR = "stale-if-error";
+
+    private static final long MAX_HEURISTIC_LIFETIME = TimeUnit.DAYS.toMillis(1);
+
+    private final int status;
+    private final String reason;
+    private final Map<String, List<String>> headers;
+    private final Map<String, String> selectingHeaders;
+    private final byte[] entity;
+    private final long requestTime;
+    private final long responseTime;
+
+    private final long correctedInitialAge;
+    private final long freshnessLifetime;
+    private final long staleWhileRevalidate;
+    private final long staleIfError;
+    private final boolean mustRevalidate;
+    private final String etag;
+    private final String lastModified;
+
+    /**
+     * @param status the response status
+     * @param reason the response reason phrase, can be null
+     * @param headers the response headers
+     * @param selectingHeaders the values of the request headers listed by Vary, can be empty
+     * @param entity the response entity bytes
+     * @param requestTime the time, in milliseconds, the request was sent at
+     * @param responseTime the time, in milliseconds, the response was received at
+     */
+    public CachedResponse(int status, String reason, Map<String, List<String>> headers,
+                          Map<String, String> selectingHeaders, byte[] entity,
+                          long requestTime, long responseTime) {
+        this.status = status;
+        this.reason = reason;
+        this.headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+            this.headers.put(entry.getKey(), Collections.unmodifiableList(new ArrayList<>(entry.getValue())));
+        }
+        this.selectingHeaders = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        this.selectingHeaders.putAll(selectingHeaders);
+        this.entity = entity;
+        this.requestTime = requestTime;
+        this.responseTime = responseTime;
+
+        final long date = getDateHeader(HttpHeaders.DATE, responseTime);
+        this.etag = getHeader(HttpHeaders.ETAG);
+        this.lastModified = getHeader(HttpHeaders.LAST_MODIFIED);
+
+        // RFC 7234, 4.2.3
+        final long apparentAge = Math.max(0, responseTime - date);
+        final long responseDelay = responseTime - requestTime;
+        this.correctedInitialAge = Math.max(apparentAge, parseSeconds(getHeader(AGE), 0) * 1000L + responseDelay);
+
+        final CacheControl cacheControl = parseCacheControl(getHeader(HttpHeaders.CACHE_CONTROL));
+        if (cacheControl == null) {
+            this.mustRevalidate = false;
+            this.staleWhileRevalidate = 0;
+            this.staleIfError = 0;
+            this.freshnessLifetime = computeFreshnessLifetime(-1, date);
+        } else {
+            this.mustRevalidate = cacheControl.isMustRevalidate() || cacheControl.isProxyRevalidate();
+            this.staleWhileRevalidate = parseSeconds(cacheControl.getCacheExtension().get(STALE_WHILE_REVALIDATE),
+                                                     0) * 1000L;
+            this.staleIfError = parseSeconds(cacheControl.getCacheExtension().get(STALE_IF_ERROR), 0) * 1000L;
+            if (cacheControl.isNoCache()) {
+                // may be stored but must be validated before each reuse
+                this.freshnessLifetime = 0;
+            } else {
+                final int maxAge = cacheControl.getSMaxAge() >= 0 ? cacheControl.getSMaxAge()
+                    : cacheControl.getMaxAge();
+                this.freshnessLifetime = computeFreshnessLifetime(maxAge, date);
+            }
+        }
+    }
+
+    private long computeFreshnessLifetime(int maxAge, long date) {
+        // RFC 7234, 4.2.1
+        if (maxAge >= 0) {
+            return maxAge * 1000L;
+        }
+        final String expires = getHeader(HttpHeaders.EXPIRES);
+        if (expires != null) {
+            // an invalid Expires value means already expired
+            return Math.max(0, parseDate(expires, date) - date);
+        }
+        if (lastModified != null) {
+            // RFC 7234, 4.2.2: a tenth of the time since the last modification
+            final long modified = parseDate(lastModified, date);
+            return Math.min(MAX_HEURISTIC_LIFETIME, Math.max(0, (date - modified) / 10));
+        }
+        return 0;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public Map<String, List<String>> getHeaders() {
+        return Collections.unmodifiableMap(headers);
+    }
+
+    public String getHeader(String name) {
+        final List<String> values = headers.get(name);
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+        return values.size() == 1 ? values.get(0) : String.join(",", values);
+    }
+
+    public Map<String, String> getSelectingHeaders() {
+        return Collections.unmodifiableMap(selectingHeaders);
+    }
+
+    public byte[] getEntity() {
+        return entity;
+    }
+
+    public long getRequestTime() {
+        return requestTime;
+    }
+
+    public long getResponseTime() {
+        return responseTime;
+    }
+
+    public String getETag() {
+        return etag;
+    }
+
+    public String getLastModified() {
+        return lastModified;
+    }
+
+    public boolean hasValidators() {
+        return etag != null || lastModified != null;
+    }
+
+    public boolean isMustRevalidate() {
+        return mustRevalidate;
+    }
+
+    /**
+     * Returns the freshness lifetime in milliseconds
+     */
+    public long getFreshnessLifetime() {
+        return freshnessLifetime;
+    }
+
+    /**
+     * Returns the current age in milliseconds
+     */
+    public long getCurrentAge(long now) {
+        return correctedInitialAge + Math.max(0, now - responseTime);
+    }
+
+    public boolean isFresh(long now) {
+        return getCurrentAge(now) < freshnessLifetime;
+    }
+
+    /**
+     * Returns true if the response is stale but may still be returned while it is being
+     * revalidated in the background
+     */
+    public boolean isStaleWhileRevalidate(long now) {
+        return !mustRevalidate && getCurrentAge(now) < freshnessLifetime + staleWhileRevalidate;
+    }
+
+    /**
+     * Returns true if the response is stale but may still be returned instead of a server error
+     */
+    public boolean isStaleIfError(long now) {
+        return !mustRevalidate && getCurrentAge(now) < freshnessLifetime + staleIfError;
+    }
+
+    /**
+     * Returns the approximate number of bytes this response occupies
+     */
+    public int getWeight() {
+        int weight = entity.length + 64;
+        for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+            weight += entry.getKey().length();
+            for (String value : entry.getValue()) {
+                weight += value.length();
+            }
+        }
+        for (Map.Entry<String, String> entry : selectingHeaders.entrySet()) {
+            weight += entry.getKey().length() + (entry.getValue() == null ? 0 : entry.getValue().length());
+        }
+        return weight;
+    }
+
+    /**
+     * Creates the response to use once this one has been validated by a 304 (Not Modified)
+     * response: the stored headers are updated with the ones of the 304 response (RFC 7234, 4.3.4).
+     * The Age and Date headers describe the stored response only, the age is computed from the
+     * ones of the 304 response if any, and from the new request and response times otherwise.
+     */
+    public CachedResponse revalidated(Map<String, List<String>> notModifiedHeaders,
+                                      long newRequestTime, long newResponseTime) {
+        final Map<String, List<String>> merged = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        merged.putAll(headers);
+        merged.remove(AGE);
+        merged.remove(HttpHeaders.DATE);
+        for (Map.Entry<String, List<String>> entry : notModifiedHeaders.entrySet()) {
+            if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(entry.getKey())) {
+                merged.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return new CachedResponse(status, reason, merged, selectingHeaders, entity,
+                                  newRequestTime, newResponseTime);
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(status);
+        writeString(out, reason);
+        out.writeLong(requestTime);
+        out.writeLong(responseTime);
+        out.writeInt(headers.size());
+        for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+            writeString(out, entry.getKey());
+            out.writeInt(entry.getValue().size());
+            for (String value : entry.getValue()) {
+                writeString(out, value);
+            }
+        }
+        out.writeInt(selectingHeaders.size());
+        for (Map.Entry<String, String> entry : selectingHeaders.entrySet()) {
+            writeString(out, entry.getKey());
+            writeString(out, entry.getValue());
+        }
+        out.writeInt(entity.length);
+        out.write(entity);
+    }
+
+    public static CachedResponse readFrom(DataInput in) throws IOException {
+        final int status = in.readInt();
+        final String reason = readString(in);
+        final long requestTime = in.readLong();
+        final long responseTime = in.readLong();
+        final int headerCount = in.readInt();
+        final Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (int i = 0; i < headerCount; i++) {
+            final String name = readString(in);
+            final int valueCount = in.readInt();
+            final List<String> values = new ArrayList<>(valueCount);
+            for (int j = 0; j < valueCount; j++) {
+                values.add(readString(in));
+            }
+            headers.put(name, values);
+        }
+        final int selectingCount = in.readInt();
+        final Map<String, String> selectingHeaders = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (int i = 0; i < selectingCount; i++) {
+            selectingHeaders.put(readString(in), readString(in));
+        }
+        final byte[] entity = new byte[in.readInt()];
+        in.readFully(entity);
+        return new CachedResponse(status, reason, headers, selectingHeaders, entity, requestTime, responseTime);
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        final int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private long getDateHeader(String name, long defaultValue) {
+        final String value = getHeader(name);
+        return value == null ? defaultValue : parseDate(value, defaultValue);
+    }
+
+    static CacheControl parseCacheControl(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return RuntimeDelegate.getInstance().createHeaderDelegate(CacheControl.class).fromString(value);
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    static long parseSeconds(String value, long defaultValue) {
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Math.max(0, Long.parseLong(value.trim()));
+        } catch (NumberFormatException ex) {
+            return defaultValue;
+        }
+    }
+
+    private static long parseDate(String value, long defaultValue) {
+        try {
+            return Headers.getHttpDateFormat().parse(value.trim()).getTime();
+        } catch (ParseException ex) {
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.jaxrs.client.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.cxf.common.logging.LogUtils;
+import org.apache.cxf.common.util.Base64UrlUtility;
+import org.apache.cxf.helpers.FileUtils;
+
+/**
+ * Keeps the cached responses in files, one file per request URI, evicting the least recently
+ * used ones once the configured number of bytes is exceeded. Only the index (the keys and the
+ * file sizes) is kept in memory.
+ *
+ * The content of the directory is owned by this storage: it is not reloaded on startup and
+ * it is deleted when the storage is closed.
+ */
+public class FileResponseCacheStorage implements ResponseCacheStorage {
+    public static final long DEFAULT_MAX_SIZE = 256L * 1024 * 1024;
+
+    private static final Logger LOG = LogUtils.getL7dLogger(FileResponseCacheStorage.class);
+    private static final String SUFFIX = ".cache";
+
+    private final Map<String, Long> index = new LinkedHashMap<>(16, 0.75f, true);
+    private final Path directory;
+    private final long maxSize;
+    private long size;
+
+    public FileResponseCacheStorage() throws IOException {
+        this(Files.createTempDirectory("cxf-client-cache"), DEFAULT_MAX_SIZE);
+    }
+
+    public FileResponseCacheStorage(Path directory, long maxSize) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public List<CachedResponse> get(String key) {
+        synchronized (this) {
+            // get rather than containsKey so that the entry is moved to the end of the access order
+            if (index.get(key) == null) {
+                return null;
+            }
+        }
+        final Path file = toPath(key);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            final int count = in.readInt();
+            final List<CachedResponse> variants = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                variants.add(CachedResponse.readFrom(in));
+            }
+            return variants;
+        } catch (NoSuchFileException ex) {
+            // evicted meanwhile
+            return null;
+        } catch (IOException ex) {
+            LOG.log(Level.FINE, "Cached response " + file + " can not be read", ex);
+            remove(key);
+            return null;
+        }
+    }
+
+    @Override
+    public void put(String key, List<CachedResponse> variants) {
+        final Path file = toPath(key);
+        Path tmp = null;
+        try {
+            tmp = Files.createTempFile(directory, null, ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(variants.size());
+                for (CachedResponse variant : variants) {
+                    variant.writeTo(out);
+                }
+            }
+            final long length = Files.size(tmp);
+            synchronized (this) {
+                final Long previous = index.remove(key);
+                if (previous != null) {
+                    size -= previous;
+                }
+                if (length > maxSize) {
+                    Files.deleteIfExists(file);
+                    return;
+                }
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+                tmp = null;
+                index.put(key, length);
+                size += length;
+                evict();
+            }
+        } catch (IOException ex) {
+            LOG.log(Level.FINE, "Response can not be cached in " + directory, ex);
+        } finally {
+            if (tmp != null) {
+                delete(tmp);
+            }
+        }
+    }
+
+    private void evict() {
+        final Iterator<Map.Entry<String, Long>> it = index.entrySet().iterator();
+        while (size > maxSize && it.hasNext()) {
+            final Map.Entry<String, Long> entry = it.next();
+            size -= entry.getValue();
+            it.remove();
+            delete(toPath(entry.getKey()));
+        }
+    }
+
+    @Override
+    public synchronized void remove(String key) {
+        final Long length = index.remove(key);
+        if (length != null) {
+            size -= length;
+            delete(toPath(key));
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
+        for (String key : index.keySet()) {
+            delete(toPath(key));
+        }
+        index.clear();
+        size = 0;
+    }
+
+    @Override
+    public synchronized long getSize() {
+        return size;
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public void close() {
+        clear();
+        FileUtils.removeDir(directory.toFile());
+    }
+
+    private Path toPath(String key) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            final byte[] hash = digest.digest(key.getBytes(StandardCharsets.UTF_8));
+            return directory.resolve(Base64UrlUtility.encode(hash) + SUFFIX);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ex) {
+            LOG.log(Level.FINE, "Cached response " + file + " can not be deleted", ex);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.jaxrs.client.cache;
+
+import java.io.Closeable;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.ws.rs.core.Feature;
+import jakarta.ws.rs.core.FeatureContext;
+import jakarta.ws.rs.ext.Provider;
+
+/**
+ * Client feature registering a {@link HttpResponseCacheFilter}. Unlike {@link CacheControlFeature}
+ * which stores the entities in a JCache, the responses are stored as raw bytes in a size bounded
+ * {@link ResponseCacheStorage}, in memory by default, see {@link FileResponseCacheStorage} to keep
+ * them on disk. The same feature instance can be shared by several clients.
+ */
+@Provider
+public class HttpResponseCacheFeature implements Feature, Closeable {
+    private final HttpResponseCacheFilter filter;
+
+    public HttpResponseCacheFeature() {
+        this(new MemoryResponseCacheStorage());
+    }
+
+    public HttpResponseCacheFeature(ResponseCacheStorage storage) {
+        this.filter = new HttpResponseCacheFilter(storage);
+    }
+
+    @Override
+    public boolean configure(final FeatureContext context) {
+        context.register(filter);
+        return true;
+    }
+
+    public HttpResponseCacheFilter getFilter() {
+        return filter;
+    }
+
+    public void setMaxEntrySize(int maxEntrySize) {
+        filter.setMaxEntrySize(maxEntrySize);
+    }
+
+    @PreDestroy
+    public void close() {
+        filter.getStorage().close();
+    }
+}
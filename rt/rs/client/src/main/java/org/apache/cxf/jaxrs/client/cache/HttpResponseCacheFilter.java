@@ -0,0 +1,427 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.jaxrs.client.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import jakarta.annotation.Priority;
+import jakarta.ws.rs.HttpMethod;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.client.Client;
+import jakarta.ws.rs.client.ClientRequestContext;
+import jakarta.ws.rs.client.ClientRequestFilter;
+import jakarta.ws.rs.client.ClientResponseContext;
+import jakarta.ws.rs.client.ClientResponseFilter;
+import jakarta.ws.rs.client.Invocation;
+import jakarta.ws.rs.client.InvocationCallback;
+import jakarta.ws.rs.core.CacheControl;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.core.Response;
+import org.apache.cxf.common.logging.LogUtils;
+import org.apache.cxf.helpers.IOUtils;
+import org.apache.cxf.io.LimitedInputStream;
+
+/**
+ * Shared HTTP response cache following RFC 7234. GET responses are stored as raw bytes in a
+ * {@link ResponseCacheStorage} and returned without a network call while they are fresh.
+ * Stale responses carrying validators are revalidated with If-None-Match/If-Modified-Since,
+ * a 304 (Not Modified) response being turned into the stored one. Responses allowing
+ * stale-while-revalidate are returned stale while they are being revalidated in the background,
+ * responses allowing stale-if-error are returned instead of a server error.
+ *
+ * The variants nominated by the Vary response header are stored separately, a successful
+ * unsafe request (POST, PUT, DELETE, PATCH) invalidates the responses stored for its URI.
+ *
+ * Background revalidation uses the asynchronous invoker of the JAX-RS 2.0 client (ClientBuilder)
+ * which issued the request, requests issued by other clients are revalidated synchronously.
+ */
+@Priority(Priorities.USER - 1)
+public class HttpResponseCacheFilter implements ClientRequestFilter, ClientResponseFilter {
+    static final String KEY_PROPERTY = "org.apache.cxf.jaxrs.client.cache.key";
+    static final String REQUEST_TIME_PROPERTY = "org.apache.cxf.jaxrs.client.cache.requestTime";
+    static final String VALIDATED_PROPERTY = "org.apache.cxf.jaxrs.client.cache.validated";
+    static final String INVALIDATE_PROPERTY = "org.apache.cxf.jaxrs.client.cache.invalidate";
+    static final String REVALIDATION_PROPERTY = "org.apache.cxf.jaxrs.client.cache.revalidation";
+
+    private static final Logger LOG = LogUtils.getL7dLogger(HttpResponseCacheFilter.class);
+    private static final String MAX_STALE = "max-stale";
+    private static final String MIN_FRESH = "min-fresh";
+    private static final String ONLY_IF_CACHED = "only-if-cached";
+    private static final int MAX_VARIANTS = 8;
+    // RFC 7231, 6.1
+    private static final Set<Integer> CACHEABLE_STATUSES =
+        new HashSet<>(Arrays.asList(200, 203, 204, 300, 301, 308, 404, 405, 410, 414, 501));
+    private static final Set<String> UNSAFE_METHODS =
+        new HashSet<>(Arrays.asList(HttpMethod.POST, HttpMethod.PUT, HttpMethod.DELETE, HttpMethod.PATCH));
+
+    private final Set<String> revalidating = ConcurrentHashMap.newKeySet();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder validations = new LongAdder();
+    private ResponseCacheStorage storage;
+    private int maxEntrySize = 1024 * 1024;
+
+    public HttpResponseCacheFilter() {
+        this(new MemoryResponseCacheStorage());
+    }
+
+    public HttpResponseCacheFilter(ResponseCacheStorage storage) {
+        this.storage = storage;
+    }
+
+    @Override
+    public void filter(ClientRequestContext request) throws IOException {
+        final String method = request.getMethod();
+        if (UNSAFE_METHODS.contains(method)) {
+            request.setProperty(INVALIDATE_PROPERTY, request.getUri().toString());
+            return;
+        }
+        if (!HttpMethod.GET.equals(method) || request.hasEntity()) {
+            return;
+        }
+        final CacheControl requestControl = getRequestCacheControl(request);
+        if (requestControl != null && requestControl.isNoStore()) {
+            return;
+        }
+        if (request.getHeaderString(HttpHeaders.IF_NONE_MATCH) != null
+            || request.getHeaderString(HttpHeaders.IF_MODIFIED_SINCE) != null) {
+            // conditional requests issued by the application are left alone
+            return;
+        }
+
+        final String key = request.getUri().toString();
+        final long now = System.currentTimeMillis();
+        final boolean background = Boolean.TRUE.equals(request.getProperty(REVALIDATION_PROPERTY));
+        final CachedResponse cached = select(key, request);
+        if (cached != null && !background && (requestControl == null || !requestControl.isNoCache())) {
+            if (isFreshEnough(cached, requestControl, now)) {
+                hits.increment();
+                request.abortWith(toResponse(cached, now));
+                return;
+            }
+            if (cached.isStaleWhileRevalidate(now) && revalidateInBackground(request, key)) {
+                hits.increment();
+                request.abortWith(toResponse(cached, now));
+                return;
+            }
+        }
+        if (cached == null && requestControl != null
+            && requestControl.getCacheExtension().containsKey(ONLY_IF_CACHED)) {
+            request.abortWith(Response.status(Response.Status.GATEWAY_TIMEOUT).build());
+            return;
+        }
+
+        misses.increment();
+        request.setProperty(KEY_PROPERTY, key);
+        request.setProperty(REQUEST_TIME_PROPERTY, now);
+        if (cached != null && cached.hasValidators()) {
+            if (cached.getETag() != null) {
+                request.getHeaders().putSingle(HttpHeaders.IF_NONE_MATCH, cached.getETag());
+            }
+            if (cached.getLastModified() != null) {
+                request.getHeaders().putSingle(HttpHeaders.IF_MODIFIED_SINCE, cached.getLastModified());
+            }
+            request.setProperty(VALIDATED_PROPERTY, cached);
+        }
+    }
+
+    @Override
+    public void filter(ClientRequestContext request, ClientResponseContext response) throws IOException {
+        final String invalidated = (String)request.getProperty(INVALIDATE_PROPERTY);
+        if (invalidated != null) {
+            if (response.getStatus() < 400) {
+                // RFC 7234, 4.4
+                storage.remove(invalidated);
+            }
+            return;
+        }
+        final String key = (String)request.getProperty(KEY_PROPERTY);
+        if (key == null) {
+            return;
+        }
+        final long requestTime = (Long)request.getProperty(REQUEST_TIME_PROPERTY);
+        final long responseTime = System.currentTimeMillis();
+        final CachedResponse validated = (CachedResponse)request.getProperty(VALIDATED_PROPERTY);
+        if (validated != null) {
+            if (response.getStatus() == Response.Status.NOT_MODIFIED.getStatusCode()) {
+                validations.increment();
+                final CachedResponse refreshed = validated.revalidated(response.getHeaders(),
+                                                                       requestTime, responseTime);
+                store(key, refreshed);
+                replace(response, refreshed, responseTime);
+                return;
+            }
+            if (response.getStatus() >= 500 && validated.isStaleIfError(responseTime)) {
+                replace(response, validated, responseTime);
+                return;
+            }
+        }
+
+        if (!isStorable(request, response)) {
+            return;
+        }
+        final InputStream is = response.getEntityStream();
+        byte[] bytes = new byte[0];
+        if (is != null) {
+            bytes = IOUtils.readBytesFromStream(new LimitedInputStream(is, maxEntrySize + 1L), -1);
+            if (bytes.length > maxEntrySize) {
+                // too large to be cached, give it back as is
+                response.setEntityStream(new SequenceInputStream(new ByteArrayInputStream(bytes), is));
+                return;
+            }
+            is.close();
+            response.setEntityStream(new ByteArrayInputStream(bytes));
+        }
+
+        final CachedResponse cached = new CachedResponse(response.getStatus(),
+            response.getStatusInfo().getReasonPhrase(), response.getHeaders(),
+            getSelectingHeaders(request, response), bytes, requestTime, responseTime);
+        if (cached.getFreshnessLifetime() > 0 || cached.hasValidators()) {
+            store(key, cached);
+        }
+    }
+
+    private boolean isStorable(ClientRequestContext request, ClientResponseContext response) {
+        if (!CACHEABLE_STATUSES.contains(response.getStatus())) {
+            return false;
+        }
+        final String vary = response.getHeaderString(HttpHeaders.VARY);
+        if (vary != null && vary.trim().equals("*")) {
+            return false;
+        }
+        final String value = response.getHeaderString(HttpHeaders.CACHE_CONTROL);
+        final CacheControl responseControl = CachedResponse.parseCacheControl(value);
+        if (responseControl != null && (responseControl.isNoStore() || responseControl.isPrivate())) {
+            return false;
+        }
+        // RFC 7234, 3.2
+        return request.getHeaderString(HttpHeaders.AUTHORIZATION) == null
+            || responseControl != null && (responseControl.isMustRevalidate() || responseControl.getSMaxAge() >= 0
+                || value.contains("public"));
+    }
+
+    private CachedResponse select(String key, ClientRequestContext request) {
+        final List<CachedResponse> variants = storage.get(key);
+        if (variants == null) {
+            return null;
+        }
+        for (CachedResponse variant : variants) {
+            if (matches(variant, request)) {
+                return variant;
+            }
+        }
+        return null;
+    }
+
+    private void store(String key, CachedResponse response) {
+        final List<CachedResponse> variants = new ArrayList<>(2);
+        variants.add(response);
+        final List<CachedResponse> existing = storage.get(key);
+        if (existing != null) {
+            for (CachedResponse variant : existing) {
+                if (variants.size() < MAX_VARIANTS
+                    && !variant.getSelectingHeaders().equals(response.getSelectingHeaders())) {
+                    variants.add(variant);
+                }
+            }
+        }
+        storage.put(key, variants);
+    }
+
+    private static boolean matches(CachedResponse variant, ClientRequestContext request) {
+        for (Map.Entry<String, String> entry : variant.getSelectingHeaders().entrySet()) {
+            final String value = normalize(request.getHeaderString(entry.getKey()));
+            if (value == null ? entry.getValue() != null : !value.equals(entry.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Map<String, String> getSelectingHeaders(ClientRequestContext request,
+                                                           ClientResponseContext response) {
+        final String vary = response.getHeaderString(HttpHeaders.VARY);
+        if (vary == null) {
+            return Collections.emptyMap();
+        }
+        final Map<String, String> selecting = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (String name : vary.split(",")) {
+            final String header = name.trim();
+            if (!header.isEmpty()) {
+                selecting.put(header, normalize(request.getHeaderString(header)));
+            }
+        }
+        return selecting;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? null : value.trim().replaceAll("\\s*,\\s*", ",");
+    }
+
+    private static boolean isFreshEnough(CachedResponse cached, CacheControl requestControl, long now) {
+        final long age = cached.getCurrentAge(now);
+        long lifetime = cached.getFreshnessLifetime();
+        if (requestControl != null) {
+            if (requestControl.getMaxAge() >= 0) {
+                lifetime = Math.min(lifetime, requestControl.getMaxAge() * 1000L);
+            }
+            final Map<String, String> extensions = requestControl.getCacheExtension();
+            if (extensions.containsKey(MIN_FRESH)) {
+                lifetime -= CachedResponse.parseSeconds(extensions.get(MIN_FRESH), 0) * 1000L;
+            }
+            if (extensions.containsKey(MAX_STALE) && !cached.isMustRevalidate()) {
+                // max-stale without a value accepts any stale response
+                final long maxStale = CachedResponse.parseSeconds(extensions.get(MAX_STALE), Long.MAX_VALUE / 2000L);
+                lifetime = Math.max(lifetime, cached.getFreshnessLifetime() + maxStale * 1000L);
+            }
+        }
+        return age < lifetime;
+    }
+
+    private static CacheControl getRequestCacheControl(ClientRequestContext request) {
+        final CacheControl control = CachedResponse.parseCacheControl(
+            request.getHeaderString(HttpHeaders.CACHE_CONTROL));
+        if (control == null && "no-cache".equalsIgnoreCase(request.getHeaderString("Pragma"))) {
+            // RFC 7234, 5.4
+            final CacheControl noCache = new CacheControl();
+            noCache.setNoCache(true);
+            return noCache;
+        }
+        return control;
+    }
+
+    private boolean revalidateInBackground(ClientRequestContext request, String key) {
+        final Client client = request.getClient();
+        if (client == null) {
+            return false;
+        }
+        if (!revalidating.add(key)) {
+            // already being revalidated
+            return true;
+        }
+        try {
+            final Invocation.Builder builder = client.target(request.getUri()).request()
+                .property(REVALIDATION_PROPERTY, Boolean.TRUE);
+            for (Map.Entry<String, List<String>> header : request.getStringHeaders().entrySet()) {
+                for (String value : header.getValue()) {
+                    builder.header(header.getKey(), value);
+                }
+            }
+            builder.async().get(new InvocationCallback<Response>() {
+                @Override
+                public void completed(Response response) {
+                    revalidating.remove(key);
+                    response.close();
+                }
+
+                @Override
+                public void failed(Throwable throwable) {
+                    revalidating.remove(key);
+                    LOG.log(Level.FINE, "Background revalidation of " + key + " has failed", throwable);
+                }
+            });
+            return true;
+        } catch (RuntimeException ex) {
+            revalidating.remove(key);
+            LOG.log(Level.FINE, "Background revalidation of " + key + " can not be started", ex);
+            return false;
+        }
+    }
+
+    private static Response toResponse(CachedResponse cached, long now) {
+        final Response.ResponseBuilder rb = Response.status(cached.getStatus());
+        for (Map.Entry<String, List<String>> header : cached.getHeaders().entrySet()) {
+            if (!CachedResponse.AGE.equalsIgnoreCase(header.getKey())) {
+                for (String value : header.getValue()) {
+                    rb.header(header.getKey(), value);
+                }
+            }
+        }
+        rb.header(CachedResponse.AGE, Long.toString(cached.getCurrentAge(now) / 1000L));
+        if (cached.getEntity().length > 0) {
+            rb.entity(new ByteArrayInputStream(cached.getEntity()));
+        }
+        return rb.build();
+    }
+
+    private static void replace(ClientResponseContext response, CachedResponse cached, long now) throws IOException {
+        final InputStream is = response.getEntityStream();
+        if (is != null) {
+            is.close();
+        }
+        response.setStatus(cached.getStatus());
+        final MultivaluedMap<String, String> headers = response.getHeaders();
+        headers.clear();
+        for (Map.Entry<String, List<String>> header : cached.getHeaders().entrySet()) {
+            headers.put(header.getKey(), new ArrayList<>(header.getValue()));
+        }
+        headers.putSingle(CachedResponse.AGE, Long.toString(cached.getCurrentAge(now) / 1000L));
+        response.setEntityStream(new ByteArrayInputStream(cached.getEntity()));
+    }
+
+    public ResponseCacheStorage getStorage() {
+        return storage;
+    }
+
+    public void setStorage(ResponseCacheStorage storage) {
+        this.storage = storage;
+    }
+
+    public int getMaxEntrySize() {
+        return maxEntrySize;
+    }
+
+    /**
+     * Sets the maximum size of a response entity which can be cached
+     */
+    public void setMaxEntrySize(int maxEntrySize) {
+        this.maxEntrySize = maxEntrySize;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the number of stored responses which have been validated by a 304 response
+     */
+    public long getValidationCount() {
+        return validations.sum();
+    }
+}
@@ -0,0 +1,114 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.jaxrs.client.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the cached responses in memory, evicting the least recently used ones once the
+ * configured number of bytes is exceeded.
+ */
+public class MemoryResponseCacheStorage implements ResponseCacheStorage {
+    public static final long DEFAULT_MAX_SIZE = 32L * 1024 * 1024;
+
+    private final Map<String, Node> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final long maxSize;
+    private long size;
+
+    public MemoryResponseCacheStorage() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    public MemoryResponseCacheStorage(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public synchronized List<CachedResponse> get(String key) {
+        final Node node = entries.get(key);
+        return node == null ? null : node.variants;
+    }
+
+    @Override
+    public synchronized void put(String key, List<CachedResponse> variants) {
+        final Node node = new Node(variants);
+        final Node previous = entries.remove(key);
+        if (previous != null) {
+            size -= previous.weight;
+        }
+        if (node.weight > maxSize) {
+            return;
+        }
+        entries.put(key, node);
+        size += node.weight;
+
+        final Iterator<Node> it = entries.values().iterator();
+        while (size > maxSize && it.hasNext()) {
+            size -= it.next().weight;
+            it.remove();
+        }
+    }
+
+    @Override
+    public synchronized void remove(String key) {
+        final Node node = entries.remove(key);
+        if (node != null) {
+            size -= node.weight;
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
+        entries.clear();
+        size = 0;
+    }
+
+    @Override
+    public synchronized long getSize() {
+        return size;
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    @Override
+    public void close() {
+        clear();
+    }
+
+    private static final class Node {
+        private final List<CachedResponse> variants;
+        private final long weight;
+
+        Node(List<CachedResponse> variants) {
+            this.variants = Collections.unmodifiableList(new ArrayList<>(variants));
+            long w = 0;
+            for (CachedResponse variant : variants) {
+                w += variant.getWeight();
+            }
+            this.weight = w;
+        }
+    }
+}
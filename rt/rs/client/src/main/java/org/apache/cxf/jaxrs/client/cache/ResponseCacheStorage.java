@@ -0,0 +1,54 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.jaxrs.client.cache;
+
+import java.io.Closeable;
+import java.util.List;
+
+/**
+ * Storage used by the {@link HttpResponseCacheFilter}. The responses are stored per
+ * request URI, the list associated with a URI contains one response per variant
+ * (see the Vary header), the most recent first.
+ *
+ * Implementations are expected to be thread-safe and to bound the amount of data they keep.
+ */
+public interface ResponseCacheStorage extends Closeable {
+
+    /**
+     * Returns the variants stored for the key, or null
+     */
+    List<CachedResponse> get(String key);
+
+    /**
+     * Stores the variants for the key, replacing the ones already stored
+     */
+    void put(String key, List<CachedResponse> variants);
+
+    void remove(String key);
+
+    void clear();
+
+    /**
+     * Returns the approximate number of bytes currently stored
+     */
+    long getSize();
+
+    @Override
+    void close();
+}
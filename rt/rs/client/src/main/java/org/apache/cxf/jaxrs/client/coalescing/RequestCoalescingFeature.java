@@ -0,0 +1,54 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.jaxrs.client.coalescing;
+
+import java.util.List;
+
+import jakarta.ws.rs.core.Feature;
+import jakarta.ws.rs.core.FeatureContext;
+import jakarta.ws.rs.ext.Provider;
+
+/**
+ * Opt-in client feature collapsing identical in-flight GET and HEAD requests into a single
+ * network call, see {@link RequestCoalescingFilter}. The same feature instance should be shared
+ * by the clients whose requests are to be coalesced.
+ */
+@Provider
+public class RequestCoalescingFeature implements Feature {
+    private final RequestCoalescingFilter filter = new RequestCoalescingFilter();
+
+    @Override
+    public boolean configure(final FeatureContext context) {
+        context.register(filter);
+        return true;
+    }
+
+    public void setKeyHeaders(List<String> keyHeaders) {
+        filter.setKeyHeaders(keyHeaders);
+    }
+
+    public void setTimeout(long timeout) {
+        filter.setTimeout(timeout);
+    }
+
+    public void setMaxSize(int maxSize) {
+        filter.setMaxSize(maxSize);
+    }
+}
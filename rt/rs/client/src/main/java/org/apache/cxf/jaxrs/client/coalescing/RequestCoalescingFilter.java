@@ -0,0 +1,406 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.jaxrs.client.coalescing;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+
+import jakarta.annotation.Priority;
+import jakarta.ws.rs.HttpMethod;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.client.ClientRequestContext;
+import jakarta.ws.rs.client.ClientRequestFilter;
+import jakarta.ws.rs.client.ClientResponseContext;
+import jakarta.ws.rs.client.ClientResponseFilter;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MultivaluedHashMap;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.core.Response;
+import org.apache.cxf.endpoint.Endpoint;
+import org.apache.cxf.helpers.IOUtils;
+import org.apache.cxf.interceptor.Fault;
+import org.apache.cxf.interceptor.InterceptorChain;
+import org.apache.cxf.io.LimitedInputStream;
+import org.apache.cxf.jaxrs.client.spec.ClientRequestContextImpl;
+import org.apache.cxf.jaxrs.client.spec.ClientRequestFilterInterceptor;
+import org.apache.cxf.jaxrs.impl.PropertyHolderFactory;
+import org.apache.cxf.jaxrs.impl.PropertyHolderFactory.PropertyHolder;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.phase.AbstractPhaseInterceptor;
+import org.apache.cxf.phase.Phase;
+import org.apache.cxf.transport.MessageObserver;
+
+/**
+ * Collapses identical concurrent GET and HEAD requests into a single network call. The first
+ * request for a given key (method, URI, Accept and the configured key headers) goes to the
+ * backend, the identical requests issued while it is in flight wait for its response and get
+ * their own copy of the buffered response. Once the response has been received the key is
+ * released: this filter does not cache anything.
+ *
+ * If the leading request fails, while sending it or while reading its response, or if its
+ * response cannot be buffered within the configured limit, the waiting requests are released and
+ * go to the backend themselves. Waiting requests give up after the configured timeout and do the
+ * same, the leading request no longer being joined by the next identical requests.
+ *
+ * A synchronous request waits in this filter. An asynchronous request does not block its caller:
+ * its interceptor chain is paused and resumed, or completed with the shared response, once the
+ * leading request completes.
+ */
+@Priority(Priorities.USER)
+public class RequestCoalescingFilter implements ClientRequestFilter, ClientResponseFilter {
+    static final String IN_FLIGHT_PROPERTY = "org.apache.cxf.jaxrs.client.coalescing.inFlight";
+
+    private final ConcurrentMap<Key, InFlight> inFlight = new ConcurrentHashMap<>();
+    private List<String> keyHeaders = Arrays.asList(HttpHeaders.ACCEPT_LANGUAGE, HttpHeaders.ACCEPT_ENCODING,
+                                                    HttpHeaders.AUTHORIZATION, HttpHeaders.COOKIE);
+    private long timeout = 30000L;
+    private int maxSize = IOUtils.DEFAULT_BINARY_MAX_SIZE;
+    private final ReleaseOnFaultInterceptor releaseOnOutFault = new ReleaseOnFaultInterceptor(Phase.PRE_LOGICAL);
+    private final ReleaseOnFaultInterceptor releaseOnInFault = new ReleaseOnFaultInterceptor(Phase.RECEIVE);
+
+    @Override
+    public void filter(ClientRequestContext request) throws IOException {
+        if (!isIdempotent(request.getMethod()) || request.hasEntity()) {
+            return;
+        }
+        final InFlight current = new InFlight(createKey(request));
+        final InFlight leader = inFlight.putIfAbsent(current.key, current);
+        if (leader == null) {
+            request.setProperty(IN_FLIGHT_PROPERTY, current);
+            if (request instanceof ClientRequestContextImpl) {
+                // release the waiting requests as soon as the leading request fails, be it in the
+                // out chain, which also sees the failures of the transport, or in the in chain
+                final Message message = ((ClientRequestContextImpl)request).getMessage();
+                message.getInterceptorChain().add(releaseOnOutFault);
+                addInInterceptor(message.getExchange().getEndpoint());
+            }
+            return;
+        }
+        onWait(request);
+        if (request instanceof ClientRequestContextImpl) {
+            final Message message = ((ClientRequestContextImpl)request).getMessage();
+            if (!message.getExchange().isSynchronous()) {
+                message.getInterceptorChain().add(new JoinInterceptor(leader));
+                return;
+            }
+        }
+        final BufferedResponse response = leader.await(timeout);
+        if (response != null) {
+            request.abortWith(response.toResponse());
+        } else {
+            // the leading request may never be released if it failed before its fault could be
+            // seen, e.g. while reading its response, so do not let the next requests join it
+            inFlight.remove(leader.key, leader);
+        }
+    }
+
+    /**
+     * Called before the given request waits for the identical request in flight
+     */
+    protected void onWait(ClientRequestContext request) {
+        // no-op
+    }
+
+    @Override
+    public void filter(ClientRequestContext request, ClientResponseContext response) throws IOException {
+        final InFlight current = (InFlight)request.getProperty(IN_FLIGHT_PROPERTY);
+        if (current == null) {
+            return;
+        }
+        request.removeProperty(IN_FLIGHT_PROPERTY);
+
+        final InputStream is = response.getEntityStream();
+        if (is == null) {
+            release(current, new BufferedResponse(response, new byte[0]));
+            return;
+        }
+
+        final byte[] bytes;
+        try {
+            bytes = IOUtils.readBytesFromStream(new LimitedInputStream(is, maxSize + 1L), -1);
+        } catch (IOException | RuntimeException ex) {
+            release(current, null);
+            throw ex;
+        }
+        if (bytes.length > maxSize) {
+            // too large to be shared, the waiting requests will have to get it themselves
+            release(current, null);
+            response.setEntityStream(new SequenceInputStream(new ByteArrayInputStream(bytes), is));
+            return;
+        }
+        is.close();
+        response.setEntityStream(new ByteArrayInputStream(bytes));
+        release(current, new BufferedResponse(response, bytes));
+    }
+
+    protected boolean isIdempotent(String method) {
+        return HttpMethod.GET.equals(method) || HttpMethod.HEAD.equals(method);
+    }
+
+    private Key createKey(ClientRequestContext request) {
+        final List<String> values = new ArrayList<>(keyHeaders.size() + 1);
+        values.add(request.getHeaderString(HttpHeaders.ACCEPT));
+        for (String header : keyHeaders) {
+            values.add(request.getHeaderString(header));
+        }
+        return new Key(request.getMethod(), request.getUri(), values);
+    }
+
+    private void release(InFlight current, BufferedResponse response) {
+        inFlight.remove(current.key, current);
+        current.future.complete(response);
+    }
+
+    private void addInInterceptor(Endpoint endpoint) {
+        // the in chain of a client is built from its configuration, the endpoint is the only
+        // place where an interceptor seeing the faults of all its responses can be added
+        if (endpoint != null && !endpoint.getInInterceptors().contains(releaseOnInFault)) {
+            synchronized (this) {
+                if (!endpoint.getInInterceptors().contains(releaseOnInFault)) {
+                    endpoint.getInInterceptors().add(releaseOnInFault);
+                }
+            }
+        }
+    }
+
+    /**
+     * Completes the waiting request with the response of the leading request, as
+     * {@link ClientRequestFilterInterceptor} does when a request is aborted, and returns false,
+     * or returns true if the waiting request has to go to the backend itself
+     */
+    private boolean join(Message message, InFlight leader, BufferedResponse buffered) {
+        if (buffered == null) {
+            inFlight.remove(leader.key, leader);
+            return true;
+        }
+        final Response response = buffered.toResponse();
+        final Exchange exchange = message.getExchange();
+        exchange.put(Response.class, response);
+        message.getInterceptorChain().abort();
+
+        final Message inMessage = new MessageImpl();
+        inMessage.setExchange(exchange);
+        inMessage.put(Message.RESPONSE_CODE, response.getStatus());
+        inMessage.put(Message.PROTOCOL_HEADERS, response.getMetadata());
+        exchange.setInMessage(inMessage);
+        exchange.get(MessageObserver.class).onMessage(inMessage);
+        return false;
+    }
+
+    public List<String> getKeyHeaders() {
+        return keyHeaders;
+    }
+
+    /**
+     * Sets the request headers, in addition to Accept, which must match for two requests
+     * to be coalesced. Any header which changes the response, such as Authorization, must be
+     * part of the key.
+     */
+    public void setKeyHeaders(List<String> keyHeaders) {
+        this.keyHeaders = keyHeaders == null ? Collections.emptyList() : new ArrayList<>(keyHeaders);
+    }
+
+    public long getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Sets how long, in milliseconds, a request waits for the identical in-flight request
+     * before going to the backend itself
+     */
+    public void setTimeout(long timeout) {
+        this.timeout = timeout;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Sets the maximum size of a response which can be shared with the waiting requests
+     */
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    private final class ReleaseOnFaultInterceptor extends AbstractPhaseInterceptor<Message> {
+
+        ReleaseOnFaultInterceptor(String phase) {
+            // as early as possible, so that the faults of all the next phases are seen
+            super(ReleaseOnFaultInterceptor.class.getName() + '.' + phase, phase);
+            if (Phase.PRE_LOGICAL.equals(phase)) {
+                addAfter(ClientRequestFilterInterceptor.class.getName());
+            }
+        }
+
+        @Override
+        public void handleMessage(Message message) throws Fault {
+            // no-op
+        }
+
+        @Override
+        public void handleFault(Message message) {
+            // the request properties are kept on the exchange, shared by the request and the response
+            final PropertyHolder properties = PropertyHolderFactory.getPropertyHolder(message);
+            final InFlight current = (InFlight)properties.getProperty(IN_FLIGHT_PROPERTY);
+            if (current != null) {
+                properties.removeProperty(IN_FLIGHT_PROPERTY);
+                release(current, null);
+            }
+        }
+    }
+
+    /**
+     * Makes an asynchronous request wait for the leading request without blocking its caller
+     */
+    private final class JoinInterceptor extends AbstractPhaseInterceptor<Message> {
+        private final InFlight leader;
+
+        JoinInterceptor(InFlight leader) {
+            super(Phase.PRE_LOGICAL);
+            addAfter(ClientRequestFilterInterceptor.class.getName());
+            this.leader = leader;
+        }
+
+        @Override
+        public void handleMessage(Message message) throws Fault {
+            final CompletableFuture<BufferedResponse> response =
+                leader.future.copy().completeOnTimeout(null, timeout, TimeUnit.MILLISECONDS);
+            if (response.isDone()) {
+                join(message, leader, response.join());
+                return;
+            }
+            final InterceptorChain chain = message.getInterceptorChain();
+            chain.pause();
+            final BiConsumer<BufferedResponse, Throwable> resume = (buffered, ex) -> {
+                if (join(message, leader, buffered)) {
+                    chain.resume();
+                }
+            };
+            // not on the thread completing the leading request, it has its own response to deliver
+            final Executor executor = message.getExchange().get(Executor.class);
+            if (executor != null) {
+                response.whenCompleteAsync(resume, executor);
+            } else {
+                response.whenCompleteAsync(resume);
+            }
+        }
+    }
+
+    private static final class InFlight {
+        private final Key key;
+        private final CompletableFuture<BufferedResponse> future = new CompletableFuture<>();
+
+        InFlight(Key key) {
+            this.key = key;
+        }
+
+        BufferedResponse await(long timeout) {
+            try {
+                return future.get(timeout, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException | TimeoutException ex) {
+                // proceed with the request
+            }
+            return null;
+        }
+    }
+
+    private static final class BufferedResponse {
+        private final Response.StatusType status;
+        private final MultivaluedMap<String, String> headers;
+        private final byte[] entity;
+
+        BufferedResponse(ClientResponseContext response, byte[] entity) {
+            this.status = response.getStatusInfo();
+            this.headers = new MultivaluedHashMap<>();
+            for (Map.Entry<String, List<String>> entry : response.getHeaders().entrySet()) {
+                this.headers.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+            }
+            this.entity = entity;
+        }
+
+        Response toResponse() {
+            final Response.ResponseBuilder rb = Response.status(status);
+            for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+                for (String value : entry.getValue()) {
+                    rb.header(entry.getKey(), value);
+                }
+            }
+            if (entity.length > 0) {
+                rb.entity(new ByteArrayInputStream(entity));
+            }
+            return rb.build();
+        }
+    }
+
+    private static final class Key {
+        private final String method;
+        private final URI uri;
+        private final List<String> headers;
+        private final int hash;
+
+        Key(String method, URI uri, List<String> headers) {
+            this.method = method;
+            this.uri = uri;
+            this.headers = headers;
+            int result = method.hashCode();
+            result = 31 * result + uri.hashCode();
+            result = 31 * result + headers.hashCode();
+            this.hash = result;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key key = (Key)o;
+            return method.equals(key.method) && uri.equals(key.uri) && headers.equals(key.headers);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.jaxrs.client.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.client.ClientBuilder;
+import jakarta.ws.rs.client.Entity;
+import jakarta.ws.rs.client.WebTarget;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.UriInfo;
+import org.apache.cxf.endpoint.Server;
+import org.apache.cxf.jaxrs.JAXRSServerFactoryBean;
+import org.apache.cxf.jaxrs.lifecycle.SingletonResourceProvider;
+import org.apache.cxf.transport.local.LocalTransportFactory;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HttpResponseCacheTest {
+    public static final String ADDRESS = "local://httpcache-";
+    private static final String[] MODES = {"fresh", "etag", "swr", "vary", "nostore"};
+    private static final String ETAG = "\"v1\"";
+    private static List<Server> servers = new ArrayList<>();
+    private static TheServer resource = new TheServer();
+
+    @BeforeClass
+    public static void bind() throws Exception {
+        // the local transport does not dispatch on paths, one endpoint per mode
+        for (String mode : MODES) {
+            final JAXRSServerFactoryBean sf = new JAXRSServerFactoryBean();
+            sf.setResourceClasses(TheServer.class);
+            sf.setResourceProvider(TheServer.class, new SingletonResourceProvider(resource, false));
+            sf.setTransportId(LocalTransportFactory.TRANSPORT_ID);
+            sf.setAddress(ADDRESS + mode);
+            servers.add(sf.create());
+        }
+    }
+
+    @AfterClass
+    public static void unbind() throws Exception {
+        for (Server server : servers) {
+            server.stop();
+            server.destroy();
+        }
+    }
+
+    @Test
+    public void testFreshResponseIsCached() {
+        try (HttpResponseCacheFeature feature = new HttpResponseCacheFeature()) {
+            final WebTarget target = createTarget(feature, "fresh");
+            final int invocations = resource.invocations.get();
+            final String first = target.request("text/plain").get(String.class);
+            assertEquals(first, target.request("text/plain").get(String.class));
+            assertEquals(invocations + 1, resource.invocations.get());
+            assertEquals(1, feature.getFilter().getHitCount());
+        }
+    }
+
+    @Test
+    public void testStaleResponseIsRevalidated() {
+        try (HttpResponseCacheFeature feature = new HttpResponseCacheFeature()) {
+            final WebTarget target = createTarget(feature, "etag");
+            final int notModified = resource.notModified.get();
+            assertEquals("etag", target.request("text/plain").get(String.class));
+            final Response r = target.request("text/plain").get();
+            assertEquals(200, r.getStatus());
+            assertEquals("etag", r.readEntity(String.class));
+            assertEquals(notModified + 1, resource.notModified.get());
+            assertEquals(1, feature.getFilter().getValidationCount());
+        }
+    }
+
+    @Test
+    public void testStaleWhileRevalidate() throws Exception {
+        try (HttpResponseCacheFeature feature = new HttpResponseCacheFeature()) {
+            final WebTarget target = createTarget(feature, "swr");
+            final int notModified = resource.notModified.get();
+            final String first = target.request("text/plain").get(String.class);
+            // stale, returned at once and revalidated in the background
+            assertEquals(first, target.request("text/plain").get(String.class));
+            assertEquals(1, feature.getFilter().getHitCount());
+            for (int i = 0; i < 50 && feature.getFilter().getValidationCount() == 0; i++) {
+                Thread.sleep(100);
+            }
+            assertEquals(1, feature.getFilter().getValidationCount());
+            assertEquals(notModified + 1, resource.notModified.get());
+        }
+    }
+
+    @Test
+    public void testVariantsAreSelected() {
+        try (HttpResponseCacheFeature feature = new HttpResponseCacheFeature()) {
+            final WebTarget target = createTarget(feature, "vary");
+            final int invocations = resource.invocations.get();
+            assertEquals("vary en", target.request("text/plain").acceptLanguage("en").get(String.class));
+            assertEquals("vary fr", target.request("text/plain").acceptLanguage("fr").get(String.class));
+            assertEquals("vary en", target.request("text/plain").acceptLanguage("en").get(String.class));
+            assertEquals("vary fr", target.request("text/plain").acceptLanguage("fr").get(String.class));
+            assertEquals(invocations + 2, resource.invocations.get());
+        }
+    }
+
+    @Test
+    public void testUnsafeRequestInvalidates() {
+        try (HttpResponseCacheFeature feature = new HttpResponseCacheFeature()) {
+            final WebTarget target = createTarget(feature, "fresh");
+            final int invocations = resource.invocations.get();
+            target.request("text/plain").get(String.class);
+            assertEquals(204, target.request().post(Entity.text("update")).getStatus());
+            target.request("text/plain").get(String.class);
+            assertEquals(invocations + 3, resource.invocations.get());
+        }
+    }
+
+    @Test
+    public void testNoStoreIsNotCached() {
+        try (HttpResponseCacheFeature feature = new HttpResponseCacheFeature()) {
+            final WebTarget target = createTarget(feature, "nostore");
+            final int invocations = resource.invocations.get();
+            target.request("text/plain").get(String.class);
+            target.request("text/plain").get(String.class);
+            assertEquals(invocations + 2, resource.invocations.get());
+            assertTrue(feature.getFilter().getStorage().getSize() == 0);
+        }
+    }
+
+    private static WebTarget createTarget(HttpResponseCacheFeature feature, String mode) {
+        return ClientBuilder.newBuilder().register(feature).build().target(ADDRESS + mode);
+    }
+
+    @Path("/")
+    public static class TheServer {
+        private final AtomicInteger invocations = new AtomicInteger();
+        private final AtomicInteger notModified = new AtomicInteger();
+
+        @GET
+        @Produces("text/plain")
+        public Response get(@HeaderParam(HttpHeaders.ACCEPT_LANGUAGE) String language,
+                            @Context UriInfo uriInfo, @Context Request request) {
+            final String mode = uriInfo.getBaseUri().toString().substring(ADDRESS.length()).replace("/", "");
+            final int count = invocations.incrementAndGet();
+            final EntityTag tag = new EntityTag("v1");
+            switch (mode) {
+            case "fresh":
+                return Response.ok("fresh " + count).header(HttpHeaders.CACHE_CONTROL, "max-age=60").build();
+            case "vary":
+                return Response.ok("vary " + language).header(HttpHeaders.CACHE_CONTROL, "max-age=60")
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_LANGUAGE).build();
+            case "nostore":
+                return Response.ok("nostore " + count).header(HttpHeaders.CACHE_CONTROL, "no-store").build();
+            default:
+                final String cacheControl = "swr".equals(mode) ? "max-age=0, stale-while-revalidate=60" : "max-age=0";
+                // the local transport does not serialize the headers, EntityTag values are not accepted
+                if (request.evaluatePreconditions(tag) != null) {
+                    notModified.incrementAndGet();
+                    return Response.notModified().header(HttpHeaders.ETAG, ETAG)
+                        .header(HttpHeaders.CACHE_CONTROL, cacheControl).build();
+                }
+                return Response.ok("swr".equals(mode) ? "swr " + count : mode).header(HttpHeaders.ETAG, ETAG)
+                    .header(HttpHeaders.CACHE_CONTROL, cacheControl).build();
+            }
+        }
+
+        @POST
+        public void post(String body) {
+            invocations.incrementAndGet();
+        }
+    }
+}
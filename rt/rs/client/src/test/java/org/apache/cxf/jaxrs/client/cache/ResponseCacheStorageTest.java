@@ -0,0 +1,150 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.jaxrs.client.cache;
+
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import jakarta.ws.rs.core.HttpHeaders;
+import org.apache.cxf.transport.http.Headers;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ResponseCacheStorageTest {
+
+    @Test
+    public void testFreshness() {
+        final long now = System.currentTimeMillis();
+        final CachedResponse response = createResponse("max-age=10, stale-while-revalidate=20", 1, now);
+        assertEquals(10000L, response.getFreshnessLifetime());
+        assertTrue(response.isFresh(now + 5000));
+        assertFalse(response.isFresh(now + 15000));
+        assertTrue(response.isStaleWhileRevalidate(now + 15000));
+        assertFalse(response.isStaleWhileRevalidate(now + 35000));
+
+        final CachedResponse noCache = createResponse("no-cache, max-age=10", 1, now);
+        assertFalse(noCache.isFresh(now));
+    }
+
+    @Test
+    public void testMemoryStorageEvictsLeastRecentlyUsed() {
+        final long now = System.currentTimeMillis();
+        final CachedResponse response = createResponse("max-age=10", 1000, now);
+        final MemoryResponseCacheStorage storage = new MemoryResponseCacheStorage(response.getWeight() * 2L);
+        storage.put("a", Collections.singletonList(response));
+        storage.put("b", Collections.singletonList(response));
+        assertNotNull(storage.get("a"));
+        storage.put("c", Collections.singletonList(response));
+        assertNotNull(storage.get("a"));
+        assertNull(storage.get("b"));
+        assertNotNull(storage.get("c"));
+        assertEquals(response.getWeight() * 2L, storage.getSize());
+    }
+
+    @Test
+    public void testFileStorage() throws Exception {
+        final long now = System.currentTimeMillis();
+        final CachedResponse first = createResponse("max-age=10", 100, now);
+        final CachedResponse second = createResponse("max-age=20", 200, now);
+        final FileResponseCacheStorage storage =
+            new FileResponseCacheStorage(Files.createTempDirectory("cache-test"), 1024);
+        try {
+            storage.put("a", Arrays.asList(first, second));
+            final List<CachedResponse> variants = storage.get("a");
+            assertEquals(2, variants.size());
+            assertArrayEquals(first.getEntity(), variants.get(0).getEntity());
+            assertEquals(20000L, variants.get(1).getFreshnessLifetime());
+            assertEquals("en", variants.get(1).getSelectingHeaders().get("accept-language"));
+
+            // exceeds the limit
+            storage.put("b", Collections.singletonList(createResponse("max-age=10", 2000, now)));
+            assertNull(storage.get("b"));
+            storage.put("c", Collections.singletonList(createResponse("max-age=10", 600, now)));
+            assertNull(storage.get("a"));
+            assertNotNull(storage.get("c"));
+        } finally {
+            storage.close();
+        }
+        assertFalse(Files.exists(storage.getDirectory()));
+    }
+
+    @Test
+    public void testFileStorageEvictsLeastRecentlyUsed() throws Exception {
+        final long now = System.currentTimeMillis();
+        final CachedResponse response = createResponse("max-age=10", 300, now);
+        final FileResponseCacheStorage storage =
+            new FileResponseCacheStorage(Files.createTempDirectory("cache-test"), 1024);
+        try {
+            storage.put("a", Collections.singletonList(response));
+            storage.put("b", Collections.singletonList(response));
+            assertNotNull(storage.get("a"));
+            storage.put("c", Collections.singletonList(response));
+            assertNotNull(storage.get("a"));
+            assertNull(storage.get("b"));
+            assertNotNull(storage.get("c"));
+        } finally {
+            storage.close();
+        }
+    }
+
+    @Test
+    public void testRevalidatedDropsAgeAndDate() {
+        final long now = System.currentTimeMillis();
+        final Map<String, List<String>> headers = new TreeMap<>();
+        headers.put(HttpHeaders.CACHE_CONTROL, Collections.singletonList("max-age=60"));
+        headers.put(HttpHeaders.DATE, Collections.singletonList(Headers.toHttpDate(new Date(now - 120000))));
+        headers.put(CachedResponse.AGE, Collections.singletonList("30"));
+        final CachedResponse stored = new CachedResponse(200, "OK", headers, Collections.emptyMap(),
+                                                         new byte[10], now - 120000, now - 120000);
+        assertFalse(stored.isFresh(now));
+
+        // the 304 response has no Age nor Date, the old ones must not make the response stale
+        final CachedResponse revalidated = stored.revalidated(Collections.emptyMap(), now, now);
+        assertNull(revalidated.getHeader(CachedResponse.AGE));
+        assertNull(revalidated.getHeader(HttpHeaders.DATE));
+        assertEquals(0, revalidated.getCurrentAge(now));
+        assertTrue(revalidated.isFresh(now));
+
+        // the ones of the 304 response are used otherwise
+        final Map<String, List<String>> notModified = new TreeMap<>();
+        notModified.put(CachedResponse.AGE, Collections.singletonList("10"));
+        assertEquals(10000L, stored.revalidated(notModified, now, now).getCurrentAge(now));
+    }
+
+    private static CachedResponse createResponse(String cacheControl, int size, long now) {
+        final Map<String, List<String>> headers = new TreeMap<>();
+        headers.put(HttpHeaders.CACHE_CONTROL, Collections.singletonList(cacheControl));
+        headers.put(HttpHeaders.ETAG, Collections.singletonList("\"v1\""));
+        return new CachedResponse(200, "OK", headers,
+                                  Collections.singletonMap(HttpHeaders.ACCEPT_LANGUAGE, "en"),
+                                  new byte[size], now, now);
+    }
+}
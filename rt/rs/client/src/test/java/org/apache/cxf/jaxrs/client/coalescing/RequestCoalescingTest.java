@@ -0,0 +1,314 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.jaxrs.client.coalescing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.client.ClientBuilder;
+import jakarta.ws.rs.client.ClientRequestContext;
+import jakarta.ws.rs.client.Invocation;
+import jakarta.ws.rs.client.WebTarget;
+import org.apache.cxf.endpoint.Server;
+import org.apache.cxf.interceptor.Fault;
+import org.apache.cxf.jaxrs.JAXRSServerFactoryBean;
+import org.apache.cxf.jaxrs.client.WebClient;
+import org.apache.cxf.jaxrs.lifecycle.SingletonResourceProvider;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.phase.AbstractPhaseInterceptor;
+import org.apache.cxf.phase.Phase;
+import org.apache.cxf.transport.local.LocalTransportFactory;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RequestCoalescingTest {
+    public static final String ADDRESS = "local://coalescing";
+    private static Server server;
+    private static TheServer resource = new TheServer();
+
+    @BeforeClass
+    public static void bind() throws Exception {
+        final JAXRSServerFactoryBean sf = new JAXRSServerFactoryBean();
+        sf.setResourceClasses(TheServer.class);
+        sf.setResourceProvider(TheServer.class, new SingletonResourceProvider(resource, false));
+        sf.setTransportId(LocalTransportFactory.TRANSPORT_ID);
+        sf.setAddress(ADDRESS);
+        server = sf.create();
+    }
+
+    @AfterClass
+    public static void unbind() throws Exception {
+        server.stop();
+        server.destroy();
+    }
+
+    @Test
+    public void testIdenticalRequestsAreCoalesced() throws Exception {
+        final CountDownLatch waiting = new CountDownLatch(4);
+        final RequestCoalescingFilter filter = new RequestCoalescingFilter() {
+            @Override
+            protected void onWait(ClientRequestContext request) {
+                waiting.countDown();
+            }
+        };
+        final WebTarget target = ClientBuilder.newBuilder().register(filter).build().target(ADDRESS);
+        final int invocations = resource.invocations.get();
+        resource.reset();
+
+        final ExecutorService executor = Executors.newFixedThreadPool(5);
+        try {
+            final List<Future<String>> responses = new ArrayList<>();
+            final Invocation.Builder leader = target.request("text/plain");
+            responses.add(executor.submit(() -> leader.get(String.class)));
+            assertTrue(resource.entered.tryAcquire(10, TimeUnit.SECONDS));
+            for (int i = 0; i < 4; i++) {
+                // the invocation builders are not created concurrently, the requests are
+                final Invocation.Builder follower = target.request("text/plain");
+                responses.add(executor.submit(() -> follower.get(String.class)));
+            }
+            // let the identical requests join the one in flight
+            assertTrue(waiting.await(10, TimeUnit.SECONDS));
+            resource.release.countDown();
+
+            for (Future<String> response : responses) {
+                assertEquals("slow " + (invocations + 1), response.get(10, TimeUnit.SECONDS));
+            }
+            assertEquals(invocations + 1, resource.invocations.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testDifferentKeysAreNotCoalesced() throws Exception {
+        final RequestCoalescingFeature feature = new RequestCoalescingFeature();
+        final int invocations = resource.invocations.get();
+        resource.reset();
+
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final WebClient client = WebClient.create(ADDRESS, Collections.singletonList(feature));
+            client.accept("text/plain");
+            final Future<String> first = executor.submit(() -> client.get(String.class));
+            assertTrue(resource.entered.tryAcquire(10, TimeUnit.SECONDS));
+
+            final WebClient other = WebClient.create(ADDRESS, Collections.singletonList(feature));
+            other.accept("text/plain").header("Authorization", "Basic dXNlcjpwYXNz");
+            final Future<String> second = executor.submit(() -> other.get(String.class));
+            // both requests are in flight at the same time
+            assertTrue(resource.entered.tryAcquire(10, TimeUnit.SECONDS));
+            resource.release.countDown();
+
+            assertTrue(first.get(10, TimeUnit.SECONDS).startsWith("slow "));
+            assertTrue(second.get(10, TimeUnit.SECONDS).startsWith("slow "));
+            assertEquals(invocations + 2, resource.invocations.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testTimedOutRequestIsNotJoinedAgain() throws Exception {
+        final RequestCoalescingFeature feature = new RequestCoalescingFeature();
+        feature.setTimeout(100);
+        final int invocations = resource.invocations.get();
+        resource.reset();
+
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            final List<Future<String>> responses = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                final WebClient client = WebClient.create(ADDRESS, Collections.singletonList(feature));
+                client.accept("text/plain");
+                responses.add(executor.submit(() -> client.get(String.class)));
+            }
+            // the requests giving up waiting for the first one go to the backend
+            assertTrue(resource.entered.tryAcquire(3, 10, TimeUnit.SECONDS));
+            resource.release.countDown();
+
+            for (Future<String> response : responses) {
+                assertTrue(response.get(10, TimeUnit.SECONDS).startsWith("slow "));
+            }
+            assertEquals(invocations + 3, resource.invocations.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFailedRequestIsReleased() throws Exception {
+        final RequestCoalescingFeature feature = new RequestCoalescingFeature();
+        final int invocations = resource.invocations.get();
+        resource.reset();
+        resource.release.countDown();
+
+        final WebClient failing = WebClient.create(ADDRESS, Collections.singletonList(feature));
+        failing.accept("text/plain");
+        WebClient.getConfig(failing).getOutInterceptors().add(new AbstractPhaseInterceptor<Message>(
+                Phase.POST_LOGICAL) {
+            @Override
+            public void handleMessage(Message message) throws Fault {
+                throw new Fault(new IllegalStateException("failing before sending"));
+            }
+        });
+        try {
+            failing.get(String.class);
+            fail("Fault expected");
+        } catch (ProcessingException ex) {
+            // expected
+        }
+
+        // the next identical request is not waiting for the failed one
+        final WebClient client = WebClient.create(ADDRESS, Collections.singletonList(feature));
+        client.accept("text/plain");
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<String> response = executor.submit(() -> client.get(String.class));
+            assertEquals("slow " + (invocations + 1), response.get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testAsyncRequestIsCoalesced() throws Exception {
+        final CountDownLatch waiting = new CountDownLatch(1);
+        final RequestCoalescingFilter filter = new RequestCoalescingFilter() {
+            @Override
+            protected void onWait(ClientRequestContext request) {
+                waiting.countDown();
+            }
+        };
+        final int invocations = resource.invocations.get();
+        resource.reset();
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final WebClient leader = WebClient.create(ADDRESS, Collections.singletonList(filter));
+            leader.accept("text/plain");
+            final Future<String> first = executor.submit(() -> leader.get(String.class));
+            assertTrue(resource.entered.tryAcquire(10, TimeUnit.SECONDS));
+
+            final WebClient client = WebClient.create(ADDRESS, Collections.singletonList(filter));
+            client.accept("text/plain");
+            // the caller is not blocked while the request waits for the one in flight
+            final Future<String> second = client.async().get(String.class);
+            assertTrue(waiting.await(10, TimeUnit.SECONDS));
+            resource.release.countDown();
+
+            assertEquals("slow " + (invocations + 1), first.get(10, TimeUnit.SECONDS));
+            assertEquals("slow " + (invocations + 1), second.get(10, TimeUnit.SECONDS));
+            assertEquals(invocations + 1, resource.invocations.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testWaitingRequestsReleasedWhenLeaderFailsAfterSending() throws Exception {
+        final CountDownLatch waiting = new CountDownLatch(2);
+        final RequestCoalescingFilter filter = new RequestCoalescingFilter() {
+            @Override
+            protected void onWait(ClientRequestContext request) {
+                waiting.countDown();
+            }
+        };
+        final int invocations = resource.invocations.get();
+        resource.reset();
+
+        final WebClient failing = WebClient.create(ADDRESS, Collections.singletonList(filter));
+        failing.accept("text/plain");
+        WebClient.getConfig(failing).getInInterceptors().add(new AbstractPhaseInterceptor<Message>(
+                Phase.PRE_PROTOCOL) {
+            @Override
+            public void handleMessage(Message message) throws Fault {
+                throw new Fault(new IllegalStateException("failing while reading the response"));
+            }
+        });
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<String> leader = failing.async().get(String.class);
+            assertTrue(resource.entered.tryAcquire(10, TimeUnit.SECONDS));
+
+            final WebClient client = WebClient.create(ADDRESS, Collections.singletonList(filter));
+            client.accept("text/plain");
+            final Future<String> sync = executor.submit(() -> client.get(String.class));
+            final WebClient asyncClient = WebClient.create(ADDRESS, Collections.singletonList(filter));
+            asyncClient.accept("text/plain");
+            final Future<String> async = asyncClient.async().get(String.class);
+            assertTrue(waiting.await(10, TimeUnit.SECONDS));
+            resource.release.countDown();
+
+            try {
+                leader.get(10, TimeUnit.SECONDS);
+                fail("Fault expected");
+            } catch (ExecutionException ex) {
+                // expected
+            }
+            // released by the failure of the leading request, well before the timeout
+            assertTrue(sync.get(10, TimeUnit.SECONDS).startsWith("slow "));
+            assertTrue(async.get(10, TimeUnit.SECONDS).startsWith("slow "));
+            assertEquals(invocations + 3, resource.invocations.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Path("/")
+    public static class TheServer {
+        private final AtomicInteger invocations = new AtomicInteger();
+        private final Semaphore entered = new Semaphore(0);
+        private volatile CountDownLatch release = new CountDownLatch(1);
+
+        void reset() {
+            entered.drainPermits();
+            release = new CountDownLatch(1);
+        }
+
+        @GET
+        @Produces("text/plain")
+        public String getSlow() throws InterruptedException {
+            final int count = invocations.incrementAndGet();
+            entered.release();
+            release.await(10, TimeUnit.SECONDS);
+            return "slow " + count;
+        }
+    }
+}
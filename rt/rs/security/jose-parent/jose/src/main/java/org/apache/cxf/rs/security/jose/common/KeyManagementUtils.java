@@ -19,8 +19,10 @@
 
 package org.apache.cxf.rs.security.jose.common;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URL;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
@@ -54,6 +56,7 @@ import org.apache.cxf.message.MessageUtils;
 import org.apache.cxf.phase.PhaseInterceptorChain;
 import org.apache.cxf.rs.security.jose.jwk.JwkException;
 import org.apache.cxf.rs.security.jose.jwk.KeyOperation;
+import org.apache.cxf.rt.security.crypto.CertificateValidationCache;
 import org.apache.cxf.rt.security.crypto.CryptoUtils;
 import org.apache.cxf.rt.security.crypto.MessageDigestUtils;
 import org.apache.cxf.rt.security.rs.PrivateKeyPasswordProvider;
@@ -364,11 +367,44 @@ public final class KeyManagementUtils {
             enableRevocationProp = (String)message.getContextualProperty(JoseConstants.RSSEC_ENABLE_REVOCATION);
         }
         boolean enableRevocation = enableRevocationProp != null && Boolean.parseBoolean(enableRevocationProp);
-        validateCertificateChain(ks, inCerts, enableRevocation);
+        String enableCacheProp = storeProperties.getProperty(RSSecurityConstants.RSSEC_ENABLE_CERT_VALIDATION_CACHE);
+        if (enableCacheProp == null) {
+            enableCacheProp =
+                (String)message.getContextualProperty(JoseConstants.RSSEC_ENABLE_CERT_VALIDATION_CACHE);
+        }
+        boolean enableCache = enableCacheProp != null && Boolean.parseBoolean(enableCacheProp);
+        String trustStoreVersion = enableCache ? getTrustStoreVersion(message, storeProperties, ks) : null;
+        validateCertificateChain(ks, inCerts, enableRevocation, trustStoreVersion);
     }
-    private static void validateCertificateChain(KeyStore ks, List<X509Certificate> inCerts, boolean enableRevocation) {
+    private static String getTrustStoreVersion(Message m, Properties props, KeyStore ks) {
+        try {
+            if (props.get(JoseConstants.RSSEC_KEY_STORE) instanceof KeyStore
+                || !props.containsKey(JoseConstants.RSSEC_KEY_STORE_FILE)) {
+                return CertificateValidationCache.getVersion(ks);
+            }
+            // the key store is loaded again for each exchange, so its version is kept for its file
+            String location = props.getProperty(JoseConstants.RSSEC_KEY_STORE_FILE);
+            Bus bus = m != null ? m.getExchange().getBus() : null;
+            URL url = JoseUtils.getResourceURL(location, bus);
+            long lastModified = url != null && "file".equals(url.getProtocol())
+                ? new File(url.toURI()).lastModified() : 0L;
+            return CertificateValidationCache.getVersion(location, lastModified, ks);
+        } catch (Exception ex) {
+            LOG.warning("Trust store version can not be computed");
+            throw new JoseException(ex);
+        }
+    }
+    private static void validateCertificateChain(KeyStore ks, List<X509Certificate> inCerts, boolean enableRevocation,
+                                                 String trustStoreVersion) {
         // Initial chain validation, to be enhanced as needed
         try {
+            String cacheKey = null;
+            if (trustStoreVersion != null) {
+                cacheKey = CertificateValidationCache.getKey(trustStoreVersion, inCerts, enableRevocation);
+                if (CertificateValidationCache.getInstance().isValidated(cacheKey)) {
+                    return;
+                }
+            }
             X509CertSelector certSelect = new X509CertSelector();
             certSelect.setCertificate(inCerts.get(0));
             PKIXBuilderParameters pbParams = new PKIXBuilderParameters(ks, certSelect);
@@ -380,6 +416,9 @@ public final class KeyManagementUtils {
             pbParams.setRevocationEnabled(enableRevocation);
             CertPath certPath = buildResult.getCertPath();
             CertPathValidator.getInstance("PKIX").validate(certPath, pbParams);
+            if (cacheKey != null) {
+                CertificateValidationCache.getInstance().setValidated(cacheKey, inCerts, enableRevocation);
+            }
         } catch (Exception ex) {
             LOG.warning("Certificate path validation error");
             throw new JoseException(ex);
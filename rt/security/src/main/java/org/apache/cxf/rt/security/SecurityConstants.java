@@ -356,6 +356,18 @@ public class SecurityConstants {
     public static final String STS_TOKEN_IMMINENT_EXPIRY_VALUE =
         "security.sts.token.imminent-expiry-value";
 
+    /**
+     * This is the value in seconds within which a token (from a STS) cached on the endpoint is
+     * renewed in the background. The cached token is still used for the messages sent while it is
+     * renewed, so the messages do not wait for the STS. It should be greater than the
+     * imminent-expiry-value.
+     *
+     * The default value is 0 (seconds), which means that the token is only renewed when it is
+     * considered to be expired.
+     */
+    public static final String STS_TOKEN_PREFETCH_VALUE =
+        "security.sts.token.prefetch-value";
+
     /**
      * An implementation of the STSTokenCacher interface, if you want to plug in custom caching behaviour for
      * STS clients. The default value is the DefaultSTSTokenCacher.
@@ -395,7 +407,8 @@ public class SecurityConstants {
             DISABLE_STS_CLIENT_WSMEX_CALL_USING_EPR_ADDRESS, STS_TOKEN_CRYPTO,
             STS_TOKEN_PROPERTIES, STS_TOKEN_USERNAME, STS_TOKEN_ACT_AS, STS_TOKEN_ON_BEHALF_OF,
             STS_CLIENT, STS_APPLIES_TO, CACHE_ISSUED_TOKEN_IN_ENDPOINT, PREFER_WSMEX_OVER_STS_CLIENT_CONFIG,
-            STS_TOKEN_IMMINENT_EXPIRY_VALUE, STS_TOKEN_CACHER_IMPL, AUDIENCE_RESTRICTIONS,
+            STS_TOKEN_IMMINENT_EXPIRY_VALUE, STS_TOKEN_PREFETCH_VALUE, STS_TOKEN_CACHER_IMPL,
+            AUDIENCE_RESTRICTIONS,
             STS_CHECK_FOR_RECURSIVE_CALL
         }));
         COMMON_PROPERTIES = Collections.unmodifiableSet(s);
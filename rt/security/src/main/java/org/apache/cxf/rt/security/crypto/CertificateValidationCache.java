@@ -0,0 +1,226 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.rt.security.crypto;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cxf.common.util.StringUtils;
+
+/**
+ * A bounded cache of the certificate chains which were successfully validated against some trust
+ * anchors, so that the certificate path of a chain which is received again is not built and
+ * validated again. The key of a chain combines the fingerprints of its certificates with the
+ * version of the trust anchors and the validation settings. An entry expires after the TTL, or
+ * the revocation TTL if the revocation of the certificates was checked, so that a revoked
+ * certificate is eventually rejected, and never outlives the validity of the certificates.
+ * Failed validations are not cached.
+ */
+public final class CertificateValidationCache {
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+    public static final long DEFAULT_TTL = 300L;
+    public static final long DEFAULT_REVOCATION_TTL = 60L;
+
+    private static final CertificateValidationCache INSTANCE =
+        new CertificateValidationCache(DEFAULT_MAX_ENTRIES, DEFAULT_TTL, DEFAULT_REVOCATION_TTL);
+    private static final Map<KeyStore, String> VERSIONS = Collections.synchronizedMap(new WeakHashMap<>());
+    private static final Map<Object, String> INSTANCE_VERSIONS =
+        Collections.synchronizedMap(new WeakHashMap<>());
+    private static final Map<String, SourceVersion> SOURCE_VERSIONS = new ConcurrentHashMap<>();
+
+    private final Map<String, Long> entries;
+    private final long ttl;
+    private final long revocationTtl;
+
+    /**
+     * @param maxEntries the maximum number of chains in the cache
+     * @param ttl the time in seconds a chain is considered valid without revocation checking
+     * @param revocationTtl the time in seconds a chain is considered valid with revocation checking,
+     *                      typically the CRL or OCSP refresh interval
+     */
+    public CertificateValidationCache(int maxEntries, long ttl, long revocationTtl) {
+        this.ttl = TimeUnit.SECONDS.toMillis(ttl);
+        this.revocationTtl = TimeUnit.SECONDS.toMillis(revocationTtl);
+        entries = new LinkedHashMap<String, Long>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the cache shared by the WS-Security and the JOSE stacks
+     */
+    public static CertificateValidationCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the version of the trusted certificates of a KeyStore, which is the same for
+     * KeyStores with the same trusted certificates. It is computed once for a KeyStore instance,
+     * so a KeyStore must not be modified once used with the cache, and must be shared by the
+     * messages: a KeyStore loaded for each message is digested each time, use
+     * {@link #getVersion(String, long, KeyStore)} for such a KeyStore instead.
+     */
+    public static String getVersion(KeyStore trustStore) throws GeneralSecurityException {
+        String version = VERSIONS.get(trustStore);
+        if (version == null) {
+            version = digest(trustStore);
+            VERSIONS.put(trustStore, version);
+        }
+        return version;
+    }
+
+    /**
+     * Returns the version of the trusted certificates of a KeyStore loaded from the given source,
+     * such as the location of its file. It is computed again only when the last modification
+     * time of the source changes, so that a KeyStore loaded from the same source for each message
+     * is not digested each time.
+     * @param source the location the KeyStore was loaded from
+     * @param lastModified the last modification time of the source, 0 if unknown in which case
+     *                     the version is the one of the KeyStore instance
+     * @param trustStore the KeyStore loaded from the source
+     */
+    public static String getVersion(String source, long lastModified, KeyStore trustStore)
+        throws GeneralSecurityException {
+        if (lastModified == 0) {
+            return getVersion(trustStore);
+        }
+        SourceVersion version = SOURCE_VERSIONS.get(source);
+        if (version == null || version.lastModified != lastModified) {
+            version = new SourceVersion(lastModified, digest(trustStore));
+            SOURCE_VERSIONS.put(source, version);
+        }
+        return version.version;
+    }
+
+    /**
+     * Returns a version unique to the given object, such as a Crypto instance whose trust
+     * anchors do not change.
+     */
+    public static String getInstanceVersion(Object trustAnchors) {
+        return INSTANCE_VERSIONS.computeIfAbsent(trustAnchors, o -> UUID.randomUUID().toString());
+    }
+
+    /**
+     * Returns the key of a chain validated against the trust anchors of the given version
+     * @param version the version of the trust anchors
+     * @param chain the certificate chain
+     * @param revocation whether the revocation of the certificates is checked
+     * @param constraints the other settings of the validation, such as the subject constraints
+     */
+    public static String getKey(String version, List<X509Certificate> chain, boolean revocation,
+                                Object... constraints) throws GeneralSecurityException {
+        final MessageDigest digest = MessageDigest.getInstance(MessageDigestUtils.ALGO_SHA_256);
+        digest.update(version.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte)(revocation ? 1 : 0));
+        for (Object constraint : constraints) {
+            digest.update((byte)0);
+            digest.update(String.valueOf(constraint).getBytes(StandardCharsets.UTF_8));
+        }
+        for (X509Certificate cert : chain) {
+            digest.update((byte)0);
+            digest.update(cert.getEncoded());
+        }
+        return StringUtils.toHexString(digest.digest());
+    }
+
+    /**
+     * Returns true if the chain with the given key was validated and has not expired since
+     */
+    public boolean isValidated(String key) {
+        final long now = System.currentTimeMillis();
+        synchronized (entries) {
+            Long expires = entries.get(key);
+            if (expires == null) {
+                return false;
+            }
+            if (expires <= now) {
+                entries.remove(key);
+                return false;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Records that the given chain was successfully validated
+     */
+    public void setValidated(String key, List<X509Certificate> chain, boolean revocation) {
+        long expires = System.currentTimeMillis() + (revocation ? revocationTtl : ttl);
+        for (X509Certificate cert : chain) {
+            expires = Math.min(expires, cert.getNotAfter().getTime());
+        }
+        synchronized (entries) {
+            entries.put(key, expires);
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    private static String digest(KeyStore trustStore) throws GeneralSecurityException {
+        final List<String> aliases = Collections.list(trustStore.aliases());
+        Collections.sort(aliases);
+        final MessageDigest digest = MessageDigest.getInstance(MessageDigestUtils.ALGO_SHA_256);
+        for (String alias : aliases) {
+            Certificate cert = trustStore.getCertificate(alias);
+            if (cert != null) {
+                digest.update(alias.getBytes(StandardCharsets.UTF_8));
+                digest.update(cert.getEncoded());
+            }
+        }
+        return StringUtils.toHexString(digest.digest());
+    }
+
+    private static final class SourceVersion {
+        final long lastModified;
+        final String version;
+
+        SourceVersion(long lastModified, String version) {
+            this.lastModified = lastModified;
+            this.version = version;
+        }
+    }
+}
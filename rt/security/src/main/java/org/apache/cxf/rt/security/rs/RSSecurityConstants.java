@@ -94,6 +94,13 @@ public class RSSecurityConstants {
      */
     public static final String RSSEC_ENABLE_REVOCATION = "rs.security.enable.revocation";
 
+    /**
+     * Whether to cache the certificate chains successfully validated against the trust store, in
+     * the shared CertificateValidationCache, so that a chain which is received again is not
+     * validated again until the cache entry expires. The default is "false".
+     */
+    public static final String RSSEC_ENABLE_CERT_VALIDATION_CACHE = "rs.security.enable.cert.validation.cache";
+
     protected RSSecurityConstants() {
         // complete
     }
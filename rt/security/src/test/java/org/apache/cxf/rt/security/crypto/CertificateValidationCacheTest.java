@@ -0,0 +1,126 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.rt.security.crypto;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyStore;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CertificateValidationCacheTest {
+    private static final String CERT =
+        "-----BEGIN CERTIFICATE-----\n"
+        + "MIIBNzCB3qADAgECAgkA7sRb9UDAFFgwCgYIKoZIzj0EAwIwDzENMAsGA1UEAxME\n"
+        + "dGVzdDAgFw0yNjEwMTkxMzQ4NDJaGA8yMTI2MDkyNTEzNDg0MlowDzENMAsGA1UE\n"
+        + "AxMEdGVzdDBZMBMGByqGSM49AgEGCCqGSM49AwEHA0IABCYHhUYfeY3X3lUT9D+j\n"
+        + "k6S0/HgK34P4xUpFYCPIxG83nAhK2Awo95Oh19SblDspRjnNcr6R2TdNojaZ5PBw\n"
+        + "zpujITAfMB0GA1UdDgQWBBQd6PGyJ8kjrTJTQ9UZuqE60FnlnDAKBggqhkjOPQQD\n"
+        + "AgNIADBFAiBOGWimuINpxOiZ7b2cm0et762N6OerzrXW5qhYsDPPeAIhAODCvtYK\n"
+        + "L2ZmQ/hpkWiJXr+so4EV6EOx+xyBgbQGk+00\n"
+        + "-----END CERTIFICATE-----\n";
+
+    @Test
+    public void testValidatedChain() throws Exception {
+        CertificateValidationCache cache = new CertificateValidationCache(10, 300L, 60L);
+        List<X509Certificate> chain = Collections.singletonList(loadCertificate());
+        String key = CertificateValidationCache.getKey("version", chain, false, "CN=.*");
+
+        assertFalse(cache.isValidated(key));
+        cache.setValidated(key, chain, false);
+        assertTrue(cache.isValidated(key));
+
+        // a different version of the trust anchors, revocation setting or constraint is another key
+        assertFalse(cache.isValidated(CertificateValidationCache.getKey("version2", chain, false, "CN=.*")));
+        assertFalse(cache.isValidated(CertificateValidationCache.getKey("version", chain, true, "CN=.*")));
+        assertFalse(cache.isValidated(CertificateValidationCache.getKey("version", chain, false, "CN=a")));
+    }
+
+    @Test
+    public void testExpiry() throws Exception {
+        CertificateValidationCache cache = new CertificateValidationCache(10, 300L, 0L);
+        List<X509Certificate> chain = Collections.singletonList(loadCertificate());
+        String key = CertificateValidationCache.getKey("version", chain, true);
+        cache.setValidated(key, chain, true);
+        assertFalse(cache.isValidated(key));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testCacheIsBounded() throws Exception {
+        CertificateValidationCache cache = new CertificateValidationCache(10, 300L, 60L);
+        List<X509Certificate> chain = Collections.singletonList(loadCertificate());
+        for (int i = 0; i < 100; i++) {
+            cache.setValidated(CertificateValidationCache.getKey("version" + i, chain, false), chain, false);
+        }
+        assertEquals(10, cache.size());
+        assertTrue(cache.isValidated(CertificateValidationCache.getKey("version99", chain, false)));
+        assertFalse(cache.isValidated(CertificateValidationCache.getKey("version0", chain, false)));
+    }
+
+    @Test
+    public void testTrustStoreVersion() throws Exception {
+        X509Certificate cert = loadCertificate();
+        KeyStore trustStore1 = KeyStore.getInstance("PKCS12");
+        trustStore1.load(null, null);
+        trustStore1.setCertificateEntry("test", cert);
+        KeyStore trustStore2 = KeyStore.getInstance("PKCS12");
+        trustStore2.load(null, null);
+        trustStore2.setCertificateEntry("test", cert);
+        KeyStore empty = KeyStore.getInstance("PKCS12");
+        empty.load(null, null);
+
+        assertEquals(CertificateValidationCache.getVersion(trustStore1),
+                     CertificateValidationCache.getVersion(trustStore2));
+        assertNotEquals(CertificateValidationCache.getVersion(trustStore1),
+                        CertificateValidationCache.getVersion(empty));
+        assertNotEquals(CertificateValidationCache.getInstanceVersion(trustStore1),
+                        CertificateValidationCache.getInstanceVersion(trustStore2));
+    }
+
+    @Test
+    public void testTrustStoreSourceVersion() throws Exception {
+        KeyStore trustStore = KeyStore.getInstance("PKCS12");
+        trustStore.load(null, null);
+        trustStore.setCertificateEntry("test", loadCertificate());
+        KeyStore empty = KeyStore.getInstance("PKCS12");
+        empty.load(null, null);
+
+        String version = CertificateValidationCache.getVersion("file:/truststore.p12", 1000L, trustStore);
+        assertEquals(CertificateValidationCache.getVersion(trustStore), version);
+        // the same source, not modified since, is not digested again
+        assertEquals(version, CertificateValidationCache.getVersion("file:/truststore.p12", 1000L, empty));
+        assertNotEquals(version, CertificateValidationCache.getVersion("file:/truststore.p12", 2000L, empty));
+        assertNotEquals(version, CertificateValidationCache.getVersion("file:/truststore.p12", 0L, empty));
+    }
+
+    private static X509Certificate loadCertificate() throws Exception {
+        return (X509Certificate)CertificateFactory.getInstance("X.509").generateCertificate(
+            new ByteArrayInputStream(CERT.getBytes(StandardCharsets.US_ASCII)));
+    }
+}
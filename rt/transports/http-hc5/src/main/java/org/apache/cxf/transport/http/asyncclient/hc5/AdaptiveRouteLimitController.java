@@ -0,0 +1,144 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.http.asyncclient.hc5;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.cxf.common.logging.LogUtils;
+import org.apache.cxf.transport.http.asyncclient.hc5.ConnectionPoolMetrics.RouteMetrics;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.core5.pool.ConnPoolControl;
+
+/**
+ * Grows or shrinks the per-route connection limits of a connection pool from the
+ * latency observed by the {@link InstrumentedAsyncClientConnectionManager}. A route whose
+ * connection hold time degrades past the tolerated factor of its baseline has its limit
+ * decreased multiplicatively, so that a slow backend cannot take the whole pool; a healthy
+ * route with requests waiting for a connection has its limit increased, never going past
+ * the default maximum per route of the pool. The limit of a route without contention is left
+ * as it is.
+ */
+public class AdaptiveRouteLimitController {
+    private static final Logger LOG = LogUtils.getL7dLogger(AdaptiveRouteLimitController.class);
+    private static final double BASELINE_WEIGHT = 0.1;
+    private static final double DECREASE_FACTOR = 0.75;
+
+    private final ConnPoolControl<HttpRoute> pool;
+    private final ConnectionPoolMetrics metrics;
+    private final int minPerRoute;
+    private final double latencyTolerance;
+    private final long leaseWaitThreshold;
+    private final Map<HttpRoute, RouteState> states = new HashMap<>();
+
+    public AdaptiveRouteLimitController(ConnPoolControl<HttpRoute> pool, ConnectionPoolMetrics metrics,
+                                        int minPerRoute) {
+        this(pool, metrics, minPerRoute, 2.0d, TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    public AdaptiveRouteLimitController(ConnPoolControl<HttpRoute> pool, ConnectionPoolMetrics metrics,
+                                        int minPerRoute, double latencyTolerance, long leaseWaitThreshold) {
+        this.pool = pool;
+        this.metrics = metrics;
+        this.minPerRoute = Math.max(1, minPerRoute);
+        this.latencyTolerance = latencyTolerance;
+        this.leaseWaitThreshold = leaseWaitThreshold;
+    }
+
+    /**
+     * Re-evaluates the limit of every route currently known by the pool, meant to be
+     * called periodically.
+     */
+    public synchronized void adjust() {
+        final int maxPerRoute = pool.getDefaultMaxPerRoute();
+        final Set<HttpRoute> routes = pool.getRoutes();
+        // forget the routes the pool no longer has, they start over if they come back
+        states.keySet().retainAll(routes);
+        for (HttpRoute route : routes) {
+            final RouteState state = states.computeIfAbsent(route,
+                r -> new RouteState(metrics.getRouteMetrics(r), pool.getMaxPerRoute(r)));
+            final int limit = state.nextLimit(Math.max(minPerRoute, maxPerRoute));
+            if (limit != state.limit) {
+                if (LOG.isLoggable(Level.FINE)) {
+                    LOG.fine("Adjusting the connection limit of " + state.metrics.getRouteName()
+                        + " from " + state.limit + " to " + limit);
+                }
+                state.limit = limit;
+                pool.setMaxPerRoute(route, limit);
+            }
+            state.metrics.setMaxPerRoute(limit);
+        }
+    }
+
+    private final class RouteState {
+        private final RouteMetrics metrics;
+        private int limit;
+        private long lastLeaseCount;
+        private long lastLeaseTime;
+        private long lastReleaseCount;
+        private long lastHoldTime;
+        private double baseline = -1;
+
+        RouteState(RouteMetrics metrics, int limit) {
+            this.metrics = metrics;
+            this.limit = limit;
+        }
+
+        int nextLimit(int maxPerRoute) {
+            final long leaseCount = metrics.getLeaseCount();
+            final long leaseTime = metrics.getTotalLeaseTime();
+            final long releaseCount = metrics.getReleaseCount();
+            final long holdTime = metrics.getTotalHoldTime();
+
+            final long leases = leaseCount - lastLeaseCount;
+            final long releases = releaseCount - lastReleaseCount;
+            final double leaseWait = leases == 0 ? 0 : (double)(leaseTime - lastLeaseTime) / leases;
+            final double hold = releases == 0 ? -1 : (double)(holdTime - lastHoldTime) / releases;
+
+            lastLeaseCount = leaseCount;
+            lastLeaseTime = leaseTime;
+            lastReleaseCount = releaseCount;
+            lastHoldTime = holdTime;
+
+            int next = Math.min(limit, maxPerRoute);
+            if (hold < 0) {
+                // nothing completed during the last period, keep the current limit
+                return next;
+            }
+            if (baseline < 0 || hold < baseline) {
+                baseline = hold;
+            } else {
+                // let the baseline slowly follow a permanent change of the backend latency
+                baseline += (hold - baseline) * BASELINE_WEIGHT;
+            }
+
+            if (hold > baseline * latencyTolerance) {
+                next = (int)(next * DECREASE_FACTOR);
+            } else if (leaseWait > leaseWaitThreshold || metrics.getPendingLeases() > 0) {
+                next += Math.max(1, next / 10);
+            }
+            return Math.max(minPerRoute, Math.min(maxPerRoute, next));
+        }
+    }
+}
@@ -21,8 +21,11 @@ package org.apache.cxf.transport.http.asyncclient.hc5;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 
 import org.apache.cxf.Bus;
@@ -82,6 +85,13 @@ public class AsyncHTTPConduitFactory implements HTTPConduitFactory {
     public static final String CONNECTION_TTL = "org.apache.cxf.transport.http.async.CONNECTION_TTL";
     public static final String CONNECTION_MAX_IDLE = "org.apache.cxf.transport.http.async.CONNECTION_MAX_IDLE";
 
+    //ConnectionPool metrics and adaptive sizing
+    public static final String POOL_METRICS = "org.apache.cxf.transport.http.async.poolMetrics";
+    public static final String ADAPTIVE_POOL = "org.apache.cxf.transport.http.async.adaptivePool";
+    public static final String ADAPTIVE_POOL_MIN_PER_HOST_CONNECTIONS
+        = "org.apache.cxf.transport.http.async.adaptivePool.MIN_PER_HOST_CONNECTIONS";
+    public static final String ADAPTIVE_POOL_INTERVAL = "org.apache.cxf.transport.http.async.adaptivePool.interval";
+
     //AsycClient specific props
     public static final String THREAD_COUNT = "org.apache.cxf.transport.http.async.ioThreadCount";
     public static final String SELECT_INTERVAL = "org.apache.cxf.transport.http.async.selectInterval";
@@ -130,6 +140,11 @@ public class AsyncHTTPConduitFactory implements HTTPConduitFactory {
             this.connectionManager = connectionManager;
             this.client = client;
         }
+
+        ConnectionPoolMetrics getPoolMetrics() {
+            return connectionManager instanceof InstrumentedAsyncClientConnectionManager
+                ? ((InstrumentedAsyncClientConnectionManager)connectionManager).getMetrics() : null;
+        }
         
         public CloseableHttpAsyncClient getClient() {
             return client;
@@ -149,6 +164,13 @@ public class AsyncHTTPConduitFactory implements HTTPConduitFactory {
     private int connectionTTL = 60000;
     private int connectionMaxIdle = 60000;
 
+    private Bus metricsBus;
+    private final AtomicInteger poolCount = new AtomicInteger();
+    private boolean poolMetricsEnabled;
+    private boolean adaptivePool;
+    private int adaptiveMinPerRoute = 2;
+    private int adaptiveInterval = 5000;
+
     private int ioThreadCount = IOReactorConfig.DEFAULT.getIoThreadCount();
     private long selectInterval = IOReactorConfig.DEFAULT.getSelectInterval().toMilliseconds();
     private TimeValue soLinger = IOReactorConfig.DEFAULT.getSoLinger();
@@ -168,6 +190,7 @@ public class AsyncHTTPConduitFactory implements HTTPConduitFactory {
 
     public AsyncHTTPConduitFactory(Bus b) {
         this();
+        metricsBus = b;
         addListener(b);
         setProperties(b.getProperties());
     }
@@ -176,6 +199,21 @@ public class AsyncHTTPConduitFactory implements HTTPConduitFactory {
         return policy;
     }
 
+    /**
+     * @return the per-route statistics of the current connection pools, one per client policy,
+     *         only recorded if {@link #POOL_METRICS} or {@link #ADAPTIVE_POOL} is enabled
+     */
+    public List<ConnectionPoolMetrics> getConnectionPoolMetrics() {
+        final List<ConnectionPoolMetrics> metrics = new ArrayList<>();
+        for (AsyncClient client : clients.values()) {
+            final ConnectionPoolMetrics poolMetrics = client.getPoolMetrics();
+            if (poolMetrics != null) {
+                metrics.add(poolMetrics);
+            }
+        }
+        return metrics;
+    }
+
     public void update(Map<String, Object> props) {
         if (setProperties(props) && !clients.isEmpty()) {
             restartReactor();
@@ -241,6 +279,22 @@ public class AsyncHTTPConduitFactory implements HTTPConduitFactory {
         soKeepalive = getBoolean(s.get(SO_KEEPALIVE), false);
         changed |= b != soKeepalive;
 
+        b = poolMetricsEnabled;
+        poolMetricsEnabled = getBoolean(s.get(POOL_METRICS), false);
+        changed |= b != poolMetricsEnabled;
+
+        b = adaptivePool;
+        adaptivePool = getBoolean(s.get(ADAPTIVE_POOL), false);
+        changed |= b != adaptivePool;
+
+        i = adaptiveMinPerRoute;
+        adaptiveMinPerRoute = getInt(s.get(ADAPTIVE_POOL_MIN_PER_HOST_CONNECTIONS), 2);
+        changed |= i != adaptiveMinPerRoute;
+
+        i = adaptiveInterval;
+        adaptiveInterval = getInt(s.get(ADAPTIVE_POOL_INTERVAL), 5000);
+        changed |= i != adaptiveInterval;
+
         return changed;
     }
 
@@ -297,12 +351,20 @@ public class AsyncHTTPConduitFactory implements HTTPConduitFactory {
     private static void shutdown(Map<HTTPClientPolicy, AsyncClient> clients) {
         if (!clients.isEmpty()) {
             for (Map.Entry<HTTPClientPolicy, AsyncClient> entry: clients.entrySet()) {
-                shutdown(entry.getValue().getClient());
-                entry.getValue().getConnectionManager().close();
+                shutdown(entry.getValue());
             }
         }
     }
 
+    private static void shutdown(AsyncClient client) {
+        shutdown(client.getClient());
+        client.getConnectionManager().close();
+        final ConnectionPoolMetrics poolMetrics = client.getPoolMetrics();
+        if (poolMetrics != null) {
+            poolMetrics.unregister();
+        }
+    }
+
     private static void shutdown(CloseableHttpAsyncClient client) {
         try {
             client.close();
@@ -351,13 +413,29 @@ public class AsyncHTTPConduitFactory implements HTTPConduitFactory {
             .register("https", (tlsStrategy != null) ? tlsStrategy : DefaultClientTlsStrategy.createSystemDefault())
             .build();
 
-        final PoolingAsyncClientConnectionManager connectionManager = new PoolingAsyncClientConnectionManager(
-            tlsLookupStrategy,
-            PoolConcurrencyPolicy.STRICT,
-            PoolReusePolicy.LIFO,
-            TimeValue.ofMilliseconds(connectionTTL),
-            DefaultSchemePortResolver.INSTANCE,
-            SystemDefaultDnsResolver.INSTANCE);
+        final PoolingAsyncClientConnectionManager connectionManager;
+        final ConnectionPoolMetrics poolMetrics;
+        if (poolMetricsEnabled || adaptivePool) {
+            // the pools of the client policies are told apart by the name of their metrics
+            poolMetrics = new ConnectionPoolMetrics(metricsBus, "pool-" + poolCount.incrementAndGet());
+            connectionManager = new InstrumentedAsyncClientConnectionManager(
+                tlsLookupStrategy,
+                PoolConcurrencyPolicy.STRICT,
+                PoolReusePolicy.LIFO,
+                TimeValue.ofMilliseconds(connectionTTL),
+                DefaultSchemePortResolver.INSTANCE,
+                SystemDefaultDnsResolver.INSTANCE,
+                poolMetrics);
+        } else {
+            poolMetrics = null;
+            connectionManager = new PoolingAsyncClientConnectionManager(
+                tlsLookupStrategy,
+                PoolConcurrencyPolicy.STRICT,
+                PoolReusePolicy.LIFO,
+                TimeValue.ofMilliseconds(connectionTTL),
+                DefaultSchemePortResolver.INSTANCE,
+                SystemDefaultDnsResolver.INSTANCE);
+        }
 
         connectionManager.setDefaultMaxPerRoute(maxPerRoute);
         connectionManager.setMaxTotal(maxConnections);
@@ -399,7 +477,9 @@ public class AsyncHTTPConduitFactory implements HTTPConduitFactory {
         client.start();
         //Always start the idle checker thread to validate pending requests and
         //use the ConnectionMaxIdle to close the idle connection
-        new CloseIdleConnectionThread(connectionManager, client).start();
+        final AdaptiveRouteLimitController controller = adaptivePool
+            ? new AdaptiveRouteLimitController(connectionManager, poolMetrics, adaptiveMinPerRoute) : null;
+        new CloseIdleConnectionThread(connectionManager, client, controller).start();
 
         return new AsyncClient(connectionManager, client);
     }
@@ -424,16 +504,24 @@ public class AsyncHTTPConduitFactory implements HTTPConduitFactory {
     public class CloseIdleConnectionThread extends Thread {
         private final PoolingAsyncClientConnectionManager connMgr;
         private final CloseableHttpAsyncClient client;
+        private final AdaptiveRouteLimitController controller;
 
         public CloseIdleConnectionThread(PoolingAsyncClientConnectionManager connMgr, CloseableHttpAsyncClient client) {
+            this(connMgr, client, null);
+        }
+
+        public CloseIdleConnectionThread(PoolingAsyncClientConnectionManager connMgr, CloseableHttpAsyncClient client,
+                                         AdaptiveRouteLimitController controller) {
             super("CXFCloseIdleConnectionThread");
             this.connMgr = connMgr;
             this.client = client;
+            this.controller = controller;
         }
 
         @Override
         public void run() {
             long nextIdleCheck = System.currentTimeMillis() + connectionMaxIdle;
+            long nextAdjustment = System.currentTimeMillis() + adaptiveInterval;
             try {
                 while (client.getStatus() == IOReactorStatus.ACTIVE) {
                     synchronized (this) {
@@ -446,6 +534,12 @@ public class AsyncHTTPConduitFactory implements HTTPConduitFactory {
                             // that have been idle longer than specified connectionMaxIdle
                             connMgr.closeIdle(TimeValue.ofMilliseconds(connectionMaxIdle));
                         }
+
+                        if (controller != null && System.currentTimeMillis() >= nextAdjustment) {
+                            nextAdjustment += adaptiveInterval;
+                            // grow or shrink the per route limits from the observed latency
+                            controller.adjust();
+                        }
                     }
                 }
             } catch (InterruptedException ex) {
@@ -457,8 +551,8 @@ public class AsyncHTTPConduitFactory implements HTTPConduitFactory {
     public void close(HTTPClientPolicy clientPolicy) {
         final AsyncClient client = clients.remove(clientPolicy);
         if (client != null) {
-            shutdown(client.getClient());
-            client.getConnectionManager().close();
+            shutdown(client);
         }
     }
+
 }
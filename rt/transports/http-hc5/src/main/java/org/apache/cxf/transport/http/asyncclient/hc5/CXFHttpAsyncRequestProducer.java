@@ -19,13 +19,7 @@
 
 package org.apache.cxf.transport.http.asyncclient.hc5;
 
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.Buffer;
-import java.nio.ByteBuffer;
-import java.nio.channels.Channels;
-import java.nio.channels.ReadableByteChannel;
 
 import org.apache.cxf.io.CachedOutputStream;
 import org.apache.hc.core5.http.HttpException;
@@ -38,39 +32,32 @@ public class CXFHttpAsyncRequestProducer implements AsyncRequestProducer {
     private final CXFHttpRequest request;
     private final SharedOutputBuffer buf;
     private volatile CachedOutputStream content;
-    private volatile ByteBuffer buffer;
-    private volatile InputStream fis;
-    private volatile ReadableByteChannel chan;
+    private volatile CachedContentProducer producer;
 
     public CXFHttpAsyncRequestProducer(final CXFHttpRequest request, final SharedOutputBuffer buf) {
+        this(request, buf, null);
+    }
+
+    /**
+     * @param producer if not null, the request body is already fully available and is written by
+     *        the reactor straight from the cached content instead of going through the shared
+     *        output buffer
+     */
+    CXFHttpAsyncRequestProducer(final CXFHttpRequest request, final SharedOutputBuffer buf,
+                                final CachedContentProducer producer) {
         super();
         this.buf = buf;
         this.request = request;
+        this.producer = producer;
     }
 
     @Override
     public void produce(DataStreamChannel channel) throws IOException {
-        if (content != null) {
-            if (buffer == null) {
-                if (content.getTempFile() == null) {
-                    buffer = ByteBuffer.wrap(content.getBytes());
-                } else {
-                    fis = content.getInputStream();
-                    chan = (fis instanceof FileInputStream)
-                        ? ((FileInputStream)fis).getChannel() : Channels.newChannel(fis);
-                    buffer = ByteBuffer.allocate(8 * 1024);
-                }
-            }
-            int i = -1;
-            ((Buffer)buffer).rewind();
-            if (buffer.hasRemaining() && chan != null) {
-                i = chan.read(buffer);
-                buffer.flip();
-            }
-            channel.write(buffer);
-            if (!buffer.hasRemaining() && i == -1) {
-                channel.endStream();
-            }
+        if (producer == null && content != null) {
+            producer = CachedContentProducer.create(content);
+        }
+        if (producer != null) {
+            producer.produce(channel);
         } else {
             buf.produceContent(channel);
         }
@@ -100,16 +87,10 @@ public class CXFHttpAsyncRequestProducer implements AsyncRequestProducer {
     @Override
     public void releaseResources() {
         buf.close();
-        if (fis != null) {
-            try {
-                fis.close();
-            } catch (IOException io) {
-                //ignore
-            }
-            chan = null;
-            fis = null;
+        if (producer != null) {
+            producer.release();
+            producer = null;
         }
-        buffer = null;
         resetRequest();
     }
 
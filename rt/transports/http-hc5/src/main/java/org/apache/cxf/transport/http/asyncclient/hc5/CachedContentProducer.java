@@ -0,0 +1,110 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.http.asyncclient.hc5;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+
+import org.apache.cxf.helpers.LoadingByteArrayOutputStream;
+import org.apache.cxf.io.CachedOutputStream;
+import org.apache.hc.core5.http.nio.DataStreamChannel;
+
+/**
+ * Writes a request body which is already fully available, either in memory or spilled to
+ * a file by a {@link CachedOutputStream}, straight to the I/O reactor. The producer never
+ * blocks: it writes as much as the channel accepts and returns, the reactor calls it again
+ * once there is more capacity.
+ */
+final class CachedContentProducer {
+    private static final int FILE_BUFFER_SIZE = 8 * 1024;
+
+    private final ByteBuffer buffer;
+    private InputStream in;
+    private ReadableByteChannel chan;
+    private boolean eof;
+
+    private CachedContentProducer(ByteBuffer buffer, InputStream in) {
+        this.buffer = buffer;
+        this.in = in;
+        if (in != null) {
+            chan = (in instanceof FileInputStream)
+                ? ((FileInputStream)in).getChannel() : Channels.newChannel(in);
+            buffer.flip();
+        } else {
+            eof = true;
+        }
+    }
+
+    static CachedContentProducer create(byte[] bytes, int off, int len) {
+        return new CachedContentProducer(ByteBuffer.wrap(bytes, off, len), null);
+    }
+
+    /**
+     * Creates a producer reading the content of the cached stream. The content is accessed
+     * without copying it: the raw bytes of an in-memory cache are wrapped, a spilled file is
+     * opened so that it stays available even once the cached stream is closed.
+     */
+    static CachedContentProducer create(CachedOutputStream cos) throws IOException {
+        if (cos.getTempFile() == null) {
+            if (cos.getOut() instanceof LoadingByteArrayOutputStream) {
+                final LoadingByteArrayOutputStream bout = (LoadingByteArrayOutputStream)cos.getOut();
+                return create(bout.getRawBytes(), 0, bout.size());
+            }
+            final byte[] bytes = cos.getBytes();
+            return create(bytes, 0, bytes.length);
+        }
+        return new CachedContentProducer(ByteBuffer.allocate(FILE_BUFFER_SIZE), cos.getInputStream());
+    }
+
+    void produce(DataStreamChannel channel) throws IOException {
+        while (true) {
+            if (!buffer.hasRemaining() && !eof) {
+                buffer.clear();
+                eof = chan.read(buffer) == -1;
+                buffer.flip();
+            }
+            if (buffer.hasRemaining() && channel.write(buffer) == 0) {
+                // no more capacity, wait for the reactor to call again
+                return;
+            }
+            if (!buffer.hasRemaining() && eof) {
+                channel.endStream();
+                release();
+                return;
+            }
+        }
+    }
+
+    void release() {
+        if (in != null) {
+            try {
+                in.close();
+            } catch (IOException io) {
+                //ignore
+            }
+            chan = null;
+            in = null;
+        }
+    }
+}
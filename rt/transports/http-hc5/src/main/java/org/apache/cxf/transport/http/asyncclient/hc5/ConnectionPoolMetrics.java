@@ -0,0 +1,290 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.http.asyncclient.hc5;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.common.logging.LogUtils;
+import org.apache.cxf.management.InstrumentationManager;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.pool.ConnPoolControl;
+import org.apache.hc.core5.pool.PoolStats;
+
+/**
+ * Per-route connection pool statistics collected by the
+ * {@link InstrumentedAsyncClientConnectionManager} of a single connection pool. An
+ * {@link AsyncHTTPConduitFactory} creates one instance, with a name of its own, for each of
+ * its connection managers; routes are keyed by their target host and proxy. If the bus has an
+ * {@link InstrumentationManager}, every route is exposed as a JMX bean next to the other CXF
+ * metrics.
+ */
+public class ConnectionPoolMetrics {
+    private static final Logger LOG = LogUtils.getL7dLogger(ConnectionPoolMetrics.class);
+
+    private final Map<String, RouteMetrics> routes = new ConcurrentHashMap<>();
+    private final Bus bus;
+    private final String poolName;
+    private volatile ConnPoolControl<HttpRoute> pool;
+
+    public ConnectionPoolMetrics() {
+        this(null, null);
+    }
+
+    public ConnectionPoolMetrics(Bus bus) {
+        this(bus, null);
+    }
+
+    /**
+     * @param bus the bus the route beans are registered with, may be null
+     * @param poolName the name distinguishing the beans of this pool from the ones of the other
+     *        pools of the bus, may be null
+     */
+    public ConnectionPoolMetrics(Bus bus, String poolName) {
+        this.bus = bus;
+        this.poolName = poolName;
+    }
+
+    public String getPoolName() {
+        return poolName;
+    }
+
+    /**
+     * Sets the pool whose statistics are recorded, which gives the number of connections
+     * it currently keeps
+     */
+    public void setPool(ConnPoolControl<HttpRoute> pool) {
+        this.pool = pool;
+    }
+
+    public RouteMetrics getRouteMetrics(HttpRoute route) {
+        final RouteMetrics metrics = getRouteMetrics(getRouteName(route));
+        if (metrics.route == null) {
+            metrics.route = route;
+        }
+        return metrics;
+    }
+
+    public RouteMetrics getRouteMetrics(String routeName) {
+        RouteMetrics metrics = routes.get(routeName);
+        if (metrics == null) {
+            metrics = routes.computeIfAbsent(routeName, name -> new RouteMetrics(this, name));
+            register(metrics);
+        }
+        return metrics;
+    }
+
+    public Map<String, RouteMetrics> getRoutes() {
+        return Collections.unmodifiableMap(routes);
+    }
+
+    /**
+     * Unregisters the JMX beans of the routes, called when the conduit factory is shut down
+     */
+    public void unregister() {
+        if (bus == null) {
+            return;
+        }
+        InstrumentationManager im = bus.getExtension(InstrumentationManager.class);
+        for (RouteMetrics metrics : routes.values()) {
+            if (metrics.registered.compareAndSet(true, false) && im != null && im.getMBeanServer() != null) {
+                try {
+                    im.unregister(new ConnectionPoolRouteMBeanWrapper(bus, metrics));
+                } catch (JMException jmex) {
+                    LOG.log(Level.FINE, "Failed to unregister connection pool metrics for "
+                        + metrics.getRouteName(), jmex);
+                }
+            }
+        }
+    }
+
+    static String getRouteName(HttpRoute route) {
+        final HttpHost proxy = route.getProxyHost();
+        return proxy == null ? route.getTargetHost().toURI()
+            : route.getTargetHost().toURI() + " via " + proxy.toURI();
+    }
+
+    private void register(RouteMetrics metrics) {
+        if (bus == null || !metrics.registered.compareAndSet(false, true)) {
+            return;
+        }
+        InstrumentationManager im = bus.getExtension(InstrumentationManager.class);
+        if (im != null && im.getMBeanServer() != null) {
+            try {
+                im.register(new ConnectionPoolRouteMBeanWrapper(bus, metrics));
+            } catch (JMException jmex) {
+                LOG.log(Level.WARNING, "Failed to register connection pool metrics for "
+                    + metrics.getRouteName(), jmex);
+            }
+        }
+    }
+
+    /**
+     * The statistics of a single route. All the updates are lock free so that recording
+     * from the I/O dispatcher threads does not contend.
+     */
+    public static class RouteMetrics {
+        private final ConnectionPoolMetrics owner;
+        private final String routeName;
+        private volatile HttpRoute route;
+        private final AtomicBoolean registered = new AtomicBoolean();
+        private final AtomicInteger pending = new AtomicInteger();
+        private final AtomicInteger leased = new AtomicInteger();
+        private final LongAdder leaseCount = new LongAdder();
+        private final LongAdder leaseTime = new LongAdder();
+        private final LongAccumulator maxLeaseTime = new LongAccumulator(Math::max, 0);
+        private final LongAdder leaseFailures = new LongAdder();
+        private final LongAdder releaseCount = new LongAdder();
+        private final LongAdder holdTime = new LongAdder();
+        private final LongAdder connectionsOpened = new LongAdder();
+        private volatile int maxPerRoute = -1;
+
+        RouteMetrics(ConnectionPoolMetrics owner, String routeName) {
+            this.owner = owner;
+            this.routeName = routeName;
+        }
+
+        void leaseRequested() {
+            pending.incrementAndGet();
+        }
+
+        void leaseCompleted(long leaseTimeNanos, boolean newConnection) {
+            pending.decrementAndGet();
+            leased.incrementAndGet();
+            leaseCount.increment();
+            leaseTime.add(leaseTimeNanos);
+            maxLeaseTime.accumulate(leaseTimeNanos);
+            if (newConnection) {
+                connectionsOpened.increment();
+            }
+        }
+
+        void leaseFailed() {
+            pending.decrementAndGet();
+            leaseFailures.increment();
+        }
+
+        void released(long holdTimeNanos) {
+            leased.decrementAndGet();
+            releaseCount.increment();
+            holdTime.add(holdTimeNanos);
+        }
+
+        void setMaxPerRoute(int maxPerRoute) {
+            this.maxPerRoute = maxPerRoute;
+        }
+
+        public String getRouteName() {
+            return routeName;
+        }
+
+        public String getPoolName() {
+            return owner.poolName;
+        }
+
+        /**
+         * @return the number of callers currently waiting for a connection to this route
+         */
+        public int getPendingLeases() {
+            return pending.get();
+        }
+
+        /**
+         * @return the number of connections to this route currently in use
+         */
+        public int getLeasedConnections() {
+            return leased.get();
+        }
+
+        public long getLeaseCount() {
+            return leaseCount.sum();
+        }
+
+        public long getLeaseFailures() {
+            return leaseFailures.sum();
+        }
+
+        public long getTotalLeaseTime() {
+            return leaseTime.sum();
+        }
+
+        public double getAverageLeaseTimeMillis() {
+            long count = leaseCount.sum();
+            return count == 0 ? 0 : (double)leaseTime.sum() / count / TimeUnit.MILLISECONDS.toNanos(1);
+        }
+
+        public double getMaxLeaseTimeMillis() {
+            return (double)maxLeaseTime.get() / TimeUnit.MILLISECONDS.toNanos(1);
+        }
+
+        public long getReleaseCount() {
+            return releaseCount.sum();
+        }
+
+        public long getTotalHoldTime() {
+            return holdTime.sum();
+        }
+
+        public double getAverageHoldTimeMillis() {
+            long count = releaseCount.sum();
+            return count == 0 ? 0 : (double)holdTime.sum() / count / TimeUnit.MILLISECONDS.toNanos(1);
+        }
+
+        public long getConnectionsOpened() {
+            return connectionsOpened.sum();
+        }
+
+        /**
+         * @return the number of connections closed, be it on release or by the pool once idle
+         *         or expired, or -1 if the pool is not known. It is computed from the connections
+         *         opened and the connections the pool currently keeps, leased or available, as
+         *         the pool does not report the connections it closes.
+         */
+        public long getConnectionsClosed() {
+            final ConnPoolControl<HttpRoute> pool = owner.pool;
+            final HttpRoute r = route;
+            if (pool == null || r == null) {
+                return -1;
+            }
+            final PoolStats stats = pool.getStats(r);
+            return Math.max(0, connectionsOpened.sum() - stats.getLeased() - stats.getAvailable());
+        }
+
+        /**
+         * @return the per-route connection limit currently applied by the adaptive controller,
+         *         or -1 if adaptive sizing is not enabled
+         */
+        public int getMaxPerRoute() {
+            return maxPerRoute;
+        }
+    }
+}
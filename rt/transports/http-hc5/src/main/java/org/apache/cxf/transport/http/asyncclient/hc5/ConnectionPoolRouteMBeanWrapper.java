@@ -0,0 +1,106 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.http.asyncclient.hc5;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.management.ManagedComponent;
+import org.apache.cxf.management.ManagementConstants;
+import org.apache.cxf.management.annotation.ManagedAttribute;
+import org.apache.cxf.management.annotation.ManagedResource;
+import org.apache.cxf.transport.http.asyncclient.hc5.ConnectionPoolMetrics.RouteMetrics;
+
+@ManagedResource(componentName = "HTTPClientConnectionPool",
+                 description = "The async HTTP client connection pool statistics of a route",
+                 currencyTimeLimit = 15, persistPolicy = "OnUpdate", persistPeriod = 200)
+public class ConnectionPoolRouteMBeanWrapper implements ManagedComponent {
+    private static final String TYPE_VALUE = "HTTPClientConnectionPool";
+
+    private final RouteMetrics metrics;
+    private final String objectName;
+
+    public ConnectionPoolRouteMBeanWrapper(Bus bus, RouteMetrics metrics) {
+        this.metrics = metrics;
+        final StringBuilder name = new StringBuilder(ManagementConstants.DEFAULT_DOMAIN_NAME).append(':')
+            .append(ManagementConstants.BUS_ID_PROP).append('=').append(bus.getId()).append(',')
+            .append(ManagementConstants.TYPE_PROP).append('=').append(TYPE_VALUE).append(',');
+        if (metrics.getPoolName() != null) {
+            name.append("pool=").append(ObjectName.quote(metrics.getPoolName())).append(',');
+        }
+        objectName = name.append(ManagementConstants.NAME_PROP).append('=')
+            .append(ObjectName.quote(metrics.getRouteName())).toString();
+    }
+
+    @ManagedAttribute(description = "The number of requests waiting for a connection")
+    public int getPendingLeases() {
+        return metrics.getPendingLeases();
+    }
+
+    @ManagedAttribute(description = "The number of connections currently in use")
+    public int getLeasedConnections() {
+        return metrics.getLeasedConnections();
+    }
+
+    @ManagedAttribute(description = "The number of connections leased")
+    public long getLeaseCount() {
+        return metrics.getLeaseCount();
+    }
+
+    @ManagedAttribute(description = "The number of leases that failed or were cancelled")
+    public long getLeaseFailures() {
+        return metrics.getLeaseFailures();
+    }
+
+    @ManagedAttribute(description = "The average time in milliseconds spent waiting for a connection")
+    public double getAverageLeaseTime() {
+        return metrics.getAverageLeaseTimeMillis();
+    }
+
+    @ManagedAttribute(description = "The maximum time in milliseconds spent waiting for a connection")
+    public double getMaxLeaseTime() {
+        return metrics.getMaxLeaseTimeMillis();
+    }
+
+    @ManagedAttribute(description = "The average time in milliseconds a connection is held by a request")
+    public double getAverageHoldTime() {
+        return metrics.getAverageHoldTimeMillis();
+    }
+
+    @ManagedAttribute(description = "The number of connections opened")
+    public long getConnectionsOpened() {
+        return metrics.getConnectionsOpened();
+    }
+
+    @ManagedAttribute(description = "The number of connections closed, on release or by the pool")
+    public long getConnectionsClosed() {
+        return metrics.getConnectionsClosed();
+    }
+
+    @ManagedAttribute(description = "The adaptive per-route connection limit, -1 if not enabled")
+    public int getMaxPerRoute() {
+        return metrics.getMaxPerRoute();
+    }
+
+    public ObjectName getObjectName() throws JMException {
+        return new ObjectName(objectName);
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.http.asyncclient.hc5;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+
+import org.apache.cxf.transport.http.asyncclient.hc5.ConnectionPoolMetrics.RouteMetrics;
+import org.apache.hc.client5.http.DnsResolver;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.SchemePortResolver;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.nio.AsyncConnectionEndpoint;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.config.Lookup;
+import org.apache.hc.core5.http.nio.ssl.TlsStrategy;
+import org.apache.hc.core5.pool.PoolConcurrencyPolicy;
+import org.apache.hc.core5.pool.PoolReusePolicy;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+/**
+ * A {@link PoolingAsyncClientConnectionManager} recording the lease time, the pending
+ * leases, the connection hold time and the connection churn of every route into the
+ * {@link ConnectionPoolMetrics} of its pool.
+ */
+public class InstrumentedAsyncClientConnectionManager extends PoolingAsyncClientConnectionManager {
+    private final ConnectionPoolMetrics metrics;
+    private final Map<AsyncConnectionEndpoint, Lease> leases = new ConcurrentHashMap<>();
+
+    public InstrumentedAsyncClientConnectionManager(Lookup<TlsStrategy> tlsStrategyLookup,
+                                                    PoolConcurrencyPolicy poolConcurrencyPolicy,
+                                                    PoolReusePolicy poolReusePolicy,
+                                                    TimeValue timeToLive,
+                                                    SchemePortResolver schemePortResolver,
+                                                    DnsResolver dnsResolver,
+                                                    ConnectionPoolMetrics metrics) {
+        super(tlsStrategyLookup, poolConcurrencyPolicy, poolReusePolicy, timeToLive,
+              schemePortResolver, dnsResolver);
+        this.metrics = metrics;
+        metrics.setPool(this);
+    }
+
+    public ConnectionPoolMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public Future<AsyncConnectionEndpoint> lease(String id, HttpRoute route, Object state,
+            Timeout requestTimeout, FutureCallback<AsyncConnectionEndpoint> callback) {
+        final RouteMetrics routeMetrics = metrics.getRouteMetrics(route);
+        final long start = System.nanoTime();
+        routeMetrics.leaseRequested();
+        return super.lease(id, route, state, requestTimeout, new FutureCallback<AsyncConnectionEndpoint>() {
+            @Override
+            public void completed(AsyncConnectionEndpoint endpoint) {
+                final long now = System.nanoTime();
+                routeMetrics.leaseCompleted(now - start, !endpoint.isConnected());
+                leases.put(endpoint, new Lease(routeMetrics, now));
+                if (callback != null) {
+                    callback.completed(endpoint);
+                }
+            }
+
+            @Override
+            public void failed(Exception ex) {
+                routeMetrics.leaseFailed();
+                if (callback != null) {
+                    callback.failed(ex);
+                }
+            }
+
+            @Override
+            public void cancelled() {
+                routeMetrics.leaseFailed();
+                if (callback != null) {
+                    callback.cancelled();
+                }
+            }
+        });
+    }
+
+    @Override
+    public void release(AsyncConnectionEndpoint endpoint, Object state, TimeValue keepAlive) {
+        final Lease lease = leases.remove(endpoint);
+        if (lease != null) {
+            lease.routeMetrics.released(System.nanoTime() - lease.leasedAt);
+        }
+        super.release(endpoint, state, keepAlive);
+    }
+
+    private static final class Lease {
+        private final RouteMetrics routeMetrics;
+        private final long leasedAt;
+
+        Lease(RouteMetrics routeMetrics, long leasedAt) {
+            this.routeMetrics = routeMetrics;
+            this.leasedAt = leasedAt;
+        }
+    }
+}
@@ -290,6 +290,8 @@ public class URLConnectionAsyncHTTPConduit extends URLConnectionHTTPConduit {
         private boolean isAsync;
         private SharedInputBuffer inbuf;
         private SharedOutputBuffer outbuf;
+        // The fully cached request body, written by the I/O reactor without any hand-off
+        private CachedContentProducer cachedContent;
 
         // Objects for the response
         private volatile HttpResponse httpResponse;
@@ -431,10 +433,18 @@ public class URLConnectionAsyncHTTPConduit extends URLConnectionHTTPConduit {
                 try (CachedOutputStream out = (CachedOutputStream)wrappedStream) {
                     this.basicEntity.setContentLength(out.size());
                     wrappedStream = null;
+                    if (!cachingForRetransmission && out.size() > 0) {
+                        // The whole body is known, let the reactor stream it from the cache
+                        // instead of blocking this thread on the shared output buffer
+                        cachedContent = CachedContentProducer.create(out);
+                    }
                     handleHeadersTrustCaching();
                     // The wrappedStrem could be null for KNOWN_HTTP_VERBS_WITH_NO_CONTENT or empty
                     // requests (org.apache.cxf.empty.request)
-                    if (wrappedStream != null) {
+                    if (wrappedStream == null && cachedContent != null) {
+                        cachedContent.release();
+                        cachedContent = null;
+                    } else if (wrappedStream != null && cachedContent == null) {
                         out.writeCacheTo(wrappedStream);
                     }
                 }
@@ -453,6 +463,14 @@ public class URLConnectionAsyncHTTPConduit extends URLConnectionHTTPConduit {
 
         protected void setupWrappedStream() throws IOException {
             connect(true);
+            if (cachedContent != null) {
+                wrappedStream = new OutputStream() {
+                    public void write(int b) throws IOException {
+                        throw new IOException("The request content has already been provided");
+                    }
+                };
+                return;
+            }
             wrappedStream = new OutputStream() {
                 public void write(byte[] b, int off, int len) throws IOException {
                     if (exception instanceof IOException) {
@@ -616,7 +634,7 @@ public class URLConnectionAsyncHTTPConduit extends URLConnectionHTTPConduit {
                 ctx.setAuthSchemeRegistry(asp);
             }
 
-            c.execute(new CXFHttpAsyncRequestProducer(entity, outbuf),
+            c.execute(new CXFHttpAsyncRequestProducer(entity, outbuf, output ? cachedContent : null),
                       new CXFHttpAsyncResponseConsumer(this, inbuf, responseCallback),
                       null, /* the push handler factory, optional and may be null */
                       ctx,
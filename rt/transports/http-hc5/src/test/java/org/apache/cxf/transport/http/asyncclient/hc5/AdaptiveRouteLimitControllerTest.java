@@ -0,0 +1,202 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.http.asyncclient.hc5;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cxf.transport.http.asyncclient.hc5.ConnectionPoolMetrics.RouteMetrics;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.pool.ConnPoolControl;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveRouteLimitControllerTest {
+    private final HttpRoute route = new HttpRoute(new HttpHost("http", "localhost", 8080));
+
+    @Test
+    public void testShrinksSlowRouteAndGrowsBack() {
+        final StubPool pool = new StubPool(route, 20);
+        final ConnectionPoolMetrics metrics = new ConnectionPoolMetrics();
+        final RouteMetrics routeMetrics = metrics.getRouteMetrics(route);
+        final AdaptiveRouteLimitController controller = new AdaptiveRouteLimitController(pool, metrics, 2);
+
+        record(routeMetrics, 10, 10);
+        controller.adjust();
+        assertEquals(20, pool.getMaxPerRoute(route));
+
+        // the backend slows down, its share of the pool is reduced
+        record(routeMetrics, 10, 200);
+        controller.adjust();
+        assertEquals(15, pool.getMaxPerRoute(route));
+        assertEquals(15, routeMetrics.getMaxPerRoute());
+
+        record(routeMetrics, 10, 200);
+        controller.adjust();
+        assertTrue(pool.getMaxPerRoute(route) < 15);
+
+        // healthy again with callers waiting for a connection
+        for (int i = 0; i < 20; i++) {
+            routeMetrics.leaseRequested();
+            record(routeMetrics, 10, 5);
+            controller.adjust();
+        }
+        assertEquals(20, pool.getMaxPerRoute(route));
+    }
+
+    @Test
+    public void testDoesNotGrowWithoutContention() {
+        final StubPool pool = new StubPool(route, 20);
+        final ConnectionPoolMetrics metrics = new ConnectionPoolMetrics();
+        final RouteMetrics routeMetrics = metrics.getRouteMetrics(route);
+        final AdaptiveRouteLimitController controller = new AdaptiveRouteLimitController(pool, metrics, 2);
+
+        record(routeMetrics, 10, 10);
+        controller.adjust();
+        record(routeMetrics, 10, 200);
+        controller.adjust();
+        assertEquals(15, pool.getMaxPerRoute(route));
+
+        // healthy again, but no caller is waiting for a connection
+        for (int i = 0; i < 10; i++) {
+            record(routeMetrics, 10, 5);
+            controller.adjust();
+        }
+        assertEquals(15, pool.getMaxPerRoute(route));
+    }
+
+    @Test
+    public void testNeverBelowMinimum() {
+        final StubPool pool = new StubPool(route, 4);
+        final ConnectionPoolMetrics metrics = new ConnectionPoolMetrics();
+        final RouteMetrics routeMetrics = metrics.getRouteMetrics(route);
+        final AdaptiveRouteLimitController controller = new AdaptiveRouteLimitController(pool, metrics, 3);
+
+        record(routeMetrics, 10, 1);
+        controller.adjust();
+        for (int i = 0; i < 5; i++) {
+            record(routeMetrics, 10, 1000);
+            controller.adjust();
+        }
+        assertEquals(3, pool.getMaxPerRoute(route));
+    }
+
+    @Test
+    public void testForgetsRoutesLeavingThePool() {
+        final StubPool pool = new StubPool(route, 20);
+        final ConnectionPoolMetrics metrics = new ConnectionPoolMetrics();
+        final RouteMetrics routeMetrics = metrics.getRouteMetrics(route);
+        final AdaptiveRouteLimitController controller = new AdaptiveRouteLimitController(pool, metrics, 2);
+
+        record(routeMetrics, 10, 10);
+        controller.adjust();
+
+        // the route leaves the pool, e.g. once its connections were closed as idle
+        pool.routes.clear();
+        controller.adjust();
+        pool.routes.add(route);
+
+        // the latency of the route is measured again rather than compared to its old baseline
+        record(routeMetrics, 10, 100);
+        controller.adjust();
+        assertEquals(20, pool.getMaxPerRoute(route));
+    }
+
+    private static void record(RouteMetrics routeMetrics, int count, long holdTimeMillis) {
+        for (int i = 0; i < count; i++) {
+            routeMetrics.leaseRequested();
+            routeMetrics.leaseCompleted(0, false);
+            routeMetrics.released(TimeUnit.MILLISECONDS.toNanos(holdTimeMillis));
+        }
+    }
+
+    private static final class StubPool implements ConnPoolControl<HttpRoute> {
+        private final Set<HttpRoute> routes;
+        private final Map<HttpRoute, Integer> limits = new HashMap<>();
+        private int defaultMaxPerRoute;
+
+        StubPool(HttpRoute route, int defaultMaxPerRoute) {
+            this.routes = new HashSet<>(Collections.singleton(route));
+            this.defaultMaxPerRoute = defaultMaxPerRoute;
+        }
+
+        @Override
+        public PoolStats getTotalStats() {
+            return null;
+        }
+
+        @Override
+        public PoolStats getStats(HttpRoute r) {
+            return null;
+        }
+
+        @Override
+        public void setMaxTotal(int max) {
+        }
+
+        @Override
+        public int getMaxTotal() {
+            return 0;
+        }
+
+        @Override
+        public void setDefaultMaxPerRoute(int max) {
+            defaultMaxPerRoute = max;
+        }
+
+        @Override
+        public int getDefaultMaxPerRoute() {
+            return defaultMaxPerRoute;
+        }
+
+        @Override
+        public void setMaxPerRoute(HttpRoute r, int max) {
+            limits.put(r, max);
+        }
+
+        @Override
+        public int getMaxPerRoute(HttpRoute r) {
+            return limits.getOrDefault(r, defaultMaxPerRoute);
+        }
+
+        @Override
+        public void closeIdle(TimeValue idleTime) {
+        }
+
+        @Override
+        public void closeExpired() {
+        }
+
+        @Override
+        public Set<HttpRoute> getRoutes() {
+            return routes;
+        }
+    }
+}
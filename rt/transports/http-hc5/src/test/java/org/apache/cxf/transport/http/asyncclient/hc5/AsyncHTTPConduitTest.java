@@ -251,6 +251,21 @@ public class AsyncHTTPConduitTest extends AbstractBusClientServerTestBase {
         assertEquals("Hello " + request, g.greetMe(request));
     }
 
+    @Test
+    public void testCallLargeCachedRequest() throws Exception {
+        updateAddressPort(g, PORT);
+        HTTPConduit c = (HTTPConduit)ClientProxy.getClient(g).getConduit();
+        HTTPClientPolicy cp = new HTTPClientPolicy();
+        cp.setAllowChunking(false);
+        c.setClient(cp);
+        // large enough to be spilled to a temporary file by the CachedOutputStream
+        String large = String.join("", Collections.nCopies(256 * 1024, "x"));
+        assertEquals("Hello " + large, g.greetMe(large));
+        Response<GreetMeResponse> future = g.greetMeAsync(large);
+        assertEquals("Hello " + large, future.get(30, TimeUnit.SECONDS).getResponseType());
+        c.setClient(new HTTPClientPolicy());
+    }
+
     @Test
     public void testCallAsync() throws Exception {
         updateAddressPort(g, PORT);
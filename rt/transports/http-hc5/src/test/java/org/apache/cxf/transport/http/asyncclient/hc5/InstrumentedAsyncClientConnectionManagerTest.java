@@ -0,0 +1,263 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.transport.http.asyncclient.hc5;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.cxf.bus.extension.ExtensionManagerBus;
+import org.apache.cxf.management.InstrumentationManager;
+import org.apache.cxf.management.ManagedComponent;
+import org.apache.cxf.transport.http.asyncclient.hc5.ConnectionPoolMetrics.RouteMetrics;
+import org.apache.cxf.transports.http.configuration.HTTPClientPolicy;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.SystemDefaultDnsResolver;
+import org.apache.hc.client5.http.impl.DefaultSchemePortResolver;
+import org.apache.hc.client5.http.nio.AsyncConnectionEndpoint;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.config.RegistryBuilder;
+import org.apache.hc.core5.http.nio.ssl.TlsStrategy;
+import org.apache.hc.core5.pool.PoolConcurrencyPolicy;
+import org.apache.hc.core5.pool.PoolReusePolicy;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class InstrumentedAsyncClientConnectionManagerTest {
+    private final HttpRoute route = new HttpRoute(new HttpHost("http", "localhost", 8080));
+    private ConnectionPoolMetrics metrics;
+    private InstrumentedAsyncClientConnectionManager manager;
+
+    @Before
+    public void setUp() {
+        metrics = new ConnectionPoolMetrics();
+        manager = createManager(metrics);
+    }
+
+    @After
+    public void tearDown() {
+        manager.close();
+    }
+
+    @Test
+    public void testLeaseAndRelease() throws Exception {
+        AsyncConnectionEndpoint endpoint = lease().get(5, TimeUnit.SECONDS);
+        RouteMetrics routeMetrics = metrics.getRouteMetrics(route);
+        assertEquals(1, routeMetrics.getLeaseCount());
+        assertEquals(1, routeMetrics.getLeasedConnections());
+        assertEquals(0, routeMetrics.getPendingLeases());
+        // the endpoint is not connected yet, so a new connection is opened for it
+        assertEquals(1, routeMetrics.getConnectionsOpened());
+        assertEquals(0, routeMetrics.getConnectionsClosed());
+
+        manager.release(endpoint, null, TimeValue.ZERO_MILLISECONDS);
+        assertEquals(1, routeMetrics.getReleaseCount());
+        assertEquals(0, routeMetrics.getLeasedConnections());
+        assertEquals(1, routeMetrics.getConnectionsClosed());
+
+        // a released endpoint is only recorded once
+        manager.release(endpoint, null, TimeValue.ZERO_MILLISECONDS);
+        assertEquals(1, routeMetrics.getReleaseCount());
+    }
+
+    @Test
+    public void testPendingLeases() throws Exception {
+        manager.setMaxPerRoute(route, 1);
+        AsyncConnectionEndpoint endpoint = lease().get(5, TimeUnit.SECONDS);
+        RouteMetrics routeMetrics = metrics.getRouteMetrics(route);
+
+        Future<AsyncConnectionEndpoint> waiting = lease();
+        assertFalse(waiting.isDone());
+        assertEquals(1, routeMetrics.getPendingLeases());
+
+        manager.release(endpoint, null, TimeValue.ZERO_MILLISECONDS);
+        AsyncConnectionEndpoint next = waiting.get(5, TimeUnit.SECONDS);
+        assertEquals(0, routeMetrics.getPendingLeases());
+        assertEquals(2, routeMetrics.getLeaseCount());
+
+        Future<AsyncConnectionEndpoint> cancelled = lease();
+        assertEquals(1, routeMetrics.getPendingLeases());
+        cancelled.cancel(true);
+        assertEquals(0, routeMetrics.getPendingLeases());
+        assertEquals(1, routeMetrics.getLeaseFailures());
+        manager.release(next, null, TimeValue.ZERO_MILLISECONDS);
+    }
+
+    @Test
+    public void testConnectionsClosedUnknownWithoutPool() {
+        assertEquals(-1, new ConnectionPoolMetrics().getRouteMetrics(route).getConnectionsClosed());
+    }
+
+    @Test
+    public void testRouteBeansPerPool() throws Exception {
+        ExtensionManagerBus bus = new ExtensionManagerBus();
+        StubInstrumentationManager im = new StubInstrumentationManager();
+        bus.setExtension(im, InstrumentationManager.class);
+        ConnectionPoolMetrics first = new ConnectionPoolMetrics(bus, "pool-1");
+        ConnectionPoolMetrics second = new ConnectionPoolMetrics(bus, "pool-2");
+        InstrumentedAsyncClientConnectionManager firstManager = createManager(first);
+        InstrumentedAsyncClientConnectionManager secondManager = createManager(second);
+        try {
+            firstManager.release(lease(firstManager).get(5, TimeUnit.SECONDS), null, TimeValue.ZERO_MILLISECONDS);
+            secondManager.release(lease(secondManager).get(5, TimeUnit.SECONDS), null, TimeValue.ZERO_MILLISECONDS);
+            // the same route of two pools is recorded, and exposed, separately
+            assertEquals(1, first.getRouteMetrics(route).getLeaseCount());
+            assertEquals(1, second.getRouteMetrics(route).getLeaseCount());
+            assertEquals(2, im.names.size());
+            first.unregister();
+            assertEquals(1, im.names.size());
+        } finally {
+            firstManager.close();
+            secondManager.close();
+            bus.shutdown(true);
+        }
+    }
+
+    @Test
+    public void testPoolMetricsPerClientPolicy() {
+        Map<String, Object> conf = new HashMap<>();
+        conf.put(AsyncHTTPConduitFactory.POOL_METRICS, Boolean.TRUE);
+        AsyncHTTPConduitFactory factory = new AsyncHTTPConduitFactory(conf);
+        try {
+            HTTPClientPolicy first = new HTTPClientPolicy();
+            HTTPClientPolicy second = new HTTPClientPolicy();
+            second.setConnectionTimeout(1000);
+            factory.setupNIOClient(first, null);
+            factory.setupNIOClient(second, null);
+
+            List<ConnectionPoolMetrics> poolMetrics = factory.getConnectionPoolMetrics();
+            assertEquals(2, poolMetrics.size());
+            assertNotEquals(poolMetrics.get(0).getPoolName(), poolMetrics.get(1).getPoolName());
+        } finally {
+            factory.shutdown();
+        }
+        assertTrue(factory.getConnectionPoolMetrics().isEmpty());
+    }
+
+    @Test
+    public void testRouteBeansUnregistered() throws Exception {
+        ExtensionManagerBus bus = new ExtensionManagerBus();
+        StubInstrumentationManager im = new StubInstrumentationManager();
+        bus.setExtension(im, InstrumentationManager.class);
+        ConnectionPoolMetrics busMetrics = new ConnectionPoolMetrics(bus);
+        InstrumentedAsyncClientConnectionManager busManager = createManager(busMetrics);
+        try {
+            busManager.release(lease(busManager).get(5, TimeUnit.SECONDS), null, TimeValue.ZERO_MILLISECONDS);
+            assertEquals(1, im.names.size());
+            busMetrics.unregister();
+            assertTrue(im.names.isEmpty());
+        } finally {
+            busManager.close();
+            bus.shutdown(true);
+        }
+    }
+
+    private Future<AsyncConnectionEndpoint> lease() {
+        return lease(manager);
+    }
+
+    private Future<AsyncConnectionEndpoint> lease(InstrumentedAsyncClientConnectionManager m) {
+        return m.lease("test", route, null, Timeout.ofSeconds(5), null);
+    }
+
+    private static InstrumentedAsyncClientConnectionManager createManager(ConnectionPoolMetrics poolMetrics) {
+        return new InstrumentedAsyncClientConnectionManager(
+            RegistryBuilder.<TlsStrategy>create().build(),
+            PoolConcurrencyPolicy.STRICT,
+            PoolReusePolicy.LIFO,
+            TimeValue.ofMinutes(1),
+            DefaultSchemePortResolver.INSTANCE,
+            SystemDefaultDnsResolver.INSTANCE,
+            poolMetrics);
+    }
+
+    private static final class StubInstrumentationManager implements InstrumentationManager {
+        private final Set<ObjectName> names = new HashSet<>();
+
+        @Override
+        public ObjectName register(ManagedComponent component) throws JMException {
+            ObjectName name = component.getObjectName();
+            names.add(name);
+            return name;
+        }
+
+        @Override
+        public ObjectName register(ManagedComponent component, boolean forceRegistration) throws JMException {
+            return register(component);
+        }
+
+        @Override
+        public void register(Object obj, ObjectName name) {
+            names.add(name);
+        }
+
+        @Override
+        public void register(Object obj, ObjectName name, boolean forceRegistration) {
+            names.add(name);
+        }
+
+        @Override
+        public void unregister(ManagedComponent component) throws JMException {
+            unregister(component.getObjectName());
+        }
+
+        @Override
+        public void unregister(ObjectName name) {
+            names.remove(name);
+        }
+
+        @Override
+        public void shutdown() {
+            // no-op
+        }
+
+        @Override
+        public MBeanServer getMBeanServer() {
+            return ManagementFactory.getPlatformMBeanServer();
+        }
+
+        @Override
+        public String getPersistentBusId() {
+            return null;
+        }
+
+        @Override
+        public void setPersistentBusId(String id) {
+            // no-op
+        }
+    }
+}
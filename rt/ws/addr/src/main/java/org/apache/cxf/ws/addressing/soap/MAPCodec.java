@@ -45,6 +45,8 @@ import org.apache.cxf.binding.soap.SoapFault;
 import org.apache.cxf.binding.soap.SoapHeader;
 import org.apache.cxf.binding.soap.SoapMessage;
 import org.apache.cxf.binding.soap.SoapVersion;
+import org.apache.cxf.binding.soap.StreamedSoapHeader;
+import org.apache.cxf.binding.soap.StreamedSoapHeader.StreamedElement;
 import org.apache.cxf.binding.soap.interceptor.AbstractSoapInterceptor;
 import org.apache.cxf.binding.soap.interceptor.SoapActionInInterceptor;
 import org.apache.cxf.common.jaxb.JAXBUtils;
@@ -498,7 +500,16 @@ public class MAPCodec extends AbstractSoapInterceptor {
                 Iterator<Header> iter = header.iterator();
                 while (iter.hasNext()) {
                     Header hdr = iter.next();
-                    if (hdr.getObject() instanceof Element) {
+                    if (hdr instanceof StreamedSoapHeader
+                        && isStreamable(((StreamedSoapHeader)hdr).getElement())) {
+                        // simple headers read without building their DOM element
+                        if (maps == null) {
+                            maps = new AddressingProperties();
+                            maps.exposeAs(Names.WSA_NAMESPACE_NAME);
+                        }
+                        invalidCardinalityQName = decodeStreamed(((StreamedSoapHeader)hdr).getElement(),
+                                                                 maps, invalidCardinalityQName);
+                    } else if (hdr.getObject() instanceof Element) {
                         Element headerElement = (Element)hdr.getObject();
                         String headerURI = headerElement.getNamespaceURI();
                         // Need to check the uri before getting unmarshaller else
@@ -613,6 +624,62 @@ public class MAPCodec extends AbstractSoapInterceptor {
         return maps;
     }
 
+    private static boolean isStreamable(StreamedElement element) {
+        final QName name = element.getName();
+        if (!Names.WSA_NAMESPACE_NAME.equals(name.getNamespaceURI()) || element.hasChildElements()) {
+            return false;
+        }
+        final String localName = name.getLocalPart();
+        return Names.WSA_MESSAGEID_NAME.equals(localName) || Names.WSA_TO_NAME.equals(localName)
+            || Names.WSA_ACTION_NAME.equals(localName) || Names.WSA_RELATESTO_NAME.equals(localName);
+    }
+
+    /**
+     * Decodes the simple, text only, headers of the native WS-Addressing version as
+     * the JAXB unmarshaller would.
+     *
+     * @return the QName of the header if it is a duplicate, RelatesTo may be repeated and
+     *         returns the given QName unchanged
+     */
+    private static QName decodeStreamed(StreamedElement element,
+                                        AddressingProperties maps,
+                                        QName invalidCardinalityQName) {
+        final String localName = element.getName().getLocalPart();
+        final String value = element.getText().trim();
+        if (Names.WSA_RELATESTO_NAME.equals(localName)) {
+            RelatesToType relatesTo = ContextUtils.WSA_OBJECT_FACTORY.createRelatesToType();
+            relatesTo.setValue(value);
+            for (int i = 0; i < element.getAttributeCount(); i++) {
+                QName attr = element.getAttributeName(i);
+                if (Names.WSA_RELATIONSHIPTYPE_NAME.equals(attr.getLocalPart())
+                    && StringUtils.isEmpty(attr.getNamespaceURI())) {
+                    relatesTo.setRelationshipType(element.getAttributeValue(i));
+                } else {
+                    relatesTo.getOtherAttributes().put(attr, element.getAttributeValue(i));
+                }
+            }
+            maps.setRelatesTo(relatesTo);
+            return invalidCardinalityQName;
+        }
+        AttributedURIType uri = ContextUtils.WSA_OBJECT_FACTORY.createAttributedURIType();
+        uri.setValue(value);
+        for (int i = 0; i < element.getAttributeCount(); i++) {
+            uri.getOtherAttributes().put(element.getAttributeName(i), element.getAttributeValue(i));
+        }
+        final QName duplicate;
+        if (Names.WSA_MESSAGEID_NAME.equals(localName)) {
+            duplicate = maps.getMessageID() != null ? Names.WSA_MESSAGEID_QNAME : null;
+            maps.setMessageID(uri);
+        } else if (Names.WSA_TO_NAME.equals(localName)) {
+            duplicate = maps.getTo() != null ? Names.WSA_TO_QNAME : null;
+            maps.setTo(EndpointReferenceUtils.getEndpointReference(uri));
+        } else {
+            duplicate = maps.getAction() != null ? Names.WSA_ACTION_QNAME : null;
+            maps.setAction(uri);
+        }
+        return duplicate;
+    }
+
     private void storeInvalidCardinalityFault(SoapMessage message, QName wsaHeaderName) {
         LOG.log(Level.WARNING, "INVALID_CARDINALITY_MESSAGE", wsaHeaderName);
         String reason = BUNDLE.getString("INVALID_ADDRESSING_PROPERTY_MESSAGE");
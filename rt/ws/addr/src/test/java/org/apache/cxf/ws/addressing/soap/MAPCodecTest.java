@@ -19,6 +19,8 @@
 
 package org.apache.cxf.ws.addressing.soap;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -26,21 +28,26 @@ import java.util.Map;
 import java.util.Set;
 
 import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamReader;
 
 import org.w3c.dom.Element;
 
 import jakarta.xml.bind.JAXBContext;
 import jakarta.xml.bind.JAXBElement;
 import jakarta.xml.bind.Unmarshaller;
+import org.apache.cxf.binding.soap.Soap11;
 import org.apache.cxf.binding.soap.SoapBindingConstants;
 import org.apache.cxf.binding.soap.SoapFault;
 import org.apache.cxf.binding.soap.SoapMessage;
 import org.apache.cxf.binding.soap.SoapVersion;
+import org.apache.cxf.binding.soap.StreamedSoapHeader;
+import org.apache.cxf.binding.soap.interceptor.ReadHeadersInterceptor;
 import org.apache.cxf.headers.Header;
 import org.apache.cxf.message.Exchange;
 import org.apache.cxf.message.ExchangeImpl;
 import org.apache.cxf.message.Message;
 import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.staxutils.StaxUtils;
 import org.apache.cxf.ws.addressing.AddressingProperties;
 import org.apache.cxf.ws.addressing.AttributedURIType;
 import org.apache.cxf.ws.addressing.ContextJAXBUtils;
@@ -63,6 +70,7 @@ import static org.apache.cxf.message.Message.REQUESTOR_ROLE;
 import static org.apache.cxf.ws.addressing.JAXWSAConstants.ADDRESSING_PROPERTIES_INBOUND;
 import static org.apache.cxf.ws.addressing.JAXWSAConstants.ADDRESSING_PROPERTIES_OUTBOUND;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertSame;
@@ -259,6 +267,37 @@ public class MAPCodecTest {
         verifyMessage(message, true, false, false);
     }
 
+    @Test
+    public void testUnmarshalStreamedHeaders() throws Exception {
+        String soap = "<soap:Envelope xmlns:soap='http://schemas.xmlsoap.org/soap/envelope/'"
+            + " xmlns:wsa='" + Names.WSA_NAMESPACE_NAME + "'><soap:Header>"
+            + "<wsa:Action>http://foo/bar</wsa:Action>"
+            + "<wsa:MessageID> urn:uuid:1234 </wsa:MessageID>"
+            + "<wsa:RelatesTo RelationshipType='urn:rel'>urn:uuid:5678</wsa:RelatesTo>"
+            + "<wsa:ReplyTo><wsa:Address>" + Names.WSA_ANONYMOUS_ADDRESS + "</wsa:Address></wsa:ReplyTo>"
+            + "</soap:Header><soap:Body/></soap:Envelope>";
+        SoapMessage message = new SoapMessage(Soap11.getInstance());
+        message.setExchange(new ExchangeImpl());
+        message.setContent(XMLStreamReader.class, StaxUtils.createXMLStreamReader(
+            new ByteArrayInputStream(soap.getBytes(StandardCharsets.UTF_8))));
+        message.put(ReadHeadersInterceptor.SOAP_STREAM_HEADERS, Boolean.TRUE);
+        new ReadHeadersInterceptor(null).handleMessage(message);
+
+        AddressingProperties maps = codec.unmarshalMAPs(message);
+        assertEquals(Names.WSA_NAMESPACE_NAME, maps.getNamespaceURI());
+        assertEquals("http://foo/bar", maps.getAction().getValue());
+        assertEquals("urn:uuid:1234", maps.getMessageID().getValue());
+        assertEquals("urn:uuid:5678", maps.getRelatesTo().getValue());
+        assertEquals("urn:rel", maps.getRelatesTo().getRelationshipType());
+        assertEquals(Names.WSA_ANONYMOUS_ADDRESS, maps.getReplyTo().getAddress().getValue());
+        // only the endpoint reference needed a DOM element
+        List<Header> headers = message.getHeaders();
+        for (int i = 0; i < 3; i++) {
+            assertTrue(((StreamedSoapHeader)headers.get(i)).isStreamed());
+        }
+        assertFalse(((StreamedSoapHeader)headers.get(3)).isStreamed());
+    }
+
     private SoapMessage setUpMessage(boolean requestor, boolean outbound) throws Exception {
         return setUpMessage(requestor, outbound, false);
     }
@@ -217,6 +217,20 @@ public final class SecurityConstants extends org.apache.cxf.rt.security.Security
      */
     public static final String SAML_ONE_TIME_USE_CACHE_INSTANCE = "ws-security.saml.cache.instance";
 
+    /**
+     * Whether to use the CompactReplayCache for the nonce, timestamp and SAML caches created by
+     * default, instead of the EHCacheReplayCache. It keeps a hash of each identifier in a table
+     * instead of an entry object, which uses much less memory with a large number of identifiers.
+     * The default value is "false".
+     */
+    public static final String ENABLE_COMPACT_REPLAY_CACHE = "ws-security.enable.compact.replay.cache";
+
+    /**
+     * Whether the tables of the CompactReplayCache are allocated in direct memory, outside of the
+     * Java heap. The default value is "false".
+     */
+    public static final String COMPACT_REPLAY_CACHE_OFF_HEAP = "ws-security.compact.replay.cache.off-heap";
+
     /**
      * Set this property to point to a configuration file for the underlying caching implementation for the
      * TokenStore. The default configuration file that is used is cxf-ehcache.xml in this module.
@@ -226,7 +240,7 @@ public final class SecurityConstants extends org.apache.cxf.rt.security.Security
 
     /**
      * The TokenStore instance to use to cache security tokens. By default this uses the
-     * EHCacheTokenStore if EhCache is available. Otherwise it uses the MemoryTokenStore.
+     * EHCacheTokenStore if EhCache is available. Otherwise it uses the StripedMemoryTokenStore.
      */
     public static final String TOKEN_STORE_CACHE_INSTANCE =
         "org.apache.cxf.ws.security.tokenstore.TokenStore";
@@ -340,7 +354,8 @@ public final class SecurityConstants extends org.apache.cxf.rt.security.Security
 
     /**
      * The WSS4J Validator instance to use to validate trust in credentials used in
-     * Signature verification. The default value is the SignatureTrustValidator.
+     * Signature verification. The default value is the SignatureTrustValidator. Use the
+     * CachingSignatureTrustValidator to cache the certificate chains found to be trusted.
      */
     public static final String SIGNATURE_TOKEN_VALIDATOR = "ws-security.signature.validator";
 
@@ -515,7 +530,8 @@ public final class SecurityConstants extends org.apache.cxf.rt.security.Security
             BST_TOKEN_VALIDATOR, SCT_TOKEN_VALIDATOR, TOKEN, TOKEN_ID, SUBJECT_ROLE_CLASSIFIER,
             SUBJECT_ROLE_CLASSIFIER_TYPE, MUST_UNDERSTAND, ASYMMETRIC_SIGNATURE_ALGORITHM,
             PASSWORD_ENCRYPTOR_INSTANCE, ENABLE_SAML_ONE_TIME_USE_CACHE,
-            SAML_ONE_TIME_USE_CACHE_INSTANCE, ENABLE_STREAMING_SECURITY, RETURN_SECURITY_ERROR,
+            SAML_ONE_TIME_USE_CACHE_INSTANCE, ENABLE_COMPACT_REPLAY_CACHE, COMPACT_REPLAY_CACHE_OFF_HEAP,
+            ENABLE_STREAMING_SECURITY, RETURN_SECURITY_ERROR,
             CACHE_IDENTIFIER, DELEGATED_CREDENTIAL, KERBEROS_USE_CREDENTIAL_DELEGATION,
             KERBEROS_IS_USERNAME_IN_SERVICENAME_FORM, KERBEROS_REQUEST_CREDENTIAL_DELEGATION,
             POLICY_VALIDATOR_MAP, STORE_BYTES_IN_ATTACHMENT, USE_ATTACHMENT_ENCRYPTION_CONTENT_ONLY_TRANSFORM,
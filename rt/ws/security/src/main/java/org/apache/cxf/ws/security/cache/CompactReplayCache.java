@@ -0,0 +1,277 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.ws.security.cache;
+
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.wss4j.common.cache.ReplayCache;
+
+/**
+ * A memory efficient implementation of the ReplayCache interface for a large number of
+ * identifiers, such as the nonces and timestamps of a busy service. Instead of an object for each
+ * identifier, the cache keeps a 128-bit hash of the identifier and its expiry time in a slot of
+ * an open-addressed table, which can be allocated off-heap. The expired slots are dropped in bulk
+ * when the table is rebuilt. The default TTL is 60 minutes and the max TTL is 12 hours.
+ */
+public class CompactReplayCache implements ReplayCache {
+    public static final long DEFAULT_TTL = 3600L;
+    public static final long MAX_TTL = DEFAULT_TTL * 12L;
+
+    private static final int SEGMENTS = 16;
+    private static final int MIN_SEGMENT_CAPACITY = 16;
+    // the two halves of the hash and the expiry time in seconds, 0 for an empty slot
+    private static final int SLOT_SIZE = 24;
+    private static final int EXPIRES_OFFSET = 16;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final long seed1;
+    private final long seed2;
+
+    public CompactReplayCache() {
+        this(1024, false);
+    }
+
+    /**
+     * @param initialCapacity the number of identifiers which can be cached before the tables grow
+     * @param offHeap whether to allocate the tables in direct memory
+     */
+    public CompactReplayCache(int initialCapacity, boolean offHeap) {
+        int capacity = MIN_SEGMENT_CAPACITY;
+        while (capacity * SEGMENTS / 2 < initialCapacity) {
+            capacity <<= 1;
+        }
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(capacity, offHeap);
+        }
+        SecureRandom random = new SecureRandom();
+        seed1 = random.nextLong();
+        seed2 = random.nextLong();
+    }
+
+    /**
+     * Add the given identifier to the cache. It will be cached for a default amount of time.
+     * @param identifier The identifier to be added
+     */
+    public void add(String identifier) {
+        add(identifier, null);
+    }
+
+    /**
+     * Add the given identifier to the cache to be cached for the given time
+     * @param identifier The identifier to be added
+     * @param expiry A custom expiry time for the identifier. Can be null in which case, the default
+     *               expiry is used.
+     */
+    public void add(String identifier, Instant expiry) {
+        if (identifier == null || identifier.isEmpty()) {
+            return;
+        }
+        final long now = currentTime();
+        long ttl = DEFAULT_TTL;
+        if (expiry != null) {
+            long seconds = expiry.getEpochSecond() - now;
+            if (seconds >= 0 && seconds <= MAX_TTL) {
+                ttl = seconds;
+            }
+        }
+        final long h1 = hash(identifier, seed1, 0x100000001b3L);
+        final long h2 = hash(identifier, seed2, 0x9e3779b97f4a7c15L);
+        segmentFor(h1).add(h1, h2, now + ttl + 1, now);
+    }
+
+    /**
+     * Return true if the given identifier is contained in the cache
+     * @param identifier The identifier to check
+     */
+    public boolean contains(String identifier) {
+        if (identifier == null || identifier.isEmpty()) {
+            return false;
+        }
+        final long h1 = hash(identifier, seed1, 0x100000001b3L);
+        final long h2 = hash(identifier, seed2, 0x9e3779b97f4a7c15L);
+        return segmentFor(h1).contains(h1, h2, currentTime());
+    }
+
+    /**
+     * Returns the number of identifiers held by the cache, including the expired identifiers
+     * which have not been dropped yet
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    @Override
+    public void close() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    /**
+     * Returns the current time in seconds
+     */
+    protected long currentTime() {
+        return TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+    }
+
+    private Segment segmentFor(long h1) {
+        return segments[(int)(h1 >>> 60)];
+    }
+
+    private static long hash(String identifier, long seed, long multiplier) {
+        long h = seed;
+        for (int i = 0; i < identifier.length(); i++) {
+            h = (h ^ identifier.charAt(i)) * multiplier;
+        }
+        // the finalizer of MurmurHash3
+        h ^= identifier.length();
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+
+    /**
+     * An open-addressed table with linear probing. An identifier has at most one slot, which
+     * is reused when the identifier is added again.
+     */
+    private static final class Segment {
+        private final boolean offHeap;
+        private final int initialCapacity;
+        private ByteBuffer table;
+        private int capacity;
+        private int used;
+
+        Segment(int capacity, boolean offHeap) {
+            this.offHeap = offHeap;
+            this.initialCapacity = capacity;
+            this.capacity = capacity;
+            table = allocate(capacity);
+        }
+
+        synchronized boolean contains(long h1, long h2, long now) {
+            final int mask = capacity - 1;
+            int i = (int)h2 & mask;
+            while (true) {
+                final int offset = i * SLOT_SIZE;
+                final long expires = table.getLong(offset + EXPIRES_OFFSET);
+                if (expires == 0) {
+                    return false;
+                }
+                if (table.getLong(offset) == h1 && table.getLong(offset + 8) == h2) {
+                    return expires > now;
+                }
+                i = (i + 1) & mask;
+            }
+        }
+
+        synchronized void add(long h1, long h2, long expires, long now) {
+            int offset = find(h1, h2);
+            if (table.getLong(offset + EXPIRES_OFFSET) != 0) {
+                table.putLong(offset + EXPIRES_OFFSET, expires);
+                return;
+            }
+            if ((used + 1) * 4L > capacity * 3L) {
+                rebuild(now);
+                offset = find(h1, h2);
+            }
+            put(table, offset, h1, h2, expires);
+            used++;
+        }
+
+        synchronized int size() {
+            return used;
+        }
+
+        synchronized void clear() {
+            capacity = initialCapacity;
+            table = allocate(capacity);
+            used = 0;
+        }
+
+        /**
+         * Returns the offset of the slot of the given hash, or of the empty slot ending its probe
+         */
+        private int find(long h1, long h2) {
+            final int mask = capacity - 1;
+            int i = (int)h2 & mask;
+            while (true) {
+                final int offset = i * SLOT_SIZE;
+                if (table.getLong(offset + EXPIRES_OFFSET) == 0
+                    || table.getLong(offset) == h1 && table.getLong(offset + 8) == h2) {
+                    return offset;
+                }
+                i = (i + 1) & mask;
+            }
+        }
+
+        /**
+         * Copies the live slots to a new table, at most half full
+         */
+        private void rebuild(long now) {
+            int live = 1;
+            for (int offset = 0; offset < capacity * SLOT_SIZE; offset += SLOT_SIZE) {
+                if (table.getLong(offset + EXPIRES_OFFSET) > now) {
+                    live++;
+                }
+            }
+            int newCapacity = initialCapacity;
+            while (newCapacity < live * 2) {
+                newCapacity <<= 1;
+            }
+            final ByteBuffer newTable = allocate(newCapacity);
+            final int mask = newCapacity - 1;
+            for (int offset = 0; offset < capacity * SLOT_SIZE; offset += SLOT_SIZE) {
+                final long expires = table.getLong(offset + EXPIRES_OFFSET);
+                if (expires > now) {
+                    final long h2 = table.getLong(offset + 8);
+                    int i = (int)h2 & mask;
+                    while (newTable.getLong(i * SLOT_SIZE + EXPIRES_OFFSET) != 0) {
+                        i = (i + 1) & mask;
+                    }
+                    put(newTable, i * SLOT_SIZE, table.getLong(offset), h2, expires);
+                }
+            }
+            table = newTable;
+            capacity = newCapacity;
+            used = live - 1;
+        }
+
+        private ByteBuffer allocate(int slots) {
+            // the buffers are zeroed, so all of the slots are empty
+            final int size = slots * SLOT_SIZE;
+            return offHeap ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+        }
+
+        private static void put(ByteBuffer buffer, int offset, long h1, long h2, long expires) {
+            buffer.putLong(offset, h1);
+            buffer.putLong(offset + 8, h2);
+            buffer.putLong(offset + EXPIRES_OFFSET, expires);
+        }
+    }
+}
@@ -21,6 +21,8 @@ package org.apache.cxf.ws.security.policy;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.xml.namespace.QName;
 
@@ -35,16 +37,30 @@ import org.apache.wss4j.policy.model.AbstractBinding;
  * Some common functionality that can be shared for working with policies
  */
 public final class PolicyUtils {
+    // the SP 1.1 and SP 1.2 names of the assertions, looked up for each message
+    private static final Map<String, QName[]> NAMES = new ConcurrentHashMap<>();
 
     private PolicyUtils() {
         // complete
     }
 
+    private static QName[] getNames(String localname) {
+        QName[] names = NAMES.get(localname);
+        if (names == null) {
+            names = new QName[] {
+                new QName(SP11Constants.SP_NS, localname), new QName(SP12Constants.SP_NS, localname)
+            };
+            NAMES.put(localname, names);
+        }
+        return names;
+    }
+
     public static Collection<AssertionInfo> getAllAssertionsByLocalname(
         AssertionInfoMap aim, String localname
     ) {
-        Collection<AssertionInfo> sp11Ais = aim.get(new QName(SP11Constants.SP_NS, localname));
-        Collection<AssertionInfo> sp12Ais = aim.get(new QName(SP12Constants.SP_NS, localname));
+        QName[] names = getNames(localname);
+        Collection<AssertionInfo> sp11Ais = aim.get(names[0]);
+        Collection<AssertionInfo> sp12Ais = aim.get(names[1]);
 
         if ((sp11Ais != null && !sp11Ais.isEmpty()) || (sp12Ais != null && !sp12Ais.isEmpty())) {
             Collection<AssertionInfo> ais = new HashSet<>();
@@ -85,12 +101,13 @@ public final class PolicyUtils {
     public static AssertionInfo getFirstAssertionByLocalname(
         AssertionInfoMap aim, String localname
     ) {
-        Collection<AssertionInfo> sp11Ais = aim.get(new QName(SP11Constants.SP_NS, localname));
+        QName[] names = getNames(localname);
+        Collection<AssertionInfo> sp11Ais = aim.get(names[0]);
         if (sp11Ais != null && !sp11Ais.isEmpty()) {
             return sp11Ais.iterator().next();
         }
 
-        Collection<AssertionInfo> sp12Ais = aim.get(new QName(SP12Constants.SP_NS, localname));
+        Collection<AssertionInfo> sp12Ais = aim.get(names[1]);
         if (sp12Ais != null && !sp12Ais.isEmpty()) {
             return sp12Ais.iterator().next();
         }
@@ -101,8 +118,9 @@ public final class PolicyUtils {
     public static boolean isThereAnAssertionByLocalname(
         AssertionInfoMap aim, String localname
     ) {
-        Collection<AssertionInfo> sp11Ais = aim.get(new QName(SP11Constants.SP_NS, localname));
-        Collection<AssertionInfo> sp12Ais = aim.get(new QName(SP12Constants.SP_NS, localname));
+        QName[] names = getNames(localname);
+        Collection<AssertionInfo> sp11Ais = aim.get(names[0]);
+        Collection<AssertionInfo> sp12Ais = aim.get(names[1]);
 
         return (sp11Ais != null && !sp11Ais.isEmpty()) || (sp12Ais != null && !sp12Ais.isEmpty());
     }
@@ -0,0 +1,367 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.ws.security.tokenstore;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.cxf.common.util.StringUtils;
+
+/**
+ * An in-memory TokenStore for a large number of tokens. The tokens are spread over lock
+ * stripes, each of them bounded and evicting its least recently used token, and expire after
+ * the TTL (5 minutes by default) through a hashed timing wheel of one second ticks, which is
+ * advanced by the threads using the store instead of sweeping all of the tokens.
+ */
+public class StripedMemoryTokenStore implements TokenStore {
+    public static final int DEFAULT_MAX_ENTRIES = 100_000;
+    public static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    private static final int WHEEL_SIZE = 512;
+
+    private final Stripe[] stripes;
+    private final int mask;
+    private final Slot[] wheel = new Slot[WHEEL_SIZE];
+    private final AtomicLong wheelTime = new AtomicLong();
+    private final ReentrantLock wheelLock = new ReentrantLock();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private long ttl = MemoryTokenStore.DEFAULT_TTL;
+
+    public StripedMemoryTokenStore() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    public StripedMemoryTokenStore(int maxEntries) {
+        this(maxEntries, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     * @param maxEntries the maximum number of tokens held by the store
+     * @param concurrencyLevel the number of lock stripes, rounded up to a power of two
+     */
+    public StripedMemoryTokenStore(int maxEntries, int concurrencyLevel) {
+        if (maxEntries < 1 || concurrencyLevel < 1) {
+            throw new IllegalArgumentException("The max entries and concurrency level must be positive");
+        }
+        int size = 1;
+        while (size < concurrencyLevel && size < maxEntries) {
+            size <<= 1;
+        }
+        stripes = new Stripe[size];
+        mask = size - 1;
+        final int perStripe = (maxEntries + size - 1) / size;
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Stripe(perStripe, evictions);
+        }
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel[i] = new Slot();
+        }
+    }
+
+    public void add(SecurityToken token) {
+        if (token != null) {
+            add(token.getId(), token);
+        }
+    }
+
+    public void add(String identifier, SecurityToken token) {
+        if (token != null && !StringUtils.isEmpty(identifier)) {
+            final Entry entry = new Entry(identifier, token, currentTime() + ttl);
+            final Stripe stripe = stripeFor(identifier);
+            synchronized (stripe) {
+                unlink(stripe.put(identifier, entry));
+                slotFor(entry).link(entry);
+            }
+            advanceWheel();
+        }
+    }
+
+    /**
+     * Set a new (default) TTL value in seconds
+     * @param newTtl a new (default) TTL value in seconds
+     */
+    public void setTTL(long newTtl) {
+        ttl = newTtl;
+    }
+
+    public void remove(String identifier) {
+        if (!StringUtils.isEmpty(identifier)) {
+            final Stripe stripe = stripeFor(identifier);
+            synchronized (stripe) {
+                unlink(stripe.remove(identifier));
+            }
+        }
+    }
+
+    public Collection<String> getTokenIdentifiers() {
+        advanceWheel();
+        final long now = currentTime();
+        final List<String> identifiers = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                for (Entry entry : stripe.values()) {
+                    if (entry.expires > now) {
+                        identifiers.add(entry.identifier);
+                    }
+                }
+            }
+        }
+        return identifiers;
+    }
+
+    public SecurityToken getToken(String identifier) {
+        if (identifier == null) {
+            return null;
+        }
+        advanceWheel();
+        final Stripe stripe = stripeFor(identifier);
+        Entry entry;
+        synchronized (stripe) {
+            entry = stripe.get(identifier);
+            if (entry != null && entry.expires <= currentTime()) {
+                // not swept by the wheel yet
+                unlink(stripe.remove(identifier));
+                expirations.increment();
+                entry = null;
+            }
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.token;
+    }
+
+    /**
+     * Returns the number of tokens held by the store, including the expired tokens which
+     * have not been removed yet
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the number of tokens removed to keep the store under its maximum size
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public long getExpirationCount() {
+        return expirations.sum();
+    }
+
+    /**
+     * Returns the number of tokens held by the timing wheel, which never exceeds the number
+     * of tokens held by the store
+     */
+    int getWheelSize() {
+        int size = 0;
+        for (Slot slot : wheel) {
+            size += slot.size();
+        }
+        return size;
+    }
+
+    /**
+     * Returns the current time in seconds
+     */
+    protected long currentTime() {
+        return TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+    }
+
+    /**
+     * Removes the tokens expired since the wheel was last advanced. Only one thread advances
+     * the wheel, the others carry on.
+     */
+    private void advanceWheel() {
+        final long now = currentTime();
+        if (now <= wheelTime.get() || !wheelLock.tryLock()) {
+            return;
+        }
+        try {
+            final long last = wheelTime.get();
+            for (long time = Math.max(last + 1, now - WHEEL_SIZE + 1); time <= now; time++) {
+                // the tokens expiring in a later turn of the wheel are left in the slot
+                for (Entry entry : wheel[(int)(time % WHEEL_SIZE)].unlinkExpired(now)) {
+                    expire(entry);
+                }
+            }
+            wheelTime.set(now);
+        } finally {
+            wheelLock.unlock();
+        }
+    }
+
+    private void expire(Entry entry) {
+        final Stripe stripe = stripeFor(entry.identifier);
+        synchronized (stripe) {
+            // the token may have been replaced or removed since
+            if (stripe.get(entry.identifier) == entry) {
+                stripe.remove(entry.identifier);
+                expirations.increment();
+            }
+        }
+    }
+
+    private Slot slotFor(Entry entry) {
+        return wheel[(int)(entry.expires % WHEEL_SIZE)];
+    }
+
+    /**
+     * Removes a token removed from its stripe from the wheel, so that the wheel does not keep it
+     */
+    private void unlink(Entry entry) {
+        if (entry != null) {
+            slotFor(entry).unlink(entry);
+        }
+    }
+
+    private Stripe stripeFor(String identifier) {
+        final int h = identifier.hashCode();
+        return stripes[(h ^ (h >>> 16)) & mask];
+    }
+
+    private static final class Entry {
+        private final String identifier;
+        private final SecurityToken token;
+        private final long expires;
+        // guarded by the slot of the entry
+        private Entry previous;
+        private Entry next;
+        private boolean linked;
+
+        Entry(String identifier, SecurityToken token, long expires) {
+            this.identifier = identifier;
+            this.token = token;
+            this.expires = expires;
+        }
+    }
+
+    /**
+     * A slot of the timing wheel, a doubly linked list of the entries expiring at the times
+     * falling into it, so that an entry removed from its stripe is unlinked in constant time
+     */
+    private static final class Slot {
+        private Entry head;
+        private int size;
+
+        synchronized void link(Entry entry) {
+            entry.next = head;
+            if (head != null) {
+                head.previous = entry;
+            }
+            head = entry;
+            entry.linked = true;
+            size++;
+        }
+
+        synchronized void unlink(Entry entry) {
+            if (!entry.linked) {
+                return;
+            }
+            if (entry.previous == null) {
+                head = entry.next;
+            } else {
+                entry.previous.next = entry.next;
+            }
+            if (entry.next != null) {
+                entry.next.previous = entry.previous;
+            }
+            entry.previous = null;
+            entry.next = null;
+            entry.linked = false;
+            size--;
+        }
+
+        synchronized List<Entry> unlinkExpired(long now) {
+            List<Entry> expired = Collections.emptyList();
+            Entry entry = head;
+            while (entry != null) {
+                final Entry next = entry.next;
+                if (entry.expires <= now) {
+                    if (expired.isEmpty()) {
+                        expired = new ArrayList<>();
+                    }
+                    unlink(entry);
+                    expired.add(entry);
+                }
+                entry = next;
+            }
+            return expired;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+    }
+
+    /**
+     * A map in access order which evicts its least recently used entry when full
+     */
+    private final class Stripe extends LinkedHashMap<String, Entry> {
+        private static final long serialVersionUID = 1L;
+
+        private final int maxEntries;
+        private final transient LongAdder evictions;
+
+        Stripe(int maxEntries, LongAdder evictions) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+            this.evictions = evictions;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            if (size() > maxEntries) {
+                evictions.increment();
+                StripedMemoryTokenStore.this.unlink(eldest.getValue());
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -26,7 +26,8 @@ import org.apache.wss4j.common.cache.WSS4JCacheUtil;
 
 /**
  * An abstract factory to return a TokenStore instance. It returns an EHCacheTokenStoreFactory
- * if EH-Cache is available. Otherwise it returns a MemoryTokenStoreFactory.
+ * if EH-Cache is available, then a JCacheTokenStoreFactory if JCache is available. Otherwise it
+ * returns a StripedMemoryTokenStoreFactory.
  */
 public abstract class TokenStoreFactory {
     public static TokenStoreFactory newInstance() {
@@ -35,7 +36,7 @@ public abstract class TokenStoreFactory {
         } else if (JCacheUtil.isJCacheInstalled()) {
             return new JCacheTokenStoreFactory();
         } else {
-            return new MemoryTokenStoreFactory();
+            return new StripedMemoryTokenStoreFactory();
         }
     }
 
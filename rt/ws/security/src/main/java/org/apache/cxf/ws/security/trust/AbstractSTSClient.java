@@ -180,7 +180,7 @@ public abstract class AbstractSTSClient implements Configurable, InterceptorProv
     protected String namespace = STSUtils.WST_NS_05_12;
     protected String addressingNamespace = "http://www.w3.org/2005/08/addressing";
     protected String wspNamespace = "http://www.w3.org/ns/ws-policy";
-    protected Object onBehalfOf;
+    protected volatile Object onBehalfOf;
     protected boolean enableAppliesTo = true;
 
     protected boolean useCertificateForConfirmationKeyInfo;
@@ -192,7 +192,7 @@ public abstract class AbstractSTSClient implements Configurable, InterceptorProv
     protected boolean allowRenewing = true;
     protected boolean allowRenewingAfterExpiry;
 
-    protected Object actAs;
+    protected volatile Object actAs;
     protected String tokenType;
     protected String keyType;
     protected boolean sendKeyType = true;
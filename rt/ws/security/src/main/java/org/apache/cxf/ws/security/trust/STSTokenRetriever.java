@@ -20,15 +20,25 @@
 package org.apache.cxf.ws.security.trust;
 
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.w3c.dom.Element;
 
+import org.apache.cxf.Bus;
 import org.apache.cxf.common.logging.LogUtils;
+import org.apache.cxf.endpoint.Endpoint;
 import org.apache.cxf.interceptor.Fault;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
 import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
 import org.apache.cxf.rt.security.utils.SecurityUtils;
+import org.apache.cxf.workqueue.AutomaticWorkQueue;
+import org.apache.cxf.workqueue.WorkQueueManager;
 import org.apache.cxf.ws.addressing.AddressingProperties;
 import org.apache.cxf.ws.security.SecurityConstants;
 import org.apache.cxf.ws.security.tokenstore.SecurityToken;
@@ -43,6 +53,8 @@ public final class STSTokenRetriever {
     private static final Logger LOG = LogUtils.getL7dLogger(STSTokenRetriever.class);
     private static final String ASSOCIATED_TOKEN =
         STSTokenRetriever.class.getName() + "-" + "Associated_Token";
+    // the ids of the tokens being renewed ahead of their expiry
+    private static final Set<String> PREFETCHING = ConcurrentHashMap.newKeySet();
 
     private STSTokenRetriever() {
     }
@@ -66,6 +78,21 @@ public final class STSTokenRetriever {
         }
         
         STSClient client = STSUtils.getClientWithIssuer(message, "sts", params.getIssuer());
+        if (isEndpointTokenOnly(message, client)) {
+            // A valid token cached on the endpoint is used without waiting for the STS client,
+            // which may be busy renewing it
+            try {
+                SecurityToken secToken = getEndpointToken(message, client, appliesTo, params, tokenCacher);
+                if (secToken != null) {
+                    return secToken;
+                }
+            } catch (TokenStoreException e) {
+                throw new Fault(e);
+            }
+        }
+
+        // The concurrent requests missing the token wait here, and then find the token
+        // retrieved by the first one in the cache
         synchronized (client) {
             try {
                 client.setMessage(message);
@@ -140,18 +167,128 @@ public final class STSTokenRetriever {
                                               true);
     }
 
+    /**
+     * Whether the token is cached on the endpoint, and not per delegation token. The ActAs/OnBehalfOf
+     * fields of the client are volatile, so they can be read without holding the lock on it.
+     */
+    private static boolean isEndpointTokenOnly(Message message, STSClient client) {
+        return client.actAs == null && client.onBehalfOf == null
+            && SecurityUtils.getSecurityPropertyValue(SecurityConstants.STS_TOKEN_ACT_AS, message) == null
+            && SecurityUtils.getSecurityPropertyValue(SecurityConstants.STS_TOKEN_ON_BEHALF_OF, message) == null
+            && isCachedTokenFromEndpoint(message, null, null);
+    }
+
+    /**
+     * Returns the token cached on the endpoint if it is not about to expire, and starts renewing
+     * it in the background if it will expire within the prefetch value.
+     */
+    private static SecurityToken getEndpointToken(Message message, STSClient client, String appliesTo,
+                                                  TokenRequestParams params, STSTokenCacher tokenCacher)
+            throws TokenStoreException {
+        SecurityToken tok = tokenCacher.retrieveToken(message, true);
+        long imminentExpiry = getExpiryValue(message, SecurityConstants.STS_TOKEN_IMMINENT_EXPIRY_VALUE, 10L);
+        if (tok == null || tok.isExpired() || tok.isAboutToExpire(imminentExpiry)) {
+            return null;
+        }
+        long prefetch = getExpiryValue(message, SecurityConstants.STS_TOKEN_PREFETCH_VALUE, 0L);
+        if (prefetch > imminentExpiry && tok.isAboutToExpire(prefetch)) {
+            prefetchToken(message, client, appliesTo, tok, params, tokenCacher);
+        }
+        tokenCacher.storeToken(message, tok, true);
+        return tok;
+    }
+
+    private static void prefetchToken(Message message, STSClient client, String appliesTo,
+                                      SecurityToken tok, TokenRequestParams params,
+                                      STSTokenCacher tokenCacher) {
+        Bus bus = message.getExchange().getBus();
+        WorkQueueManager manager = bus == null ? null : bus.getExtension(WorkQueueManager.class);
+        if (manager == null || !PREFETCHING.add(tok.getId())) {
+            return;
+        }
+        // The request goes on with its own message, so the renewal uses a copy of it
+        final Message copy = copyMessage(message);
+        Runnable renewal = () -> {
+            try {
+                synchronized (client) {
+                    // The token may have been renewed by a request in the meantime
+                    SecurityToken current = tokenCacher.retrieveToken(copy, true);
+                    if (current != null && tok.getId().equals(current.getId())) {
+                        SecurityToken newToken = renewOrIssueToken(copy, client, appliesTo, tok, params);
+                        if (newToken != null) {
+                            tokenCacher.removeToken(copy, tok);
+                            tokenCacher.storeToken(copy, newToken, true);
+                        }
+                    }
+                }
+            } catch (Exception ex) {
+                // The token is renewed when a request finds it about to expire instead
+                LOG.log(Level.WARNING, "Error renewing a token ahead of its expiry", ex);
+            } finally {
+                PREFETCHING.remove(tok.getId());
+            }
+        };
+        try {
+            AutomaticWorkQueue queue = manager.getAutomaticWorkQueue();
+            queue.execute(renewal);
+        } catch (RejectedExecutionException ex) {
+            PREFETCHING.remove(tok.getId());
+        }
+    }
+
+    private static SecurityToken renewOrIssueToken(Message message, STSClient client, String appliesTo,
+                                                   SecurityToken tok, TokenRequestParams params)
+            throws Exception {
+        try {
+            client.setMessage(message);
+            if (client.isAllowRenewing()) {
+                try {
+                    return renewSecurityToken(message, client, tok, params);
+                } catch (Exception ex) {
+                    if (!SecurityUtils.getSecurityPropertyBoolean(
+                        SecurityConstants.STS_ISSUE_AFTER_FAILED_RENEW, message, true)) {
+                        throw ex;
+                    }
+                    LOG.log(Level.FINE, "Error renewing a token, issuing a new one", ex);
+                }
+            }
+            return getTokenFromSTS(message, client, appliesTo, params);
+        } finally {
+            client.setTrust((Trust10)null);
+            client.setTrust((Trust13)null);
+            client.setTemplate(null);
+            client.setAddressingNamespace(null);
+        }
+    }
+
+    private static Message copyMessage(Message message) {
+        final Exchange exchange;
+        if (message.getExchange() instanceof ExchangeImpl) {
+            exchange = new ExchangeImpl((ExchangeImpl)message.getExchange());
+        } else {
+            exchange = new ExchangeImpl();
+            exchange.putAll(message.getExchange());
+            exchange.put(Bus.class, message.getExchange().getBus());
+            exchange.put(Endpoint.class, message.getExchange().getEndpoint());
+        }
+        Message copy = new MessageImpl();
+        copy.putAll(message);
+        copy.setExchange(exchange);
+        exchange.setOutMessage(copy);
+        return copy;
+    }
+
+    private static long getExpiryValue(Message message, String key, long defaultValue) {
+        String value = (String)SecurityUtils.getSecurityPropertyValue(key, message);
+        return value == null ? defaultValue : Long.parseLong(value);
+    }
+
     private static SecurityToken renewToken(
                                      Message message,
                                      SecurityToken tok,
                                      TokenRequestParams params,
                                      STSTokenCacher tokenCacher) {
-        String imminentExpiryValue =
-            (String)SecurityUtils.getSecurityPropertyValue(SecurityConstants.STS_TOKEN_IMMINENT_EXPIRY_VALUE,
-                                                           message);
-        long imminentExpiry = 10L;
-        if (imminentExpiryValue != null) {
-            imminentExpiry = Long.parseLong(imminentExpiryValue);
-        }
+        long imminentExpiry = getExpiryValue(message, SecurityConstants.STS_TOKEN_IMMINENT_EXPIRY_VALUE, 10L);
 
         // If the token has not expired then we don't need to renew it
         if (!(tok.isExpired() || tok.isAboutToExpire(imminentExpiry))) {
@@ -174,21 +311,7 @@ public final class STSTokenRetriever {
 
         synchronized (client) {
             try {
-                Map<String, Object> ctx = client.getRequestContext();
-                mapSecurityProps(message, ctx);
-
-                client.setMessage(message);
-
-                String addressingNamespace = getAddressingNamespaceURI(message);
-                if (addressingNamespace != null) {
-                    client.setAddressingNamespace(addressingNamespace);
-                }
-
-                client.setTrust(params.getTrust10());
-                client.setTrust(params.getTrust13());
-
-                client.setTemplate(params.getTokenTemplate());
-                return client.renewSecurityToken(tok);
+                return renewSecurityToken(message, client, tok, params);
             } catch (RuntimeException ex) {
                 LOG.log(Level.WARNING, "Error renewing a token", ex);
                 boolean issueAfterFailedRenew =
@@ -218,6 +341,30 @@ public final class STSTokenRetriever {
         }
     }
     
+    /**
+     * Sets up the STS client for the message and renews the token. The caller holds the lock
+     * on the client and resets it afterwards.
+     */
+    private static SecurityToken renewSecurityToken(Message message, STSClient client,
+                                                    SecurityToken tok, TokenRequestParams params)
+            throws Exception {
+        Map<String, Object> ctx = client.getRequestContext();
+        mapSecurityProps(message, ctx);
+
+        client.setMessage(message);
+
+        String addressingNamespace = getAddressingNamespaceURI(message);
+        if (addressingNamespace != null) {
+            client.setAddressingNamespace(addressingNamespace);
+        }
+
+        client.setTrust(params.getTrust10());
+        client.setTrust(params.getTrust13());
+
+        client.setTemplate(params.getTokenTemplate());
+        return client.renewSecurityToken(tok);
+    }
+
     private static String getAddressingNamespaceURI(Message message) {
         AddressingProperties maps =
             (AddressingProperties)message
@@ -0,0 +1,97 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.ws.security.wss4j;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.security.auth.callback.Callback;
+import javax.security.auth.callback.CallbackHandler;
+import javax.security.auth.callback.UnsupportedCallbackException;
+
+import org.apache.wss4j.common.ext.Attachment;
+import org.apache.wss4j.common.ext.AttachmentRequestCallback;
+import org.apache.wss4j.common.ext.AttachmentResultCallback;
+
+/**
+ * Wraps the CallbackHandler which provides the attachments to WSS4J on the StAX inbound path, and
+ * records the Content-IDs of the attachments whose signature was verified and of the attachments
+ * which were decrypted. The security events fired for the attachments do not say which attachment
+ * they refer to, so the StaxCryptoCoverageChecker looks this handler up on the message and uses
+ * these ids to require that every attachment of the message is covered.
+ */
+public class AttachmentCoverageCallbackHandler implements CallbackHandler {
+
+    private final CallbackHandler delegate;
+    private final Set<String> signedIds = Collections.synchronizedSet(new HashSet<>());
+    private final Set<String> encryptedIds = Collections.synchronizedSet(new HashSet<>());
+
+    public AttachmentCoverageCallbackHandler(CallbackHandler delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void handle(Callback[] callbacks) throws IOException, UnsupportedCallbackException {
+        delegate.handle(callbacks);
+        for (Callback callback : callbacks) {
+            if (callback instanceof AttachmentRequestCallback) {
+                AttachmentRequestCallback attachmentRequestCallback = (AttachmentRequestCallback) callback;
+                // An attachment is removed when it is decrypted, and kept when its signature is verified.
+                // A signature which does not match fails the processing of the message.
+                List<Attachment> attachments = attachmentRequestCallback.getAttachments();
+                if (!attachmentRequestCallback.isRemoveAttachments() && attachments != null) {
+                    for (Attachment attachment : attachments) {
+                        signedIds.add(getDecodedAttachmentId(attachment.getId()));
+                    }
+                }
+            } else if (callback instanceof AttachmentResultCallback) {
+                // The decrypted attachment replaces the encrypted one
+                encryptedIds.add(getDecodedAttachmentId(
+                    ((AttachmentResultCallback) callback).getAttachmentId()));
+            }
+        }
+    }
+
+    /**
+     * Returns true if the signature of the attachment with the given Content-ID was verified
+     */
+    public boolean isSigned(String attachmentId) throws IOException {
+        return attachmentId != null && signedIds.contains(getDecodedAttachmentId(attachmentId));
+    }
+
+    /**
+     * Returns true if the attachment with the given Content-ID was decrypted
+     */
+    public boolean isEncrypted(String attachmentId) throws IOException {
+        return attachmentId != null && encryptedIds.contains(getDecodedAttachmentId(attachmentId));
+    }
+
+    private static String getDecodedAttachmentId(String attachmentId) throws IOException {
+        if (attachmentId == null) {
+            return null;
+        }
+        String id = attachmentId.startsWith("cid:") ? attachmentId.substring(4) : attachmentId;
+        return URLDecoder.decode(id, StandardCharsets.UTF_8.name());
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.ws.security.wss4j;
+
+import java.security.GeneralSecurityException;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.cxf.rt.security.crypto.CertificateValidationCache;
+import org.apache.wss4j.common.crypto.Crypto;
+import org.apache.wss4j.common.ext.WSSecurityException;
+import org.apache.wss4j.dom.handler.RequestData;
+import org.apache.wss4j.dom.validate.SignatureTrustValidator;
+
+/**
+ * A SignatureTrustValidator which caches the certificate chains trusted by a Crypto in the
+ * CertificateValidationCache shared with the JAX-RS stacks, so that the certificate path of a
+ * signer which is seen again is not built and validated again for each message. The expiry of
+ * the certificates is still checked for each message. Set it as the
+ * "ws-security.signature.validator" to use it.
+ */
+public class CachingSignatureTrustValidator extends SignatureTrustValidator {
+    private final CertificateValidationCache cache;
+
+    public CachingSignatureTrustValidator() {
+        this(CertificateValidationCache.getInstance());
+    }
+
+    public CachingSignatureTrustValidator(CertificateValidationCache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    protected void verifyTrustInCerts(
+        X509Certificate[] certificates,
+        Crypto crypto,
+        RequestData data,
+        boolean enableRevocation
+    ) throws WSSecurityException {
+        final List<X509Certificate> chain = Arrays.asList(certificates);
+        final String key;
+        try {
+            // The Crypto loads its trust store once, so it is the version of the trust anchors
+            key = CertificateValidationCache.getKey(CertificateValidationCache.getInstanceVersion(crypto),
+                chain, enableRevocation, data.getSubjectCertConstraints(), data.getIssuerDNPatterns());
+        } catch (GeneralSecurityException ex) {
+            throw new WSSecurityException(WSSecurityException.ErrorCode.FAILED_CHECK, ex);
+        }
+        if (!cache.isValidated(key)) {
+            super.verifyTrustInCerts(certificates, crypto, data, enableRevocation);
+            cache.setValidated(key, chain, enableRevocation);
+        }
+    }
+}
@@ -22,9 +22,13 @@ package org.apache.cxf.ws.security.wss4j;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.xml.XMLConstants;
 import javax.xml.xpath.XPath;
@@ -70,6 +74,13 @@ public final class CryptoCoverageUtil {
             final Collection<WSDataRef> encryptedRefs) {
 
         final List<WSDataRef> encryptedSignedRefs = new LinkedList<>();
+        // The first ref for each encrypted element
+        final Map<Element, WSDataRef> encryptedElements = new IdentityHashMap<>(encryptedRefs.size());
+        for (WSDataRef encryptedRef : encryptedRefs) {
+            if (encryptedRef.getEncryptedElement() != null) {
+                encryptedElements.putIfAbsent(encryptedRef.getEncryptedElement(), encryptedRef);
+            }
+        }
 
         for (WSDataRef signedRef : signedRefs) {
             Element protectedElement = signedRef.getProtectedElement();
@@ -80,22 +91,20 @@ public final class CryptoCoverageUtil {
                 && WSS4JConstants.WSSE11_NS.equals(protectedElement.getNamespaceURI())
                 || WSS4JConstants.ENCRYPED_ASSERTION_LN.equals(protectedElement.getLocalName())
                 && WSS4JConstants.SAML2_NS.equals(protectedElement.getNamespaceURI()))) {
-                for (WSDataRef encryptedRef : encryptedRefs) {
-                    if (protectedElement == encryptedRef.getEncryptedElement()) {
+                final WSDataRef encryptedRef = encryptedElements.get(protectedElement);
+                if (encryptedRef != null) {
 
-                        final WSDataRef encryptedSignedRef = new WSDataRef();
-                        encryptedSignedRef.setWsuId(signedRef.getWsuId());
+                    final WSDataRef encryptedSignedRef = new WSDataRef();
+                    encryptedSignedRef.setWsuId(signedRef.getWsuId());
 
-                        encryptedSignedRef.setContent(false);
-                        encryptedSignedRef.setName(encryptedRef.getName());
-                        encryptedSignedRef.setProtectedElement(encryptedRef
-                                .getProtectedElement());
+                    encryptedSignedRef.setContent(false);
+                    encryptedSignedRef.setName(encryptedRef.getName());
+                    encryptedSignedRef.setProtectedElement(encryptedRef
+                            .getProtectedElement());
 
-                        encryptedSignedRef.setXpath(encryptedRef.getXpath());
+                    encryptedSignedRef.setXpath(encryptedRef.getXpath());
 
-                        encryptedSignedRefs.add(encryptedSignedRef);
-                        break;
-                    }
+                    encryptedSignedRefs.add(encryptedSignedRef);
                 }
             }
         }
@@ -127,7 +136,7 @@ public final class CryptoCoverageUtil {
         CoverageType type,
         CoverageScope scope
     ) throws WSSecurityException {
-        if (!CryptoCoverageUtil.matchElement(refs, scope, soapBody)) {
+        if (!CryptoCoverageUtil.matchElement(refs, null, scope, soapBody)) {
             Exception ex = new Exception("The " + getCoverageTypeString(type)
                     + " does not cover the required elements (soap:Body).");
             throw new WSSecurityException(WSSecurityException.ErrorCode.FAILURE, ex);
@@ -147,27 +156,25 @@ public final class CryptoCoverageUtil {
             requiredTransform = WSS4JConstants.SWA_ATTACHMENT_COMPLETE_SIG_TRANS;
         }
 
-        if (attachments != null) {
-            // For each matching attachment, check for a ref that covers it.
-            for (org.apache.cxf.message.Attachment attachment : attachments) {
-                boolean matched = false;
-
-                for (WSDataRef r : refs) {
-                    String id = r.getWsuId();
-                    if (id != null && id.startsWith("cid:")) {
-                        id = id.substring(4);
-                    }
+        if (attachments != null && !attachments.isEmpty()) {
+            // The ids of the attachments covered by a ref
+            final Set<String> covered = new HashSet<>();
+            for (WSDataRef r : refs) {
+                String id = r.getWsuId();
+                if (id != null && id.startsWith("cid:")) {
+                    id = id.substring(4);
+                }
 
-                    if (r.isAttachment() && attachment.getId() != null && attachment.getId().equals(id)
-                        && (CoverageType.ENCRYPTED == type || r.getTransformAlgorithms() != null
-                        && r.getTransformAlgorithms().contains(requiredTransform))) {
-                        matched = true;
-                        break;
-                    }
+                if (r.isAttachment() && id != null
+                    && (CoverageType.ENCRYPTED == type || r.getTransformAlgorithms() != null
+                    && r.getTransformAlgorithms().contains(requiredTransform))) {
+                    covered.add(id);
                 }
+            }
 
-                // We looked through all of the refs, but the element was not signed/encrypted
-                if (!matched) {
+            for (org.apache.cxf.message.Attachment attachment : attachments) {
+                // The attachment was not signed/encrypted
+                if (attachment.getId() == null || !covered.contains(attachment.getId())) {
                     throw new WSSecurityException(WSSecurityException.ErrorCode.FAILURE,
                             new Exception("The " + getCoverageTypeString(type)
                             + " does not cover the required elements"));
@@ -215,8 +222,10 @@ public final class CryptoCoverageUtil {
             elements = DOMUtils.getChildrenWithName(soapHeader, namespace, name);
         }
 
+        final Set<Element> protectedElements = elements.size() > 1
+            ? getProtectedElements(refs, scope) : null;
         for (Element el : elements) {
-            if (!CryptoCoverageUtil.matchElement(refs, scope, el)) {
+            if (!CryptoCoverageUtil.matchElement(refs, protectedElements, scope, el)) {
                 throw new WSSecurityException(WSSecurityException.ErrorCode.FAILURE,
                         new Exception("The " + getCoverageTypeString(type)
                         + " does not cover the required elements ({"
@@ -322,6 +331,9 @@ public final class CryptoCoverageUtil {
             CoverageScope scope
     ) throws WSSecurityException {
 
+        // The protected elements, indexed when more than one element is checked
+        Set<Element> protectedElements = null;
+
         // For each XPath
         for (String xpathString : xPaths) {
             // Get the matching nodes
@@ -338,13 +350,17 @@ public final class CryptoCoverageUtil {
 
             // If we found nodes then we need to do the check.
             if (list.getLength() != 0) {
+                if (protectedElements == null && (list.getLength() > 1 || xPaths.size() > 1)) {
+                    protectedElements = getProtectedElements(refs, scope);
+                }
                 // For each matching element, check for a ref that
                 // covers it.
                 for (int x = 0; x < list.getLength(); x++) {
 
                     final Element el = (Element)list.item(x);
 
-                    boolean instanceMatched = CryptoCoverageUtil.matchElement(refs, scope, el);
+                    boolean instanceMatched =
+                        CryptoCoverageUtil.matchElement(refs, protectedElements, scope, el);
 
                     // We looked through all of the refs, but the element was
                     // not signed.
@@ -359,20 +375,15 @@ public final class CryptoCoverageUtil {
         }
     }
 
-    private static boolean matchElement(Collection<WSDataRef> refs, CoverageScope scope, Element el) {
+    private static boolean matchElement(Collection<WSDataRef> refs, Set<Element> protectedElements,
+                                        CoverageScope scope, Element el) {
         if (el == null) {
             return false;
         }
-        final boolean content;
-
-        switch (scope) {
-        case CONTENT:
-            content = true;
-            break;
-        case ELEMENT:
-        default:
-            content = false;
+        if (protectedElements != null) {
+            return protectedElements.contains(el);
         }
+        final boolean content = isContent(scope);
 
         for (WSDataRef r : refs) {
             // If the element is the same object instance
@@ -385,6 +396,30 @@ public final class CryptoCoverageUtil {
         return false;
     }
 
+    /**
+     * Returns the elements protected by the refs with the given scope, by identity
+     */
+    private static Set<Element> getProtectedElements(Collection<WSDataRef> refs, CoverageScope scope) {
+        final boolean content = isContent(scope);
+        final Set<Element> elements = Collections.newSetFromMap(new IdentityHashMap<>(refs.size()));
+        for (WSDataRef r : refs) {
+            if (r.getProtectedElement() != null && r.isContent() == content) {
+                elements.add(r.getProtectedElement());
+            }
+        }
+        return elements;
+    }
+
+    private static boolean isContent(CoverageScope scope) {
+        switch (scope) {
+        case CONTENT:
+            return true;
+        case ELEMENT:
+        default:
+            return false;
+        }
+    }
+
     private static String getCoverageTypeString(CoverageType type) {
         String typeString;
 
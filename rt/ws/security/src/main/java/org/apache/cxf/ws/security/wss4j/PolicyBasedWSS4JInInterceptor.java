@@ -68,9 +68,6 @@ import org.apache.wss4j.policy.SP12Constants;
 import org.apache.wss4j.policy.SP13Constants;
 import org.apache.wss4j.policy.SPConstants;
 import org.apache.wss4j.policy.model.AlgorithmSuite;
-import org.apache.wss4j.policy.model.UsernameToken;
-import org.apache.wss4j.policy.model.UsernameToken.PasswordType;
-import org.apache.wss4j.policy.model.Wss11;
 
 /**
  *
@@ -157,20 +154,10 @@ public class PolicyBasedWSS4JInInterceptor extends WSS4JInInterceptor {
         return false;
     }
 
-    private void handleWSS11(AssertionInfoMap aim, SoapMessage message) {
+    private void handleWSS11(SecurityPolicyPlan plan, SoapMessage message) {
         if (isRequestor(message)) {
-            message.put(ConfigurationConstants.ENABLE_SIGNATURE_CONFIRMATION, "false");
-            Collection<AssertionInfo> ais =
-                PolicyUtils.getAllAssertionsByLocalname(aim, SPConstants.WSS11);
-            if (!ais.isEmpty()) {
-                for (AssertionInfo ai : ais) {
-                    Wss11 wss11 = (Wss11)ai.getAssertion();
-                    if (wss11.isRequireSignatureConfirmation()) {
-                        message.put(ConfigurationConstants.ENABLE_SIGNATURE_CONFIRMATION, "true");
-                        break;
-                    }
-                }
-            }
+            message.put(ConfigurationConstants.ENABLE_SIGNATURE_CONFIRMATION,
+                        Boolean.toString(plan.isSignatureConfirmation()));
         }
     }
 
@@ -185,10 +172,9 @@ public class PolicyBasedWSS4JInInterceptor extends WSS4JInInterceptor {
     }
 
     private String checkAsymmetricBinding(
-        AssertionInfoMap aim, String action, SoapMessage message, RequestData data
+        SecurityPolicyPlan plan, String action, SoapMessage message, RequestData data
     ) throws WSSecurityException {
-        AssertionInfo ai = PolicyUtils.getFirstAssertionByLocalname(aim, SPConstants.ASYMMETRIC_BINDING);
-        if (ai == null) {
+        if (!plan.isAsymmetricBinding()) {
             return action;
         }
 
@@ -276,14 +262,7 @@ public class PolicyBasedWSS4JInInterceptor extends WSS4JInInterceptor {
     @Override
     protected boolean isNonceCacheRequired(List<Integer> actions, SoapMessage msg) {
         AssertionInfoMap aim = msg.get(AssertionInfoMap.class);
-        if (aim != null) {
-            AssertionInfo ai = PolicyUtils.getFirstAssertionByLocalname(aim, SPConstants.USERNAME_TOKEN);
-            if (ai != null) {
-                return true;
-            }
-        }
-
-        return false;
+        return aim != null && SecurityPolicyPlan.get(msg, aim).isUsernameToken();
     }
 
     /**
@@ -292,14 +271,7 @@ public class PolicyBasedWSS4JInInterceptor extends WSS4JInInterceptor {
     @Override
     protected boolean isTimestampCacheRequired(List<Integer> actions, SoapMessage msg) {
         AssertionInfoMap aim = msg.get(AssertionInfoMap.class);
-        if (aim != null) {
-            AssertionInfo ai = PolicyUtils.getFirstAssertionByLocalname(aim, SPConstants.INCLUDE_TIMESTAMP);
-            if (ai != null) {
-                return true;
-            }
-        }
-
-        return false;
+        return aim != null && SecurityPolicyPlan.get(msg, aim).isIncludeTimestamp();
     }
 
     /**
@@ -308,37 +280,19 @@ public class PolicyBasedWSS4JInInterceptor extends WSS4JInInterceptor {
     @Override
     protected boolean isSamlCacheRequired(List<Integer> actions, SoapMessage msg) {
         AssertionInfoMap aim = msg.get(AssertionInfoMap.class);
-        if (aim != null) {
-            AssertionInfo ai = PolicyUtils.getFirstAssertionByLocalname(aim, SPConstants.SAML_TOKEN);
-            if (ai != null) {
-                return true;
-            }
-        }
-
-        return false;
+        return aim != null && SecurityPolicyPlan.get(msg, aim).isSamlToken();
     }
 
-    private void checkUsernameToken(
-        AssertionInfoMap aim, SoapMessage message
-    ) throws WSSecurityException {
-        Collection<AssertionInfo> ais =
-            PolicyUtils.getAllAssertionsByLocalname(aim, SPConstants.USERNAME_TOKEN);
-
-        if (!ais.isEmpty()) {
-            for (AssertionInfo ai : ais) {
-                UsernameToken policy = (UsernameToken)ai.getAssertion();
-                if (policy.getPasswordType() == PasswordType.NoPassword) {
-                    message.put(ConfigurationConstants.ALLOW_USERNAMETOKEN_NOPASSWORD, "true");
-                }
-            }
+    private void checkUsernameToken(SecurityPolicyPlan plan, SoapMessage message) {
+        if (plan.isUsernameTokenNoPassword()) {
+            message.put(ConfigurationConstants.ALLOW_USERNAMETOKEN_NOPASSWORD, "true");
         }
     }
 
     private String checkSymmetricBinding(
-        AssertionInfoMap aim, String action, SoapMessage message, RequestData data
+        SecurityPolicyPlan plan, String action, SoapMessage message, RequestData data
     ) throws WSSecurityException {
-        AssertionInfo ai = PolicyUtils.getFirstAssertionByLocalname(aim, SPConstants.SYMMETRIC_BINDING);
-        if (ai == null) {
+        if (!plan.isSymmetricBinding()) {
             return action;
         }
 
@@ -472,12 +426,14 @@ public class PolicyBasedWSS4JInInterceptor extends WSS4JInInterceptor {
         }
         AssertionInfoMap aim = message.get(AssertionInfoMap.class);
         if (aim != null) {
+            // the parts of the setup which only depend on the policy are computed once
+            SecurityPolicyPlan plan = SecurityPolicyPlan.get(message, aim);
+
             //things that DO impact setup
-            handleWSS11(aim, message);
-            action = checkAsymmetricBinding(aim, action, message, data);
-            action = checkSymmetricBinding(aim, action, message, data);
-            Collection<AssertionInfo> ais = aim.get(SP12Constants.TRANSPORT_BINDING);
-            if ("".equals(action) || (ais != null && !ais.isEmpty())) {
+            handleWSS11(plan, message);
+            action = checkAsymmetricBinding(plan, action, message, data);
+            action = checkSymmetricBinding(plan, action, message, data);
+            if ("".equals(action) || plan.isTransportBinding()) {
                 action = checkDefaultBinding(action, message, data);
             }
 
@@ -487,33 +443,25 @@ public class PolicyBasedWSS4JInInterceptor extends WSS4JInInterceptor {
             String symSignatureAlgorithm =
                 (String)message.getContextualProperty(SecurityConstants.SYMMETRIC_SIGNATURE_ALGORITHM);
             if (asymSignatureAlgorithm != null || symSignatureAlgorithm != null) {
-                Collection<AssertionInfo> algorithmSuites =
-                    PolicyUtils.getAllAssertionsByLocalname(aim, SPConstants.ALGORITHM_SUITE);
-                if (!algorithmSuites.isEmpty()) {
-                    for (AssertionInfo algorithmSuite : algorithmSuites) {
-                        AlgorithmSuite algSuite = (AlgorithmSuite)algorithmSuite.getAssertion();
-                        if (asymSignatureAlgorithm != null) {
-                            algSuite.getAlgorithmSuiteType().setAsymmetricSignature(asymSignatureAlgorithm);
-                        }
-                        if (symSignatureAlgorithm != null) {
-                            algSuite.getAlgorithmSuiteType().setSymmetricSignature(symSignatureAlgorithm);
-                        }
+                for (AlgorithmSuite algSuite : plan.getAlgorithmSuites()) {
+                    if (asymSignatureAlgorithm != null) {
+                        algSuite.getAlgorithmSuiteType().setAsymmetricSignature(asymSignatureAlgorithm);
+                    }
+                    if (symSignatureAlgorithm != null) {
+                        algSuite.getAlgorithmSuiteType().setSymmetricSignature(symSignatureAlgorithm);
                     }
                 }
             }
 
-            checkUsernameToken(aim, message);
+            checkUsernameToken(plan, message);
 
             // stuff we can default to asserted and un-assert if a condition isn't met
             PolicyUtils.assertPolicy(aim, SPConstants.KEY_VALUE_TOKEN);
             PolicyUtils.assertPolicy(aim, SPConstants.RSA_KEY_VALUE);
 
             // WSS10
-            ais = PolicyUtils.getAllAssertionsByLocalname(aim, SPConstants.WSS10);
-            if (!ais.isEmpty()) {
-                for (AssertionInfo ai : ais) {
-                    ai.setAsserted(true);
-                }
+            if (plan.isWss10()) {
+                PolicyUtils.assertPolicy(aim, SPConstants.WSS10);
                 PolicyUtils.assertPolicy(aim, SPConstants.MUST_SUPPORT_REF_KEY_IDENTIFIER);
                 PolicyUtils.assertPolicy(aim, SPConstants.MUST_SUPPORT_REF_ISSUER_SERIAL);
                 PolicyUtils.assertPolicy(aim, SPConstants.MUST_SUPPORT_REF_EXTERNAL_URI);
@@ -521,12 +469,9 @@ public class PolicyBasedWSS4JInInterceptor extends WSS4JInInterceptor {
             }
 
             // Trust 1.0
-            ais = PolicyUtils.getAllAssertionsByLocalname(aim, SPConstants.TRUST_10);
             boolean trust10Asserted = false;
-            if (!ais.isEmpty()) {
-                for (AssertionInfo ai : ais) {
-                    ai.setAsserted(true);
-                }
+            if (plan.isTrust10()) {
+                PolicyUtils.assertPolicy(aim, SPConstants.TRUST_10);
                 PolicyUtils.assertPolicy(aim, SPConstants.MUST_SUPPORT_CLIENT_CHALLENGE);
                 PolicyUtils.assertPolicy(aim, SPConstants.MUST_SUPPORT_SERVER_CHALLENGE);
                 PolicyUtils.assertPolicy(aim, SPConstants.REQUIRE_CLIENT_ENTROPY);
@@ -536,11 +481,8 @@ public class PolicyBasedWSS4JInInterceptor extends WSS4JInInterceptor {
             }
 
             // Trust 1.3
-            ais = PolicyUtils.getAllAssertionsByLocalname(aim, SPConstants.TRUST_13);
-            if (!ais.isEmpty()) {
-                for (AssertionInfo ai : ais) {
-                    ai.setAsserted(true);
-                }
+            if (plan.isTrust13()) {
+                PolicyUtils.assertPolicy(aim, SPConstants.TRUST_13);
                 PolicyUtils.assertPolicy(aim, SP12Constants.REQUIRE_REQUEST_SECURITY_TOKEN_COLLECTION);
                 PolicyUtils.assertPolicy(aim, SP12Constants.REQUIRE_APPLIES_TO);
                 PolicyUtils.assertPolicy(aim, SP13Constants.SCOPE_POLICY_15);
@@ -0,0 +1,294 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.ws.security.wss4j;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.xml.namespace.QName;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.endpoint.Endpoint;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageUtils;
+import org.apache.cxf.service.model.AbstractPropertiesHolder;
+import org.apache.cxf.service.model.BindingOperationInfo;
+import org.apache.cxf.ws.policy.AssertionInfo;
+import org.apache.cxf.ws.policy.AssertionInfoMap;
+import org.apache.cxf.ws.policy.EffectivePolicy;
+import org.apache.cxf.ws.policy.EndpointPolicy;
+import org.apache.cxf.ws.policy.PolicyEngine;
+import org.apache.cxf.ws.security.policy.PolicyUtils;
+import org.apache.neethi.Policy;
+import org.apache.wss4j.policy.SP11Constants;
+import org.apache.wss4j.policy.SP12Constants;
+import org.apache.wss4j.policy.SPConstants;
+import org.apache.wss4j.policy.model.AlgorithmSuite;
+import org.apache.wss4j.policy.model.UsernameToken;
+import org.apache.wss4j.policy.model.UsernameToken.PasswordType;
+import org.apache.wss4j.policy.model.Wss10;
+import org.apache.wss4j.policy.model.Wss11;
+
+/**
+ * The parts of the security configuration which only depend on the effective policy, and not
+ * on the content of the message. The AssertionInfoMap is recreated for each message, but its
+ * assertions come from a policy which the policy engine computes once, so the plan is cached
+ * on the operation, or on the endpoint if the operation is not known yet, for each effective
+ * Policy instance. It is used by the inbound setup, the outbound binding builders and the
+ * policy validators instead of looking the assertions up again.
+ */
+public final class SecurityPolicyPlan {
+    private static final String PLAN_CACHE = SecurityPolicyPlan.class.getName() + ".cache";
+    private static final String PLAN_AIM = SecurityPolicyPlan.class.getName() + ".aim";
+    // the number of effective policies cached for an endpoint or operation, e.g. with a policy override
+    private static final int MAX_PLANS = 16;
+
+    private final int assertionTypes;
+    private final Set<String> localnames = new HashSet<>();
+    private final boolean asymmetricBinding;
+    private final boolean symmetricBinding;
+    private final boolean transportBinding;
+    private final boolean signatureConfirmation;
+    private final boolean usernameToken;
+    private final boolean usernameTokenNoPassword;
+    private final boolean includeTimestamp;
+    private final boolean samlToken;
+    private final boolean wss10;
+    private final boolean trust10;
+    private final boolean trust13;
+    private final Wss10 wss10Assertion;
+    private final List<AlgorithmSuite> algorithmSuites = new ArrayList<>(1);
+
+    private SecurityPolicyPlan(AssertionInfoMap aim) {
+        assertionTypes = aim.size();
+        for (Map.Entry<QName, Collection<AssertionInfo>> entry : aim.entrySet()) {
+            String ns = entry.getKey().getNamespaceURI();
+            if ((SP11Constants.SP_NS.equals(ns) || SP12Constants.SP_NS.equals(ns))
+                && entry.getValue() != null && !entry.getValue().isEmpty()) {
+                localnames.add(entry.getKey().getLocalPart());
+            }
+        }
+        asymmetricBinding = hasAssertion(SPConstants.ASYMMETRIC_BINDING);
+        symmetricBinding = hasAssertion(SPConstants.SYMMETRIC_BINDING);
+        Collection<AssertionInfo> ais = aim.get(SP12Constants.TRANSPORT_BINDING);
+        transportBinding = ais != null && !ais.isEmpty();
+
+        boolean confirmation = false;
+        for (AssertionInfo ai : PolicyUtils.getAllAssertionsByLocalname(aim, SPConstants.WSS11)) {
+            if (((Wss11)ai.getAssertion()).isRequireSignatureConfirmation()) {
+                confirmation = true;
+                break;
+            }
+        }
+        signatureConfirmation = confirmation;
+
+        boolean noPassword = false;
+        ais = PolicyUtils.getAllAssertionsByLocalname(aim, SPConstants.USERNAME_TOKEN);
+        for (AssertionInfo ai : ais) {
+            if (((UsernameToken)ai.getAssertion()).getPasswordType() == PasswordType.NoPassword) {
+                noPassword = true;
+                break;
+            }
+        }
+        usernameToken = !ais.isEmpty();
+        usernameTokenNoPassword = noPassword;
+
+        includeTimestamp = hasAssertion(SPConstants.INCLUDE_TIMESTAMP);
+        samlToken = hasAssertion(SPConstants.SAML_TOKEN);
+        wss10 = hasAssertion(SPConstants.WSS10);
+        trust10 = hasAssertion(SPConstants.TRUST_10);
+        trust13 = hasAssertion(SPConstants.TRUST_13);
+
+        AssertionInfo ai = PolicyUtils.getFirstAssertionByLocalname(aim, SPConstants.WSS10);
+        if (ai == null) {
+            ai = PolicyUtils.getFirstAssertionByLocalname(aim, SPConstants.WSS11);
+        }
+        wss10Assertion = ai == null ? null : (Wss10)ai.getAssertion();
+
+        for (AssertionInfo alg : PolicyUtils.getAllAssertionsByLocalname(aim, SPConstants.ALGORITHM_SUITE)) {
+            algorithmSuites.add((AlgorithmSuite)alg.getAssertion());
+        }
+    }
+
+    /**
+     * Returns the plan for the assertions of the message. It is looked up in the cache of the
+     * operation or endpoint for the effective policy of the message, and computed if it is
+     * not cached or if the assertions of the message do not come from that policy.
+     */
+    public static SecurityPolicyPlan get(Message message, AssertionInfoMap aim) {
+        SecurityPolicyPlan plan = message.get(SecurityPolicyPlan.class);
+        if (plan != null && message.get(PLAN_AIM) == aim) {
+            return plan;
+        }
+
+        Policy policy = getEffectivePolicy(message);
+        AbstractPropertiesHolder holder = getCacheHolder(message);
+        if (policy == null || holder == null) {
+            plan = new SecurityPolicyPlan(aim);
+        } else {
+            Map<Policy, SecurityPolicyPlan> cache = getCache(holder, MessageUtils.isOutbound(message));
+            plan = cache.get(policy);
+            // the assertions of the message may have been replaced, e.g. once a secure
+            // conversation is negotiated
+            if (plan == null || plan.assertionTypes != aim.size()) {
+                plan = new SecurityPolicyPlan(aim);
+                if (cache.size() < MAX_PLANS) {
+                    cache.putIfAbsent(policy, plan);
+                }
+            }
+        }
+        message.put(SecurityPolicyPlan.class, plan);
+        message.put(PLAN_AIM, aim);
+        return plan;
+    }
+
+    /**
+     * Returns the policy the AssertionInfoMap of the message was built from by the policy
+     * interceptors, or null if it is not known
+     */
+    private static Policy getEffectivePolicy(Message message) {
+        EffectivePolicy effectivePolicy = message.get(EffectivePolicy.class);
+        if (effectivePolicy != null) {
+            return effectivePolicy.getPolicy();
+        }
+        Exchange exchange = message.getExchange();
+        Bus bus = exchange == null ? null : exchange.getBus();
+        PolicyEngine pe = bus == null ? null : bus.getExtension(PolicyEngine.class);
+        Endpoint endpoint = exchange == null ? null : exchange.getEndpoint();
+        if (pe == null || endpoint == null || MessageUtils.isOutbound(message)) {
+            return null;
+        }
+        if (MessageUtils.isRequestor(message)) {
+            BindingOperationInfo boi = exchange.getBindingOperationInfo();
+            if (boi != null) {
+                effectivePolicy = pe.getEffectiveClientResponsePolicy(endpoint.getEndpointInfo(), boi, message);
+                return effectivePolicy == null ? null : effectivePolicy.getPolicy();
+            }
+            EndpointPolicy ep =
+                pe.getClientEndpointPolicy(endpoint.getEndpointInfo(), exchange.getConduit(message), message);
+            return ep == null ? null : ep.getPolicy();
+        }
+        EndpointPolicy ep =
+            pe.getServerEndpointPolicy(endpoint.getEndpointInfo(), exchange.getDestination(), message);
+        return ep == null ? null : ep.getPolicy();
+    }
+
+    private static AbstractPropertiesHolder getCacheHolder(Message message) {
+        Exchange exchange = message.getExchange();
+        if (exchange == null) {
+            return null;
+        }
+        BindingOperationInfo boi = exchange.getBindingOperationInfo();
+        if (boi != null) {
+            return boi;
+        }
+        Endpoint endpoint = exchange.getEndpoint();
+        return endpoint == null ? null : endpoint.getEndpointInfo();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Policy, SecurityPolicyPlan> getCache(AbstractPropertiesHolder holder, boolean outbound) {
+        String name = outbound ? PLAN_CACHE + ".out" : PLAN_CACHE + ".in";
+        Map<Policy, SecurityPolicyPlan> cache = (Map<Policy, SecurityPolicyPlan>)holder.getProperty(name);
+        if (cache == null) {
+            synchronized (holder) {
+                cache = (Map<Policy, SecurityPolicyPlan>)holder.getProperty(name);
+                if (cache == null) {
+                    // neethi policies are compared by identity
+                    cache = new ConcurrentHashMap<>(4);
+                    holder.setProperty(name, cache);
+                }
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Returns true if there is an assertion with the given local name in the SP 1.1 or
+     * SP 1.2 namespace
+     */
+    public boolean hasAssertion(String localname) {
+        return localnames.contains(localname);
+    }
+
+    /**
+     * Returns the Wss10 assertion, or the Wss11 one if there is no Wss10 assertion
+     */
+    public Wss10 getWss10() {
+        return wss10Assertion;
+    }
+
+    public boolean isAsymmetricBinding() {
+        return asymmetricBinding;
+    }
+
+    public boolean isSymmetricBinding() {
+        return symmetricBinding;
+    }
+
+    /**
+     * Returns true if there is a SP 1.2 TransportBinding
+     */
+    public boolean isTransportBinding() {
+        return transportBinding;
+    }
+
+    public boolean isSignatureConfirmation() {
+        return signatureConfirmation;
+    }
+
+    public boolean isUsernameToken() {
+        return usernameToken;
+    }
+
+    public boolean isUsernameTokenNoPassword() {
+        return usernameTokenNoPassword;
+    }
+
+    public boolean isIncludeTimestamp() {
+        return includeTimestamp;
+    }
+
+    public boolean isSamlToken() {
+        return samlToken;
+    }
+
+    public boolean isWss10() {
+        return wss10;
+    }
+
+    public boolean isTrust10() {
+        return trust10;
+    }
+
+    public boolean isTrust13() {
+        return trust13;
+    }
+
+    public List<AlgorithmSuite> getAlgorithmSuites() {
+        return algorithmSuites;
+    }
+}
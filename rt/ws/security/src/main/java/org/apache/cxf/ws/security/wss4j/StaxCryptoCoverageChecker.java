@@ -18,7 +18,9 @@
  */
 package org.apache.cxf.ws.security.wss4j;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import javax.xml.namespace.QName;
@@ -27,12 +29,15 @@ import org.apache.cxf.binding.soap.SoapFault;
 import org.apache.cxf.binding.soap.SoapMessage;
 import org.apache.cxf.binding.soap.SoapVersion;
 import org.apache.cxf.interceptor.Fault;
+import org.apache.cxf.message.Attachment;
 import org.apache.cxf.phase.AbstractPhaseInterceptor;
 import org.apache.cxf.phase.Phase;
 import org.apache.cxf.ws.addressing.AddressingProperties;
 import org.apache.cxf.ws.addressing.Names;
 import org.apache.wss4j.common.ext.WSSecurityException;
 import org.apache.wss4j.dom.WSConstants;
+import org.apache.wss4j.stax.securityEvent.EncryptedPartSecurityEvent;
+import org.apache.wss4j.stax.securityEvent.SignedPartSecurityEvent;
 import org.apache.wss4j.stax.securityEvent.WSSecurityEventConstants;
 import org.apache.xml.security.stax.securityEvent.AbstractSecuredElementSecurityEvent;
 import org.apache.xml.security.stax.securityEvent.SecurityEvent;
@@ -42,7 +47,9 @@ import org.apache.xml.security.stax.securityEvent.SecurityEventConstants.Event;
  * This interceptor handles parsing the StaX WS-Security results (events) + checks that the
  * specified crypto coverage events actually occurred. The default functionality is to enforce
  * that the SOAP Body, Timestamp, and WS-Addressing ReplyTo and FaultTo headers must be signed,
- * and the UsernameToken must be encrypted (if they exist in the message payload).
+ * and the UsernameToken must be encrypted (if they exist in the message payload). The coverage
+ * of the SwA/MTOM attachments can be enforced as well, in which case every attachment must have
+ * been verified or decrypted by WSS4J, as recorded by the AttachmentCoverageCallbackHandler.
  *
  * Note that this interceptor must be explicitly added to the InInterceptor chain.
  */
@@ -59,6 +66,8 @@ public class StaxCryptoCoverageChecker extends AbstractPhaseInterceptor<SoapMess
     private boolean signAddressingHeaders;
     private boolean signUsernameToken;
     private boolean encryptUsernameToken;
+    private boolean signAttachments;
+    private boolean encryptAttachments;
 
     public StaxCryptoCoverageChecker() {
         super(Phase.PRE_PROTOCOL);
@@ -91,7 +100,7 @@ public class StaxCryptoCoverageChecker extends AbstractPhaseInterceptor<SoapMess
             results.addAll(
                 getEventFromResults(WSSecurityEventConstants.SignedElement, incomingSecurityEventList));
 
-            if (encryptBody || encryptUsernameToken) {
+            if (encryptBody || encryptUsernameToken || encryptAttachments) {
                 results.addAll(
                     getEventFromResults(WSSecurityEventConstants.ENCRYPTED_PART, incomingSecurityEventList));
                 results.addAll(
@@ -102,6 +111,7 @@ public class StaxCryptoCoverageChecker extends AbstractPhaseInterceptor<SoapMess
         try {
             checkSignedBody(results);
             checkEncryptedBody(results);
+            checkAttachments(results, soapMessage);
 
             if (signTimestamp) {
                 // We only insist on the Timestamp being signed if it is actually present in the message
@@ -200,6 +210,49 @@ public class StaxCryptoCoverageChecker extends AbstractPhaseInterceptor<SoapMess
         }
     }
 
+    private void checkAttachments(
+        List<SecurityEvent> results, SoapMessage message
+    ) throws WSSecurityException {
+        Collection<Attachment> attachments = message.getAttachments();
+        if (!(signAttachments || encryptAttachments) || attachments == null || attachments.isEmpty()) {
+            return;
+        }
+
+        boolean signed = false;
+        boolean encrypted = false;
+        for (SecurityEvent event : results) {
+            if (event instanceof SignedPartSecurityEvent
+                && ((SignedPartSecurityEvent)event).isAttachment()
+                && ((SignedPartSecurityEvent)event).isSigned()) {
+                signed = true;
+            } else if (event instanceof EncryptedPartSecurityEvent
+                && ((EncryptedPartSecurityEvent)event).isAttachment()
+                && ((EncryptedPartSecurityEvent)event).isEncrypted()) {
+                encrypted = true;
+            }
+        }
+
+        // The events do not carry the Content-ID of their attachment, so every attachment is
+        // matched against the ids recorded while WSS4J verified or decrypted the attachments
+        AttachmentCoverageCallbackHandler coverage = message.get(AttachmentCoverageCallbackHandler.class);
+        try {
+            for (Attachment attachment : attachments) {
+                if (signAttachments
+                    && !(signed && coverage != null && coverage.isSigned(attachment.getId()))) {
+                    throw new WSSecurityException(WSSecurityException.ErrorCode.FAILURE,
+                        new Exception("The attachment " + attachment.getId() + " is not signed"));
+                }
+                if (encryptAttachments
+                    && !(encrypted && coverage != null && coverage.isEncrypted(attachment.getId()))) {
+                    throw new WSSecurityException(WSSecurityException.ErrorCode.FAILURE,
+                        new Exception("The attachment " + attachment.getId() + " is not encrypted"));
+                }
+            }
+        } catch (IOException ex) {
+            throw new WSSecurityException(WSSecurityException.ErrorCode.FAILURE, ex);
+        }
+    }
+
     private void checkSignedTimestamp(List<SecurityEvent> results) throws WSSecurityException {
         if (!signTimestamp) {
             return;
@@ -450,4 +503,26 @@ public class StaxCryptoCoverageChecker extends AbstractPhaseInterceptor<SoapMess
     public final void setEncryptUsernameToken(boolean encryptUsernameToken) {
         this.encryptUsernameToken = encryptUsernameToken;
     }
+
+    public boolean isSignAttachments() {
+        return signAttachments;
+    }
+
+    /**
+     * Enforce that every attachment of the message is signed
+     */
+    public void setSignAttachments(boolean signAttachments) {
+        this.signAttachments = signAttachments;
+    }
+
+    public boolean isEncryptAttachments() {
+        return encryptAttachments;
+    }
+
+    /**
+     * Enforce that every attachment of the message is encrypted
+     */
+    public void setEncryptAttachments(boolean encryptAttachments) {
+        this.encryptAttachments = encryptAttachments;
+    }
 }
@@ -130,6 +130,11 @@ public class WSS4JStaxInInterceptor extends AbstractWSS4JStaxInterceptor {
             if (secProps.getAttachmentCallbackHandler() == null) {
                 secProps.setAttachmentCallbackHandler(new AttachmentCallbackHandler(soapMessage));
             }
+            // record the attachments covered by the signature and the encryption
+            final AttachmentCoverageCallbackHandler attachmentCoverage =
+                new AttachmentCoverageCallbackHandler(secProps.getAttachmentCallbackHandler());
+            secProps.setAttachmentCallbackHandler(attachmentCoverage);
+            soapMessage.put(AttachmentCoverageCallbackHandler.class, attachmentCoverage);
 
             final TokenStoreCallbackHandler callbackHandler =
                 new TokenStoreCallbackHandler(
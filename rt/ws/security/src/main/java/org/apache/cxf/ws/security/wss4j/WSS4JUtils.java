@@ -47,6 +47,7 @@ import org.apache.cxf.rt.security.utils.SecurityUtils;
 import org.apache.cxf.service.model.EndpointInfo;
 import org.apache.cxf.ws.security.SecurityConstants;
 import org.apache.cxf.ws.security.cache.CXFEHCacheReplayCache;
+import org.apache.cxf.ws.security.cache.CompactReplayCache;
 import org.apache.cxf.ws.security.cache.jcache.CXFJCacheReplayCache;
 import org.apache.cxf.ws.security.tokenstore.SecurityToken;
 import org.apache.cxf.ws.security.tokenstore.TokenStoreException;
@@ -104,7 +105,8 @@ public final class WSS4JUtils {
      *
      * It tries to get an instance of ReplayCache via the instanceKey argument from a
      * contextual property, and failing that the message exchange. If it can't find any, then it
-     * defaults to using an EH-Cache instance and stores that on the message exchange.
+     * defaults to using a CompactReplayCache if it is enabled, or else an EH-Cache instance, and
+     * stores that on the message exchange.
      */
     public static ReplayCache getReplayCache(
         SoapMessage message, String booleanKey, String instanceKey
@@ -139,7 +141,12 @@ public final class WSS4JUtils {
                             cacheKey += "-" + hashcode;
                         }
                     }
-                    if (WSS4JCacheUtil.isEhCacheInstalled()) {
+                    if (MessageUtils.getContextualBoolean(
+                        message, SecurityConstants.ENABLE_COMPACT_REPLAY_CACHE)) {
+                        boolean offHeap = MessageUtils.getContextualBoolean(
+                            message, SecurityConstants.COMPACT_REPLAY_CACHE_OFF_HEAP);
+                        replayCache = new CompactReplayCache(1024, offHeap);
+                    } else if (WSS4JCacheUtil.isEhCacheInstalled()) {
                         Bus bus = message.getExchange().getBus();
                         final Path diskstoreParent;
                         try {
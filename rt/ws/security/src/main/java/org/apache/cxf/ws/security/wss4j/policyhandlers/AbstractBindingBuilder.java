@@ -82,6 +82,7 @@ import org.apache.cxf.ws.security.tokenstore.TokenStoreException;
 import org.apache.cxf.ws.security.tokenstore.TokenStoreUtils;
 import org.apache.cxf.ws.security.wss4j.AttachmentCallbackHandler;
 import org.apache.cxf.ws.security.wss4j.CXFCallbackLookup;
+import org.apache.cxf.ws.security.wss4j.SecurityPolicyPlan;
 import org.apache.cxf.ws.security.wss4j.WSS4JUtils;
 import org.apache.cxf.wsdl.WSDLConstants;
 import org.apache.neethi.Assertion;
@@ -2175,38 +2176,46 @@ public abstract class AbstractBindingBuilder extends AbstractCommonBindingHandle
         addSig(sig.getSignatureValue());
     }
 
+    private Collection<AssertionInfo> getSupportingTokens(SecurityPolicyPlan plan, String localname) {
+        if (!plan.hasAssertion(localname)) {
+            return null;
+        }
+        return PolicyUtils.getAllAssertionsByLocalname(aim, localname);
+    }
+
     protected void addSupportingTokens(List<WSEncryptionPart> sigs) throws WSSecurityException {
+        SecurityPolicyPlan plan = SecurityPolicyPlan.get(message, aim);
         Collection<AssertionInfo> sgndSuppTokens =
-            PolicyUtils.getAllAssertionsByLocalname(aim, SPConstants.SIGNED_SUPPORTING_TOKENS);
+            getSupportingTokens(plan, SPConstants.SIGNED_SUPPORTING_TOKENS);
         List<SupportingToken> sigSuppTokList = this.handleSupportingTokens(sgndSuppTokens, false);
 
         Collection<AssertionInfo> endSuppTokens =
-            PolicyUtils.getAllAssertionsByLocalname(aim, SPConstants.ENDORSING_SUPPORTING_TOKENS);
+            getSupportingTokens(plan, SPConstants.ENDORSING_SUPPORTING_TOKENS);
         endSuppTokList = this.handleSupportingTokens(endSuppTokens, true);
 
         Collection<AssertionInfo> sgndEndSuppTokens =
-            PolicyUtils.getAllAssertionsByLocalname(aim, SPConstants.SIGNED_ENDORSING_SUPPORTING_TOKENS);
+            getSupportingTokens(plan, SPConstants.SIGNED_ENDORSING_SUPPORTING_TOKENS);
         sgndEndSuppTokList = this.handleSupportingTokens(sgndEndSuppTokens, true);
 
         Collection<AssertionInfo> sgndEncryptedSuppTokens =
-            PolicyUtils.getAllAssertionsByLocalname(aim, SPConstants.SIGNED_ENCRYPTED_SUPPORTING_TOKENS);
+            getSupportingTokens(plan, SPConstants.SIGNED_ENCRYPTED_SUPPORTING_TOKENS);
         List<SupportingToken> sgndEncSuppTokList
             = this.handleSupportingTokens(sgndEncryptedSuppTokens, false);
 
         Collection<AssertionInfo> endorsingEncryptedSuppTokens =
-            PolicyUtils.getAllAssertionsByLocalname(aim, SPConstants.ENDORSING_ENCRYPTED_SUPPORTING_TOKENS);
+            getSupportingTokens(plan, SPConstants.ENDORSING_ENCRYPTED_SUPPORTING_TOKENS);
         endSuppTokList.addAll(this.handleSupportingTokens(endorsingEncryptedSuppTokens, true));
 
         Collection<AssertionInfo> sgndEndEncSuppTokens =
-            PolicyUtils.getAllAssertionsByLocalname(aim, SPConstants.SIGNED_ENDORSING_ENCRYPTED_SUPPORTING_TOKENS);
+            getSupportingTokens(plan, SPConstants.SIGNED_ENDORSING_ENCRYPTED_SUPPORTING_TOKENS);
         sgndEndSuppTokList.addAll(this.handleSupportingTokens(sgndEndEncSuppTokens, true));
 
         Collection<AssertionInfo> supportingToks =
-            PolicyUtils.getAllAssertionsByLocalname(aim, SPConstants.SUPPORTING_TOKENS);
+            getSupportingTokens(plan, SPConstants.SUPPORTING_TOKENS);
         this.handleSupportingTokens(supportingToks, false);
 
         Collection<AssertionInfo> encryptedSupportingToks =
-            PolicyUtils.getAllAssertionsByLocalname(aim, SPConstants.ENCRYPTED_SUPPORTING_TOKENS);
+            getSupportingTokens(plan, SPConstants.ENCRYPTED_SUPPORTING_TOKENS);
         this.handleSupportingTokens(encryptedSupportingToks, false);
 
         //Setup signature parts
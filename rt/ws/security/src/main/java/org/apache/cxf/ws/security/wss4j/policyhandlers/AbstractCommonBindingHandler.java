@@ -37,6 +37,7 @@ import org.apache.cxf.ws.security.policy.PolicyUtils;
 import org.apache.cxf.ws.security.tokenstore.SecurityToken;
 import org.apache.cxf.ws.security.tokenstore.TokenStoreException;
 import org.apache.cxf.ws.security.tokenstore.TokenStoreUtils;
+import org.apache.cxf.ws.security.wss4j.SecurityPolicyPlan;
 import org.apache.neethi.Assertion;
 import org.apache.wss4j.policy.SP13Constants;
 import org.apache.wss4j.policy.SPConstants;
@@ -438,15 +439,7 @@ public abstract class AbstractCommonBindingHandler {
 
     protected Wss10 getWss10() {
         AssertionInfoMap aim = message.get(AssertionInfoMap.class);
-        AssertionInfo ai = PolicyUtils.getFirstAssertionByLocalname(aim, SPConstants.WSS10);
-        if (ai == null) {
-            ai = PolicyUtils.getFirstAssertionByLocalname(aim, SPConstants.WSS11);
-        }
-
-        if (ai != null) {
-            return (Wss10)ai.getAssertion();
-        }
-        return null;
+        return SecurityPolicyPlan.get(message, aim).getWss10();
     }
 
     protected SecurityToken getSecurityToken() throws TokenStoreException {
@@ -23,7 +23,7 @@ import java.util.Collection;
 import java.util.List;
 
 import org.apache.cxf.ws.policy.AssertionInfo;
-import org.apache.cxf.ws.security.policy.PolicyUtils;
+import org.apache.cxf.ws.security.wss4j.SecurityPolicyPlan;
 import org.apache.wss4j.policy.SP12Constants;
 import org.apache.wss4j.policy.SPConstants;
 import org.apache.wss4j.policy.model.AbstractToken;
@@ -57,10 +57,9 @@ public class EncryptedTokenPolicyValidator extends AbstractSupportingTokenPolicy
     public void validatePolicies(PolicyValidatorParameters parameters, Collection<AssertionInfo> ais) {
         // Tokens must be encrypted even if TLS is used unless we have a TransportBinding policy available
         if (isTLSInUse(parameters.getMessage())) {
-            AssertionInfo transportAi =
-                PolicyUtils.getFirstAssertionByLocalname(parameters.getAssertionInfoMap(),
-                                                         SPConstants.TRANSPORT_BINDING);
-            super.setEnforceEncryptedTokens(transportAi == null);
+            SecurityPolicyPlan plan =
+                SecurityPolicyPlan.get(parameters.getMessage(), parameters.getAssertionInfoMap());
+            super.setEnforceEncryptedTokens(!plan.hasAssertion(SPConstants.TRANSPORT_BINDING));
         }
 
         for (AssertionInfo ai : ais) {
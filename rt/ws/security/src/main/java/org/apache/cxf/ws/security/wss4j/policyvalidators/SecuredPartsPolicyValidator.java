@@ -32,6 +32,7 @@ import org.apache.cxf.ws.security.policy.PolicyUtils;
 import org.apache.cxf.ws.security.wss4j.CryptoCoverageUtil;
 import org.apache.cxf.ws.security.wss4j.CryptoCoverageUtil.CoverageScope;
 import org.apache.cxf.ws.security.wss4j.CryptoCoverageUtil.CoverageType;
+import org.apache.cxf.ws.security.wss4j.SecurityPolicyPlan;
 import org.apache.wss4j.common.ext.WSSecurityException;
 import org.apache.wss4j.dom.WSDataRef;
 import org.apache.wss4j.policy.SP11Constants;
@@ -142,18 +143,12 @@ public class SecuredPartsPolicyValidator implements SecurityPolicyValidator {
     }
 
     private boolean isTransportBinding(AssertionInfoMap aim, Message message) {
-        AssertionInfo symAis = PolicyUtils.getFirstAssertionByLocalname(aim, SPConstants.SYMMETRIC_BINDING);
-        if (symAis != null) {
+        SecurityPolicyPlan plan = SecurityPolicyPlan.get(message, aim);
+        if (plan.isSymmetricBinding() || plan.isAsymmetricBinding()) {
             return false;
         }
 
-        AssertionInfo asymAis = PolicyUtils.getFirstAssertionByLocalname(aim, SPConstants.ASYMMETRIC_BINDING);
-        if (asymAis != null) {
-            return false;
-        }
-
-        AssertionInfo transAis = PolicyUtils.getFirstAssertionByLocalname(aim, SPConstants.TRANSPORT_BINDING);
-        if (transAis != null) {
+        if (plan.hasAssertion(SPConstants.TRANSPORT_BINDING)) {
             return true;
         }
 
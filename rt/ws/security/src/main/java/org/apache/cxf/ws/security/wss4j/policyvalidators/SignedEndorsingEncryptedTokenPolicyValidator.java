@@ -25,7 +25,7 @@ import java.util.List;
 import javax.xml.namespace.QName;
 
 import org.apache.cxf.ws.policy.AssertionInfo;
-import org.apache.cxf.ws.security.policy.PolicyUtils;
+import org.apache.cxf.ws.security.wss4j.SecurityPolicyPlan;
 import org.apache.wss4j.dom.WSConstants;
 import org.apache.wss4j.policy.SP12Constants;
 import org.apache.wss4j.policy.SPConstants;
@@ -62,10 +62,9 @@ public class SignedEndorsingEncryptedTokenPolicyValidator extends AbstractSuppor
     public void validatePolicies(PolicyValidatorParameters parameters, Collection<AssertionInfo> ais) {
         // Tokens must be encrypted even if TLS is used unless we have a TransportBinding policy available
         if (isTLSInUse(parameters.getMessage())) {
-            AssertionInfo transportAi =
-                PolicyUtils.getFirstAssertionByLocalname(parameters.getAssertionInfoMap(),
-                                                         SPConstants.TRANSPORT_BINDING);
-            super.setEnforceEncryptedTokens(transportAi == null);
+            SecurityPolicyPlan plan =
+                SecurityPolicyPlan.get(parameters.getMessage(), parameters.getAssertionInfoMap());
+            super.setEnforceEncryptedTokens(!plan.hasAssertion(SPConstants.TRANSPORT_BINDING));
         }
 
         for (AssertionInfo ai : ais) {
@@ -0,0 +1,89 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.ws.security.cache;
+
+import java.time.Instant;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CompactReplayCacheTest {
+
+    @Test
+    public void testAddAndContains() {
+        for (boolean offHeap : new boolean[] {false, true}) {
+            CompactReplayCache cache = new CompactReplayCache(16, offHeap);
+            for (int i = 0; i < 50_000; i++) {
+                cache.add("nonce" + i);
+            }
+            for (int i = 0; i < 50_000; i++) {
+                assertTrue(cache.contains("nonce" + i));
+            }
+            assertFalse(cache.contains("nonce50000"));
+            assertFalse(cache.contains(""));
+            assertEquals(50_000, cache.size());
+
+            cache.close();
+            assertFalse(cache.contains("nonce0"));
+            assertEquals(0, cache.size());
+        }
+    }
+
+    @Test
+    public void testExpiry() {
+        TestClockReplayCache cache = new TestClockReplayCache();
+        cache.add("default");
+        cache.add("custom", Instant.ofEpochSecond(cache.time + 60L));
+        // out of range, so the default TTL is used
+        cache.add("past", Instant.ofEpochSecond(cache.time - 60L));
+
+        cache.time += 60L;
+        assertTrue(cache.contains("custom"));
+        cache.time += 1L;
+        assertFalse(cache.contains("custom"));
+        assertTrue(cache.contains("past"));
+
+        cache.time += CompactReplayCache.DEFAULT_TTL;
+        assertFalse(cache.contains("default"));
+        assertFalse(cache.contains("past"));
+
+        // the expired identifiers are dropped when the tables are rebuilt
+        for (int i = 0; i < 10_000; i++) {
+            cache.add("nonce" + i);
+        }
+        assertEquals(10_000, cache.size());
+    }
+
+    private static final class TestClockReplayCache extends CompactReplayCache {
+        private long time = 1_000_000L;
+
+        TestClockReplayCache() {
+            super(16, false);
+        }
+
+        @Override
+        protected long currentTime() {
+            return time;
+        }
+    }
+}
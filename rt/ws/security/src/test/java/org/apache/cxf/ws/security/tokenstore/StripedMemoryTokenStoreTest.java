@@ -0,0 +1,141 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.ws.security.tokenstore;
+
+import java.util.Collections;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class StripedMemoryTokenStoreTest {
+
+    @Test
+    public void testLeastRecentlyUsedTokenIsEvicted() {
+        StripedMemoryTokenStore store = new StripedMemoryTokenStore(2, 1);
+        store.add(new SecurityToken("token1"));
+        store.add(new SecurityToken("token2"));
+        assertNotNull(store.getToken("token1"));
+        store.add(new SecurityToken("token3"));
+
+        assertNull(store.getToken("token2"));
+        assertNotNull(store.getToken("token1"));
+        assertNotNull(store.getToken("token3"));
+        assertEquals(2, store.size());
+        assertEquals(1, store.getEvictionCount());
+    }
+
+    @Test
+    public void testStoreIsBounded() {
+        StripedMemoryTokenStore store = new StripedMemoryTokenStore(1000, 16);
+        for (int i = 0; i < 10_000; i++) {
+            store.add(new SecurityToken("token" + i));
+        }
+        assertTrue(store.size() <= 1008);
+        assertEquals(10_000 - store.size(), store.getEvictionCount());
+    }
+
+    @Test
+    public void testTokensExpire() {
+        TestClockStore store = new TestClockStore();
+        store.setTTL(10);
+        store.add(new SecurityToken("token1"));
+        store.time += 5;
+        store.add(new SecurityToken("token2"));
+
+        store.time += 5;
+        assertNull(store.getToken("token1"));
+        assertEquals(Collections.singletonList("token2"), store.getTokenIdentifiers());
+        assertEquals(1, store.size());
+        assertNotNull(store.getToken("token2"));
+
+        // the wheel is advanced after a long idle time
+        store.time += 100_000;
+        assertTrue(store.getTokenIdentifiers().isEmpty());
+        assertEquals(0, store.size());
+        assertEquals(2, store.getExpirationCount());
+        assertEquals(1, store.getHitCount());
+        assertEquals(1, store.getMissCount());
+    }
+
+    @Test
+    public void testReplacedTokenIsNotExpiredEarly() {
+        TestClockStore store = new TestClockStore();
+        store.setTTL(10);
+        store.add(new SecurityToken("token"));
+        store.time += 8;
+        SecurityToken replacement = new SecurityToken("token");
+        store.add(replacement);
+
+        store.time += 4;
+        assertSame(replacement, store.getToken("token"));
+        store.time += 6;
+        assertNull(store.getToken("token"));
+        assertEquals(1, store.getExpirationCount());
+    }
+
+    @Test
+    public void testWheelDoesNotKeepRemovedTokens() {
+        TestClockStore store = new TestClockStore();
+        for (int i = 0; i < 100; i++) {
+            store.add(new SecurityToken("token" + i));
+        }
+        assertEquals(100, store.getWheelSize());
+
+        // replaced tokens
+        store.time += 1;
+        for (int i = 0; i < 100; i++) {
+            store.add(new SecurityToken("token" + i));
+        }
+        assertEquals(100, store.getWheelSize());
+
+        // removed tokens
+        for (int i = 0; i < 50; i++) {
+            store.remove("token" + i);
+        }
+        assertEquals(50, store.size());
+        assertEquals(50, store.getWheelSize());
+
+        // evicted tokens
+        StripedMemoryTokenStore bounded = new StripedMemoryTokenStore(100, 4);
+        for (int i = 0; i < 10_000; i++) {
+            bounded.add(new SecurityToken("token" + i));
+        }
+        assertEquals(bounded.size(), bounded.getWheelSize());
+
+        // expired tokens
+        store.time += MemoryTokenStore.DEFAULT_TTL + 1;
+        assertTrue(store.getTokenIdentifiers().isEmpty());
+        assertEquals(0, store.getWheelSize());
+    }
+
+    private static final class TestClockStore extends StripedMemoryTokenStore {
+        private long time = 1_000_000;
+
+        @Override
+        protected long currentTime() {
+            return time;
+        }
+    }
+}
@@ -52,6 +52,8 @@ public class TokenStoreTest {
         message.setExchange(new ExchangeImpl());
         return Arrays.asList(
                 new MemoryTokenStoreFactory().newTokenStore(SecurityConstants.TOKEN_STORE_CACHE_INSTANCE, message),
+                new StripedMemoryTokenStoreFactory().newTokenStore(SecurityConstants.TOKEN_STORE_CACHE_INSTANCE,
+                    message),
                 new EHCacheTokenStoreFactory().newTokenStore(SecurityConstants.TOKEN_STORE_CACHE_INSTANCE, 
                     withConfigFile(message, "cxf-ehcache.xml")),
                 new JCacheTokenStoreFactory().newTokenStore(SecurityConstants.TOKEN_STORE_CACHE_INSTANCE, 
@@ -0,0 +1,193 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.ws.security.trust;
+
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.w3c.dom.Element;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.BusFactory;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.ws.security.SecurityConstants;
+import org.apache.cxf.ws.security.tokenstore.SecurityToken;
+import org.apache.cxf.ws.security.trust.STSTokenRetriever.TokenRequestParams;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class STSTokenRetrieverTest {
+
+    private Bus bus;
+    private RenewingSTSClient client;
+    private EndpointTokenCacher cacher;
+
+    @Before
+    public void setUp() {
+        bus = BusFactory.getDefaultBus();
+        client = new RenewingSTSClient(bus);
+        cacher = new EndpointTokenCacher();
+    }
+
+    @After
+    public void tearDown() {
+        bus.shutdown(true);
+    }
+
+    @Test
+    public void testValidTokenReturnedWithoutLockingClient() throws Exception {
+        SecurityToken tok = new SecurityToken("valid", Instant.now(), Instant.now().plusSeconds(3600));
+        cacher.token = tok;
+        Message message = createMessage();
+
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            executor.execute(() -> {
+                synchronized (client) {
+                    locked.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            locked.await();
+
+            Future<SecurityToken> result = executor.submit(
+                () -> STSTokenRetriever.getToken(message, new TokenRequestParams(), cacher));
+            assertSame(tok, result.get(10, TimeUnit.SECONDS));
+            assertEquals(0, client.renewals.get());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testTokenRenewedAheadOfExpiry() throws Exception {
+        SecurityToken tok = new SecurityToken("expiring", Instant.now(), Instant.now().plusSeconds(30));
+        cacher.token = tok;
+        Message message = createMessage();
+        message.put(SecurityConstants.STS_TOKEN_PREFETCH_VALUE, "60");
+
+        // The request goes on with the current token while it is renewed in the background
+        assertSame(tok, STSTokenRetriever.getToken(message, new TokenRequestParams(), cacher));
+
+        long deadline = System.currentTimeMillis() + 10000L;
+        while ((cacher.token == null || cacher.token == tok) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10L);
+        }
+        assertEquals("renewed", cacher.token.getId());
+        assertSame(tok, cacher.removed);
+        assertEquals(1, client.renewals.get());
+
+        // The renewed token is used without another renewal
+        assertSame(cacher.token, STSTokenRetriever.getToken(message, new TokenRequestParams(), cacher));
+        assertEquals(1, client.renewals.get());
+    }
+
+    @Test
+    public void testTokenNotRenewedBeforePrefetchValue() throws Exception {
+        SecurityToken tok = new SecurityToken("valid", Instant.now(), Instant.now().plusSeconds(3600));
+        cacher.token = tok;
+        Message message = createMessage();
+        message.put(SecurityConstants.STS_TOKEN_PREFETCH_VALUE, "60");
+
+        assertSame(tok, STSTokenRetriever.getToken(message, new TokenRequestParams(), cacher));
+        assertNull(cacher.removed);
+        assertEquals(0, client.renewals.get());
+    }
+
+    private Message createMessage() {
+        Exchange exchange = new ExchangeImpl();
+        exchange.put(Bus.class, bus);
+        Message message = new MessageImpl();
+        message.setExchange(exchange);
+        exchange.setOutMessage(message);
+        message.put(Message.ENDPOINT_ADDRESS, "https://localhost:8080/service");
+        message.put(SecurityConstants.STS_CLIENT, client);
+        return message;
+    }
+
+    private static final class RenewingSTSClient extends STSClient {
+        private final AtomicInteger renewals = new AtomicInteger();
+
+        RenewingSTSClient(Bus b) {
+            super(b);
+        }
+
+        @Override
+        public SecurityToken renewSecurityToken(SecurityToken tok) {
+            renewals.incrementAndGet();
+            return new SecurityToken("renewed", Instant.now(), Instant.now().plusSeconds(3600));
+        }
+    }
+
+    private static final class EndpointTokenCacher implements STSTokenCacher {
+        private volatile SecurityToken token;
+        private volatile SecurityToken removed;
+
+        @Override
+        public SecurityToken retrieveToken(Message message, boolean retrieveTokenFromEndpoint) {
+            return retrieveTokenFromEndpoint ? token : null;
+        }
+
+        @Override
+        public SecurityToken retrieveToken(Message message, Element delegationToken, String cacheKey) {
+            return null;
+        }
+
+        @Override
+        public void storeToken(Message message, SecurityToken securityToken, boolean storeTokenInEndpoint) {
+            if (storeTokenInEndpoint) {
+                token = securityToken;
+            }
+        }
+
+        @Override
+        public void storeToken(Message message, Element delegationToken, String secTokenId, String cacheKey) {
+            // no-op
+        }
+
+        @Override
+        public void removeToken(Message message, SecurityToken securityToken) {
+            removed = securityToken;
+            if (token == securityToken) {
+                token = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.ws.security.wss4j;
+
+import org.apache.cxf.endpoint.Endpoint;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.service.model.EndpointInfo;
+import org.apache.cxf.ws.policy.AssertionInfoMap;
+import org.apache.cxf.ws.policy.EffectivePolicy;
+import org.apache.neethi.Policy;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SecurityPolicyPlanTest extends AbstractPolicySecurityTest {
+
+    @Test
+    public void testPlanComputedOncePerMessage() throws Exception {
+        Message message = new MessageImpl();
+        AssertionInfoMap aim = getAssertionInfoMap("signed_elements_policy.xml");
+        SecurityPolicyPlan plan = SecurityPolicyPlan.get(message, aim);
+        assertTrue(plan.isAsymmetricBinding());
+        assertFalse(plan.isSymmetricBinding());
+        assertFalse(plan.isTransportBinding());
+        assertFalse(plan.isUsernameToken());
+        assertFalse(plan.getAlgorithmSuites().isEmpty());
+        assertSame(plan, SecurityPolicyPlan.get(message, aim));
+    }
+
+    @Test
+    public void testPlanRecomputedForOtherAssertions() throws Exception {
+        Message message = new MessageImpl();
+        SecurityPolicyPlan plan =
+            SecurityPolicyPlan.get(message, getAssertionInfoMap("signed_elements_policy.xml"));
+        assertTrue(plan.isAsymmetricBinding());
+
+        // the assertions of the message are replaced, e.g. once a secure conversation is negotiated
+        SecurityPolicyPlan transport =
+            SecurityPolicyPlan.get(message, getAssertionInfoMap("transport_binding_policy.xml"));
+        assertNotSame(plan, transport);
+        assertTrue(transport.isTransportBinding());
+        assertFalse(transport.isAsymmetricBinding());
+        assertSame(transport, message.get(SecurityPolicyPlan.class));
+    }
+
+    @Test
+    public void testPlanSharedByMessagesOfEndpoint() throws Exception {
+        EndpointInfo endpointInfo = new EndpointInfo();
+        Policy policy = policyBuilder.getPolicy(this.getResourceAsStream("signed_elements_policy.xml"));
+
+        // each message has its own assertions for the effective policy of the endpoint
+        Message first = createMessage(endpointInfo, policy);
+        SecurityPolicyPlan plan = SecurityPolicyPlan.get(first, new AssertionInfoMap(policy));
+        assertTrue(plan.isAsymmetricBinding());
+        Message second = createMessage(endpointInfo, policy);
+        assertSame(plan, SecurityPolicyPlan.get(second, new AssertionInfoMap(policy)));
+
+        Policy other = policyBuilder.getPolicy(this.getResourceAsStream("transport_binding_policy.xml"));
+        Message third = createMessage(endpointInfo, other);
+        SecurityPolicyPlan transport = SecurityPolicyPlan.get(third, new AssertionInfoMap(other));
+        assertNotSame(plan, transport);
+        assertTrue(transport.isTransportBinding());
+    }
+
+    private static Message createMessage(EndpointInfo endpointInfo, Policy policy) {
+        Endpoint endpoint = mock(Endpoint.class);
+        when(endpoint.getEndpointInfo()).thenReturn(endpointInfo);
+        EffectivePolicy effectivePolicy = mock(EffectivePolicy.class);
+        when(effectivePolicy.getPolicy()).thenReturn(policy);
+
+        Message message = new MessageImpl();
+        Exchange exchange = new ExchangeImpl();
+        exchange.put(Endpoint.class, endpoint);
+        message.setExchange(exchange);
+        message.put(EffectivePolicy.class, effectivePolicy);
+        return message;
+    }
+
+    private AssertionInfoMap getAssertionInfoMap(String policyName) throws Exception {
+        return new AssertionInfoMap(policyBuilder.getPolicy(this.getResourceAsStream(policyName)));
+    }
+}
@@ -19,11 +19,17 @@
 package org.apache.cxf.ws.security.wss4j;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
 
+import javax.security.auth.callback.Callback;
 import javax.xml.namespace.QName;
 
+import org.apache.cxf.attachment.AttachmentImpl;
+import org.apache.cxf.binding.soap.Soap11;
+import org.apache.cxf.binding.soap.SoapFault;
+import org.apache.cxf.binding.soap.SoapMessage;
 import org.apache.cxf.endpoint.Client;
 import org.apache.cxf.endpoint.Server;
 import org.apache.cxf.ext.logging.LoggingInInterceptor;
@@ -32,13 +38,19 @@ import org.apache.cxf.frontend.ClientProxy;
 import org.apache.cxf.helpers.JavaUtils;
 import org.apache.cxf.jaxws.JaxWsProxyFactoryBean;
 import org.apache.cxf.jaxws.JaxWsServerFactoryBean;
+import org.apache.cxf.message.Attachment;
 import org.apache.cxf.service.Service;
 import org.apache.cxf.transport.local.LocalTransportFactory;
 import org.apache.wss4j.common.crypto.CryptoFactory;
+import org.apache.wss4j.common.ext.AttachmentRequestCallback;
+import org.apache.wss4j.common.ext.AttachmentResultCallback;
 import org.apache.wss4j.stax.ext.WSSConstants;
 import org.apache.wss4j.stax.ext.WSSSecurityProperties;
+import org.apache.wss4j.stax.securityEvent.EncryptedPartSecurityEvent;
+import org.apache.wss4j.stax.securityEvent.SignedPartSecurityEvent;
 import org.apache.xml.security.stax.ext.SecurePart;
 import org.apache.xml.security.stax.ext.XMLSecurityConstants;
+import org.apache.xml.security.stax.securityEvent.SecurityEvent;
 
 import org.junit.Test;
 
@@ -445,6 +457,110 @@ public class StaxCryptoCoverageCheckerTest extends AbstractSecurityTest {
         assertEquals("test", echo.echo("test"));
     }
 
+    @Test
+    public void testAttachments() throws Exception {
+        StaxCryptoCoverageChecker checker = new StaxCryptoCoverageChecker();
+        checker.setSignBody(false);
+        checker.setSignTimestamp(false);
+        checker.setSignAddressingHeaders(false);
+        checker.setEncryptUsernameToken(false);
+        checker.setSignAttachments(true);
+        checker.setEncryptAttachments(true);
+
+        List<SecurityEvent> events = new ArrayList<>();
+        SignedPartSecurityEvent signedPart = new SignedPartSecurityEvent(null, true, null);
+        signedPart.setAttachment(true);
+        events.add(signedPart);
+        SoapMessage message = createMessage(events, "first");
+        verify(message, "first");
+        try {
+            checker.handleMessage(message);
+            fail("Failure expected as the attachment isn't encrypted");
+        } catch (SoapFault ex) {
+            // expected
+        }
+
+        EncryptedPartSecurityEvent encryptedPart = new EncryptedPartSecurityEvent(null, true, null);
+        encryptedPart.setAttachment(true);
+        events.add(encryptedPart);
+        message = createMessage(events, "first");
+        decrypt(message, "first");
+        verify(message, "first");
+        checker.handleMessage(message);
+
+        // a second attachment is not covered
+        message = createMessage(events, "first", "second");
+        decrypt(message, "first");
+        verify(message, "first");
+        try {
+            checker.handleMessage(message);
+            fail("Failure expected as the second attachment isn't signed");
+        } catch (SoapFault ex) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testAttachmentCoveredTwice() throws Exception {
+        StaxCryptoCoverageChecker checker = new StaxCryptoCoverageChecker();
+        checker.setSignBody(false);
+        checker.setSignTimestamp(false);
+        checker.setSignAddressingHeaders(false);
+        checker.setEncryptUsernameToken(false);
+        checker.setSignAttachments(true);
+
+        // as many signed attachment events as attachments, but both refer to the first one
+        List<SecurityEvent> events = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            SignedPartSecurityEvent signedPart = new SignedPartSecurityEvent(null, true, null);
+            signedPart.setAttachment(true);
+            events.add(signedPart);
+        }
+        SoapMessage message = createMessage(events, "first", "second");
+        verify(message, "first");
+        verify(message, "first");
+        try {
+            checker.handleMessage(message);
+            fail("Failure expected as the second attachment isn't signed");
+        } catch (SoapFault ex) {
+            // expected
+        }
+
+        message = createMessage(events, "first", "second");
+        verify(message, "first");
+        verify(message, "second");
+        checker.handleMessage(message);
+    }
+
+    private static SoapMessage createMessage(List<SecurityEvent> events, String... attachmentIds) {
+        SoapMessage message = new SoapMessage(Soap11.getInstance());
+        message.put(SecurityEvent.class.getName() + ".in", new ArrayList<>(events));
+        List<Attachment> attachments = new ArrayList<>();
+        for (String id : attachmentIds) {
+            attachments.add(new AttachmentImpl(id));
+        }
+        message.setAttachments(attachments);
+        message.put(AttachmentCoverageCallbackHandler.class, new AttachmentCoverageCallbackHandler(callbacks -> { }));
+        return message;
+    }
+
+    private static void verify(SoapMessage message, String attachmentId) throws Exception {
+        org.apache.wss4j.common.ext.Attachment attachment = new org.apache.wss4j.common.ext.Attachment();
+        attachment.setId(attachmentId);
+        AttachmentRequestCallback callback = new AttachmentRequestCallback();
+        callback.setAttachmentId(attachmentId);
+        callback.setRemoveAttachments(false);
+        callback.setAttachments(Collections.singletonList(attachment));
+        message.get(AttachmentCoverageCallbackHandler.class).handle(new Callback[] {callback});
+    }
+
+    private static void decrypt(SoapMessage message, String attachmentId) throws Exception {
+        AttachmentResultCallback callback = new AttachmentResultCallback();
+        callback.setAttachmentId(attachmentId);
+        callback.setAttachment(new org.apache.wss4j.common.ext.Attachment());
+        message.get(AttachmentCoverageCallbackHandler.class).handle(new Callback[] {callback});
+    }
+
     private Service createService() {
         // Create the Service
         JaxWsServerFactoryBean factory = new JaxWsServerFactoryBean();